@@ -0,0 +1,92 @@
+package com.estore.api.estoreapi;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Runs a set of JMH benchmarks once per thread count
+ * <p>
+ * JMH takes a single thread count per run, so this repeats the run for each count and
+ * writes one JSON result file per count into {@code target/jmh}, where runs before and
+ * after a change can be compared. Catalog sizes are passed on as the
+ * {@code catalogSize} parameter of the benchmarks that have one:
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec@benchmark-suite -Dsuite.args="InventoryDAOBenchmark|ControllerBenchmark 1,4,16 1000,100000"
+ * </pre>
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class BenchmarkSuite {
+    private static final String DEFAULT_INCLUDE = "com.estore.api.estoreapi.*";
+    private static final String DEFAULT_THREADS = "1,4";
+    private static final File RESULT_DIRECTORY = new File("target/jmh");
+
+    /**
+     * Runs the suite
+     *
+     * @param args Benchmark regex, comma separated thread counts and optionally
+     *             comma separated catalog sizes
+     * @throws RunnerException when a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : DEFAULT_INCLUDE;
+        String[] threadCounts = (args.length > 1 ? args[1] : DEFAULT_THREADS).split(",");
+        String[] catalogSizes = args.length > 2 ? args[2].split(",") : null;
+        List<RunResult> results = new ArrayList<>();
+
+        RESULT_DIRECTORY.mkdirs();
+
+        for (String threadCount : threadCounts) {
+            int threads = Integer.parseInt(threadCount.trim());
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(RESULT_DIRECTORY, "results-t" + threads + ".json").getPath());
+
+            if (catalogSizes != null) {
+                options.param("catalogSize", catalogSizes);
+            }
+
+            Collection<RunResult> run = new Runner(options.build()).run();
+            results.addAll(run);
+        }
+
+        System.out.println();
+        System.out.println("Benchmark, threads, params: score");
+
+        for (RunResult result : results) {
+            System.out.printf("%s, %d, %s: %.3f %s%n",
+                    result.getParams().getBenchmark(),
+                    result.getParams().getThreads(),
+                    result.getParams().getParamsKeys().isEmpty() ? "-" : paramsOf(result),
+                    result.getPrimaryResult().getScore(),
+                    result.getPrimaryResult().getScoreUnit());
+        }
+    }
+
+    /**
+     * Formats the parameters of a result
+     *
+     * @param result Result of one benchmark
+     * @return Parameters as key=value pairs
+     */
+    private static String paramsOf(RunResult result) {
+        List<String> params = new ArrayList<>();
+
+        for (String key : result.getParams().getParamsKeys()) {
+            params.add(key + "=" + result.getParams().getParam(key));
+        }
+
+        return String.join(" ", params);
+    }
+}
@@ -0,0 +1,151 @@
+package com.estore.api.estoreapi;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load test against a running API
+ * <p>
+ * Keeps {@code connections} requests in flight for {@code seconds}: every client sends
+ * its next request as soon as the previous one completes. Run it once against a server
+ * started normally and once against one started with
+ * {@code estore.virtual-threads.enabled=true} to compare the two execution modes:
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec@load-test -Dload.args="http://localhost:8080/inventory 5000 30"
+ * </pre>
+ * Mixing in writes ({@code writePercent}) sends {@code PATCH /{id}/quantity} requests,
+ * which hold DAO locks while the inventory file is written.
+ * <p>
+ * The virtual thread side of this comparison has not been run yet, it needs a JDK 21
+ * host, so there are no results to quote for either mode.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class ConcurrentLoadTest {
+    private final HttpClient client;
+    private final URI readUri;
+    private final String baseUrl;
+    private final int connections;
+    private final int writePercent;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private volatile long deadline;
+
+    /**
+     * Creates a load test
+     *
+     * @param baseUrl      Inventory URL, for example {@code http://localhost:8080/inventory}
+     * @param connections  Requests kept in flight at once
+     * @param writePercent Share of requests that change a product's stock, 0 to 100
+     */
+    public ConcurrentLoadTest(String baseUrl, int connections, int writePercent) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        this.baseUrl = baseUrl;
+        this.readUri = URI.create(baseUrl);
+        this.connections = connections;
+        this.writePercent = writePercent;
+    }
+
+    /**
+     * Runs the test and prints the result
+     *
+     * @param args Base URL, connections (default 5000), seconds (default 30),
+     *             write percentage (default 0)
+     *
+     * @throws InterruptedException when interrupted while waiting for clients
+     */
+    public static void main(String[] args) throws InterruptedException {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080/inventory";
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int writePercent = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        new ConcurrentLoadTest(baseUrl, connections, writePercent).run(seconds);
+    }
+
+    /**
+     * Drives the server for a number of seconds
+     *
+     * @param seconds Length of the measurement
+     *
+     * @throws InterruptedException when interrupted while waiting for clients
+     */
+    public void run(int seconds) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(connections);
+        long start = System.nanoTime();
+
+        deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+
+        for (int i = 0; i < connections; i++) {
+            send(i, done);
+        }
+
+        done.await();
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long ok = completed.sum();
+
+        System.out.printf("connections=%d seconds=%.1f completed=%d failed=%d%n", connections, elapsed, ok, failed.sum());
+        System.out.printf("throughput=%.0f req/s mean=%.1f ms max=%.1f ms%n", ok / elapsed,
+                ok == 0 ? 0.0 : latencyNanos.sum() / 1e6 / ok, maxLatencyNanos.get() / 1e6);
+    }
+
+    /**
+     * Sends the next request of a client, or retires the client once time is up
+     *
+     * @param client Client number
+     * @param done   Counted down when the client retires
+     */
+    private void send(int client, CountDownLatch done) {
+        if (System.nanoTime() - deadline >= 0) {
+            done.countDown();
+            return;
+        }
+
+        long sent = System.nanoTime();
+
+        this.client.sendAsync(nextRequest(client), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long latency = System.nanoTime() - sent;
+
+                    if (error == null && response.statusCode() < 500) {
+                        completed.increment();
+                        latencyNanos.add(latency);
+                        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+                    } else {
+                        failed.increment();
+                    }
+
+                    send(client, done);
+                });
+    }
+
+    /**
+     * Builds the next request of a client
+     *
+     * @param client Client number
+     * @return A catalog read, or a stock write for {@code writePercent} of requests
+     */
+    private HttpRequest nextRequest(int client) {
+        if (writePercent > 0 && Math.floorMod(client * 31 + completed.intValue(), 100) < writePercent) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/" + (client % 10 + 1) + "/quantity?delta=0"))
+                    .method("PATCH", HttpRequest.BodyPublishers.noBody())
+                    .timeout(Duration.ofSeconds(60))
+                    .build();
+        }
+
+        return HttpRequest.newBuilder(readUri).timeout(Duration.ofSeconds(60)).GET().build();
+    }
+}
@@ -0,0 +1,172 @@
+package com.estore.api.estoreapi.controller;
+
+import com.estore.api.estoreapi.EstoreApiApplication;
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.UserAccount;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Full request path benchmark through MockMvc
+ * <p>
+ * Starts the application with its real configuration, DAOs and message converters on
+ * files in a temporary directory holding {@code catalogSize} products and a thousand
+ * users, and sends requests through the dispatcher servlet without a network hop.
+ * Logins complete asynchronously and are dispatched a second time like in a server.
+ * Thread counts come from {@code -t} or from {@code BenchmarkSuite}.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerBenchmark {
+    private static final int USERS = 1000;
+
+    @Param({"1000", "100000"})
+    public int catalogSize;
+
+    @Param({"journal"})
+    public String persistence;
+
+    private final AtomicInteger created = new AtomicInteger();
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Product[] products = new Product[catalogSize];
+        UserAccount[] users = new UserAccount[USERS];
+
+        for (int id = 0; id < catalogSize; id++) {
+            products[id] = new Product("Product " + id, id, "Description of product " + id, 1 + id % 100, 1000);
+        }
+
+        for (int i = 0; i < USERS; i++) {
+            users[i] = new UserAccount("First" + i, "Last" + i, "user" + i, "password" + i);
+            users[i].setCart(Map.of(i % catalogSize, 1));
+        }
+
+        directory = Files.createTempDirectory("controller-bench");
+        objectMapper.writeValue(directory.resolve("inventory.json").toFile(), products);
+        objectMapper.writeValue(directory.resolve("users.json").toFile(), users);
+
+        context = new SpringApplicationBuilder(EstoreApiApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run("--server.port=0",
+                        "--inventory.file=" + directory.resolve("inventory.json"),
+                        "--inventory.persistence=" + persistence,
+                        "--users.file=" + directory.resolve("users.json"),
+                        "--users.password.iterations=1000");
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public int getInventory() throws Exception {
+        return perform(get("/inventory"));
+    }
+
+    @Benchmark
+    public int getProduct() throws Exception {
+        return perform(get("/inventory/" + ThreadLocalRandom.current().nextInt(catalogSize)));
+    }
+
+    @Benchmark
+    public int findProduct() throws Exception {
+        return perform(get("/inventory/").param("keyword", "product " + ThreadLocalRandom.current().nextInt(catalogSize) / 10));
+    }
+
+    @Benchmark
+    public int createProduct() throws Exception {
+        String body = "{\"name\":\"Benchmark product " + created.incrementAndGet() + "\",\"description\":\"Created\",\"price\":1,\"quantity\":1}";
+
+        return perform(post("/inventory").contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+
+    @Benchmark
+    public int logIn() throws Exception {
+        int i = ThreadLocalRandom.current().nextInt(USERS);
+
+        return perform(get("/user/user" + i + "/password" + i));
+    }
+
+    @Benchmark
+    public int getCart() throws Exception {
+        return perform(get("/user/cart/user" + ThreadLocalRandom.current().nextInt(USERS)));
+    }
+
+    /**
+     * Sends a request, finishing asynchronous handlers, and checks for a success status
+     *
+     * @param request Request to send
+     * @return Length of the response body
+     * @throws Exception when the request fails or does not succeed
+     */
+    private int perform(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+
+        MockHttpServletResponse response = result.getResponse();
+
+        if (response.getStatus() >= 300) {
+            throw new IllegalStateException("Status " + response.getStatus() + " for " + result.getRequest().getRequestURI());
+        }
+
+        return response.getContentLength() > 0 ? response.getContentLength() : response.getContentAsByteArray().length;
+    }
+}
@@ -0,0 +1,126 @@
+package com.estore.api.estoreapi.controller;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.jul.LevelChangePropagator;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.slf4j.bridge.SLF4JBridgeHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Cost of logging a request on the request thread
+ * <p>
+ * Routes java.util.logging into Logback like the application does and writes to a
+ * file. {@code concatenated} logs two INFO lines built by string concatenation per
+ * request, as the controllers used to; {@code sampled} logs through {@link RequestLog}
+ * with the default sample rate and the outcome line at FINE. The {@code appender}
+ * parameter writes on the calling thread ({@code sync}) or through the queue of
+ * {@code logback-spring.xml} ({@code async}).
+ *
+ * @author SWEN-261 Project Team One
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestLogBenchmark {
+    private static final Logger LOG = Logger.getLogger(RequestLogBenchmark.class.getName());
+
+    @Param({"sync", "async"})
+    public String appender;
+
+    private final RequestLog requestLog = new RequestLog(LOG, RequestLog.DEFAULT_SAMPLE_RATE);
+    private File file;
+    private LoggerContext context;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = Files.createTempFile("request-log", ".log").toFile();
+        context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        LevelChangePropagator propagator = new LevelChangePropagator();
+        propagator.setContext(context);
+        propagator.setResetJUL(true);
+        propagator.start();
+        context.addListener(propagator);
+
+        SLF4JBridgeHandler.removeHandlersForRootLogger();
+        SLF4JBridgeHandler.install();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} %5p --- [%t] %-40.40logger{39} : %m%n");
+        encoder.start();
+
+        FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+        fileAppender.setContext(context);
+        fileAppender.setFile(file.getPath());
+        fileAppender.setEncoder(encoder);
+        fileAppender.start();
+
+        Appender<ILoggingEvent> root = fileAppender;
+
+        if ("async".equals(appender)) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.addAppender(fileAppender);
+            async.start();
+            root = async;
+        }
+
+        ch.qos.logback.classic.Logger rootLogger = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        rootLogger.setLevel(ch.qos.logback.classic.Level.INFO);
+        rootLogger.addAppender(root);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.stop();
+        SLF4JBridgeHandler.uninstall();
+        file.delete();
+    }
+
+    @Benchmark
+    public void concatenated() {
+        int id = ThreadLocalRandom.current().nextInt(100_000);
+
+        LOG.info("GET /inventory/" + id);
+        LOG.info("Product found");
+    }
+
+    @Benchmark
+    public void sampled() {
+        int id = ThreadLocalRandom.current().nextInt(100_000);
+
+        requestLog.log("GET /inventory/{0,number,#}", id);
+        LOG.fine("Product found");
+    }
+}
@@ -0,0 +1,105 @@
+package com.estore.api.estoreapi.model;
+
+import com.estore.api.estoreapi.persistence.StoredUserAccount;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson cost of the files and bodies the API reads and writes
+ * <p>
+ * Serializes and parses {@code catalogSize} products and {@code catalogSize / 10}
+ * user accounts with three cart lines each, the shapes of the inventory and users files
+ * and of the GET /inventory body.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+    @Param({"1000", "100000"})
+    public int catalogSize;
+
+    private Product[] products;
+    private StoredUserAccount[] users;
+    private byte[] productJson;
+    private byte[] userJson;
+    private ObjectWriter productWriter;
+    private ObjectReader productReader;
+    private ObjectWriter userWriter;
+    private ObjectReader userReader;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        products = new Product[catalogSize];
+        UserAccount[] accounts = new UserAccount[Math.max(1, catalogSize / 10)];
+
+        for (int id = 0; id < products.length; id++) {
+            products[id] = new Product("Product " + id, id, "Description of product " + id, 1 + id % 100, 1000);
+        }
+
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = new UserAccount("First" + i, "Last" + i, "user" + i, null);
+            accounts[i].setPasswordHash("pbkdf2$1000$c2FsdA==$aGFzaA==");
+
+            Map<Integer, Integer> cart = new HashMap<>();
+
+            for (int line = 0; line < 3; line++) {
+                cart.put((i + line) % catalogSize, line + 1);
+            }
+
+            accounts[i].setCart(cart);
+        }
+
+        users = StoredUserAccount.of(accounts);
+
+        productWriter = objectMapper.writerFor(Product[].class);
+        productReader = objectMapper.readerFor(Product[].class);
+        userWriter = objectMapper.writerFor(StoredUserAccount[].class);
+        userReader = objectMapper.readerFor(StoredUserAccount[].class);
+        productJson = productWriter.writeValueAsBytes(products);
+        userJson = userWriter.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] writeProducts() throws IOException {
+        return productWriter.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public Product[] readProducts() throws IOException {
+        return productReader.readValue(productJson);
+    }
+
+    @Benchmark
+    public byte[] writeUsers() throws IOException {
+        return userWriter.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public StoredUserAccount[] readUsers() throws IOException {
+        return userReader.readValue(userJson);
+    }
+}
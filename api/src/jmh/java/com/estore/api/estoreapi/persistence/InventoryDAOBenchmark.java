@@ -0,0 +1,156 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Hot path benchmark for the {@link InventoryDAO} implementations
+ * <p>
+ * Every benchmark runs against a catalog of {@code catalogSize} products kept by the
+ * {@code store} selected the way {@code inventory.store} selects it. {@code json} stores
+ * persist with {@code persistence}, journal by default since a snapshot of a large
+ * catalog per write measures the file write rather than the DAO. {@code sharded} stores
+ * split the catalog into {@code shards} files and rewrite one shard per write with
+ * {@code persistence=snapshot}, any other value defers the writes to their flushers.
+ * {@code createProduct} adds a new product per call, so the catalog grows during that
+ * benchmark. {@code getInventoryAfter} reads one keyset page from a random cursor, and
+ * {@code getInventoryAfterWrite} adds and deletes a product before reading it, the cost
+ * of each page of a catalog stream while writers are active. Thread counts come from
+ * {@code -t} or from {@code BenchmarkSuite}.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InventoryDAOBenchmark {
+    private static final int PAGE_SIZE = 256;
+
+    @Param({"1000", "100000"})
+    public int catalogSize;
+
+    @Param({"json", "mapped", "sharded"})
+    public String store;
+
+    @Param({"8"})
+    public int shards;
+
+    @Param({"journal"})
+    public String persistence;
+
+    private final AtomicInteger created = new AtomicInteger();
+    private Path directory;
+    private InventoryDAO inventoryDAO;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Product[] products = new Product[catalogSize];
+
+        for (int id = 0; id < catalogSize; id++) {
+            products[id] = new Product("Product " + id, id, "Description of product " + id, 1 + id % 100, 1000);
+        }
+
+        directory = Files.createTempDirectory("inventory-bench");
+        File jsonFile = directory.resolve("inventory.json").toFile();
+        objectMapper.writeValue(jsonFile, products);
+
+        if ("mapped".equals(store)) {
+            inventoryDAO = new MappedInventoryDAO(objectMapper, jsonFile.getPath(),
+                    directory.resolve("inventory.bin").toString(), catalogSize);
+        } else if ("sharded".equals(store)) {
+            inventoryDAO = new ShardedInventoryDAO(objectMapper, jsonFile.getPath(), shards,
+                    "snapshot".equals(persistence) ? "snapshot" : "write-behind", 1000, 100, 0, "json");
+        } else {
+            inventoryDAO = new InventoryFileDAO(objectMapper, jsonFile.getPath(), persistence, 1000);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (inventoryDAO instanceof MappedInventoryDAO) {
+            ((MappedInventoryDAO) inventoryDAO).close();
+        } else if (inventoryDAO instanceof ShardedInventoryDAO) {
+            ((ShardedInventoryDAO) inventoryDAO).close();
+        } else {
+            ((InventoryFileDAO) inventoryDAO).close();
+        }
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Product getProduct() throws IOException {
+        return inventoryDAO.getProduct(randomId());
+    }
+
+    @Benchmark
+    public Product[] findProduct() throws IOException {
+        return inventoryDAO.findProduct("product " + randomId() / 10);
+    }
+
+    @Benchmark
+    public Product[] findProductShortKeyword() throws IOException {
+        return inventoryDAO.findProduct(Integer.toString(10 + randomId() % 90));
+    }
+
+    @Benchmark
+    public Product createProduct() throws IOException {
+        return inventoryDAO.createProduct(new Product("Benchmark product " + created.incrementAndGet(), 0, "Created", 1, 1));
+    }
+
+    @Benchmark
+    public Product updateProduct() throws IOException {
+        int id = randomId();
+
+        return inventoryDAO.updateProduct(new Product("Product " + id, id, "Updated description " + id, 2, 1000));
+    }
+
+    @Benchmark
+    public Product[] getInventoryAfter() {
+        return inventoryDAO.getInventoryAfter(randomId(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Product[] getInventoryAfterWrite() throws IOException {
+        Product product = inventoryDAO.createProduct(new Product("Paged product " + created.incrementAndGet(), 0, "Created", 1, 1));
+
+        inventoryDAO.deleteProduct(product.getId());
+
+        return inventoryDAO.getInventoryAfter(randomId(), PAGE_SIZE);
+    }
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(catalogSize);
+    }
+}
@@ -0,0 +1,92 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.util.IntObjectHashMap;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of loading the inventory file
+ * <p>
+ * {@code readArray} is the former load path, binding the whole file into a
+ * {@code Product[]} before filling the index. {@code stream} loads through
+ * {@link JsonArrayReader} with {@code loadThreads} binding threads, and
+ * {@code openDAO} constructs a whole {@link InventoryFileDAO} including its name and
+ * search indexes. Run with {@code -prof gc} to compare allocation.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class InventoryLoadBenchmark {
+    @Param({"100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"1", "4"})
+    public int loadThreads;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Product[] products = new Product[catalogSize];
+
+        for (int id = 0; id < catalogSize; id++) {
+            products[id] = new Product("Product " + id, id, "Description of product " + id, 1 + id % 100, 1000);
+        }
+
+        file = File.createTempFile("inventory-load", ".json");
+        objectMapper.writeValue(file, products);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public IntObjectHashMap<Product> readArray() throws IOException {
+        IntObjectHashMap<Product> inventory = new IntObjectHashMap<>();
+
+        for (Product product : objectMapper.readValue(file, Product[].class)) {
+            inventory.put(product.getId(), product);
+        }
+
+        return inventory;
+    }
+
+    @Benchmark
+    public IntObjectHashMap<Product> stream() throws IOException {
+        IntObjectHashMap<Product> inventory = new IntObjectHashMap<>();
+
+        new JsonArrayReader<>(objectMapper, Product.class, loadThreads).read(file, product -> inventory.put(product.getId(), product));
+
+        return inventory;
+    }
+
+    @Benchmark
+    public InventoryFileDAO openDAO() throws IOException {
+        return new InventoryFileDAO(objectMapper, file.getPath(), "snapshot", 1000, loadThreads);
+    }
+}
@@ -0,0 +1,95 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.UserAccount;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of the inventory and users files per {@link SnapshotFormat}
+ * <p>
+ * Products and accounts are serialized to and bound from byte arrays, so the file
+ * system is left out. The encoded size of both files is printed once per trial.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class SnapshotFormatBenchmark {
+    @Param({"json", "smile"})
+    public String format;
+
+    @Param({"100000"})
+    public int records;
+
+    private ObjectMapper mapper;
+    private Product[] products;
+    private StoredUserAccount[] users;
+    private byte[] encodedProducts;
+    private byte[] encodedUsers;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        mapper = SnapshotFormat.of(format).mapper(new ObjectMapper());
+        products = new Product[records];
+        UserAccount[] accounts = new UserAccount[records];
+
+        for (int id = 0; id < records; id++) {
+            products[id] = new Product("Product " + id, id, "Description of product " + id, 1 + id % 100, 1000);
+
+            Map<Integer, Integer> cart = new HashMap<>();
+            cart.put(id % 1000, 1 + id % 3);
+            cart.put((id + 7) % 1000, 2);
+
+            accounts[id] = new UserAccount("First " + id, "Last " + id, "user" + id, null);
+            accounts[id].setPasswordHash("pbkdf2-sha256$210000$c2FsdHNhbHRzYWx0c2FsdA$aGFzaGhhc2hoYXNoaGFzaGhhc2hoYXNoaGFzaGhhc2g");
+            accounts[id].setCart(cart);
+        }
+
+        users = StoredUserAccount.of(accounts);
+
+        encodedProducts = mapper.writeValueAsBytes(products);
+        encodedUsers = mapper.writeValueAsBytes(users);
+        System.out.printf("%n%s: products %d bytes, users %d bytes%n", format, encodedProducts.length, encodedUsers.length);
+    }
+
+    @Benchmark
+    public byte[] encodeProducts() throws IOException {
+        return mapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public Product[] decodeProducts() throws IOException {
+        return mapper.readValue(encodedProducts, Product[].class);
+    }
+
+    @Benchmark
+    public byte[] encodeUsers() throws IOException {
+        return mapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public StoredUserAccount[] decodeUsers() throws IOException {
+        return mapper.readValue(encodedUsers, StoredUserAccount[].class);
+    }
+}
@@ -0,0 +1,117 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.UserAccount;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention benchmark for {@link UsersFileDAO} logins and cart reads
+ * <p>
+ * {@code login} only reads, so its throughput should grow with the thread count given
+ * by {@code -t}. {@code mixed} runs three login threads next to one thread updating
+ * accounts, each update rewriting the users file, and shows that logins keep going
+ * while the file is written. Passwords are hashed with {@code passwordIterations} PBKDF2
+ * rounds, kept low by default so the benchmark measures locking rather than hashing.
+ * {@code getCart} reads the three line cart every account is given.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UsersLoginBenchmark {
+    @Param({"1000", "10000"})
+    public int users;
+
+    @Param({"1000"})
+    public int passwordIterations;
+
+    private File file;
+    private UsersFileDAO usersDAO;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        UserAccount[] accounts = new UserAccount[users];
+
+        for (int i = 0; i < users; i++) {
+            accounts[i] = new UserAccount("First" + i, "Last" + i, "user" + i, "password" + i);
+
+            Map<Integer, Integer> cart = new HashMap<>();
+
+            for (int line = 0; line < 3; line++) {
+                cart.put(i + line, line + 1);
+            }
+
+            accounts[i].setCart(cart);
+        }
+
+        file = Files.createTempFile("users-bench", ".json").toFile();
+        objectMapper.writeValue(file, accounts);
+        usersDAO = new UsersFileDAO(objectMapper, file.getPath(), "sync", 1000, 100, 1000, passwordIterations);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        usersDAO.close();
+        Files.deleteIfExists(file.toPath());
+        Files.deleteIfExists(new File(file.getPath() + ".carts").toPath());
+    }
+
+    @Benchmark
+    public boolean login() throws IOException {
+        return logInRandomUser();
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> getCart() throws IOException {
+        return usersDAO.getCart("user" + ThreadLocalRandom.current().nextInt(users));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public boolean mixedLogin() throws IOException {
+        return logInRandomUser();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public UserAccount mixedUpdate() throws IOException {
+        int i = ThreadLocalRandom.current().nextInt(users);
+
+        return usersDAO.updateUserAccount(new UserAccount("First" + i, "Last" + i, "user" + i, "password" + i));
+    }
+
+    private boolean logInRandomUser() throws IOException {
+        int i = ThreadLocalRandom.current().nextInt(users);
+
+        return usersDAO.logInUserAccount("user" + i, "password" + i);
+    }
+}
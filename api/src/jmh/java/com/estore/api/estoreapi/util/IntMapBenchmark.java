@@ -0,0 +1,164 @@
+package com.estore.api.estoreapi.util;
+
+import com.estore.api.estoreapi.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the primitive maps with the boxed maps they replace
+ * <p>
+ * The {@code lookup*} benchmarks fetch a random product by ID from a catalog of
+ * {@code catalogSize} products, as {@code getProduct} and every stock change do. The
+ * {@code cart*} benchmarks copy a cart of {@code cartSize} lines and change one, as
+ * every cart update does. The {@code pageAfterWrite*} benchmarks remove a random
+ * product, read the page of {@code pageSize} products after a random ID and put the
+ * product back, as a catalog stream does while writers are active. Run with
+ * {@code -prof gc} to compare allocation as well.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntMapBenchmark {
+    @Param({"1000", "1000000"})
+    public int catalogSize;
+
+    @Param({"8"})
+    public int cartSize;
+
+    @Param({"256"})
+    public int pageSize;
+
+    private TreeMap<Integer, Product> treeMap;
+    private ConcurrentSkipListMap<Integer, Product> skipListMap;
+    private HashMap<Integer, Product> hashMap;
+    private IntObjectHashMap<Product> intObjectMap;
+    private HashMap<Integer, Integer> boxedCart;
+    private IntIntHashMap intCart;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        treeMap = new TreeMap<>();
+        skipListMap = new ConcurrentSkipListMap<>();
+        hashMap = new HashMap<>();
+        intObjectMap = new IntObjectHashMap<>(catalogSize);
+
+        for (int id = 0; id < catalogSize; id++) {
+            Product product = new Product("Product " + id, id, "Description " + id, 1.0, 10);
+
+            treeMap.put(id, product);
+            skipListMap.put(id, product);
+            hashMap.put(id, product);
+            intObjectMap.put(id, product);
+        }
+
+        boxedCart = new HashMap<>();
+        intCart = new IntIntHashMap();
+
+        for (int line = 0; line < cartSize; line++) {
+            boxedCart.put(line * 37, line + 1);
+            intCart.put(line * 37, line + 1);
+        }
+    }
+
+    @Benchmark
+    public Product lookupTreeMap() {
+        return treeMap.get(randomId());
+    }
+
+    @Benchmark
+    public Product lookupSkipList() {
+        return skipListMap.get(randomId());
+    }
+
+    @Benchmark
+    public Product lookupHashMap() {
+        return hashMap.get(randomId());
+    }
+
+    @Benchmark
+    public Product lookupIntObjectHashMap() {
+        return intObjectMap.get(randomId());
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> cartHashMap() {
+        Map<Integer, Integer> cart = new HashMap<>(boxedCart);
+        int productId = randomLine();
+
+        cart.put(productId, cart.getOrDefault(productId, 0) + 1);
+
+        return cart;
+    }
+
+    @Benchmark
+    public IntIntHashMap cartIntIntHashMap() {
+        IntIntHashMap cart = intCart.copy();
+        int productId = randomLine();
+
+        cart.put(productId, cart.getOrDefault(productId, 0) + 1);
+
+        return cart;
+    }
+
+    @Benchmark
+    public List<Product> pageAfterWriteSkipList() {
+        int id = randomId();
+        Product product = skipListMap.remove(id);
+        List<Product> page = new ArrayList<>(pageSize);
+
+        for (Product next : skipListMap.tailMap(randomId(), false).values()) {
+            if (page.size() == pageSize) {
+                break;
+            }
+
+            page.add(next);
+        }
+
+        skipListMap.put(id, product);
+
+        return page;
+    }
+
+    @Benchmark
+    public List<Product> pageAfterWriteIntObjectHashMap() {
+        int id = randomId();
+        Product product = intObjectMap.remove(id);
+        List<Product> page = intObjectMap.valuesAfter(randomId(), pageSize);
+
+        intObjectMap.put(id, product);
+
+        return page;
+    }
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(catalogSize);
+    }
+
+    private int randomLine() {
+        return ThreadLocalRandom.current().nextInt(cartSize) * 37;
+    }
+}
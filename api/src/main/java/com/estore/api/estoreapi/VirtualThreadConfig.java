@@ -0,0 +1,101 @@
+package com.estore.api.estoreapi;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Runs every request on its own virtual thread when
+ * {@code estore.virtual-threads.enabled=true}
+ * <p>
+ * Requests spend most of their time waiting on DAO locks and file writes, which ties
+ * up one of Tomcat's fixed pool threads each. With virtual threads a waiting request
+ * only holds a small heap object, so the connection limit rather than the pool size
+ * bounds concurrency. The DAOs use {@link java.util.concurrent.locks.ReentrantLock}
+ * rather than monitors so a waiting virtual thread releases its carrier.
+ * <p>
+ * Virtual threads need JDK 21 or newer (build with {@code -P loom}). The executor is
+ * looked up reflectively so the code still compiles for Java 11; on an older runtime
+ * the mode logs a warning and Tomcat keeps its platform thread pool.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Configuration
+@ConditionalOnProperty(name = "estore.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+    private static final Logger LOG = Logger.getLogger(VirtualThreadConfig.class.getName());
+
+    /**
+     * Sets a virtual thread executor on a Tomcat protocol handler and owns it, so the
+     * executor is shut down with the context once Tomcat has stopped
+     */
+    static class VirtualThreadExecutorCustomizer implements TomcatProtocolHandlerCustomizer<ProtocolHandler> {
+        private final ExecutorService executor;
+
+        /**
+         * Creates the customizer
+         *
+         * @param executor Virtual thread executor, or null to keep Tomcat's own pool
+         */
+        VirtualThreadExecutorCustomizer(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void customize(ProtocolHandler protocolHandler) {
+            if (executor != null) {
+                protocolHandler.setExecutor(executor);
+            }
+        }
+
+        /**
+         * Stops accepting tasks, requests already running finish on their own
+         */
+        public void shutdown() {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Replaces the Tomcat request executor with a virtual thread per task executor
+     *
+     * @return Customizer applied to the Tomcat protocol handler
+     */
+    @Bean(destroyMethod = "shutdown")
+    public VirtualThreadExecutorCustomizer virtualThreadExecutorCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+
+        if (executor != null) {
+            LOG.info("Serving requests on virtual threads");
+        }
+
+        return new VirtualThreadExecutorCustomizer(executor);
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread for every task
+     *
+     * @return The executor, or null if the running JDK has no virtual threads
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOG.warning("Virtual threads need JDK 21 or newer, running on " + Runtime.version()
+                    + ". Keeping the platform thread pool");
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.estore.api.estoreapi.controller;
+
+import com.estore.api.estoreapi.model.Order;
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.persistence.InventoryDAO;
+import com.estore.api.estoreapi.persistence.SessionStore;
+import com.estore.api.estoreapi.persistence.UsersDAO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handles REST API requests for checking out a user's cart
+ * <p>
+ * A checkout reserves every cart line in one atomic inventory write and then clears
+ * the cart in a second, separate users write. If either write fails the DAO puts its
+ * own change back, and a failed cart write releases the reserved stock again, so a
+ * checkout that reports an error leaves both stock and cart as they were.
+ * <p>
+ * The two writes are not one commit. A crash after the inventory write and before
+ * the users write leaves the stock reserved and the cart still full, and nothing
+ * releases that stock on restart. The same holds if releasing the stock fails after
+ * the cart write failed, which is logged.
+ * <p>
+ * {@code POST /checkout} checks out the cart of the user of the bearer token in the
+ * Authorization header. {@code POST /checkout/{username}} is kept for existing
+ * clients and does not check who is calling.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@RestController
+@RequestMapping("checkout")
+public class CheckoutController {
+    private static final Logger LOG = Logger.getLogger(CheckoutController.class.getName());
+    private final RequestLog requestLog = new RequestLog(LOG, RequestLog.DEFAULT_SAMPLE_RATE);
+    private final InventoryDAO inventoryDAO;
+    private final UsersDAO usersDAO;
+    private final SessionStore sessionStore;
+
+    /**
+     * Creates a checkout controller for handling requests
+     *
+     * @param inventoryDAO DAO for the products being bought
+     * @param usersDAO     DAO for the carts being checked out
+     */
+    public CheckoutController(InventoryDAO inventoryDAO, UsersDAO usersDAO) {
+        this(inventoryDAO, usersDAO, new SessionStore(1_800_000, 60_000));
+    }
+
+    /**
+     * Creates a checkout controller for handling requests
+     *
+     * @param inventoryDAO DAO for the products being bought
+     * @param usersDAO     DAO for the carts being checked out
+     * @param sessionStore Sessions issued by the login endpoint
+     */
+    @Autowired
+    public CheckoutController(InventoryDAO inventoryDAO, UsersDAO usersDAO, SessionStore sessionStore) {
+        this.inventoryDAO = inventoryDAO;
+        this.usersDAO = usersDAO;
+        this.sessionStore = sessionStore;
+    }
+
+    /**
+     * Sets how many requests share one INFO request line
+     *
+     * @param sampleRate Requests per logged line, 1 logs every request and 0 none
+     */
+    @Autowired
+    public void setRequestLogSampleRate(@Value("${logging.request.sample-rate:100}") int sampleRate) {
+        requestLog.setSampleRate(sampleRate);
+    }
+
+    /**
+     * Handles POST requests for checking out the cart of a user
+     *
+     * @param username Username of the buyer
+     * @return ResponseEntity with the order and HTTP Status: OK
+     *         ResponseEntity with HTTP Status: NOT_FOUND (no such user)
+     *         ResponseEntity with HTTP Status: BAD_REQUEST (empty cart)
+     *         ResponseEntity with HTTP Status: CONFLICT (a line is out of stock or
+     *         unknown, or the cart changed during checkout)
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @PostMapping("/{username}")
+    public ResponseEntity<Order> checkout(@PathVariable String username) {
+        requestLog.log("POST /checkout/{0}", username);
+
+        return checkOut(username);
+    }
+
+    /**
+     * Handles POST requests for checking out the cart of the current session's user
+     *
+     * @param authorization Authorization header carrying the bearer token
+     * @return ResponseEntity with the order and HTTP Status: OK
+     *         ResponseEntity with HTTP Status: UNAUTHORIZED (missing, unknown or expired token)
+     *         ResponseEntity with HTTP Status: NOT_FOUND (no such user)
+     *         ResponseEntity with HTTP Status: BAD_REQUEST (empty cart)
+     *         ResponseEntity with HTTP Status: CONFLICT (a line is out of stock or
+     *         unknown, or the cart changed during checkout)
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @PostMapping("")
+    public ResponseEntity<Order> checkoutSession(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        requestLog.log("POST /checkout");
+
+        String username = sessionStore.resolveBearer(authorization);
+
+        if (username == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        return checkOut(username);
+    }
+
+    /**
+     * Reserves the stock for a user's cart and clears the cart
+     *
+     * @param username Username of the buyer
+     * @return ResponseEntity with the order, or the error status
+     */
+    private ResponseEntity<Order> checkOut(String username) {
+        try {
+            Map<Integer, Integer> cart = usersDAO.getCart(username);
+
+            if (cart == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+
+            if (cart.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+
+            Product[] reserved;
+
+            try {
+                reserved = inventoryDAO.reserveProducts(cart);
+            } catch (IllegalStateException | IllegalArgumentException e) {
+                LOG.log(Level.WARNING, "Checkout rejected for {0}: {1}", new Object[] {username, e.getMessage()});
+
+                return new ResponseEntity<>(HttpStatus.CONFLICT);
+            }
+
+            boolean cleared;
+
+            try {
+                cleared = usersDAO.clearCartIfUnchanged(username, cart);
+            } catch (IOException e) {
+                try {
+                    release(cart);
+                } catch (IOException | RuntimeException releaseFailure) {
+                    e.addSuppressed(releaseFailure);
+                }
+
+                throw e;
+            }
+
+            if (!cleared) {
+                LOG.log(Level.WARNING, "Cart of {0} changed during checkout", username);
+                release(cart);
+
+                return new ResponseEntity<>(HttpStatus.CONFLICT);
+            }
+
+            return new ResponseEntity<>(Order.of(username, reserved, cart), HttpStatus.OK);
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "IOException: Could not check out " + username, e);
+
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Returns the stock reserved for a checkout that did not complete
+     *
+     * @param cart Quantities that were reserved
+     * @throws IOException when the inventory could not be written
+     */
+    private void release(Map<Integer, Integer> cart) throws IOException {
+        inventoryDAO.releaseProducts(cart);
+    }
+}
@@ -1,13 +1,27 @@
 package com.estore.api.estoreapi.controller;
 
 import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.ProductImportResult;
 import com.estore.api.estoreapi.persistence.InventoryDAO;
+import com.estore.api.estoreapi.persistence.MetricsSource;
+import com.estore.api.estoreapi.persistence.PersistenceMetrics;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
-import java.util.logging.Level;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 /**
@@ -17,11 +31,20 @@ import java.util.logging.Logger;
  */
 @RestController
 @RequestMapping("inventory")
-public class InventoryController {
+public class InventoryController implements MetricsSource {
     private static final Logger LOG = Logger.getLogger(InventoryController.class.getName());
+    private final RequestLog requestLog = new RequestLog(LOG, RequestLog.DEFAULT_SAMPLE_RATE);
     private InventoryDAO inventoryDAO;
+    private final InventoryResponseCache inventoryCache;
+    private final ObjectWriter productWriter;
+    private final ObjectReader productReader;
 
     private static final String NOT_FOUND_MSG = "PRODUCT NOT FOUND";
+    private static final String GZIP = "gzip";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_CHUNK_SIZE = 256;
 
     /**
      * Creates an Inventory Controller for handling requests
@@ -29,25 +52,147 @@ public class InventoryController {
      * @param inventoryDAO DAO for handling data persistence
      */
     public InventoryController(InventoryDAO inventoryDAO) {
+        this(inventoryDAO, new ObjectMapper(), true);
+    }
+
+    /**
+     * Creates an Inventory Controller for handling requests
+     *
+     * @param inventoryDAO DAO for handling data persistence
+     * @param objectMapper JSON object used to pre-serialize the inventory
+     * @param gzipEnabled  Whether GET /inventory keeps a gzipped body for clients that accept it
+     */
+    @Autowired
+    public InventoryController(InventoryDAO inventoryDAO, ObjectMapper objectMapper,
+                               @Value("${inventory.cache.gzip:true}") boolean gzipEnabled) {
         this.inventoryDAO = inventoryDAO;
+        this.inventoryCache = new InventoryResponseCache(inventoryDAO, objectMapper, gzipEnabled);
+        this.productWriter = objectMapper.writerFor(Product.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.productReader = objectMapper.readerFor(Product.class);
+    }
+
+    /**
+     * Sets how many requests share one INFO request line
+     *
+     * @param sampleRate Requests per logged line, 1 logs every request and 0 none
+     */
+    @Autowired
+    public void setRequestLogSampleRate(@Value("${logging.request.sample-rate:100}") int sampleRate) {
+        requestLog.setSampleRate(sampleRate);
+    }
+
+    /**
+     * Reports hits and misses of the GET /inventory response cache
+     *
+     * @param metrics Receiver of the measurements
+     */
+    @Override
+    public void setMetrics(PersistenceMetrics metrics) {
+        inventoryCache.setMetrics(metrics);
     }
 
 
     /**
      * Handles GET request for retrieving the entire inventory
+     * <p>
+     * The body is serialized once per inventory version. Clients sending a matching
+     * If-None-Match header get a 304 without a body.
      *
-     * @return ResponseEntity with array of all products stored and HTTP Status: OK
+     * @param ifNoneMatch    ETag the client already holds, if any
+     * @param acceptEncoding Encodings the client accepts, if any
+     * @return ResponseEntity with the JSON array of all products stored and HTTP Status: OK
+     * ResponseEntity with HTTP Status: NOT_MODIFIED (client copy is current)
+     * ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
      */
     @GetMapping("")
-    public ResponseEntity<Product[]> getInventory() {
-        LOG.info("GET /inventory");
+    public ResponseEntity<byte[]> getInventory(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        requestLog.log("GET /inventory");
+
+        try {
+            InventoryResponseCache.Entry cached = inventoryCache.get();
+
+            if (ifNoneMatch != null && (ifNoneMatch.equals("*") || ifNoneMatch.contains(cached.getEtag()))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.getEtag()).build();
+            }
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(cached.getEtag())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+            if (cached.getGzip() != null && acceptEncoding != null && acceptEncoding.contains(GZIP)) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(cached.getGzip());
+            }
 
-        Product[] inventory = inventoryDAO.getInventory();
+            return response.body(cached.getJson());
+        } catch (IOException e) {
+            LOG.severe("IOException: Could not serialize inventory");
 
-        return new ResponseEntity<>(inventory, HttpStatus.OK);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
     }
 
 
+    /**
+     * Handles GET requests for one page of the inventory
+     * <p>
+     * With an after cursor the page starts right after that product ID, otherwise it
+     * starts at offset. A full page carries the cursor for the next one in X-Next-Cursor.
+     *
+     * @param limit  Largest number of products to return, at most 1000
+     * @param offset Number of products to skip, ignored when after is given
+     * @param after  ID of the last product of the previous page
+     * @return ResponseEntity with an array of products and HTTP Status: OK
+     * ResponseEntity with HTTP Status: BAD_REQUEST (limit or offset out of range)
+     */
+    @GetMapping(value = "", params = "limit")
+    public ResponseEntity<Product[]> getInventoryPage(@RequestParam int limit,
+                                                      @RequestParam(defaultValue = "0") int offset,
+                                                      @RequestParam(required = false) Integer after) {
+        requestLog.log("GET /inventory?limit={0,number,#}", limit);
+
+        if (limit <= 0 || limit > MAX_PAGE_SIZE || offset < 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        Product[] page = after != null ? inventoryDAO.getInventoryAfter(after, limit) : inventoryDAO.getInventoryPage(offset, limit);
+
+        return pageResponse(page, limit);
+    }
+
+    /**
+     * Handles GET requests for streaming the inventory as newline-delimited JSON
+     * <p>
+     * Products are written straight to the response in ID order, one keyset page at a
+     * time, so the catalog is never materialized as a single array.
+     *
+     * @return ResponseEntity with a stream of products and HTTP Status: OK
+     */
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamInventory() {
+        requestLog.log("GET /inventory/stream");
+
+        StreamingResponseBody body = out -> {
+            int after = Integer.MIN_VALUE;
+            Product[] chunk;
+
+            do {
+                chunk = inventoryDAO.getInventoryAfter(after, STREAM_CHUNK_SIZE);
+
+                for (Product product : chunk) {
+                    productWriter.writeValue(out, product);
+                    out.write('\n');
+                    after = product.getId();
+                }
+
+                out.flush();
+            } while (chunk.length == STREAM_CHUNK_SIZE);
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
     /**
      * Handles POST requests for creating a new product
      *
@@ -58,11 +203,11 @@ public class InventoryController {
      */
     @PostMapping("")
     public ResponseEntity<Product> createProduct(@RequestBody Product product) {
-        LOG.log(Level.INFO, "POST /inventory ", product);
+        requestLog.log("POST /inventory {0}", product);
 
         try {
             inventoryDAO.createProduct(product);
-            LOG.info("Product created");
+            LOG.fine("Product created");
 
             return new ResponseEntity<>(product, HttpStatus.CREATED);
         } catch (IOException e) {
@@ -77,23 +222,88 @@ public class InventoryController {
         }
     }
 
+    /**
+     * Handles POST requests for importing many products at once
+     * <p>
+     * Products are matched by name: existing ones are updated, the rest are created.
+     * The whole batch is stored with a single persistence write.
+     *
+     * @param products Products to import
+     * @param atomic   When true, nothing is stored if any item is rejected
+     * @return ResponseEntity with one result per item and HTTP Status: OK
+     * ResponseEntity with the results and HTTP Status: UNPROCESSABLE_ENTITY (atomic batch rejected)
+     * ResponseEntity with HTTP Status: NOT_IMPLEMENTED (store cannot import atomically)
+     * ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ProductImportResult[]> importProducts(@RequestBody Product[] products,
+                                                                @RequestParam(defaultValue = "false") boolean atomic) {
+        requestLog.log("POST /inventory/batch {0,number,#} products", products.length);
+
+        try {
+            ProductImportResult[] results = inventoryDAO.importProducts(products, atomic);
+
+            if (atomic && Arrays.stream(results).anyMatch(ProductImportResult::isRejected)) {
+                return new ResponseEntity<>(results, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+
+            return new ResponseEntity<>(results, HttpStatus.OK);
+        } catch (UnsupportedOperationException e) {
+            LOG.warning(e.getMessage());
+
+            return new ResponseEntity<>(HttpStatus.NOT_IMPLEMENTED);
+        } catch (IOException e) {
+            LOG.severe("IOException: Could not import products");
+
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Handles POST requests for importing products sent as newline-delimited JSON
+     *
+     * @param body   Stream of products, one JSON document per line
+     * @param atomic When true, nothing is stored if any item is rejected
+     * @return ResponseEntity with one result per item and HTTP Status: OK
+     * ResponseEntity with the results and HTTP Status: UNPROCESSABLE_ENTITY (atomic batch rejected)
+     * ResponseEntity with HTTP Status: BAD_REQUEST (body is not valid JSON)
+     * ResponseEntity with HTTP Status: NOT_IMPLEMENTED (store cannot import atomically)
+     * ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @PostMapping(value = "/batch", consumes = NDJSON)
+    public ResponseEntity<ProductImportResult[]> importProductStream(InputStream body,
+                                                                     @RequestParam(defaultValue = "false") boolean atomic) {
+        Product[] products;
+
+        try (MappingIterator<Product> items = productReader.readValues(body)) {
+            products = items.readAll().toArray(new Product[0]);
+        } catch (IOException | RuntimeException e) {
+            LOG.warning("Could not parse product stream");
+
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        return importProducts(products, atomic);
+    }
+
     /**
      * Put requests to update a product
      *
      * @param product: The product to be updated
      * @return: ResponseEntity with the product and HTTP Status of OK
      * ResponseEntity with Http Status of NOT FOUND
+     * ResponseEntity with HTTP Status of CONFLICT (name used by another product)
      * ResponseEntity with HTTP Status of INTERNAL SERVER ERROR
      */
     @PutMapping("")
     public ResponseEntity<Product> updateProduct(@RequestBody Product product) {
-        LOG.log(Level.INFO, "PUT /inventory ", product);
+        requestLog.log("PUT /inventory {0}", product);
 
         try {
             Product newProduct = this.inventoryDAO.updateProduct(product);
 
             if (newProduct != null) {
-                LOG.info("Product updated");
+                LOG.fine("Product updated");
 
                 return new ResponseEntity<>(newProduct, HttpStatus.OK);
             } else {
@@ -105,6 +315,10 @@ public class InventoryController {
             LOG.severe("INTERNAL_SERVER_ERROR");
 
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (IllegalArgumentException e) {
+            LOG.warning("IllegalArgumentException: Product name already in use");
+
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         }
     }
 
@@ -119,16 +333,16 @@ public class InventoryController {
 
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProduct(@PathVariable int id) {
-        LOG.log(Level.INFO, "GET /inventory ", id);
+        requestLog.log("GET /inventory/{0,number,#}", id);
 
         try {
             Product foundProduct = inventoryDAO.getProduct(id);
             if (foundProduct != null) {
-                LOG.info("Product found");
+                LOG.fine("Product found");
 
                 return new ResponseEntity<>(foundProduct, HttpStatus.OK);
             } else {
-                LOG.info(NOT_FOUND_MSG);
+                LOG.fine(NOT_FOUND_MSG);
 
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
@@ -149,17 +363,17 @@ public class InventoryController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Product> deleteProduct(@PathVariable int id) {
-        LOG.log(Level.INFO, "DELETE /inventory ", id);
+        requestLog.log("DELETE /inventory/{0,number,#}", id);
 
         try {
             boolean isProductDeleted = inventoryDAO.deleteProduct(id);
 
             if (isProductDeleted) {
-                LOG.info("Product deleted");
+                LOG.fine("Product deleted");
 
                 return new ResponseEntity<>(HttpStatus.OK);
             } else {
-                LOG.info(NOT_FOUND_MSG);
+                LOG.fine(NOT_FOUND_MSG);
 
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
@@ -170,6 +384,58 @@ public class InventoryController {
         }
     }
 
+    /**
+     * Handles POST requests for reserving stock of a product
+     *
+     * @param id       ID of the product
+     * @param quantity Positive amount to take
+     * @return ResponseEntity with the updated product and HTTP Status: OK
+     * ResponseEntity with HTTP Status: NOT_FOUND
+     * ResponseEntity with HTTP Status: BAD_REQUEST (quantity not positive)
+     * ResponseEntity with HTTP Status: CONFLICT (not enough stock)
+     * ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @PostMapping("/{id}/reserve")
+    public ResponseEntity<Product> reserveStock(@PathVariable int id, @RequestParam int quantity) {
+        requestLog.log("POST /inventory/{0,number,#}/reserve {1,number,#}", id, quantity);
+
+        return stockResponse(() -> inventoryDAO.reserveStock(id, quantity));
+    }
+
+    /**
+     * Handles POST requests for returning stock of a product
+     *
+     * @param id       ID of the product
+     * @param quantity Positive amount to return
+     * @return ResponseEntity with the updated product and HTTP Status: OK
+     * ResponseEntity with HTTP Status: NOT_FOUND
+     * ResponseEntity with HTTP Status: BAD_REQUEST (quantity not positive)
+     * ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @PostMapping("/{id}/release")
+    public ResponseEntity<Product> releaseStock(@PathVariable int id, @RequestParam int quantity) {
+        requestLog.log("POST /inventory/{0,number,#}/release {1,number,#}", id, quantity);
+
+        return stockResponse(() -> inventoryDAO.releaseStock(id, quantity));
+    }
+
+    /**
+     * Handles PATCH requests for adjusting the quantity of a product
+     *
+     * @param id    ID of the product
+     * @param delta Amount to add, negative to remove stock
+     * @return ResponseEntity with the updated product and HTTP Status: OK
+     * ResponseEntity with HTTP Status: NOT_FOUND
+     * ResponseEntity with HTTP Status: CONFLICT (quantity would drop below zero)
+     * ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @PatchMapping("/{id}/quantity")
+    public ResponseEntity<Product> adjustQuantity(@PathVariable int id, @RequestParam int delta) {
+        requestLog.log("PATCH /inventory/{0,number,#}/quantity {1,number,#}", id, delta);
+
+        return stockResponse(() -> inventoryDAO.adjustQuantity(id, delta));
+    }
+
     /**
      * Handles GET requests for searching a product
      *
@@ -180,16 +446,16 @@ public class InventoryController {
      */
     @GetMapping("/")
     public ResponseEntity<Product[]> findProduct(@RequestParam String keyword) {
-        LOG.log(Level.INFO, "GET /inventory/?keyword=", keyword);
+        requestLog.log("GET /inventory/?keyword={0}", keyword);
 
         try {
             Product[] product = inventoryDAO.findProduct(keyword);
             if (product.length != 0) {
-                LOG.info("Product found");
+                LOG.fine("Product found");
 
                 return new ResponseEntity<>(product, HttpStatus.OK);
             } else {
-                LOG.info(NOT_FOUND_MSG);
+                LOG.fine(NOT_FOUND_MSG);
 
                 return new ResponseEntity<>(new Product[0], HttpStatus.OK);
             }
@@ -199,4 +465,100 @@ public class InventoryController {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    /**
+     * Handles GET requests for one page of search results
+     *
+     * @param keyword will find products that contain the text
+     * @param limit   Largest number of products to return, at most 1000
+     * @param offset  Number of matching products to skip
+     * @return ResponseEntity with an array of products and HTTP Status: OK
+     * ResponseEntity with HTTP Status: BAD_REQUEST (limit or offset out of range)
+     * ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @GetMapping(value = "/", params = "limit")
+    public ResponseEntity<Product[]> findProductPage(@RequestParam String keyword, @RequestParam int limit,
+                                                     @RequestParam(defaultValue = "0") int offset) {
+        requestLog.log("GET /inventory/?keyword={0}", keyword);
+
+        if (limit <= 0 || limit > MAX_PAGE_SIZE || offset < 0) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        try {
+            Product[] products = inventoryDAO.findProduct(keyword);
+            int from = Math.min(offset, products.length);
+            Product[] page = Arrays.copyOfRange(products, from, (int) Math.min((long) from + limit, products.length));
+
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        } catch (IOException e) {
+            LOG.severe("INTERNAL_SERVER_ERROR");
+
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Builds a page response, adding the next cursor when the page is full
+     *
+     * @param page  Products in the page
+     * @param limit Requested page size
+     * @return ResponseEntity with the page and HTTP Status: OK
+     */
+    private ResponseEntity<Product[]> pageResponse(Product[] page, int limit) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+
+        if (page.length == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(page[page.length - 1].getId()));
+        }
+
+        return response.body(page);
+    }
+
+    /**
+     * Stock change performed by the DAO
+     */
+    @FunctionalInterface
+    private interface StockChange {
+        /**
+         * Performs the change
+         *
+         * @return Updated product, null if it does not exist
+         * @throws IOException when file could not be accessed
+         */
+        Product apply() throws IOException;
+    }
+
+    /**
+     * Runs a stock change and maps its outcome to a response
+     *
+     * @param change Stock change to run
+     * @return ResponseEntity with the updated product and HTTP Status: OK
+     * ResponseEntity with HTTP Status: NOT_FOUND, BAD_REQUEST, CONFLICT or INTERNAL_SERVER_ERROR
+     */
+    private ResponseEntity<Product> stockResponse(StockChange change) {
+        try {
+            Product product = change.apply();
+
+            if (product == null) {
+                LOG.fine(NOT_FOUND_MSG);
+
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+
+            return new ResponseEntity<>(product, HttpStatus.OK);
+        } catch (IllegalStateException e) {
+            LOG.fine("Insufficient stock");
+
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            LOG.warning("IllegalArgumentException: " + e.getMessage());
+
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IOException e) {
+            LOG.severe("IOException: Could not change stock");
+
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 }
@@ -0,0 +1,153 @@
+package com.estore.api.estoreapi.controller;
+
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.persistence.InventoryDAO;
+import com.estore.api.estoreapi.persistence.MetricsSource;
+import com.estore.api.estoreapi.persistence.PersistenceMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the serialized GET /inventory response for the current inventory version
+ * <p>
+ * The body is rebuilt only when {@link InventoryDAO#getVersion()} changes. The ETag is
+ * a digest of the body itself, so a client can never get a 304 for content it has not seen.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class InventoryResponseCache implements MetricsSource {
+    /**
+     * Serialized inventory for one version
+     */
+    public static final class Entry {
+        private final long version;
+        private final byte[] json;
+        private final byte[] gzip;
+        private final String etag;
+
+        private Entry(long version, byte[] json, byte[] gzip, String etag) {
+            this.version = version;
+            this.json = json;
+            this.gzip = gzip;
+            this.etag = etag;
+        }
+
+        /**
+         * Getter for the JSON body
+         *
+         * @return Serialized array of all products
+         */
+        public byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * Getter for the gzipped JSON body
+         *
+         * @return Compressed body, null when compression is disabled
+         */
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        /**
+         * Getter for the entity tag of the body
+         *
+         * @return Quoted ETag value
+         */
+        public String getEtag() {
+            return etag;
+        }
+    }
+
+    private final InventoryDAO inventoryDAO;
+    private final ObjectWriter writer;
+    private final boolean gzipEnabled;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile Entry entry;
+    private volatile PersistenceMetrics metrics = PersistenceMetrics.NONE;
+
+    /**
+     * Creates a response cache over an inventory
+     *
+     * @param inventoryDAO DAO the inventory is read from
+     * @param objectMapper JSON object for serialization
+     * @param gzipEnabled  Whether to keep a gzipped copy of the body as well
+     */
+    public InventoryResponseCache(InventoryDAO inventoryDAO, ObjectMapper objectMapper, boolean gzipEnabled) {
+        this.inventoryDAO = inventoryDAO;
+        this.writer = objectMapper.writerFor(Product[].class);
+        this.gzipEnabled = gzipEnabled;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setMetrics(PersistenceMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the response for the current inventory version, serializing it if needed
+     *
+     * @return Cached response
+     *
+     * @throws IOException when the inventory could not be serialized
+     */
+    public Entry get() throws IOException {
+        long version = inventoryDAO.getVersion();
+        Entry current = entry;
+
+        if (current != null && current.version == version) {
+            metrics.cacheAccessed("inventory.response", true);
+
+            return current;
+        }
+
+        metrics.cacheAccessed("inventory.response", false);
+        rebuildLock.lock();
+
+        try {
+            current = entry;
+
+            if (current != null && current.version == inventoryDAO.getVersion()) {
+                return current;
+            }
+
+            long builtVersion = inventoryDAO.getVersion();
+            byte[] json = writer.writeValueAsBytes(inventoryDAO.getInventory());
+            byte[] gzip = gzipEnabled ? gzip(json) : null;
+            String etag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+
+            entry = new Entry(builtVersion, json, gzip, etag);
+
+            return entry;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Compresses a body with gzip
+     *
+     * @param json Body to compress
+     * @return Compressed body
+     * @throws IOException when compression fails
+     */
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4 + 64);
+
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json);
+        }
+
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,153 @@
+package com.estore.api.estoreapi.controller;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes the one line logged for each request, sampled at INFO
+ * <p>
+ * Lines are given as a {@link java.text.MessageFormat} pattern and parameters and are
+ * only formatted when they will be written. IDs and quantities have {@code int}
+ * overloads that box them only once the line is known to be written, so an unsampled
+ * request allocates nothing. With the logger at FINE every request is
+ * logged; at INFO one request in {@code sampleRate} is, picked at random so there is
+ * no counter shared between request threads.
+ *
+ * @author SWEN-261 Project Team One
+ */
+class RequestLog {
+    /**
+     * Requests per INFO line unless {@code logging.request.sample-rate} is set
+     */
+    static final int DEFAULT_SAMPLE_RATE = 100;
+
+    private final Logger logger;
+    private volatile int sampleRate;
+
+    /**
+     * Creates a request log
+     *
+     * @param logger     Logger the lines are written to
+     * @param sampleRate Requests per INFO line, 1 logs every request and 0 none
+     */
+    RequestLog(Logger logger, int sampleRate) {
+        this.logger = logger;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Setter for the sample rate
+     *
+     * @param sampleRate Requests per INFO line, 1 logs every request and 0 none
+     */
+    void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Logs a request line without parameters
+     *
+     * @param message Line to log
+     */
+    void log(String message) {
+        Level level = level();
+
+        if (level != null) {
+            logger.log(level, message);
+        }
+    }
+
+    /**
+     * Logs a request line with one parameter
+     *
+     * @param pattern Pattern of the line
+     * @param param   Value of {0}
+     */
+    void log(String pattern, Object param) {
+        Level level = level();
+
+        if (level != null) {
+            logger.log(level, pattern, param);
+        }
+    }
+
+    /**
+     * Logs a request line with one number, boxed only if the line is written
+     *
+     * @param pattern Pattern of the line
+     * @param param   Value of {0}
+     */
+    void log(String pattern, int param) {
+        Level level = level();
+
+        if (level != null) {
+            logger.log(level, pattern, param);
+        }
+    }
+
+    /**
+     * Logs a request line with two numbers, boxed only if the line is written
+     *
+     * @param pattern Pattern of the line
+     * @param first   Value of {0}
+     * @param second  Value of {1}
+     */
+    void log(String pattern, int first, int second) {
+        Level level = level();
+
+        if (level != null) {
+            logger.log(level, pattern, new Object[] {first, second});
+        }
+    }
+
+    /**
+     * Logs a request line with a value and a number, boxed only if the line is written
+     *
+     * @param pattern Pattern of the line
+     * @param first   Value of {0}
+     * @param second  Value of {1}
+     */
+    void log(String pattern, Object first, int second) {
+        Level level = level();
+
+        if (level != null) {
+            logger.log(level, pattern, new Object[] {first, second});
+        }
+    }
+
+    /**
+     * Logs a request line with a value and two numbers, boxed only if the line is written
+     *
+     * @param pattern Pattern of the line
+     * @param first   Value of {0}
+     * @param second  Value of {1}
+     * @param third   Value of {2}
+     */
+    void log(String pattern, Object first, int second, int third) {
+        Level level = level();
+
+        if (level != null) {
+            logger.log(level, pattern, new Object[] {first, second, third});
+        }
+    }
+
+    /**
+     * Decides whether and at which level the current request is logged
+     *
+     * @return FINE when the logger writes FINE, INFO for a sampled request, otherwise null
+     */
+    private Level level() {
+        if (logger.isLoggable(Level.FINE)) {
+            return Level.FINE;
+        }
+
+        int rate = sampleRate;
+
+        if (rate <= 0 || !logger.isLoggable(Level.INFO)) {
+            return null;
+        }
+
+        return rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0 ? Level.INFO : null;
+    }
+}
@@ -1,17 +1,31 @@
 package com.estore.api.estoreapi.controller;
 
+import com.estore.api.estoreapi.model.SessionToken;
 import com.estore.api.estoreapi.model.UserAccount;
+import com.estore.api.estoreapi.persistence.CredentialVerifier;
+import com.estore.api.estoreapi.persistence.SessionStore;
 import com.estore.api.estoreapi.persistence.UsersDAO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Logger;
 
 /**
  * Handles REST API requests for UserAccount
+ * <p>
+ * The cart routes without a username, {@code /user/cart} and
+ * {@code /user/cart/{productId}}, act on the user of the bearer token in the
+ * Authorization header. The older routes that name the user in the path are kept for
+ * existing clients and do not check who is calling.
  * 
  * @author SWEN-261 Project Team One
  */
@@ -19,7 +33,10 @@ import java.util.logging.Logger;
 @RequestMapping("user")
 public class UserAccountController {
     private static final Logger LOG = Logger.getLogger(UserAccountController.class.getName());
+    private final RequestLog requestLog = new RequestLog(LOG, RequestLog.DEFAULT_SAMPLE_RATE);
     private final UsersDAO usersDAO;
+    private final CredentialVerifier credentialVerifier;
+    private final SessionStore sessionStore;
     private static final String USER_NOT_FOUND_MSG = "USER NOT FOUND";
 
     /**
@@ -28,37 +45,75 @@ public class UserAccountController {
      * @param usersDAO DAO for handling data persistence
      */
     public UserAccountController(UsersDAO usersDAO) {
+        this(usersDAO, new CredentialVerifier(usersDAO), new SessionStore(1_800_000, 60_000));
+    }
+
+    /**
+     * Creates a user account controller for handling requests
+     * 
+     * @param usersDAO DAO for handling data persistence
+     * @param credentialVerifier Checks passwords off the request threads
+     * @param sessionStore Sessions issued by the login endpoint
+     */
+    @Autowired
+    public UserAccountController(UsersDAO usersDAO, CredentialVerifier credentialVerifier, SessionStore sessionStore) {
         this.usersDAO = usersDAO;
+        this.credentialVerifier = credentialVerifier;
+        this.sessionStore = sessionStore;
+    }
+
+    /**
+     * Sets how many requests share one INFO request line
+     *
+     * @param sampleRate Requests per logged line, 1 logs every request and 0 none
+     */
+    @Autowired
+    public void setRequestLogSampleRate(@Value("${logging.request.sample-rate:100}") int sampleRate) {
+        requestLog.setSampleRate(sampleRate);
     }
 
     /**
      * Handles POST requests for creating a new user Account
+     * <p>
+     * The password is hashed on the {@link CredentialVerifier} pool, not on the request
+     * thread.
      *
      * @param userAccount New user account to be created and stored
      * @return ResponseEntity with user account and HTTP Status: OK
+     *         ResponseEntity with HTTP Status: BAD_REQUEST (no password)
      *         ResponseEntity with HTTP Status: CONFLICT (user account already
      *         created)
+     *         ResponseEntity with HTTP Status: SERVICE_UNAVAILABLE (too many passwords
+     *         waiting to be hashed)
      *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
      */
     @PostMapping("")
-    public ResponseEntity<UserAccount> createUserAccount(@RequestBody UserAccount userAccount) {
-        LOG.info("POST /user" + userAccount);
+    public CompletableFuture<ResponseEntity<UserAccount>> createUserAccount(@RequestBody UserAccount userAccount) {
+        requestLog.log("POST /user {0}", userAccount);
 
-        try {
-            usersDAO.createUserAccount(userAccount);
-            LOG.info("User Account created");
+        if (userAccount.getPassword() == null || userAccount.getPassword().isBlank()) {
+            LOG.warning("Account has no password");
 
-            return new ResponseEntity<>(userAccount, HttpStatus.CREATED);
-        } catch (IOException e) {
-            LOG.severe("IOException: Could not create account");
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
 
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        return credentialVerifier.submit(() -> usersDAO.createUserAccount(userAccount)).handle((created, error) -> {
+            if (error == null) {
+                LOG.fine("User Account created");
 
-        } catch (IllegalArgumentException e) {
-            LOG.warning("IllegalArgumentException: Account has been already created");
+                return new ResponseEntity<>(userAccount, HttpStatus.CREATED);
+            }
 
-            return new ResponseEntity<>(HttpStatus.CONFLICT);
-        }
+            Throwable cause = unwrap(error);
+
+            if (cause instanceof IllegalArgumentException) {
+                LOG.warning("IllegalArgumentException: Account has been already created");
+
+                return new ResponseEntity<>(HttpStatus.CONFLICT);
+            }
+
+            return new ResponseEntity<>(writeErrorStatus(cause, "IOException: Could not create account"));
+        });
     }
 
     /***
@@ -72,16 +127,16 @@ public class UserAccountController {
      */
     @GetMapping("/{username}")
     public ResponseEntity<UserAccount> getUserAccount(@PathVariable String username) {
-        LOG.info("GET /user/ " + username);
+        requestLog.log("GET /user/{0}", username);
 
         try {
             UserAccount foundUserAccount = usersDAO.getUserAccount(username);
 
             if (foundUserAccount != null) {
-                LOG.info("User Account found");
+                LOG.fine("User Account found");
                 return new ResponseEntity<>(foundUserAccount, HttpStatus.OK);
             } else {
-                LOG.info(USER_NOT_FOUND_MSG);
+                LOG.fine(USER_NOT_FOUND_MSG);
 
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
@@ -103,43 +158,234 @@ public class UserAccountController {
      *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
      */
     @GetMapping("/{username}/{password}")
-    public ResponseEntity<Boolean> logInUserAccount(@PathVariable String username, @PathVariable String password) {
-        LOG.info("GET /user/ " + username + "/" + password);
+    public CompletableFuture<ResponseEntity<Boolean>> logInUserAccount(@PathVariable String username, @PathVariable String password) {
+        requestLog.log("GET /user/{0}/****", username);
+
+        return credentialVerifier.verify(username, password).handle((verifiedUser, error) -> {
+            if (error == null && verifiedUser) {
+                LOG.fine("User Account verified");
+                return new ResponseEntity<>(true, HttpStatus.OK);
+            } else if (error == null) {
+                LOG.fine("User Account not verified");
+                return new ResponseEntity<>(false, HttpStatus.NOT_FOUND);
+            }
 
-        try {
-            boolean verifiedUser = usersDAO.logInUserAccount(username, password);
+            return new ResponseEntity<>(loginErrorStatus(error));
+        });
+    }
 
-            if (verifiedUser) {
-                LOG.info("User Account verified");
-                return new ResponseEntity<>(verifiedUser, HttpStatus.OK);
-            } else {
-                LOG.info("User Account not verified");
-                return new ResponseEntity<>(verifiedUser, HttpStatus.NOT_FOUND);
+    /**
+     * Handles POST requests for logging in and starting a session
+     *
+     * @param credentials Username and password of the account
+     * @return ResponseEntity with the session and HTTP Status: OK
+     *         ResponseEntity with HTTP Status: UNAUTHORIZED (wrong username or password)
+     *         ResponseEntity with HTTP Status: SERVICE_UNAVAILABLE (too many logins waiting)
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @PostMapping("/session")
+    public CompletableFuture<ResponseEntity<SessionToken>> startSession(@RequestBody UserAccount credentials) {
+        String username = credentials.getUserName();
+        requestLog.log("POST /user/session {0}", username);
+
+        return credentialVerifier.verify(username, credentials.getPassword()).handle((verifiedUser, error) -> {
+            if (error == null && verifiedUser) {
+                return new ResponseEntity<>(sessionStore.issue(username), HttpStatus.OK);
+            } else if (error == null) {
+                LOG.fine("User Account not verified");
+                return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
             }
-        } catch (IOException e) {
-            LOG.severe("IOException: Could not find User Account");
 
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            return new ResponseEntity<>(loginErrorStatus(error));
+        });
+    }
+
+    /**
+     * Handles GET requests for the user of the current session
+     *
+     * @param authorization Authorization header carrying the bearer token
+     * @return ResponseEntity with the username and HTTP Status: OK
+     *         ResponseEntity with HTTP Status: UNAUTHORIZED (missing, unknown or expired token)
+     */
+    @GetMapping("/session")
+    public ResponseEntity<String> getSessionUser(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        String username = sessionUser(authorization);
+
+        return username == null ? new ResponseEntity<>(HttpStatus.UNAUTHORIZED) : new ResponseEntity<>(username, HttpStatus.OK);
+    }
+
+    /**
+     * Handles DELETE requests for logging out
+     *
+     * @param authorization Authorization header carrying the bearer token
+     * @return ResponseEntity with HTTP Status: OK
+     *         ResponseEntity with HTTP Status: UNAUTHORIZED (missing, unknown or expired token)
+     */
+    @DeleteMapping("/session")
+    public ResponseEntity<Void> endSession(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        requestLog.log("DELETE /user/session");
+
+        return sessionStore.revoke(SessionStore.bearerToken(authorization)) ? new ResponseEntity<>(HttpStatus.OK) : new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+    }
+
+    /**
+     * Handles GET requests for the cart of the current session's user
+     *
+     * @param authorization Authorization header carrying the bearer token
+     * @return ResponseEntity with HTTP Status: OK and cart
+     *         ResponseEntity with HTTP Status: UNAUTHORIZED (missing, unknown or expired token)
+     *         ResponseEntity with HTTP Status: NOT_FOUND
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR
+     */
+    @GetMapping("/cart")
+    public ResponseEntity<Map<Integer, Integer>> getSessionCart(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        String username = sessionUser(authorization);
+
+        if (username == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        return getCart(username);
+    }
+
+    /**
+     * Handles POST requests for adding a product to the cart of the current session's user
+     *
+     * @param authorization Authorization header carrying the bearer token
+     * @param productId ID of the product to add
+     * @param quantity Positive amount to add, 1 by default
+     * @return ResponseEntity with HTTP Status: OK and the updated cart
+     *         ResponseEntity with HTTP Status: UNAUTHORIZED (missing, unknown or expired token)
+     *         ResponseEntity with HTTP Status: NOT_FOUND
+     *         ResponseEntity with HTTP Status: BAD_REQUEST (quantity not positive)
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR
+     */
+    @PostMapping("/cart/{productId}")
+    public ResponseEntity<Map<Integer, Integer>> addToSessionCart(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                                                  @PathVariable int productId, @RequestParam(defaultValue = "1") int quantity) {
+        requestLog.log("POST /user/cart/{0,number,#}?quantity={1,number,#}", productId, quantity);
+
+        String username = sessionUser(authorization);
+
+        if (username == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        return cartResponse(() -> usersDAO.addToCart(username, productId, quantity));
+    }
+
+    /**
+     * Handles PUT requests for setting the quantity of a product in the cart of the
+     * current session's user
+     *
+     * @param authorization Authorization header carrying the bearer token
+     * @param productId ID of the product to change
+     * @param quantity New quantity, zero removes the product
+     * @return ResponseEntity with HTTP Status: OK and the updated cart
+     *         ResponseEntity with HTTP Status: UNAUTHORIZED (missing, unknown or expired token)
+     *         ResponseEntity with HTTP Status: NOT_FOUND
+     *         ResponseEntity with HTTP Status: BAD_REQUEST (quantity negative)
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR
+     */
+    @PutMapping("/cart/{productId}")
+    public ResponseEntity<Map<Integer, Integer>> setSessionCartQuantity(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                                                        @PathVariable int productId, @RequestParam int quantity) {
+        requestLog.log("PUT /user/cart/{0,number,#}?quantity={1,number,#}", productId, quantity);
+
+        String username = sessionUser(authorization);
+
+        if (username == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        return cartResponse(() -> usersDAO.setCartQuantity(username, productId, quantity));
+    }
+
+    /**
+     * Handles DELETE requests for removing a product from the cart of the current
+     * session's user
+     *
+     * @param authorization Authorization header carrying the bearer token
+     * @param productId ID of the product to remove
+     * @return ResponseEntity with HTTP Status: OK and the updated cart
+     *         ResponseEntity with HTTP Status: UNAUTHORIZED (missing, unknown or expired token)
+     *         ResponseEntity with HTTP Status: NOT_FOUND
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR
+     */
+    @DeleteMapping("/cart/{productId}")
+    public ResponseEntity<Map<Integer, Integer>> removeFromSessionCart(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                                                       @PathVariable int productId) {
+        requestLog.log("DELETE /user/cart/{0,number,#}", productId);
+
+        String username = sessionUser(authorization);
+
+        if (username == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        return cartResponse(() -> usersDAO.removeFromCart(username, productId));
+    }
+
+    /**
+     * Handles DELETE requests for emptying the cart of the current session's user
+     *
+     * @param authorization Authorization header carrying the bearer token
+     * @return ResponseEntity with HTTP Status: OK
+     *         ResponseEntity with HTTP Status: UNAUTHORIZED (missing, unknown or expired token)
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR
+     */
+    @DeleteMapping("/cart")
+    public ResponseEntity<HttpStatus> clearSessionCart(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        String username = sessionUser(authorization);
+
+        if (username == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
         }
+
+        return clearCart(username);
     }
 
     /**
      * Put requests to update a user account
+     * <p>
+     * A new password is hashed on the {@link CredentialVerifier} pool, not on the
+     * request thread.
      *
      * @param userAccount The user account to be updated
      * @return: ResponseEntity with the user account and HTTP Status of OK
      *          ResponseEntity with Http Status of NOT FOUND
+     *          ResponseEntity with HTTP Status of SERVICE UNAVAILABLE (too many
+     *          passwords waiting to be hashed)
      *          ResponseEntity with HTTP Status of INTERNAL SERVER ERROR
      */
     @PutMapping("")
-    public ResponseEntity<UserAccount> updateUserAccount(@RequestBody UserAccount userAccount) {
-        LOG.info("PUT /user ");
+    public CompletableFuture<ResponseEntity<UserAccount>> updateUserAccount(@RequestBody UserAccount userAccount) {
+        requestLog.log("PUT /user");
 
-        try {
-            UserAccount newUserAccount = this.usersDAO.updateUserAccount(userAccount);
+        boolean passwordChanged = userAccount.getPassword() != null;
+        CompletableFuture<UserAccount> update;
+
+        if (passwordChanged) {
+            update = credentialVerifier.submit(() -> usersDAO.updateUserAccount(userAccount));
+        } else {
+            try {
+                update = CompletableFuture.completedFuture(usersDAO.updateUserAccount(userAccount));
+            } catch (IOException e) {
+                update = CompletableFuture.failedFuture(e);
+            }
+        }
+
+        return update.handle((newUserAccount, error) -> {
+            if (error != null) {
+                return new ResponseEntity<>(writeErrorStatus(unwrap(error), "INTERNAL_SERVER_ERROR"));
+            }
 
             if (newUserAccount != null) {
-                LOG.info("User Account updated");
+                LOG.fine("User Account updated");
+
+                if (passwordChanged) {
+                    sessionStore.revokeAll(newUserAccount.getUserName());
+                }
 
                 return new ResponseEntity<>(newUserAccount, HttpStatus.OK);
             } else {
@@ -147,11 +393,7 @@ public class UserAccountController {
 
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
-        } catch (IOException e) {
-            LOG.severe("INTERNAL_SERVER_ERROR");
-
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+        });
     }
 
     /**
@@ -164,17 +406,18 @@ public class UserAccountController {
      */
     @DeleteMapping("/{username}")
     public ResponseEntity<UserAccount> deleteUserAccount(@PathVariable String username) {
-        LOG.info("DELETE /user/" + username);
+        requestLog.log("DELETE /user/{0}", username);
 
         try {
             boolean isUserAccountDeleted = usersDAO.deleteUserAccount(username);
 
             if (isUserAccountDeleted) {
-                LOG.info("User Account deleted");
+                LOG.fine("User Account deleted");
+                sessionStore.revokeAll(username);
 
                 return new ResponseEntity<>(HttpStatus.OK);
             } else {
-                LOG.info(USER_NOT_FOUND_MSG);
+                LOG.fine(USER_NOT_FOUND_MSG);
 
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
@@ -195,16 +438,16 @@ public class UserAccountController {
      */
     @GetMapping("/cart/{username}")
     public ResponseEntity<Map<Integer, Integer>> getCart(@PathVariable String username) {
-        LOG.info("GET/cart/" + username);
+        requestLog.log("GET /user/cart/{0}", username);
     try {
         Map<Integer, Integer> userCart = usersDAO.getCart(username);
 
         if (userCart != null) {
-            LOG.info("User cart found");
+            LOG.fine("User cart found");
 
             return new ResponseEntity<>(userCart, HttpStatus.OK);
         } else {
-            LOG.info("User Cart not found");
+            LOG.fine("User Cart not found");
 
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
@@ -215,6 +458,96 @@ public class UserAccountController {
     }
     }
 
+    /**
+     * Handles POST requests for adding a product to a user's cart
+     *
+     * @param username The username of the cart owner
+     * @param productId ID of the product to add
+     * @param quantity Positive amount to add, 1 by default
+     * @return ResponseEntity with HTTP Status: OK and the updated cart
+     *         ResponseEntity with HTTP Status: NOT_FOUND
+     *         ResponseEntity with HTTP Status: BAD_REQUEST (quantity not positive)
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR
+     */
+    @PostMapping("/cart/{username}/{productId}")
+    public ResponseEntity<Map<Integer, Integer>> addToCart(@PathVariable String username, @PathVariable int productId,
+                                                           @RequestParam(defaultValue = "1") int quantity) {
+        requestLog.log("POST /user/cart/{0}/{1,number,#}?quantity={2,number,#}", username, productId, quantity);
+
+        return cartResponse(() -> usersDAO.addToCart(username, productId, quantity));
+    }
+
+    /**
+     * Handles PUT requests for setting the quantity of a product in a user's cart
+     *
+     * @param username The username of the cart owner
+     * @param productId ID of the product to change
+     * @param quantity New quantity, zero removes the product
+     * @return ResponseEntity with HTTP Status: OK and the updated cart
+     *         ResponseEntity with HTTP Status: NOT_FOUND
+     *         ResponseEntity with HTTP Status: BAD_REQUEST (quantity negative)
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR
+     */
+    @PutMapping("/cart/{username}/{productId}")
+    public ResponseEntity<Map<Integer, Integer>> setCartQuantity(@PathVariable String username, @PathVariable int productId,
+                                                                 @RequestParam int quantity) {
+        requestLog.log("PUT /user/cart/{0}/{1,number,#}?quantity={2,number,#}", username, productId, quantity);
+
+        return cartResponse(() -> usersDAO.setCartQuantity(username, productId, quantity));
+    }
+
+    /**
+     * Handles DELETE requests for removing a product from a user's cart
+     *
+     * @param username The username of the cart owner
+     * @param productId ID of the product to remove
+     * @return ResponseEntity with HTTP Status: OK and the updated cart
+     *         ResponseEntity with HTTP Status: NOT_FOUND
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR
+     */
+    @DeleteMapping("/cart/{username}/{productId}")
+    public ResponseEntity<Map<Integer, Integer>> removeFromCart(@PathVariable String username, @PathVariable int productId) {
+        requestLog.log("DELETE /user/cart/{0}/{1,number,#}", username, productId);
+
+        return cartResponse(() -> usersDAO.removeFromCart(username, productId));
+    }
+
+    /**
+     * A single cart line change
+     */
+    @FunctionalInterface
+    private interface CartChange {
+        Map<Integer, Integer> apply() throws IOException;
+    }
+
+    /**
+     * Runs a cart line change and maps its outcome to a response
+     *
+     * @param change Cart change to run
+     * @return ResponseEntity with the updated cart, or the error status
+     */
+    private ResponseEntity<Map<Integer, Integer>> cartResponse(CartChange change) {
+        try {
+            Map<Integer, Integer> cart = change.apply();
+
+            if (cart == null) {
+                LOG.fine(USER_NOT_FOUND_MSG);
+
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+
+            return new ResponseEntity<>(cart, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            LOG.warning("IllegalArgumentException: " + e.getMessage());
+
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IOException e) {
+            LOG.severe("IOException: Could not change cart");
+
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
      /**
      * Put requests to clear a user account
      *
@@ -225,11 +558,11 @@ public class UserAccountController {
      */
     @GetMapping("/clear/{username}")
     public ResponseEntity<HttpStatus> clearCart(@PathVariable String username) {
-        LOG.info("Get /user/clear ");
+        requestLog.log("GET /user/clear/{0}", username);
 
         try {
             if (username != null) {
-                LOG.info("User Account clear");
+                LOG.fine("User Account clear");
                 this.usersDAO.clearCart(username);
                 return new ResponseEntity<>( HttpStatus.OK);
             } else {
@@ -243,4 +576,63 @@ public class UserAccountController {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    /**
+     * Maps a failed login verification to a response status
+     *
+     * @param error Failure of the verification future
+     * @return SERVICE_UNAVAILABLE when too many logins are waiting, INTERNAL_SERVER_ERROR otherwise
+     */
+    private static HttpStatus loginErrorStatus(Throwable error) {
+        Throwable cause = unwrap(error);
+
+        if (cause instanceof RejectedExecutionException) {
+            LOG.warning("Too many logins waiting for verification");
+
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+
+        LOG.severe("IOException: Could not find User Account");
+
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    /**
+     * Maps a failed account write to a status
+     *
+     * @param cause   Why the write failed
+     * @param message Message logged for an I/O failure
+     * @return SERVICE_UNAVAILABLE when too much hashing is waiting, INTERNAL_SERVER_ERROR otherwise
+     */
+    private static HttpStatus writeErrorStatus(Throwable cause, String message) {
+        if (cause instanceof RejectedExecutionException) {
+            LOG.warning("Too many passwords waiting to be hashed");
+
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+
+        LOG.severe(message);
+
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    /**
+     * Unwraps the exception a future failed with
+     *
+     * @param error Exception passed to a completion stage
+     * @return The cause of a {@link CompletionException}, otherwise the exception itself
+     */
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Resolves the user of a request from its session token, without reading any account
+     *
+     * @param authorization Authorization header value, may be null
+     * @return Username, null if there is no live session
+     */
+    private String sessionUser(String authorization) {
+        return sessionStore.resolveBearer(authorization);
+    }
 }
@@ -0,0 +1,87 @@
+package com.estore.api.estoreapi.metrics;
+
+import com.estore.api.estoreapi.persistence.InventoryDAO;
+import com.estore.api.estoreapi.persistence.MetricsSource;
+import com.estore.api.estoreapi.persistence.PersistenceMetrics;
+import com.estore.api.estoreapi.persistence.UsersDAO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Connects the DAOs and caches to the Micrometer registry
+ * <p>
+ * Every {@link MetricsSource} bean reports its locks, file writes and cache lookups
+ * to a shared {@link MicrometerPersistenceMetrics}, and the {@link InventoryDAO} and
+ * {@link UsersDAO} beans are replaced by wrappers that time each operation. Without a
+ * {@link MeterRegistry} in the context, beans are left untouched.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Component
+public class DaoMetricsPostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<MeterRegistry> registryProvider;
+    private volatile PersistenceMetrics metrics;
+
+    /**
+     * Creates the post processor
+     *
+     * @param registryProvider Registry the meters are registered in, looked up when
+     *                         the first instrumented bean is created
+     */
+    public DaoMetricsPostProcessor(ObjectProvider<MeterRegistry> registryProvider) {
+        this.registryProvider = registryProvider;
+    }
+
+    /**
+     * Instruments DAOs and metrics sources
+     *
+     * @param bean     Initialized bean
+     * @param beanName Name of the bean
+     * @return Bean to expose, a timing wrapper for DAOs
+     */
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof MetricsSource || bean instanceof InventoryDAO || bean instanceof UsersDAO)) {
+            return bean;
+        }
+
+        MeterRegistry registry = registryProvider.getIfAvailable();
+
+        if (registry == null) {
+            return bean;
+        }
+
+        if (bean instanceof MetricsSource) {
+            ((MetricsSource) bean).setMetrics(metrics(registry));
+        }
+
+        if (bean instanceof InventoryDAO && !(bean instanceof MeteredInventoryDAO)) {
+            return new MeteredInventoryDAO((InventoryDAO) bean, registry);
+        }
+
+        if (bean instanceof UsersDAO && !(bean instanceof MeteredUsersDAO)) {
+            return new MeteredUsersDAO((UsersDAO) bean, registry);
+        }
+
+        return bean;
+    }
+
+    /**
+     * Returns the shared metrics, creating them on first use
+     *
+     * @param registry Registry the meters are registered in
+     * @return Metrics shared by all sources
+     */
+    private PersistenceMetrics metrics(MeterRegistry registry) {
+        PersistenceMetrics current = metrics;
+
+        if (current == null) {
+            current = new MicrometerPersistenceMetrics(registry);
+            metrics = current;
+        }
+
+        return current;
+    }
+}
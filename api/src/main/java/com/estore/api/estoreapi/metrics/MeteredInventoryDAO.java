@@ -0,0 +1,204 @@
+package com.estore.api.estoreapi.metrics;
+
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.ProductImportResult;
+import com.estore.api.estoreapi.persistence.InventoryDAO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * {@link InventoryDAO} that times every operation of another one
+ * <p>
+ * Each operation is recorded in {@code estore.dao.operation} with {@code dao=inventory},
+ * and the number of products returned by {@link #findProduct(String)} in
+ * {@code estore.dao.search.results}. {@link #getVersion()} is called on every cached
+ * GET /inventory and is passed through untimed.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class MeteredInventoryDAO implements InventoryDAO {
+    private static final String DAO = "inventory";
+
+    private final InventoryDAO delegate;
+    private final OperationTimer createProduct;
+    private final OperationTimer getProduct;
+    private final OperationTimer getInventory;
+    private final OperationTimer getInventoryPage;
+    private final OperationTimer getInventoryAfter;
+    private final OperationTimer updateProduct;
+    private final OperationTimer deleteProduct;
+    private final OperationTimer findProduct;
+    private final OperationTimer importProducts;
+    private final OperationTimer reserveStock;
+    private final OperationTimer releaseStock;
+    private final OperationTimer adjustQuantity;
+    private final OperationTimer reserveProducts;
+    private final OperationTimer releaseProducts;
+    private final DistributionSummary searchResults;
+
+    /**
+     * Wraps an inventory DAO
+     *
+     * @param delegate DAO the operations are passed to
+     * @param registry Registry the meters are registered in
+     */
+    public MeteredInventoryDAO(InventoryDAO delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.createProduct = new OperationTimer(registry, DAO, "createProduct");
+        this.getProduct = new OperationTimer(registry, DAO, "getProduct");
+        this.getInventory = new OperationTimer(registry, DAO, "getInventory");
+        this.getInventoryPage = new OperationTimer(registry, DAO, "getInventoryPage");
+        this.getInventoryAfter = new OperationTimer(registry, DAO, "getInventoryAfter");
+        this.updateProduct = new OperationTimer(registry, DAO, "updateProduct");
+        this.deleteProduct = new OperationTimer(registry, DAO, "deleteProduct");
+        this.findProduct = new OperationTimer(registry, DAO, "findProduct");
+        this.importProducts = new OperationTimer(registry, DAO, "importProducts");
+        this.reserveStock = new OperationTimer(registry, DAO, "reserveStock");
+        this.releaseStock = new OperationTimer(registry, DAO, "releaseStock");
+        this.adjustQuantity = new OperationTimer(registry, DAO, "adjustQuantity");
+        this.reserveProducts = new OperationTimer(registry, DAO, "reserveProducts");
+        this.releaseProducts = new OperationTimer(registry, DAO, "releaseProducts");
+        this.searchResults = DistributionSummary.builder("estore.dao.search.results")
+                .tag("dao", DAO)
+                .description("Products returned per search")
+                .register(registry);
+    }
+
+    /**
+     * Getter for the wrapped DAO
+     *
+     * @return DAO the operations are passed to
+     */
+    public InventoryDAO getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product createProduct(Product product) throws IOException {
+        return createProduct.record(() -> delegate.createProduct(product));
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product getProduct(int id) throws IOException {
+        return getProduct.record(() -> delegate.getProduct(id));
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] getInventory() {
+        return getInventory.record(delegate::getInventory);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] getInventoryPage(int offset, int limit) {
+        return getInventoryPage.record(() -> delegate.getInventoryPage(offset, limit));
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] getInventoryAfter(int afterId, int limit) {
+        return getInventoryAfter.record(() -> delegate.getInventoryAfter(afterId, limit));
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public long getVersion() {
+        return delegate.getVersion();
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product updateProduct(Product product) throws IOException {
+        return updateProduct.record(() -> delegate.updateProduct(product));
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public boolean deleteProduct(int id) throws IOException {
+        return deleteProduct.record(() -> delegate.deleteProduct(id));
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] findProduct(String keyword) throws IOException {
+        Product[] found = findProduct.record(() -> delegate.findProduct(keyword));
+
+        if (found != null) {
+            searchResults.record(found.length);
+        }
+
+        return found;
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public ProductImportResult[] importProducts(Product[] products, boolean atomic) throws IOException {
+        return importProducts.record(() -> delegate.importProducts(products, atomic));
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product reserveStock(int id, int quantity) throws IOException {
+        return reserveStock.record(() -> delegate.reserveStock(id, quantity));
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product releaseStock(int id, int quantity) throws IOException {
+        return releaseStock.record(() -> delegate.releaseStock(id, quantity));
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product adjustQuantity(int id, int delta) throws IOException {
+        return adjustQuantity.record(() -> delegate.adjustQuantity(id, delta));
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] reserveProducts(Map<Integer, Integer> quantities) throws IOException {
+        return reserveProducts.record(() -> delegate.reserveProducts(quantities));
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] releaseProducts(Map<Integer, Integer> quantities) throws IOException {
+        return releaseProducts.record(() -> delegate.releaseProducts(quantities));
+    }
+}
@@ -0,0 +1,170 @@
+package com.estore.api.estoreapi.metrics;
+
+import com.estore.api.estoreapi.model.UserAccount;
+import com.estore.api.estoreapi.persistence.UsersDAO;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.util.Map;
+
+/***
+ * {@link UsersDAO} that times every operation of another one
+ * <p>
+ * Each operation is recorded in {@code estore.dao.operation} with {@code dao=users}.
+ * Logins include the password hash, so their timer shows the cost of verification
+ * separately from the cart operations.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class MeteredUsersDAO implements UsersDAO {
+    private static final String DAO = "users";
+
+    private final UsersDAO delegate;
+    private final OperationTimer createUserAccount;
+    private final OperationTimer getUserAccount;
+    private final OperationTimer updateUserAccount;
+    private final OperationTimer deleteUserAccount;
+    private final OperationTimer logInUserAccount;
+    private final OperationTimer getCart;
+    private final OperationTimer clearCart;
+    private final OperationTimer clearCartIfUnchanged;
+    private final OperationTimer addToCart;
+    private final OperationTimer setCartQuantity;
+    private final OperationTimer removeFromCart;
+    private final OperationTimer flush;
+
+    /***
+     * Wraps a users DAO
+     *
+     * @param delegate DAO the operations are passed to
+     * @param registry Registry the meters are registered in
+     */
+    public MeteredUsersDAO(UsersDAO delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.createUserAccount = new OperationTimer(registry, DAO, "createUserAccount");
+        this.getUserAccount = new OperationTimer(registry, DAO, "getUserAccount");
+        this.updateUserAccount = new OperationTimer(registry, DAO, "updateUserAccount");
+        this.deleteUserAccount = new OperationTimer(registry, DAO, "deleteUserAccount");
+        this.logInUserAccount = new OperationTimer(registry, DAO, "logInUserAccount");
+        this.getCart = new OperationTimer(registry, DAO, "getCart");
+        this.clearCart = new OperationTimer(registry, DAO, "clearCart");
+        this.clearCartIfUnchanged = new OperationTimer(registry, DAO, "clearCartIfUnchanged");
+        this.addToCart = new OperationTimer(registry, DAO, "addToCart");
+        this.setCartQuantity = new OperationTimer(registry, DAO, "setCartQuantity");
+        this.removeFromCart = new OperationTimer(registry, DAO, "removeFromCart");
+        this.flush = new OperationTimer(registry, DAO, "flush");
+    }
+
+    /***
+     * Getter for the wrapped DAO
+     *
+     * @return DAO the operations are passed to
+     */
+    public UsersDAO getDelegate() {
+        return delegate;
+    }
+
+    /***
+     * {@inheritDoc}
+     */
+    @Override
+    public UserAccount createUserAccount(UserAccount userAccount) throws IOException {
+        return createUserAccount.record(() -> delegate.createUserAccount(userAccount));
+    }
+
+    /***
+     * {@inheritDoc}
+     */
+    @Override
+    public UserAccount getUserAccount(String username) throws IOException {
+        return getUserAccount.record(() -> delegate.getUserAccount(username));
+    }
+
+    /***
+     * {@inheritDoc}
+     */
+    @Override
+    public UserAccount updateUserAccount(UserAccount userAccount) throws IOException {
+        return updateUserAccount.record(() -> delegate.updateUserAccount(userAccount));
+    }
+
+    /***
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean deleteUserAccount(String username) throws IOException {
+        return deleteUserAccount.record(() -> delegate.deleteUserAccount(username));
+    }
+
+    /***
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean logInUserAccount(String username, String password) throws IOException {
+        return logInUserAccount.record(() -> delegate.logInUserAccount(username, password));
+    }
+
+    /***
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, Integer> getCart(String username) throws IOException {
+        return getCart.record(() -> delegate.getCart(username));
+    }
+
+    /***
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearCart(String username) throws IOException {
+        clearCart.record(() -> {
+            delegate.clearCart(username);
+
+            return null;
+        });
+    }
+
+    /***
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean clearCartIfUnchanged(String username, Map<Integer, Integer> expected) throws IOException {
+        return clearCartIfUnchanged.record(() -> delegate.clearCartIfUnchanged(username, expected));
+    }
+
+    /***
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, Integer> addToCart(String username, int productId, int quantity) throws IOException {
+        return addToCart.record(() -> delegate.addToCart(username, productId, quantity));
+    }
+
+    /***
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, Integer> setCartQuantity(String username, int productId, int quantity) throws IOException {
+        return setCartQuantity.record(() -> delegate.setCartQuantity(username, productId, quantity));
+    }
+
+    /***
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, Integer> removeFromCart(String username, int productId) throws IOException {
+        return removeFromCart.record(() -> delegate.removeFromCart(username, productId));
+    }
+
+    /***
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() throws IOException {
+        flush.record(() -> {
+            delegate.flush();
+
+            return null;
+        });
+    }
+}
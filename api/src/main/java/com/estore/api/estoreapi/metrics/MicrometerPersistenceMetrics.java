@@ -0,0 +1,155 @@
+package com.estore.api.estoreapi.metrics;
+
+import com.estore.api.estoreapi.persistence.PersistenceMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records persistence tier measurements in a Micrometer {@link MeterRegistry}
+ * <p>
+ * Meters are looked up once per name and kept in maps afterwards, so reporting from
+ * inside a lock costs a hash lookup and an atomic update. The meters are:
+ * <ul>
+ * <li>{@code estore.lock.wait} and {@code estore.lock.hold} timers, tagged {@code lock}</li>
+ * <li>{@code estore.file.write} timer, {@code estore.file.bytes} summary and
+ * {@code estore.file.size} gauge, tagged {@code file}</li>
+ * <li>{@code estore.file.load} timer and {@code estore.file.load.records} gauge, tagged
+ * {@code file}, one sample per data file loaded at startup</li>
+ * <li>{@code estore.journal.append} timer and {@code estore.journal.bytes} and
+ * {@code estore.journal.records} summaries, tagged {@code journal}</li>
+ * <li>{@code estore.cache.requests} counter, tagged {@code cache} and {@code result}</li>
+ * </ul>
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class MicrometerPersistenceMetrics implements PersistenceMetrics {
+    /**
+     * Meters of one file
+     */
+    private static final class FileMeters {
+        private final Timer writes;
+        private final DistributionSummary bytes;
+        private final AtomicLong size = new AtomicLong();
+
+        private FileMeters(MeterRegistry registry, String file) {
+            this.writes = Timer.builder("estore.file.write").tag("file", file)
+                    .description("Time taken to rewrite a data file").register(registry);
+            this.bytes = DistributionSummary.builder("estore.file.bytes").tag("file", file).baseUnit("bytes")
+                    .description("Bytes written per data file rewrite").register(registry);
+            registry.gauge("estore.file.size", Tags.of("file", file), size);
+        }
+    }
+
+    /**
+     * Meters of one journal
+     */
+    private static final class JournalMeters {
+        private final Timer appends;
+        private final DistributionSummary bytes;
+        private final DistributionSummary records;
+
+        private JournalMeters(MeterRegistry registry, String journal) {
+            this.appends = Timer.builder("estore.journal.append").tag("journal", journal)
+                    .description("Time taken to append and flush journal records").register(registry);
+            this.bytes = DistributionSummary.builder("estore.journal.bytes").tag("journal", journal).baseUnit("bytes")
+                    .description("Bytes appended per journal flush").register(registry);
+            this.records = DistributionSummary.builder("estore.journal.records").tag("journal", journal)
+                    .description("Records appended per journal flush").register(registry);
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> lockWaits = new ConcurrentHashMap<>();
+    private final Map<String, Timer> lockHolds = new ConcurrentHashMap<>();
+    private final Map<String, FileMeters> files = new ConcurrentHashMap<>();
+    private final Map<String, JournalMeters> journals = new ConcurrentHashMap<>();
+    private final Map<String, Counter> cacheHits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> cacheMisses = new ConcurrentHashMap<>();
+
+    /**
+     * Creates metrics backed by a registry
+     *
+     * @param registry Registry the meters are registered in
+     */
+    public MicrometerPersistenceMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void lockWaited(String lock, long nanos) {
+        lockWaits.computeIfAbsent(lock, name -> Timer.builder("estore.lock.wait").tag("lock", name)
+                .description("Time spent waiting for a lock").register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void lockHeld(String lock, long nanos) {
+        lockHolds.computeIfAbsent(lock, name -> Timer.builder("estore.lock.hold").tag("lock", name)
+                .description("Time a lock was held").register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void fileWritten(String file, long bytes, long nanos) {
+        FileMeters meters = files.computeIfAbsent(file, name -> new FileMeters(registry, name));
+
+        meters.writes.record(nanos, TimeUnit.NANOSECONDS);
+        meters.bytes.record(bytes);
+        meters.size.set(bytes);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void fileLoaded(String file, long records, long nanos) {
+        Timer.builder("estore.file.load").tag("file", file)
+                .description("Time taken to load a data file at startup").register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        Gauge.builder("estore.file.load.records", () -> records).tag("file", file).strongReference(true)
+                .description("Records loaded from a data file at startup").register(registry);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void journalAppended(String journal, int records, long bytes, long nanos) {
+        JournalMeters meters = journals.computeIfAbsent(journal, name -> new JournalMeters(registry, name));
+
+        meters.appends.record(nanos, TimeUnit.NANOSECONDS);
+        meters.bytes.record(bytes);
+        meters.records.record(records);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cacheAccessed(String cache, boolean hit) {
+        Map<String, Counter> counters = hit ? cacheHits : cacheMisses;
+
+        counters.computeIfAbsent(cache, name -> Counter.builder("estore.cache.requests").tag("cache", name)
+                .tag("result", hit ? "hit" : "miss")
+                .description("Cache lookups by result").register(registry))
+                .increment();
+    }
+}
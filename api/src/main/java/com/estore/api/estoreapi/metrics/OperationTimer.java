@@ -0,0 +1,95 @@
+package com.estore.api.estoreapi.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times one DAO operation into {@code estore.dao.operation}
+ * <p>
+ * Calls that return are recorded with {@code outcome=success} and calls that throw with
+ * {@code outcome=error}, both tagged with the DAO and operation names. The success timer
+ * is registered up front so the common path does not look it up in the registry.
+ *
+ * @author SWEN-261 Project Team One
+ */
+class OperationTimer {
+    /**
+     * Body of a timed call
+     *
+     * @param <T> Type of the result
+     * @param <E> Type of exception the call may throw
+     */
+    @FunctionalInterface
+    interface Call<T, E extends Exception> {
+        /**
+         * Runs the operation
+         *
+         * @return Result of the operation
+         * @throws E when the operation fails
+         */
+        T call() throws E;
+    }
+
+    static final String NAME = "estore.dao.operation";
+
+    private final MeterRegistry registry;
+    private final String dao;
+    private final String operation;
+    private final Timer success;
+
+    /**
+     * Creates a timer for an operation
+     *
+     * @param registry  Registry the timers are registered in
+     * @param dao       Name of the DAO
+     * @param operation Name of the operation
+     */
+    OperationTimer(MeterRegistry registry, String dao, String operation) {
+        this.registry = registry;
+        this.dao = dao;
+        this.operation = operation;
+        this.success = timer("success");
+    }
+
+    /**
+     * Runs a call and records how long it took
+     *
+     * @param call Operation to run
+     * @param <T>  Type of the result
+     * @param <E>  Type of exception the call may throw
+     * @return Result of the call
+     * @throws E when the call throws, after the failure is recorded
+     */
+    <T, E extends Exception> T record(Call<T, E> call) throws E {
+        long start = System.nanoTime();
+        T result;
+
+        try {
+            result = call.call();
+        } catch (Exception | Error e) {
+            timer("error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+
+        success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        return result;
+    }
+
+    /**
+     * Looks up the timer of an outcome
+     *
+     * @param outcome success or error
+     * @return Registered timer
+     */
+    private Timer timer(String outcome) {
+        return Timer.builder(NAME)
+                .tag("dao", dao)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .description("Time taken by DAO operations")
+                .register(registry);
+    }
+}
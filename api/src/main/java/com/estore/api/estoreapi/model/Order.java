@@ -0,0 +1,79 @@
+package com.estore.api.estoreapi.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+
+/**
+ * Class representing the result of checking out a user's cart
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class Order {
+    @JsonProperty("userName") private final String userName;
+    @JsonProperty("lines") private final OrderLine[] lines;
+    @JsonProperty("total") private final double total;
+
+    /**
+     * Constructor for an order
+     *
+     * @param userName Username of the buyer
+     * @param lines    Products bought
+     * @param total    Sum of price times quantity over all lines
+     */
+    public Order(@JsonProperty("userName") String userName, @JsonProperty("lines") OrderLine[] lines, @JsonProperty("total") double total) {
+        this.userName = userName;
+        this.lines = lines;
+        this.total = total;
+    }
+
+    /**
+     * Creates an order from the products reserved for a cart
+     *
+     * @param userName Username of the buyer
+     * @param products Reserved products, as returned by the inventory
+     * @param cart     Quantity bought per product ID
+     * @return Order with one line per product
+     */
+    public static Order of(String userName, Product[] products, Map<Integer, Integer> cart) {
+        OrderLine[] lines = new OrderLine[products.length];
+        double total = 0;
+
+        for (int i = 0; i < products.length; i++) {
+            Product product = products[i];
+            int quantity = cart.get(product.getId());
+
+            lines[i] = new OrderLine(product.getId(), product.getName(), product.getPrice(), quantity);
+            total += product.getPrice() * quantity;
+        }
+
+        return new Order(userName, lines, total);
+    }
+
+    /**
+     * Getter for the buyer
+     *
+     * @return Username of the buyer
+     */
+    public String getUserName() {
+        return userName;
+    }
+
+    /**
+     * Getter for the lines
+     *
+     * @return Products bought
+     */
+    public OrderLine[] getLines() {
+        return lines;
+    }
+
+    /**
+     * Getter for the total
+     *
+     * @return Sum of price times quantity over all lines
+     */
+    public double getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,66 @@
+package com.estore.api.estoreapi.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Class representing one product bought in an Order
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class OrderLine {
+    @JsonProperty("productId") private final int productId;
+    @JsonProperty("name") private final String name;
+    @JsonProperty("price") private final double price;
+    @JsonProperty("quantity") private final int quantity;
+
+    /**
+     * Constructor for an order line
+     *
+     * @param productId ID of the product bought
+     * @param name      Name of the product at checkout
+     * @param price     Unit price of the product at checkout
+     * @param quantity  Number of units bought
+     */
+    public OrderLine(@JsonProperty("productId") int productId, @JsonProperty("name") String name, @JsonProperty("price") double price, @JsonProperty("quantity") int quantity) {
+        this.productId = productId;
+        this.name = name;
+        this.price = price;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Getter for the product ID
+     *
+     * @return ID of the product bought
+     */
+    public int getProductId() {
+        return productId;
+    }
+
+    /**
+     * Getter for the product name
+     *
+     * @return Name of the product at checkout
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Getter for the unit price
+     *
+     * @return Unit price of the product at checkout
+     */
+    public double getPrice() {
+        return price;
+    }
+
+    /**
+     * Getter for the quantity
+     *
+     * @return Number of units bought
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+}
@@ -0,0 +1,98 @@
+package com.estore.api.estoreapi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Outcome of a single item in a bulk product import
+ *
+ * @author SWEN-261 Project Team One
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductImportResult {
+    /**
+     * What happened to an imported item
+     */
+    public enum Status {
+        CREATED,
+        UPDATED,
+        INVALID,
+        DUPLICATE,
+        NOT_APPLIED
+    }
+
+    @JsonProperty("index") private final int index;
+    @JsonProperty("status") private final Status status;
+    @JsonProperty("product") private final Product product;
+    @JsonProperty("message") private final String message;
+
+    /**
+     * Constructor for an import result
+     *
+     * @param index   Position of the item in the imported batch
+     * @param status  What happened to the item
+     * @param product Stored product, null if nothing was stored
+     * @param message Reason the item was rejected, null if it was accepted
+     */
+    public ProductImportResult(@JsonProperty("index") int index, @JsonProperty("status") Status status, @JsonProperty("product") Product product, @JsonProperty("message") String message) {
+        this.index = index;
+        this.status = status;
+        this.product = product;
+        this.message = message;
+    }
+
+    /**
+     * Getter for the item position
+     *
+     * @return Position of the item in the imported batch
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Getter for the item status
+     *
+     * @return What happened to the item
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Getter for the stored product
+     *
+     * @return Stored product, null if nothing was stored
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * Getter for the rejection reason
+     *
+     * @return Reason the item was rejected, null if it was accepted
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Whether the item was rejected by validation
+     *
+     * @return true if the item is invalid or a duplicate
+     */
+    @JsonIgnore
+    public boolean isRejected() {
+        return status == Status.INVALID || status == Status.DUPLICATE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return index + " - " + status;
+    }
+}
@@ -0,0 +1,54 @@
+package com.estore.api.estoreapi.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Session issued to a user after a successful login
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class SessionToken {
+    @JsonProperty("token") private final String token;
+    @JsonProperty("userName") private final String userName;
+    @JsonProperty("expiresAt") private final long expiresAt;
+
+    /**
+     * Constructor for a session token
+     *
+     * @param token     Opaque bearer token
+     * @param userName  Username the session belongs to
+     * @param expiresAt Expiry time in milliseconds since the epoch
+     */
+    public SessionToken(@JsonProperty("token") String token, @JsonProperty("userName") String userName, @JsonProperty("expiresAt") long expiresAt) {
+        this.token = token;
+        this.userName = userName;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Getter for the token
+     *
+     * @return Opaque bearer token
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Getter for the session owner
+     *
+     * @return Username the session belongs to
+     */
+    public String getUserName() {
+        return userName;
+    }
+
+    /**
+     * Getter for the expiry time
+     *
+     * @return Expiry time in milliseconds since the epoch
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
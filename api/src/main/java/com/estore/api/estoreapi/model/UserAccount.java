@@ -1,6 +1,9 @@
 package com.estore.api.estoreapi.model;
 
 import com.estore.api.estoreapi.IgnoreJacocoGenerated;
+import com.estore.api.estoreapi.util.IntIntHashMap;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.*;
@@ -12,8 +15,10 @@ public class UserAccount {
     @JsonProperty("firstName") private String firstName;
     @JsonProperty("lastName") private String lastName;
     @JsonProperty("userName") private String userName;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     @JsonProperty("password") private String password;
-    @JsonProperty("cart") private Map<Integer, Integer> cart;
+    @JsonIgnore private String passwordHash;
+    private volatile IntIntHashMap cart;
     
 
    /***
@@ -29,7 +34,7 @@ public class UserAccount {
         this.lastName = lastName;
         this.userName = userName;
         this.password = password;
-        this.cart = new HashMap<>();
+        this.cart = new IntIntHashMap();
     }
 
     /***
@@ -109,22 +114,77 @@ public class UserAccount {
         return this.password;
     }
 
+    /***
+     * setter for the stored password hash
+     * 
+     * @param passwordHash Encoded salted hash of the password
+     */
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+    }
+
+    /***
+     * Getter for the stored password hash
+     * 
+     * @return Encoded salted hash of the password, null for accounts that still
+     *         hold a plaintext password
+     */
+    public String getPasswordHash() {
+        return this.passwordHash;
+    }
+
     /**
      * Getter for cart
+     * <p>
+     * Carts change only through the DAO, which locks the user and journals the
+     * change, so the view is read-only.
      *
-     * @return user cart
+     * @return user cart, a read-only view of the stored cart
      */
+    @JsonProperty("cart")
     public Map<Integer, Integer> getCart() {
+        return Collections.unmodifiableMap(this.cart.asMap());
+    }
+
+    /**
+     * Replaces the cart with a copy of the given one
+     *
+     * @param cart New quantity per product ID
+     */
+    @JsonProperty("cart")
+    public void setCart(Map<Integer, Integer> cart) {
+        this.cart = IntIntHashMap.copyOf(cart);
+    }
+
+    /**
+     * Getter for the stored cart, shared with anyone reading the account and never
+     * to be changed, callers copy it and swap the copy in with {@link #setCartItems}
+     *
+     * @return Quantity per product ID
+     */
+    @JsonIgnore
+    public IntIntHashMap getCartItems() {
         return this.cart;
     }
 
+    /**
+     * Replaces the cart, callers build a new map instead of changing the current one
+     * so a cart that is being serialized never changes underneath the writer
+     *
+     * @param cart New quantity per product ID
+     */
+    @JsonIgnore
+    public void setCartItems(IntIntHashMap cart) {
+        this.cart = cart;
+    }
+
     /**
      * Clear cart
      *
      * @return user cart
      */
     public void clearCart() {
-        this.cart = new HashMap<>();
+        this.cart = new IntIntHashMap();
     }
 
     /**
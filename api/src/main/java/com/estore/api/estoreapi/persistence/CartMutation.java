@@ -0,0 +1,101 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+
+/**
+ * Journal record describing a single change to a user's cart
+ * <p>
+ * The record carries the new quantity of the line rather than the difference, so
+ * replaying the same record twice leaves the cart unchanged. A quantity of zero
+ * removes the line. A {@link #reset reset} record carries the whole new cart instead
+ * and replaces the cart when it is replayed, so line changes journaled before a cart
+ * was replaced or emptied never land on top of the newer cart.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class CartMutation {
+    @JsonProperty("user") private final String userName;
+    @JsonProperty("product") private final int productId;
+    @JsonProperty("quantity") private final int quantity;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("cart") private final Map<Integer, Integer> cart;
+
+    /**
+     * Constructor for a cart mutation
+     *
+     * @param userName  Username of the cart owner
+     * @param productId ID of the product in the cart
+     * @param quantity  New quantity of the line, zero if it was removed
+     */
+    public CartMutation(String userName, int productId, int quantity) {
+        this(userName, productId, quantity, null);
+    }
+
+    /**
+     * Constructor for a cart mutation as read from the journal
+     *
+     * @param userName  Username of the cart owner
+     * @param productId ID of the product in the cart
+     * @param quantity  New quantity of the line, zero if it was removed
+     * @param cart      Whole new cart of a reset record, null for a line change
+     */
+    @JsonCreator
+    public CartMutation(@JsonProperty("user") String userName, @JsonProperty("product") int productId,
+                        @JsonProperty("quantity") int quantity, @JsonProperty("cart") Map<Integer, Integer> cart) {
+        this.userName = userName;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.cart = cart;
+    }
+
+    /**
+     * Creates a record that replaces a whole cart
+     *
+     * @param userName Username of the cart owner
+     * @param cart     New cart, empty when it was cleared
+     * @return Reset record
+     */
+    public static CartMutation reset(String userName, Map<Integer, Integer> cart) {
+        return new CartMutation(userName, 0, 0, cart);
+    }
+
+    /**
+     * Getter for the cart owner
+     *
+     * @return Username of the cart owner
+     */
+    public String getUserName() {
+        return userName;
+    }
+
+    /**
+     * Getter for the product ID
+     *
+     * @return ID of the product in the cart
+     */
+    public int getProductId() {
+        return productId;
+    }
+
+    /**
+     * Getter for the new quantity
+     *
+     * @return New quantity of the line, zero if it was removed
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Getter for the whole new cart
+     *
+     * @return New cart of a reset record, null for a line change
+     */
+    public Map<Integer, Integer> getCart() {
+        return cart;
+    }
+}
@@ -0,0 +1,261 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.UserAccount;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifies logins and hashes new passwords off the request threads
+ * <p>
+ * Password hashing is deliberately slow, so verification runs on a small bounded pool
+ * and never inside a DAO lock. Account writes that hash a password, signups and
+ * password changes, are {@linkplain #submit submitted} to the same pool. When the pool
+ * and its queue are full new work fails fast with a {@link RejectedExecutionException}
+ * instead of taking threads that serve catalog requests.
+ * <p>
+ * Recent successful logins are remembered for a short time as a SHA-256 fingerprint of
+ * the stored credential and the password, never the password itself. A repeated login
+ * with the same password is answered from the cache, and a changed password changes
+ * the stored credential and so misses it.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Component
+public class CredentialVerifier implements MetricsSource {
+    /**
+     * Fingerprint of a recent successful login
+     */
+    private static final class CachedLogin {
+        private final byte[] fingerprint;
+        private final long expiresAt;
+
+        private CachedLogin(byte[] fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * An account write that hashes a password
+     *
+     * @param <T> Type of the result of the write
+     */
+    @FunctionalInterface
+    public interface AccountWrite<T> {
+        /**
+         * Performs the write
+         *
+         * @return Result of the write
+         * @throws IOException when the accounts could not be written
+         */
+        T write() throws IOException;
+    }
+
+    private final UsersDAO usersDAO;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, CachedLogin> recentLogins;
+    private final long cacheTtlNanos;
+    private volatile PersistenceMetrics metrics = PersistenceMetrics.NONE;
+
+    /**
+     * Creates a verifier with one thread per two cores and a five minute cache
+     *
+     * @param usersDAO DAO the accounts are read from
+     */
+    public CredentialVerifier(UsersDAO usersDAO) {
+        this(usersDAO, 0, 256, 1024, 300_000);
+    }
+
+    /**
+     * Creates a verifier
+     *
+     * @param usersDAO       DAO the accounts are read from
+     * @param threads        Verification threads, 0 for one per two cores
+     * @param queueSize      Logins that may wait for a thread before new ones are rejected
+     * @param cacheSize      Recent logins remembered, 0 disables the cache
+     * @param cacheTtlMillis How long a remembered login stays valid
+     */
+    @Autowired
+    public CredentialVerifier(UsersDAO usersDAO, @Value("${users.login.threads:0}") int threads,
+                              @Value("${users.login.queue:256}") int queueSize,
+                              @Value("${users.login.cache-size:1024}") int cacheSize,
+                              @Value("${users.login.cache-ttl-ms:300000}") long cacheTtlMillis) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+
+        this.usersDAO = usersDAO;
+        this.cacheTtlNanos = TimeUnit.MILLISECONDS.toNanos(cacheTtlMillis);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), runnable -> {
+                    Thread thread = new Thread(runnable, "login-verifier-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+
+                    return thread;
+                });
+        this.recentLogins = new LinkedHashMap<String, CachedLogin>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedLogin> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setMetrics(PersistenceMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Checks a username and password
+     *
+     * @param username Username of the account
+     * @param password Password to check
+     * @return Future completed with true if the credentials match, false otherwise.
+     *         It fails with {@link IOException} when the account could not be read
+     *         and with {@link RejectedExecutionException} when too many logins are waiting
+     */
+    public CompletableFuture<Boolean> verify(String username, String password) {
+        UserAccount account;
+
+        try {
+            account = usersDAO.getUserAccount(username);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        if (account == null || password == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        byte[] fingerprint = fingerprint(account, password);
+
+        boolean recent = isRecent(username, fingerprint);
+
+        metrics.cacheAccessed("login", recent);
+
+        if (recent) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    boolean verified = usersDAO.logInUserAccount(username, password);
+
+                    if (verified) {
+                        remember(username, fingerprint);
+                    }
+
+                    return verified;
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Runs an account write that hashes a password on the verification threads
+     *
+     * @param write Write to run, such as creating an account or changing its password
+     * @param <T>   Type of the result of the write
+     * @return Future completed with the result of the write. It fails with the
+     *         {@link IOException} or runtime exception the write threw, and with
+     *         {@link RejectedExecutionException} when too many writes and logins are waiting
+     */
+    public <T> CompletableFuture<T> submit(AccountWrite<T> write) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return write.write();
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Stops the verification threads
+     */
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Checks whether the same credentials were verified recently
+     *
+     * @param username    Username of the account
+     * @param fingerprint Fingerprint of the stored credential and the password
+     * @return true if a matching login is still cached
+     */
+    private boolean isRecent(String username, byte[] fingerprint) {
+        CachedLogin cached;
+
+        synchronized (recentLogins) {
+            cached = recentLogins.get(username);
+        }
+
+        return cached != null && cached.expiresAt - System.nanoTime() > 0
+                && MessageDigest.isEqual(cached.fingerprint, fingerprint);
+    }
+
+    /**
+     * Caches a successful login
+     *
+     * @param username    Username of the account
+     * @param fingerprint Fingerprint of the stored credential and the password
+     */
+    private void remember(String username, byte[] fingerprint) {
+        CachedLogin cached = new CachedLogin(fingerprint, System.nanoTime() + cacheTtlNanos);
+
+        synchronized (recentLogins) {
+            recentLogins.put(username, cached);
+        }
+    }
+
+    /**
+     * Digests the stored credential together with a password
+     *
+     * @param account  Account being logged in to
+     * @param password Password to check
+     * @return SHA-256 fingerprint
+     */
+    private static byte[] fingerprint(UserAccount account, String password) {
+        String credential = account.getPasswordHash() != null ? account.getPasswordHash() : String.valueOf(account.getPassword());
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(credential.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+
+            return digest.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.estore.api.estoreapi.persistence;
 
 import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.ProductImportResult;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.Map;
 
 /**
  * Interface for Product object persistence
@@ -19,6 +21,7 @@ public interface InventoryDAO {
      * @return Product passed in if creation is successful
      *
      * @throws IOException when file could not be accessed
+     * @throws IllegalArgumentException when a product with the same name, ignoring case, exists
      */
     Product createProduct(Product product) throws IOException;
 
@@ -35,16 +38,45 @@ public interface InventoryDAO {
 
     /**
      * Retrieves a list of all products stored
+     * <p>
+     * The array may be shared between callers and must not be modified.
      *
-     * @return Array of products stored
+     * @return Consistent array of products stored, ordered by ID
      */
     Product[] getInventory();
 
+    /**
+     * Retrieves a page of the inventory by position
+     *
+     * @param offset Number of products to skip, in ID order
+     * @param limit  Largest number of products to return
+     * @return Array of at most limit products, ordered by ID
+     */
+    Product[] getInventoryPage(int offset, int limit);
+
+    /**
+     * Retrieves a page of the inventory by keyset cursor
+     *
+     * @param afterId Only products with a greater ID are returned
+     * @param limit   Largest number of products to return
+     * @return Array of at most limit products, ordered by ID
+     */
+    Product[] getInventoryAfter(int afterId, int limit);
+
+    /**
+     * Version of the inventory, which changes whenever a product is created,
+     * updated or deleted
+     *
+     * @return Current inventory version
+     */
+    long getVersion();
+
     /**
      * Updates a Product
      *
      * @param product: the product being updated
      * @throws IOException: if the file can't be accessed
+     * @throws IllegalArgumentException: if another product already has the new name
      * @return: successfully updated if the operation was successful failed otherwise
      */
     Product updateProduct(Product product) throws IOException;
@@ -66,4 +98,83 @@ public interface InventoryDAO {
      * @return: An array of products that contain the keyword
      */
     Product[] findProduct(String keyword) throws IOException;
+
+    /**
+     * Creates or updates many products with a single persistence write
+     * <p>
+     * Items are matched to existing products by name, ignoring case. Matches are
+     * updated in place and keep their ID, everything else is created with a new ID.
+     * Items without a name, with a negative price or quantity, or repeating an earlier
+     * name in the batch are rejected.
+     *
+     * @param products Products to import, in order
+     * @param atomic   When true, nothing is stored if any item is rejected
+     * @return One result per item, in the same order
+     *
+     * @throws IOException when file could not be accessed
+     * @throws UnsupportedOperationException when atomic is true and the store cannot
+     *                                       write the batch all at once
+     */
+    ProductImportResult[] importProducts(Product[] products, boolean atomic) throws IOException;
+
+    /**
+     * Atomically takes stock of a product, never letting the quantity drop below zero
+     *
+     * @param id       ID of the product
+     * @param quantity Positive amount to take
+     * @return Updated product, null if no product has the ID
+     *
+     * @throws IOException when file could not be accessed
+     * @throws IllegalArgumentException when the quantity is not positive
+     * @throws IllegalStateException when there is not enough stock
+     */
+    Product reserveStock(int id, int quantity) throws IOException;
+
+    /**
+     * Atomically returns stock to a product
+     *
+     * @param id       ID of the product
+     * @param quantity Positive amount to return
+     * @return Updated product, null if no product has the ID
+     *
+     * @throws IOException when file could not be accessed
+     * @throws IllegalArgumentException when the quantity is not positive or too large
+     */
+    Product releaseStock(int id, int quantity) throws IOException;
+
+    /**
+     * Atomically adds a signed amount to the quantity of a product
+     *
+     * @param id    ID of the product
+     * @param delta Amount to add, negative to remove stock
+     * @return Updated product, null if no product has the ID
+     *
+     * @throws IOException when file could not be accessed
+     * @throws IllegalArgumentException when the quantity would become too large
+     * @throws IllegalStateException when the quantity would drop below zero
+     */
+    Product adjustQuantity(int id, int delta) throws IOException;
+
+    /**
+     * Atomically takes stock of several products: either every line is reserved or none is
+     *
+     * @param quantities Positive amount to take per product ID
+     * @return Updated products, ordered by ID
+     *
+     * @throws IOException when file could not be accessed
+     * @throws IllegalArgumentException when a quantity is not positive or a product does not exist
+     * @throws IllegalStateException when any product does not have enough stock
+     */
+    Product[] reserveProducts(Map<Integer, Integer> quantities) throws IOException;
+
+    /**
+     * Atomically returns stock to several products, undoing {@link #reserveProducts(Map)}
+     *
+     * @param quantities Positive amount to return per product ID
+     * @return Updated products, ordered by ID
+     *
+     * @throws IOException when file could not be accessed
+     * @throws IllegalArgumentException when a quantity is not positive or a product does not exist
+     */
+    Product[] releaseProducts(Map<Integer, Integer> quantities) throws IOException;
 }
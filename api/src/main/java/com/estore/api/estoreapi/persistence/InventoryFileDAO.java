@@ -2,71 +2,258 @@ package com.estore.api.estoreapi.persistence;
 
 import com.estore.api.estoreapi.IgnoreJacocoGenerated;
 import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.ProductImportResult;
+import com.estore.api.estoreapi.util.IntObjectHashMap;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-
+import javax.annotation.PreDestroy;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Implementation of data persistence through JSON files
+ * <p>
+ * The inventory file is written in the configured {@link SnapshotFormat}, JSON text
+ * or binary Smile, and read in whichever format it was written in, so switching the
+ * format takes effect on the next save. The journal is always JSON text. Snapshots
+ * are written through a {@link SnapshotFile}, which replaces the file atomically and
+ * falls back to the previous generation when the live one cannot be read.
+ * <p>
+ * In {@link PersistenceMode#SNAPSHOT} mode every mutation rewrites the whole inventory
+ * file. In {@link PersistenceMode#JOURNAL} mode mutations are appended to a journal
+ * next to the inventory file, which is compacted into a fresh snapshot in the background.
+ * <p>
+ * Reads never take the inventory lock. Products are kept in an {@link IntObjectHashMap}
+ * keyed by the unboxed product ID, and every mutation is bracketed by two counters, so
+ * {@link #getInventory()} can copy the catalog optimistically and only publish the copy
+ * if no writer ran in the meantime. ID order for listings and keyset pages comes from
+ * the map's sorted key blocks, which a create or delete updates in place. The keys are
+ * only sorted from scratch on a read that follows 64 writes no reader asked for, as
+ * after a bulk load.
+ * Searches go through a {@link ProductSearchIndex} and duplicate names are caught with a
+ * case-insensitive name index, both kept up to date by writers.
+ * <p>
+ * Structural changes (create, update, delete, import) are serialized on a structure
+ * lock. Stock changes only take the striped lock of their product, which structural
+ * changes also hold for the products they touch, so journal records for one product are
+ * always written in the order the changes were made. Every lock is a
+ * {@link TimedLock} over a {@link ReentrantLock} rather than a monitor, so a virtual
+ * thread waiting on one or writing the file while holding one does not pin its carrier
+ * thread, and lock wait and hold times can be reported to {@link PersistenceMetrics}.
+ * <p>
+ * This is the default store, {@code inventory.store=mapped} selects
+ * {@link MappedInventoryDAO} instead.
  *
  * @author SWEN-261 Project Team One
  */
 @Component
-public class InventoryFileDAO implements InventoryDAO {
+@ConditionalOnProperty(name = "inventory.store", havingValue = "json", matchIfMissing = true)
+public class InventoryFileDAO implements InventoryDAO, MetricsSource {
+    /**
+     * How mutations are made durable
+     */
+    public enum PersistenceMode {
+        SNAPSHOT,
+        JOURNAL
+    }
+
+    /**
+     * Catalog copy published for lock-free readers
+     */
+    private static final class CatalogSnapshot {
+        private final long version;
+        private final Product[] products;
+
+        private CatalogSnapshot(long version, Product[] products) {
+            this.version = version;
+            this.products = products;
+        }
+    }
+
     private static final Logger LOG = Logger.getLogger(InventoryFileDAO.class.getName());
-    private Map<Integer, Product> inventory;
+    private final IntObjectHashMap<Product> inventory;
     private ObjectMapper objectMapper;
+    private final ObjectMapper snapshotMapper;
     private static int nextID;
     private String filename;
-    
+    private final SnapshotFormat format;
+    private final PersistenceMode persistenceMode;
+    private final int compactionThreshold;
+    private final Journal<InventoryMutation> journal;
+    private final ExecutorService compactor;
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private final Map<String, Integer> productIdsByName = new ConcurrentHashMap<>();
+    private final StripedLocks productLocks = new StripedLocks("inventory.product", LOCK_STRIPES);
+    private final TimedLock structureLock = new TimedLock("inventory.structure");
+    private final TimedLock saveLock = new TimedLock("inventory.save");
+    private final AtomicLong writesStarted = new AtomicLong();
+    private final AtomicLong writesCompleted = new AtomicLong();
+    private volatile CatalogSnapshot snapshot = new CatalogSnapshot(-1, new Product[0]);
+    private volatile PersistenceMetrics metrics = PersistenceMetrics.NONE;
+    private final JsonArrayReader<Product> productReader;
+    private final SnapshotFile snapshotFile;
+    private int loadedProducts;
+    private long loadNanos;
+
     private static final String PRODUCT_LOG = "PRODUCT: ";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+    private static final int OPTIMISTIC_READ_ATTEMPTS = 8;
+    private static final int LOCK_STRIPES = 64;
 
     /**
-     * Constructor for an Inventory File DAO
+     * Constructor for an Inventory File DAO that rewrites the file on every mutation
      *
      * @param objectMapper JSON object for serialization and deserialization
      * @param filename     Filename for reading and writing data
      * @throws IOException when file could not be accessed
      */
-    public InventoryFileDAO(ObjectMapper objectMapper, @Value("${inventory.file}") String filename) throws IOException {
+    public InventoryFileDAO(ObjectMapper objectMapper, String filename) throws IOException {
+        this(objectMapper, filename, PersistenceMode.SNAPSHOT.name(), DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Constructor for an Inventory File DAO that loads the file on the calling thread
+     *
+     * @param objectMapper        JSON object for serialization and deserialization
+     * @param filename            Filename for reading and writing data
+     * @param persistenceMode     Name of the {@link PersistenceMode} to use
+     * @param compactionThreshold Journal length in records that triggers a compaction
+     * @throws IOException when file could not be accessed
+     */
+    public InventoryFileDAO(ObjectMapper objectMapper, String filename, String persistenceMode,
+                            int compactionThreshold) throws IOException {
+        this(objectMapper, filename, persistenceMode, compactionThreshold, 1);
+    }
+
+    /**
+     * Constructor for an Inventory File DAO that writes JSON text
+     *
+     * @param objectMapper        JSON object for serialization and deserialization
+     * @param filename            Filename for reading and writing data
+     * @param persistenceMode     Name of the {@link PersistenceMode} to use
+     * @param compactionThreshold Journal length in records that triggers a compaction
+     * @param loadThreads         Threads binding products while the file is loaded
+     * @throws IOException when file could not be accessed
+     */
+    public InventoryFileDAO(ObjectMapper objectMapper, String filename, String persistenceMode,
+                            int compactionThreshold, int loadThreads) throws IOException {
+        this(objectMapper, filename, persistenceMode, compactionThreshold, loadThreads, SnapshotFormat.JSON.name());
+    }
+
+    /**
+     * Constructor for an Inventory File DAO
+     *
+     * @param objectMapper        JSON object for serialization and deserialization
+     * @param filename            Filename for reading and writing data
+     * @param persistenceMode     Name of the {@link PersistenceMode} to use
+     * @param compactionThreshold Journal length in records that triggers a compaction
+     * @param loadThreads         Threads binding products while the file is loaded
+     * @param format              Name of the {@link SnapshotFormat} the file is written in
+     * @throws IOException when file could not be accessed
+     */
+    @Autowired
+    public InventoryFileDAO(ObjectMapper objectMapper, @Value("${inventory.file}") String filename,
+                            @Value("${inventory.persistence:snapshot}") String persistenceMode,
+                            @Value("${inventory.journal.compaction-threshold:1000}") int compactionThreshold,
+                            @Value("${inventory.load.threads:1}") int loadThreads,
+                            @Value("${inventory.format:json}") String format) throws IOException {
         this.objectMapper = objectMapper;
+        this.format = SnapshotFormat.of(format);
+        this.snapshotMapper = this.format.mapper(objectMapper);
+        this.productReader = new JsonArrayReader<>(objectMapper, Product.class, loadThreads);
         this.filename = filename;
-        this.inventory = new TreeMap<>();
+        this.snapshotFile = new SnapshotFile(new File(filename));
+        this.inventory = new IntObjectHashMap<>();
+        this.persistenceMode = PersistenceMode.valueOf(persistenceMode.trim().toUpperCase(Locale.ROOT));
+        this.compactionThreshold = compactionThreshold;
+        this.journal = new Journal<>(objectMapper, new File(filename + JOURNAL_SUFFIX), InventoryMutation.class);
+        this.compactor = this.persistenceMode == PersistenceMode.JOURNAL ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-compactor");
+            thread.setDaemon(true);
+
+            return thread;
+        }) : null;
 
         loadProducts();
     }
 
 
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public void setMetrics(PersistenceMetrics metrics) {
+        this.metrics = metrics;
+        productLocks.setMetrics(metrics);
+        structureLock.setMetrics(metrics);
+        saveLock.setMetrics(metrics);
+        journal.setMetrics(metrics);
+        metrics.fileLoaded(new File(filename).getName(), loadedProducts, loadNanos);
+    }
+
     /**
      * * {@inheritDoc}
      */
     @Override
     public Product createProduct(Product product) throws IOException {
 
-        synchronized (inventory) {
-            if (inventory.containsValue(product)) {
+        structureLock.lock();
+
+        try {
+            if (productIdsByName.containsKey(nameKey(product.getName()))) {
                 throw new IllegalArgumentException("Product already created");
             }
 
             Product newProduct = new Product(product.getName(), getNextID(), product.getDescription(), product.getPrice(), product.getQuantity());
+            Lock productLock = productLocks.get(newProduct.getId());
 
-            inventory.put(newProduct.getId(), newProduct);
-            LOG.info(PRODUCT_LOG + newProduct.getName() + " created with an ID of " + newProduct.getId());
+            productLock.lock();
 
-            saveProducts();
+            try {
+                beginWrite();
+
+                try {
+                    inventory.put(newProduct.getId(), newProduct);
+                } finally {
+                    endWrite();
+                }
+
+                productIdsByName.put(nameKey(newProduct.getName()), newProduct.getId());
+                searchIndex.add(newProduct);
+                LOG.log(Level.INFO, PRODUCT_LOG + "{0} created with an ID of {1,number,#}", new Object[] {newProduct.getName(), newProduct.getId()});
+
+                persist(InventoryMutation.put(newProduct));
+            } finally {
+                productLock.unlock();
+            }
 
             return newProduct;
+        } finally {
+            structureLock.unlock();
         }
 
     }
@@ -77,24 +264,84 @@ public class InventoryFileDAO implements InventoryDAO {
      */
     @Override
     public Product getProduct(int id) throws IOException {
-        synchronized (inventory) {
-            if (inventory.containsKey(id)) {
-                return inventory.get(id);
+        return inventory.get(id);
+    }
+
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] getInventory() {
+        LOG.fine("Retrieving inventory list");
+
+        CatalogSnapshot current = snapshot;
+
+        if (current.version == writesCompleted.get() && writesStarted.get() == current.version) {
+            metrics.cacheAccessed("inventory.snapshot", true);
+
+            return current.products;
+        }
+
+        metrics.cacheAccessed("inventory.snapshot", false);
+
+        for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+            long completed = writesCompleted.get();
+            long started = writesStarted.get();
+
+            if (started != completed) {
+                Thread.onSpinWait();
+                continue;
             }
 
-            return null;
+            Product[] products = copyCatalog();
+
+            if (writesStarted.get() == started) {
+                snapshot = new CatalogSnapshot(completed, products);
+
+                return products;
+            }
+        }
+
+        // Writers kept the catalog busy, copy it while they are held off
+        structureLock.lock();
+
+        try {
+            Product[] products = copyCatalog();
+            snapshot = new CatalogSnapshot(writesCompleted.get(), products);
+
+            return products;
+        } finally {
+            structureLock.unlock();
         }
     }
 
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] getInventoryPage(int offset, int limit) {
+        Product[] products = getInventory();
+        int from = Math.min(Math.max(offset, 0), products.length);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), products.length);
+
+        return Arrays.copyOfRange(products, from, to);
+    }
 
     /**
      * * {@inheritDoc}
      */
     @Override
-    public Product[] getInventory() {
-        LOG.info("Retrieving inventory list");
+    public Product[] getInventoryAfter(int afterId, int limit) {
+        return inventory.valuesAfter(afterId, limit).toArray(new Product[0]);
+    }
 
-        return inventory.values().toArray(new Product[0]);
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public long getVersion() {
+        return writesCompleted.get();
     }
 
 
@@ -103,17 +350,49 @@ public class InventoryFileDAO implements InventoryDAO {
      */
     @Override
     public Product updateProduct(Product product) throws IOException {
-        synchronized (inventory) {
-            if (!inventory.containsKey(product.getId())) {
+        structureLock.lock();
+
+        try {
+            Product existing = inventory.get(product.getId());
+
+            if (existing == null) {
                 return null;
             }
 
-            inventory.put(product.getId(), product);
-            LOG.info(PRODUCT_LOG + product.getId() + " has been updated ");
+            String oldKey = nameKey(existing.getName());
+            String newKey = nameKey(product.getName());
+            Integer owner = productIdsByName.get(newKey);
 
-            saveProducts();
+            if (owner != null && owner != product.getId()) {
+                throw new IllegalArgumentException("Product name already in use");
+            }
+
+            Lock productLock = productLocks.get(product.getId());
+
+            productLock.lock();
+
+            try {
+                beginWrite();
+
+                try {
+                    inventory.put(product.getId(), product);
+                } finally {
+                    endWrite();
+                }
+
+                productIdsByName.remove(oldKey, product.getId());
+                productIdsByName.put(newKey, product.getId());
+                searchIndex.update(product);
+                LOG.log(Level.INFO, PRODUCT_LOG + "{0,number,#} has been updated", product.getId());
+
+                persist(InventoryMutation.put(product));
+            } finally {
+                productLock.unlock();
+            }
 
             return product;
+        } finally {
+            structureLock.unlock();
         }
     }
 
@@ -122,17 +401,39 @@ public class InventoryFileDAO implements InventoryDAO {
      */
     @Override
     public boolean deleteProduct(int id) throws IOException {
-        synchronized (inventory) {
-            if (!inventory.containsKey(id)) {
+        structureLock.lock();
+
+        try {
+            Product existing = inventory.get(id);
+
+            if (existing == null) {
                 return false;
             }
 
-            inventory.remove(id);
+            Lock productLock = productLocks.get(id);
 
-            LOG.info(PRODUCT_LOG + id + " has been deleted");
-            saveProducts();
+            productLock.lock();
+
+            try {
+                beginWrite();
+
+                try {
+                    inventory.remove(id);
+                } finally {
+                    endWrite();
+                }
+
+                productIdsByName.remove(nameKey(existing.getName()), id);
+                searchIndex.remove(id);
+                LOG.log(Level.INFO, PRODUCT_LOG + "{0,number,#} has been deleted", id);
+                persist(InventoryMutation.delete(id));
+            } finally {
+                productLock.unlock();
+            }
 
             return true;
+        } finally {
+            structureLock.unlock();
         }
     }
 
@@ -147,16 +448,387 @@ public class InventoryFileDAO implements InventoryDAO {
             return new Product[0];
         }
 
-        synchronized (inventory) {
-            List<Product> productList = new ArrayList<>();
+        int[] ids = searchIndex.search(keyword);
+        List<Product> productList = new ArrayList<>(ids.length);
+
+        for (int id : ids) {
+            Product product = inventory.get(id);
+
+            if (product != null) {
+                productList.add(product);
+            }
+        }
+
+        return productList.toArray(new Product[productList.size()]);
+    }
+
+    /**
+     * Normalizes a product name for the uniqueness index
+     *
+     * @param name Product name
+     * @return Case-insensitive key for the name
+     */
+    static String nameKey(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Checks a product for the fields every stored product needs
+     *
+     * @param product Product to check
+     * @return Reason the product is invalid, null if it is valid
+     */
+    static String validate(Product product) {
+        if (product == null) {
+            return "Product is missing";
+        }
+
+        if (product.getName() == null || product.getName().isBlank()) {
+            return "Name is required";
+        }
+
+        if (product.getPrice() < 0 || Double.isNaN(product.getPrice())) {
+            return "Price must not be negative";
+        }
+
+        if (product.getQuantity() < 0) {
+            return "Quantity must not be negative";
+        }
+
+        return null;
+    }
+
+    /**
+     * Copies the products in ID order
+     * <p>
+     * A product removed during the copy may be left out, callers that need a consistent
+     * copy check the write counters around it or hold the locks.
+     *
+     * @return Products currently stored
+     */
+    private Product[] copyCatalog() {
+        int[] ids = inventory.sortedKeys();
+        Product[] products = new Product[ids.length];
+        int count = 0;
+
+        for (int id : ids) {
+            Product product = inventory.get(id);
+
+            if (product != null) {
+                products[count++] = product;
+            }
+        }
+
+        return count == products.length ? products : Arrays.copyOf(products, count);
+    }
 
-            for (Product product : inventory.values()) {
-                if (product.getName().toLowerCase().contains(keyword.toLowerCase())) {
-                    productList.add(product);
+    /**
+     * Marks the start of a change to the inventory map, readers copying the catalog
+     * at the same time will retry
+     */
+    private void beginWrite() {
+        writesStarted.incrementAndGet();
+    }
+
+    /**
+     * Marks the end of a change to the inventory map and publishes a new version
+     */
+    private void endWrite() {
+        writesCompleted.incrementAndGet();
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public ProductImportResult[] importProducts(Product[] products, boolean atomic) throws IOException {
+        ProductImportResult[] results = new ProductImportResult[products.length];
+
+        structureLock.lock();
+
+        try {
+            Set<String> batchNames = new HashSet<>();
+            Integer[] existingIds = new Integer[products.length];
+            int created = 0;
+            int rejected = 0;
+
+            for (int i = 0; i < products.length; i++) {
+                String problem = validate(products[i]);
+
+                if (problem != null) {
+                    results[i] = new ProductImportResult(i, ProductImportResult.Status.INVALID, null, problem);
+                    rejected++;
+                } else if (!batchNames.add(nameKey(products[i].getName()))) {
+                    results[i] = new ProductImportResult(i, ProductImportResult.Status.DUPLICATE, null, "Name repeats an earlier item");
+                    rejected++;
+                } else {
+                    existingIds[i] = productIdsByName.get(nameKey(products[i].getName()));
+
+                    if (existingIds[i] == null) {
+                        created++;
+                    }
                 }
             }
 
-            return productList.toArray(new Product[productList.size()]);
+            if (atomic && rejected > 0) {
+                for (int i = 0; i < products.length; i++) {
+                    if (results[i] == null) {
+                        results[i] = new ProductImportResult(i, ProductImportResult.Status.NOT_APPLIED, null, null);
+                    }
+                }
+
+                LOG.warning("Import of " + products.length + " products rejected, " + rejected + " invalid items");
+
+                return results;
+            }
+
+            int nextNewID = getNextIDs(created);
+            List<InventoryMutation> mutations = new ArrayList<>(products.length - rejected);
+
+            productLocks.lockAll();
+
+            try {
+                beginWrite();
+
+                try {
+                    for (int i = 0; i < products.length; i++) {
+                        if (results[i] != null) {
+                            continue;
+                        }
+
+                        Product product = products[i];
+                        boolean isNew = existingIds[i] == null;
+                        int id = isNew ? nextNewID++ : existingIds[i];
+                        Product stored = new Product(product.getName(), id, product.getDescription(), product.getPrice(), product.getQuantity());
+
+                        if (!isNew) {
+                            productIdsByName.remove(nameKey(inventory.get(id).getName()), id);
+                        }
+
+                        inventory.put(id, stored);
+                        productIdsByName.put(nameKey(stored.getName()), id);
+                        searchIndex.update(stored);
+                        mutations.add(InventoryMutation.put(stored));
+                        results[i] = new ProductImportResult(i, isNew ? ProductImportResult.Status.CREATED : ProductImportResult.Status.UPDATED, stored, null);
+                    }
+                } finally {
+                    endWrite();
+                }
+
+                LOG.log(Level.INFO, PRODUCT_LOG + "{0,number,#} imported, {1,number,#} created, {2,number,#} rejected", new Object[] {mutations.size(), created, rejected});
+                persist(mutations);
+            } finally {
+                productLocks.unlockAll();
+            }
+        } finally {
+            structureLock.unlock();
+        }
+
+        return results;
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product reserveStock(int id, int quantity) throws IOException {
+        requirePositive(quantity);
+
+        return adjustStock(id, -quantity);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product releaseStock(int id, int quantity) throws IOException {
+        requirePositive(quantity);
+
+        return adjustStock(id, quantity);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product adjustQuantity(int id, int delta) throws IOException {
+        return adjustStock(id, delta);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] reserveProducts(Map<Integer, Integer> quantities) throws IOException {
+        return adjustStock(quantities, -1);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] releaseProducts(Map<Integer, Integer> quantities) throws IOException {
+        return adjustStock(quantities, 1);
+    }
+
+    /**
+     * Changes the quantity of several products at once under their striped locks
+     * <p>
+     * Every line is checked before anything is changed, and the changes are made
+     * durable with a single write.
+     *
+     * @param quantities Positive amount per product ID
+     * @param sign       -1 to take the amounts, 1 to return them
+     * @return Updated products, ordered by ID
+     * @throws IOException when file could not be accessed
+     */
+    private Product[] adjustStock(Map<Integer, Integer> quantities, int sign) throws IOException {
+        int[] ids = quantities.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        Lock[] locks = productLocks.getAll(ids);
+        Product[] previous = new Product[ids.length];
+        Product[] updated = new Product[ids.length];
+
+        for (int quantity : quantities.values()) {
+            requirePositive(quantity);
+        }
+
+        for (Lock lock : locks) {
+            lock.lock();
+        }
+
+        try {
+            for (int i = 0; i < ids.length; i++) {
+                Product current = inventory.get(ids[i]);
+
+                if (current == null) {
+                    throw new IllegalArgumentException("No product with ID " + ids[i]);
+                }
+
+                long quantity = (long) current.getQuantity() + (long) sign * quantities.get(ids[i]);
+
+                if (quantity < 0) {
+                    throw new IllegalStateException("Insufficient stock for product " + ids[i]);
+                }
+
+                if (quantity > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Quantity too large for product " + ids[i]);
+                }
+
+                previous[i] = current;
+                updated[i] = new Product(current.getName(), ids[i], current.getDescription(), current.getPrice(), (int) quantity);
+            }
+
+            List<InventoryMutation> mutations = new ArrayList<>(ids.length);
+
+            beginWrite();
+
+            try {
+                for (Product product : updated) {
+                    inventory.put(product.getId(), product);
+                    mutations.add(InventoryMutation.put(product));
+                }
+            } finally {
+                endWrite();
+            }
+
+            try {
+                persist(mutations);
+            } catch (IOException e) {
+                restore(previous);
+                throw e;
+            }
+
+            return updated;
+        } finally {
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Changes the quantity of one product under its striped lock
+     * <p>
+     * The stored product is replaced by a copy rather than changed in place, so catalog
+     * snapshots already handed out keep their values.
+     *
+     * @param id    ID of the product
+     * @param delta Amount to add to the quantity, negative to take stock away
+     * @return Updated product, null if no product has the ID
+     * @throws IOException when file could not be accessed
+     */
+    private Product adjustStock(int id, int delta) throws IOException {
+        Lock productLock = productLocks.get(id);
+
+        productLock.lock();
+
+        try {
+            Product current = inventory.get(id);
+
+            if (current == null) {
+                return null;
+            }
+
+            long quantity = (long) current.getQuantity() + delta;
+
+            if (quantity < 0) {
+                throw new IllegalStateException("Insufficient stock for product " + id);
+            }
+
+            if (quantity > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Quantity too large for product " + id);
+            }
+
+            Product updated = new Product(current.getName(), id, current.getDescription(), current.getPrice(), (int) quantity);
+
+            beginWrite();
+
+            try {
+                inventory.put(id, updated);
+            } finally {
+                endWrite();
+            }
+
+            try {
+                persist(InventoryMutation.put(updated));
+            } catch (IOException e) {
+                restore(current);
+                throw e;
+            }
+
+            return updated;
+        } finally {
+            productLock.unlock();
+        }
+    }
+
+    /**
+     * Puts back the products a stock change replaced when the change could not be
+     * made durable, so a failed write never leaves stock taken in memory for the next
+     * write to save. Caller holds the locks of the products.
+     *
+     * @param products Products as they were before the change
+     */
+    private void restore(Product... products) {
+        beginWrite();
+
+        try {
+            for (Product product : products) {
+                inventory.put(product.getId(), product);
+            }
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * Rejects quantities that are not positive
+     *
+     * @param quantity Quantity to check
+     */
+    private static void requirePositive(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
         }
     }
 
@@ -170,71 +842,251 @@ public class InventoryFileDAO implements InventoryDAO {
     }
 
     /**
-     * Saves all products into a JSON for data persistence
+     * Reserves a contiguous block of IDs for new Products
+     *
+     * @param count Number of IDs needed
+     * @return First ID of the block
+     */
+    private synchronized static int getNextIDs(int count) {
+        int first = nextID + 1;
+        nextID += count;
+
+        return first;
+    }
+
+    /**
+     * Compacts the journal into the inventory file and stops background work
+     *
+     * @throws IOException when file could not be accessed
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        if (compactor == null) {
+            return;
+        }
+
+        compactor.shutdown();
+
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        compact();
+        journal.close();
+    }
+
+    /**
+     * Makes a mutation durable, must be called while holding the lock of the product changed
+     *
+     * @param mutation Change that has just been applied to the inventory
+     * @throws IOException when file could not be accessed
+     */
+    private void persist(InventoryMutation mutation) throws IOException {
+        persist(Collections.singletonList(mutation));
+    }
+
+    /**
+     * Makes several mutations durable with one write, must be called while holding the
+     * locks of every product changed so journal order matches the order of the changes
+     *
+     * @param mutations Changes that have just been applied to the inventory, in order
+     * @throws IOException when file could not be accessed
+     */
+    private void persist(List<InventoryMutation> mutations) throws IOException {
+        if (persistenceMode == PersistenceMode.SNAPSHOT) {
+            saveProducts();
+
+            return;
+        }
+
+        journal.appendAll(mutations);
+
+        if (journal.size() >= compactionThreshold && compacting.compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    LOG.log(Level.SEVERE, "Could not compact inventory journal", e);
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes a fresh snapshot and drops the journal records it contains
+     * <p>
+     * The journal is rotated while holding every lock so the snapshot matches
+     * the rotated records exactly, the snapshot itself is written without the lock.
+     *
+     * @throws IOException when file could not be accessed
+     */
+    private void compact() throws IOException {
+        Product[] productArr;
+
+        structureLock.lock();
+
+        try {
+            productLocks.lockAll();
+
+            try {
+                productArr = copyCatalog();
+                journal.rotate();
+            } finally {
+                productLocks.unlockAll();
+            }
+        } finally {
+            structureLock.unlock();
+        }
+
+        writeProducts(productArr);
+        journal.discardRotated();
+    }
+
+    /**
+     * Saves all products into the inventory file for data persistence
      *
      * @return true if file was saved successfully
      *
      * @throws IOException when file could not be accessed
      */
     private boolean saveProducts() throws IOException {
-        Product[] productArr = inventory.values().toArray(new Product[0]);
+        saveLock.lock();
 
-        objectMapper.writeValue(new File(filename), productArr);
-        LOG.info(productArr.length + " products saved to file.");
+        try {
+            writeProducts(copyCatalog());
+        } finally {
+            saveLock.unlock();
+        }
 
         return true;
     }
 
     /**
-     * Instantiates a new inventory file and writes an empty array into it
+     * Writes the given products into the inventory file
      *
-     * @param objectMapper
-     * @param file
-     * @throws IOException
+     * @param productArr Products to write
+     * @throws IOException when file could not be accessed
      */
-    @IgnoreJacocoGenerated
-    private static void initializeFile(ObjectMapper objectMapper, File file) throws IOException {
-        if (!file.createNewFile()) {
-            throw new IOException();
-        }
+    private void writeProducts(Product[] productArr) throws IOException {
+        long start = System.nanoTime();
+        long bytes = snapshotFile.write(out -> snapshotMapper.writeValue(out, productArr));
 
-        objectMapper.writeValue(file, new Product[0]);
+        metrics.fileWritten(new File(filename).getName(), bytes, System.nanoTime() - start);
+        LOG.log(Level.FINE, "{0,number,#} products saved to file", productArr.length);
     }
 
     /**
-     * Loads all products from a JSON into memory and adjusts ID accordingly
+     * Loads all products from the inventory file into memory, replays any journal on top of them
+     * and adjusts ID accordingly
+     * <p>
+     * Products are inserted as they are parsed, so the file is never held as an
+     * array next to the inventory. A missing file starts an empty inventory, an
+     * unreadable one falls back to the previous generation.
      *
      * @return true if file was loaded successfully
      *
-     * @throws IOException when file could not be accessed
+     * @throws IOException when file could not be accessed or no generation of it is readable
      */
     @IgnoreJacocoGenerated
     private boolean loadProducts() throws IOException {
-        inventory = new TreeMap<>();
+        inventory.clear();
         nextID = -1;
 
-        Product[] products = new Product[0];
         File file = new File(filename);
+        long start = System.nanoTime();
 
-        try {
-            products = objectMapper.readValue(new File(filename), Product[].class);
-        } catch (MismatchedInputException e) {
-            file.delete();
+        loadedProducts = 0;
+
+        boolean loaded = snapshotFile.load(generation -> {
+            inventory.clear();
+            nextID = -1;
+            loadedProducts = productReader.read(generation, this::loadProduct);
+        });
 
-            initializeFile(objectMapper, file);
-        } catch (FileNotFoundException e) {
-            initializeFile(objectMapper, file);
+        if (loaded) {
+            logFormatChange(file);
+        } else {
+            writeProducts(new Product[0]);
         }
 
-        for (Product product : products) {
-            inventory.put(product.getId(), product);
-            LOG.info("Loaded: " + product);
+        if (journal.exists()) {
+            int replayed = journal.replay(this::applyMutation);
+            LOG.info("Replayed " + replayed + " journal records");
 
-            if (product.getId() > nextID) {
-                nextID = product.getId();
+            if (persistenceMode == PersistenceMode.SNAPSHOT) {
+                saveProducts();
+                journal.clear();
             }
         }
 
+        productIdsByName.clear();
+        searchIndex.clear();
+
+        Product[] catalog = copyCatalog();
+
+        for (Product product : catalog) {
+            productIdsByName.put(nameKey(product.getName()), product.getId());
+        }
+
+        searchIndex.addAll(catalog);
+
+        loadNanos = System.nanoTime() - start;
+        LOG.info("Loaded " + loadedProducts + " products in " + TimeUnit.NANOSECONDS.toMillis(loadNanos) + " ms");
+
         return true;
     }
+
+    /**
+     * Notes that a file written in another format will be converted on the next save
+     *
+     * @param file Inventory file that was loaded
+     * @throws IOException when file could not be accessed
+     */
+    private void logFormatChange(File file) throws IOException {
+        SnapshotFormat stored = SnapshotFormat.detect(file);
+
+        if (stored != format) {
+            LOG.log(Level.INFO, "{0} is stored as {1} and will be written as {2} on the next save",
+                    new Object[] {file.getName(), stored, format});
+        }
+    }
+
+    /**
+     * Adds a product read from the file to the in-memory inventory while loading
+     *
+     * @param product Product read from the file
+     */
+    @IgnoreJacocoGenerated
+    private void loadProduct(Product product) {
+        inventory.put(product.getId(), product);
+        LOG.log(Level.FINE, "Loaded: {0}", product);
+
+        if (product.getId() > nextID) {
+            nextID = product.getId();
+        }
+    }
+
+    /**
+     * Applies a journal record to the in-memory inventory while loading
+     *
+     * @param mutation Journal record to apply
+     */
+    @IgnoreJacocoGenerated
+    private void applyMutation(InventoryMutation mutation) {
+        if (mutation.getOperation() == InventoryMutation.Operation.DELETE) {
+            inventory.remove(mutation.getId());
+
+            return;
+        }
+
+        inventory.put(mutation.getId(), mutation.getProduct());
+
+        if (mutation.getId() > nextID) {
+            nextID = mutation.getId();
+        }
+    }
 }
@@ -0,0 +1,88 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.Product;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Journal record describing a single change to the inventory
+ * <p>
+ * A PUT record carries the full product so that replaying the same record twice
+ * leaves the inventory unchanged.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class InventoryMutation {
+    /**
+     * Kind of change recorded in the journal
+     */
+    public enum Operation {
+        PUT,
+        DELETE
+    }
+
+    @JsonProperty("op") private final Operation operation;
+    @JsonProperty("id") private final int id;
+    @JsonProperty("product") private final Product product;
+
+    /**
+     * Constructor for an inventory mutation
+     *
+     * @param operation Kind of change
+     * @param id        ID of the product changed
+     * @param product   New state of the product, null for deletes
+     */
+    public InventoryMutation(@JsonProperty("op") Operation operation, @JsonProperty("id") int id, @JsonProperty("product") Product product) {
+        this.operation = operation;
+        this.id = id;
+        this.product = product;
+    }
+
+    /**
+     * Creates a record for a created or updated product
+     *
+     * @param product New state of the product
+     * @return PUT mutation
+     */
+    public static InventoryMutation put(Product product) {
+        return new InventoryMutation(Operation.PUT, product.getId(), product);
+    }
+
+    /**
+     * Creates a record for a deleted product
+     *
+     * @param id ID of the deleted product
+     * @return DELETE mutation
+     */
+    public static InventoryMutation delete(int id) {
+        return new InventoryMutation(Operation.DELETE, id, null);
+    }
+
+    /**
+     * Getter for the kind of change
+     *
+     * @return Operation of this mutation
+     */
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * Getter for the product ID
+     *
+     * @return ID of the product changed
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter for the new product state
+     *
+     * @return Product, null for deletes
+     */
+    public Product getProduct() {
+        return product;
+    }
+}
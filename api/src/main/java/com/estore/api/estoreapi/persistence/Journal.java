@@ -0,0 +1,459 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only journal of mutation records, stored as one JSON document per line
+ * <p>
+ * A journal lives next to the snapshot it belongs to. When the owner compacts, the
+ * live journal is rotated aside, the snapshot is rewritten and the rotated journal
+ * is discarded. Until then both files are replayed on load, oldest first. Every
+ * append is reported to the journal's {@link PersistenceMetrics} under the journal's
+ * file name.
+ * <p>
+ * An append returns only once its records are synced to the disk, one sync per call,
+ * so an acknowledged record survives a power loss. When an append fails part way the
+ * file is closed and cut back to the end of the last complete append, so a later
+ * append never lands behind half a record that replay would reject.
+ *
+ * @param <T> Type of the records kept in the journal
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class Journal<T> implements MetricsSource {
+    private static final Logger LOG = Logger.getLogger(Journal.class.getName());
+    private static final byte NEWLINE = '\n';
+
+    private final ObjectMapper objectMapper;
+    private final Class<T> recordType;
+    private final File file;
+    private final File rotatedFile;
+    private final ReentrantLock lock = new ReentrantLock();
+    private ObjectWriter writer;
+    private FileOutputStream fileOut;
+    private OutputStream out;
+    private long damagedFrom = -1;
+    private int size;
+    private volatile PersistenceMetrics metrics = PersistenceMetrics.NONE;
+
+    /**
+     * Creates a journal for the given file
+     *
+     * @param objectMapper JSON object for serialization and deserialization
+     * @param file         File the records are appended to
+     * @param recordType   Class of the records kept in the journal
+     */
+    public Journal(ObjectMapper objectMapper, File file, Class<T> recordType) {
+        this.objectMapper = objectMapper;
+        this.recordType = recordType;
+        this.file = file;
+        this.rotatedFile = new File(file.getPath() + ".compacting");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setMetrics(PersistenceMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Appends a single record and syncs it to the disk
+     *
+     * @param record Record to append
+     *
+     * @throws IOException when the journal could not be written, the file is left
+     *                     as it was before the call
+     */
+    public void append(T record) throws IOException {
+        appendAll(Collections.singletonList(record));
+    }
+
+    /**
+     * Appends several records with a single flush and sync
+     *
+     * @param records Records to append, in order
+     *
+     * @throws IOException when the journal could not be written, the file is left
+     *                     as it was before the call
+     */
+    public void appendAll(Collection<? extends T> records) throws IOException {
+        lock.lock();
+
+        try {
+            long start = System.nanoTime();
+            long bytes = 0;
+
+            open();
+
+            long length = fileOut.getChannel().size();
+
+            try {
+                for (T record : records) {
+                    bytes += write(record);
+                }
+
+                out.flush();
+                fileOut.getFD().sync();
+            } catch (IOException | RuntimeException e) {
+                discardFrom(length, e);
+                throw e;
+            }
+
+            size += records.size();
+            metrics.journalAppended(file.getName(), records.size(), bytes, System.nanoTime() - start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the live journal aside so that a snapshot can be written while new
+     * records keep being appended to a fresh file
+     * <p>
+     * If an earlier compaction did not finish, the live records are added to the
+     * end of the already rotated file so replay order is kept.
+     *
+     * @throws IOException when the journal could not be rotated
+     */
+    public void rotate() throws IOException {
+        lock.lock();
+
+        try {
+            close();
+            repair();
+
+            if (file.exists()) {
+                if (rotatedFile.exists()) {
+                    Files.write(rotatedFile.toPath(), Files.readAllBytes(file.toPath()), StandardOpenOption.APPEND);
+                    Files.delete(file.toPath());
+                } else {
+                    Files.move(file.toPath(), rotatedFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discards the rotated journal once its records are part of a snapshot
+     *
+     * @throws IOException when the rotated journal could not be deleted
+     */
+    public void discardRotated() throws IOException {
+        lock.lock();
+
+        try {
+            Files.deleteIfExists(rotatedFile.toPath());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes every journal file, used once a snapshot holds all records
+     *
+     * @throws IOException when a journal file could not be deleted
+     */
+    public void clear() throws IOException {
+        lock.lock();
+
+        try {
+            close();
+            size = 0;
+            damagedFrom = -1;
+
+            Files.deleteIfExists(rotatedFile.toPath());
+            Files.deleteIfExists(file.toPath());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replays the rotated journal and then the live journal, oldest record first
+     * <p>
+     * A last line without its newline, as left behind by a crash in the middle of an
+     * append, was never acknowledged. It is dropped and cut off the file so the next
+     * append starts on a fresh line. Any other record that cannot be parsed or applied
+     * fails the replay and leaves the journal untouched, so no later record is lost.
+     *
+     * @param consumer Receives every record in order
+     * @return Number of records replayed from the live journal
+     *
+     * @throws IOException when a journal file could not be read, holds an unreadable
+     *                     record or a record could not be applied
+     */
+    public int replay(Consumer<T> consumer) throws IOException {
+        lock.lock();
+
+        try {
+            replay(rotatedFile, consumer);
+            size = replay(file, consumer);
+
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether any journal file exists
+     *
+     * @return true if there is a live or rotated journal on disk
+     */
+    public boolean exists() {
+        lock.lock();
+
+        try {
+            return file.exists() || rotatedFile.exists();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of records appended to the live journal since the last rotation
+     *
+     * @return Live journal length in records
+     */
+    public int size() {
+        lock.lock();
+
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the live journal file, it is reopened on the next append
+     *
+     * @throws IOException when the file could not be closed
+     */
+    public void close() throws IOException {
+        lock.lock();
+
+        try {
+            if (out != null) {
+                OutputStream closing = out;
+
+                out = null;
+                fileOut = null;
+                closing.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Opens the live journal for appending if it is not open yet
+     *
+     * @throws IOException when the file could not be opened or repaired
+     */
+    private void open() throws IOException {
+        if (out != null) {
+            return;
+        }
+
+        repair();
+
+        boolean created = !file.exists();
+
+        fileOut = new FileOutputStream(file, true);
+        out = new BufferedOutputStream(fileOut);
+
+        if (created) {
+            syncDirectory();
+        }
+    }
+
+    /**
+     * Serializes a record onto its own line without flushing
+     *
+     * @param record Record to write
+     * @return Bytes written
+     * @throws IOException when the journal could not be written
+     */
+    private long write(T record) throws IOException {
+        if (writer == null) {
+            writer = objectMapper.writerFor(recordType).without(SerializationFeature.INDENT_OUTPUT);
+        }
+
+        byte[] bytes = writer.writeValueAsBytes(record);
+
+        out.write(bytes);
+        out.write(NEWLINE);
+
+        return bytes.length + 1L;
+    }
+
+    /**
+     * Drops what a failed append wrote, closing the file without flushing its buffer
+     * and cutting it back to the length it had before the append
+     *
+     * @param length  Length of the file before the append
+     * @param failure Why the append failed, gets any failure to clean up added
+     */
+    private void discardFrom(long length, Exception failure) {
+        FileOutputStream closing = fileOut;
+
+        out = null;
+        fileOut = null;
+        damagedFrom = length;
+
+        try {
+            closing.close();
+            repair();
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Cuts off what a failed append left behind, if a failed append could not be cut
+     * back when it happened
+     *
+     * @throws IOException when the file could not be truncated
+     */
+    private void repair() throws IOException {
+        if (damagedFrom < 0) {
+            return;
+        }
+
+        if (file.exists()) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                if (channel.size() > damagedFrom) {
+                    channel.truncate(damagedFrom);
+                    channel.force(true);
+                }
+            }
+        }
+
+        damagedFrom = -1;
+    }
+
+    /**
+     * Syncs the directory of the journal so a newly created file survives a power loss
+     */
+    private void syncDirectory() {
+        File directory = file.getAbsoluteFile().getParentFile();
+
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Could not sync {0}", directory);
+        }
+    }
+
+    /**
+     * Replays every complete record of a single journal file
+     *
+     * @param source   Journal file to read
+     * @param consumer Receives every record in order
+     * @return Number of records replayed
+     * @throws IOException when the file could not be read, or a complete record could
+     *                     not be parsed or applied
+     */
+    private int replay(File source, Consumer<T> consumer) throws IOException {
+        if (!source.exists()) {
+            return 0;
+        }
+
+        int count = 0;
+        int line = 0;
+        long complete = 0;
+        ObjectReader reader = objectMapper.readerFor(recordType);
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+
+        try (InputStream in = new BufferedInputStream(new FileInputStream(source))) {
+            for (int b = in.read(); b >= 0; b = in.read()) {
+                if (b != NEWLINE) {
+                    record.write(b);
+                    continue;
+                }
+
+                line++;
+
+                byte[] bytes = record.toByteArray();
+
+                if (!isBlank(bytes)) {
+                    T value;
+
+                    try {
+                        value = reader.readValue(bytes);
+                    } catch (JsonProcessingException e) {
+                        throw new IOException("Journal " + source.getName() + " has an unreadable record on line " + line, e);
+                    }
+
+                    try {
+                        consumer.accept(value);
+                    } catch (RuntimeException e) {
+                        throw new IOException("Journal " + source.getName() + " record on line " + line + " could not be applied", e);
+                    }
+
+                    count++;
+                }
+
+                complete += bytes.length + 1L;
+                record.reset();
+            }
+        }
+
+        if (record.size() > 0) {
+            LOG.warning("Journal " + source + " ends with an incomplete record after " + count + " records");
+
+            try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(complete);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Checks whether a line holds only whitespace
+     *
+     * @param line Bytes of the line
+     * @return true if there is no record on the line
+     */
+    private static boolean isBlank(byte[] line) {
+        for (byte b : line) {
+            if (!Character.isWhitespace(b)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,279 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads a file holding a JSON array one element at a time
+ * <p>
+ * The file may be JSON text or Smile, told apart by {@link SnapshotFormat#detect}.
+ * Elements are bound as the parser reaches them and handed to a consumer, so the
+ * array is never held in memory next to the structure it is loaded into. With more
+ * than one thread the file is cut into batches of elements that a pool binds in
+ * parallel. Bound batches are still handed to the consumer on the calling thread and
+ * in file order, and at most two batches per thread are in flight, so the consumer
+ * needs no locking and memory use stays bounded. Smile files are always bound on the
+ * calling thread, because their elements refer back to names defined earlier in the
+ * file and cannot be decoded apart from it.
+ *
+ * @param <T> Type of the array elements
+ *
+ * @author SWEN-261 Project Team One
+ */
+class JsonArrayReader<T> {
+    /**
+     * Receives the elements of the array
+     *
+     * @param <T> Type of the array elements
+     */
+    @FunctionalInterface
+    interface ElementConsumer<T> {
+        /**
+         * Takes one element
+         *
+         * @param element Element read from the file
+         * @throws IOException when the element could not be stored
+         */
+        void accept(T element) throws IOException;
+    }
+
+    static final int BATCH_SIZE = 4096;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader reader;
+    private final ObjectMapper smileMapper;
+    private final ObjectReader smileReader;
+    private final Class<T> type;
+    private final int threads;
+
+    /**
+     * Creates a reader
+     *
+     * @param objectMapper JSON object for deserialization
+     * @param type         Type of the array elements
+     * @param threads      Threads binding elements, 1 or less binds on the calling thread
+     */
+    JsonArrayReader(ObjectMapper objectMapper, Class<T> type, int threads) {
+        this.objectMapper = objectMapper;
+        this.reader = objectMapper.readerFor(type);
+        this.smileMapper = SnapshotFormat.SMILE.mapper(objectMapper);
+        this.smileReader = smileMapper.readerFor(type);
+        this.type = type;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Reads every element of the array in a file
+     *
+     * @param file     File holding a JSON array as text or Smile
+     * @param consumer Receives the elements in file order
+     * @return Number of elements read
+     * @throws java.io.FileNotFoundException when the file does not exist
+     * @throws MismatchedInputException when the file is empty, is not an array or holds
+     *                                  an element that is not a {@code T}. Elements
+     *                                  before the bad one have already been consumed
+     * @throws IOException when the file could not be read
+     */
+    int read(File file, ElementConsumer<T> consumer) throws IOException {
+        boolean smile = SnapshotFormat.detect(file) == SnapshotFormat.SMILE;
+        ObjectMapper mapper = smile ? smileMapper : objectMapper;
+
+        try (JsonParser parser = mapper.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw MismatchedInputException.from(parser, type, "Expected a JSON array in " + file.getName());
+            }
+
+            if (smile) {
+                return readSequential(parser, smileReader, consumer);
+            }
+
+            return threads > 1 ? readParallel(parser, file, consumer) : readSequential(parser, reader, consumer);
+        }
+    }
+
+    /**
+     * Binds every element on the calling thread
+     *
+     * @param parser   Parser positioned on the start of the array
+     * @param reader   Reader binding elements of the parser's format
+     * @param consumer Receives the elements in file order
+     * @return Number of elements read
+     * @throws IOException when an element could not be read
+     */
+    private int readSequential(JsonParser parser, ObjectReader reader, ElementConsumer<T> consumer) throws IOException {
+        int count = 0;
+
+        if (!nextElement(parser)) {
+            return 0;
+        }
+
+        MappingIterator<T> elements = reader.readValues(parser);
+
+        while (elements.hasNextValue()) {
+            consumer.accept(elements.nextValue());
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Finds batch boundaries on the calling thread and binds the batches on a pool
+     * <p>
+     * The calling thread only skips over each element to learn where it ends, which
+     * is much cheaper than binding it. Each pool thread reads the bytes of its batch
+     * from the file again and binds them as an array of its own.
+     *
+     * @param parser   Parser positioned on the start of the array
+     * @param file     File being read
+     * @param consumer Receives the elements in file order
+     * @return Number of elements read
+     * @throws IOException when an element could not be read
+     */
+    private int readParallel(JsonParser parser, File file, ElementConsumer<T> consumer) throws IOException {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "json-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        Deque<Future<List<T>>> inFlight = new ArrayDeque<>();
+        int count = 0;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            boolean more = true;
+
+            while (more) {
+                long batchStart = -1;
+                long batchEnd = -1;
+                int size = 0;
+
+                while (size < BATCH_SIZE && (more = nextElement(parser))) {
+                    if (batchStart < 0) {
+                        batchStart = parser.getTokenLocation().getByteOffset();
+                    }
+
+                    parser.skipChildren();
+                    batchEnd = parser.getCurrentLocation().getByteOffset();
+                    size++;
+                }
+
+                if (size > 0) {
+                    long from = batchStart;
+                    long to = batchEnd;
+
+                    inFlight.add(pool.submit(() -> bind(channel, from, to)));
+                }
+
+                while (!inFlight.isEmpty() && (inFlight.size() >= threads * 2 || !more)) {
+                    count += drain(inFlight.poll(), consumer);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return count;
+    }
+
+    /**
+     * Binds the elements of one batch
+     *
+     * @param channel Channel of the file being read
+     * @param from    Offset of the first byte of the first element
+     * @param to      Offset just past the last element
+     * @return Elements in batch order
+     * @throws IOException when an element could not be read or bound
+     */
+    private List<T> bind(FileChannel channel, long from, long to) throws IOException {
+        byte[] bytes = new byte[Math.toIntExact(to - from) + 2];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 2);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, from + buffer.position() - 1) < 0) {
+                throw new EOFException("File shrank while it was being loaded");
+            }
+        }
+
+        bytes[0] = '[';
+        bytes[bytes.length - 1] = ']';
+
+        List<T> elements = new ArrayList<>(BATCH_SIZE);
+        MappingIterator<T> iterator = reader.readValues(bytes);
+
+        while (iterator.hasNextValue()) {
+            elements.add(iterator.nextValue());
+        }
+
+        return elements;
+    }
+
+    /**
+     * Waits for a batch and hands its elements to the consumer
+     *
+     * @param batch    Batch being bound
+     * @param consumer Receives the elements
+     * @return Number of elements in the batch
+     * @throws IOException when the batch could not be bound
+     */
+    private int drain(Future<List<T>> batch, ElementConsumer<T> consumer) throws IOException {
+        List<T> elements;
+
+        try {
+            elements = batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+
+        for (T element : elements) {
+            consumer.accept(element);
+        }
+
+        return elements.size();
+    }
+
+    /**
+     * Moves to the next element of the array
+     *
+     * @param parser Parser inside the array
+     * @return true if the parser is on an element, false at the end of the array
+     * @throws IOException when the file ends before the array does
+     */
+    private boolean nextElement(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+
+        if (token == null) {
+            throw MismatchedInputException.from(parser, type, "Unexpected end of the JSON array");
+        }
+
+        return token != JsonToken.END_ARRAY;
+    }
+}
@@ -0,0 +1,990 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.ProductImportResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Implementation of product persistence in a memory-mapped binary file
+ * <p>
+ * Every product has a fixed 40 byte record holding its ID, price and quantity and
+ * references into a separate string region for its name and description. Records live
+ * in the mapped inventory file behind a small header and strings in a mapped file with
+ * the {@code .strings} suffix. An ID to slot index finds a product's record, so a stock
+ * change is a single in-place write of its quantity and no mutation re-encodes the
+ * catalog. Startup walks the records instead of parsing JSON.
+ * <p>
+ * Writes go to the page cache as soon as they are made and survive a crash of the
+ * process. With {@code inventory.mapped.sync} on, the default, every change forces the
+ * string file and then the record file to disk before it returns, so an acknowledged
+ * change also survives a power loss and a record never reaches the disk before the
+ * strings it points at. A change cut short by a power loss may leave its own record
+ * torn, but never one acknowledged earlier. With the setting off, changes reach the
+ * disk whenever the kernel writes the pages back, in no particular order, and only
+ * {@link #close()} forces them: a power loss can lose recent changes or leave records
+ * pointing at strings that were never written.
+ * <p>
+ * The kernel may write the header page before or after the record pages it counts,
+ * so on load the last ID and the end of the string region are taken as the highest of
+ * the header and what the live records use. A record that reached the disk ahead of
+ * the header therefore never has its ID or its strings handed out again.
+ * <p>
+ * Strings replaced by a rename or a new description are not reclaimed, which is
+ * acceptable since those edits are rare next to stock changes. A new store is seeded
+ * from the JSON inventory file if one exists.
+ * <p>
+ * Locking follows {@link InventoryFileDAO}: structural changes take a structure lock,
+ * every change to a product also holds that product's striped lock, and single product
+ * reads take the striped lock so they never see a half written record.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.store", havingValue = "mapped")
+public class MappedInventoryDAO implements InventoryDAO, MetricsSource {
+    private static final Logger LOG = Logger.getLogger(MappedInventoryDAO.class.getName());
+
+    private static final int MAGIC = 0x45535031;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_USED = 12;
+    private static final int HEADER_LAST_ID = 16;
+    private static final int HEADER_STRINGS_END = 20;
+
+    private static final int RECORD_SIZE = 40;
+    private static final int RECORD_ID = 0;
+    private static final int RECORD_STATE = 4;
+    private static final int RECORD_PRICE = 8;
+    private static final int RECORD_QUANTITY = 16;
+    private static final int RECORD_NAME_OFFSET = 20;
+    private static final int RECORD_NAME_LENGTH = 24;
+    private static final int RECORD_DESCRIPTION_OFFSET = 28;
+    private static final int RECORD_DESCRIPTION_LENGTH = 32;
+
+    private static final int STATE_FREE = 0;
+    private static final int STATE_LIVE = 1;
+    private static final int NULL_LENGTH = -1;
+    private static final int MIN_STRINGS_SIZE = 64 * 1024;
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int LOCK_STRIPES = 64;
+    private static final String STRINGS_SUFFIX = ".strings";
+    private static final String PRODUCT_LOG = "PRODUCT: ";
+
+    /**
+     * Catalog copy published for readers, valid while the version is unchanged
+     */
+    private static final class CatalogSnapshot {
+        private final long version;
+        private final Product[] products;
+
+        private CatalogSnapshot(long version, Product[] products) {
+            this.version = version;
+            this.products = products;
+        }
+    }
+
+    private final FileChannel recordChannel;
+    private final FileChannel stringChannel;
+    private final ConcurrentSkipListMap<Integer, Integer> slotsById = new ConcurrentSkipListMap<>();
+    private final Map<String, Integer> productIdsByName = new ConcurrentHashMap<>();
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private final StripedLocks productLocks = new StripedLocks("inventory.product", LOCK_STRIPES);
+    private final TimedLock structureLock = new TimedLock("inventory.structure");
+    private final AtomicLong version = new AtomicLong();
+    private volatile MappedByteBuffer records;
+    private volatile MappedByteBuffer strings;
+    private volatile CatalogSnapshot snapshot = new CatalogSnapshot(-1, new Product[0]);
+    private volatile PersistenceMetrics metrics = PersistenceMetrics.NONE;
+    private final String storeName;
+    private final boolean sync;
+    private final long loadNanos;
+
+    /**
+     * Opens a product store with the default initial capacity
+     *
+     * @param objectMapper JSON object used to seed a new store
+     * @param jsonFilename JSON inventory file a new store is seeded from
+     * @param filename     File the product records are mapped from
+     * @throws IOException when the store could not be opened
+     */
+    public MappedInventoryDAO(ObjectMapper objectMapper, String jsonFilename, String filename) throws IOException {
+        this(objectMapper, jsonFilename, filename, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opens a product store that forces every change to disk
+     *
+     * @param objectMapper    JSON object used to seed a new store
+     * @param jsonFilename    JSON inventory file a new store is seeded from
+     * @param filename        File the product records are mapped from
+     * @param initialCapacity Records a new store has room for before it grows
+     * @throws IOException when the store could not be opened
+     */
+    public MappedInventoryDAO(ObjectMapper objectMapper, String jsonFilename, String filename, int initialCapacity) throws IOException {
+        this(objectMapper, jsonFilename, filename, initialCapacity, true);
+    }
+
+    /**
+     * Opens a product store
+     *
+     * @param objectMapper    JSON object used to seed a new store
+     * @param jsonFilename    JSON inventory file a new store is seeded from
+     * @param filename        File the product records are mapped from
+     * @param initialCapacity Records a new store has room for before it grows
+     * @param sync            Whether every change is forced to disk before it returns
+     * @throws IOException when the store could not be opened
+     */
+    @Autowired
+    public MappedInventoryDAO(ObjectMapper objectMapper, @Value("${inventory.file}") String jsonFilename,
+                              @Value("${inventory.mapped.file}") String filename,
+                              @Value("${inventory.mapped.initial-capacity:1024}") int initialCapacity,
+                              @Value("${inventory.mapped.sync:true}") boolean sync) throws IOException {
+        long start = System.nanoTime();
+
+        this.storeName = new File(filename).getName();
+        this.sync = sync;
+        this.recordChannel = FileChannel.open(new File(filename).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.stringChannel = FileChannel.open(new File(filename + STRINGS_SUFFIX).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (recordChannel.size() == 0) {
+            initializeStore(Math.max(1, initialCapacity));
+            seedFromJson(objectMapper, new File(jsonFilename));
+        } else {
+            loadStore();
+        }
+
+        this.loadNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public void setMetrics(PersistenceMetrics metrics) {
+        this.metrics = metrics;
+        productLocks.setMetrics(metrics);
+        structureLock.setMetrics(metrics);
+        metrics.fileLoaded(storeName, slotsById.size(), loadNanos);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product createProduct(Product product) throws IOException {
+        structureLock.lock();
+
+        try {
+            if (productIdsByName.containsKey(InventoryFileDAO.nameKey(product.getName()))) {
+                throw new IllegalArgumentException("Product already created");
+            }
+
+            int id = records.getInt(HEADER_LAST_ID) + 1;
+            Product newProduct = new Product(product.getName(), id, product.getDescription(), product.getPrice(), product.getQuantity());
+
+            insert(newProduct);
+            records.putInt(HEADER_LAST_ID, id);
+            force();
+            version.incrementAndGet();
+            LOG.log(Level.INFO, PRODUCT_LOG + "{0} created with an ID of {1,number,#}", new Object[] {newProduct.getName(), id});
+
+            return newProduct;
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product getProduct(int id) {
+        Lock productLock = productLocks.get(id);
+
+        productLock.lock();
+
+        try {
+            Integer slot = slotsById.get(id);
+
+            return slot == null ? null : readProduct(slot);
+        } finally {
+            productLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] getInventory() {
+        LOG.fine("Retrieving inventory list");
+
+        CatalogSnapshot current = snapshot;
+
+        if (current.version == version.get()) {
+            metrics.cacheAccessed("inventory.snapshot", true);
+
+            return current.products;
+        }
+
+        metrics.cacheAccessed("inventory.snapshot", false);
+
+        structureLock.lock();
+
+        try {
+            productLocks.lockAll();
+
+            try {
+                Product[] products = new Product[slotsById.size()];
+                int i = 0;
+
+                for (int slot : slotsById.values()) {
+                    products[i++] = readProduct(slot);
+                }
+
+                snapshot = new CatalogSnapshot(version.get(), products);
+
+                return products;
+            } finally {
+                productLocks.unlockAll();
+            }
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] getInventoryPage(int offset, int limit) {
+        Product[] products = getInventory();
+        int from = Math.min(Math.max(offset, 0), products.length);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), products.length);
+
+        return Arrays.copyOfRange(products, from, to);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] getInventoryAfter(int afterId, int limit) {
+        List<Product> page = new ArrayList<>(Math.min(Math.max(limit, 0), 1024));
+
+        for (int id : slotsById.tailMap(afterId, false).keySet()) {
+            if (page.size() >= limit) {
+                break;
+            }
+
+            Product product = getProduct(id);
+
+            if (product != null) {
+                page.add(product);
+            }
+        }
+
+        return page.toArray(new Product[0]);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product updateProduct(Product product) throws IOException {
+        structureLock.lock();
+
+        try {
+            Integer slot = slotsById.get(product.getId());
+
+            if (slot == null) {
+                return null;
+            }
+
+            String newKey = InventoryFileDAO.nameKey(product.getName());
+            Integer owner = productIdsByName.get(newKey);
+
+            if (owner != null && owner != product.getId()) {
+                throw new IllegalArgumentException("Product name already in use");
+            }
+
+            Lock productLock = productLocks.get(product.getId());
+
+            productLock.lock();
+
+            try {
+                Product existing = readProduct(slot);
+
+                writeRecord(slot, product, existing);
+                force();
+                productIdsByName.remove(InventoryFileDAO.nameKey(existing.getName()), product.getId());
+                productIdsByName.put(newKey, product.getId());
+                searchIndex.update(product);
+                version.incrementAndGet();
+                LOG.log(Level.INFO, PRODUCT_LOG + "{0,number,#} has been updated", product.getId());
+            } finally {
+                productLock.unlock();
+            }
+
+            return product;
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public boolean deleteProduct(int id) {
+        structureLock.lock();
+
+        try {
+            Integer slot = slotsById.get(id);
+
+            if (slot == null) {
+                return false;
+            }
+
+            Lock productLock = productLocks.get(id);
+
+            productLock.lock();
+
+            try {
+                Product existing = readProduct(slot);
+
+                records.putInt(recordOffset(slot) + RECORD_STATE, STATE_FREE);
+                force();
+                slotsById.remove(id);
+                freeSlots.push(slot);
+                productIdsByName.remove(InventoryFileDAO.nameKey(existing.getName()), id);
+                searchIndex.remove(id);
+                version.incrementAndGet();
+                LOG.log(Level.INFO, PRODUCT_LOG + "{0,number,#} has been deleted", id);
+            } finally {
+                productLock.unlock();
+            }
+
+            return true;
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] findProduct(String keyword) {
+        if (keyword == null) {
+            LOG.warning("keyword variable was null");
+
+            return new Product[0];
+        }
+
+        int[] ids = searchIndex.search(keyword);
+        List<Product> productList = new ArrayList<>(ids.length);
+
+        for (int id : ids) {
+            Product product = getProduct(id);
+
+            if (product != null) {
+                productList.add(product);
+            }
+        }
+
+        return productList.toArray(new Product[0]);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public ProductImportResult[] importProducts(Product[] products, boolean atomic) throws IOException {
+        ProductImportResult[] results = new ProductImportResult[products.length];
+
+        structureLock.lock();
+
+        try {
+            Set<String> batchNames = new HashSet<>();
+            Integer[] existingIds = new Integer[products.length];
+            int created = 0;
+            int rejected = 0;
+
+            for (int i = 0; i < products.length; i++) {
+                String problem = InventoryFileDAO.validate(products[i]);
+
+                if (problem != null) {
+                    results[i] = new ProductImportResult(i, ProductImportResult.Status.INVALID, null, problem);
+                    rejected++;
+                } else if (!batchNames.add(InventoryFileDAO.nameKey(products[i].getName()))) {
+                    results[i] = new ProductImportResult(i, ProductImportResult.Status.DUPLICATE, null, "Name repeats an earlier item");
+                    rejected++;
+                } else {
+                    existingIds[i] = productIdsByName.get(InventoryFileDAO.nameKey(products[i].getName()));
+
+                    if (existingIds[i] == null) {
+                        created++;
+                    }
+                }
+            }
+
+            if (atomic && rejected > 0) {
+                for (int i = 0; i < products.length; i++) {
+                    if (results[i] == null) {
+                        results[i] = new ProductImportResult(i, ProductImportResult.Status.NOT_APPLIED, null, null);
+                    }
+                }
+
+                LOG.warning("Import of " + products.length + " products rejected, " + rejected + " invalid items");
+
+                return results;
+            }
+
+            int lastId = records.getInt(HEADER_LAST_ID);
+
+            productLocks.lockAll();
+
+            try {
+                for (int i = 0; i < products.length; i++) {
+                    if (results[i] != null) {
+                        continue;
+                    }
+
+                    Product product = products[i];
+                    boolean isNew = existingIds[i] == null;
+                    int id = isNew ? ++lastId : existingIds[i];
+                    Product stored = new Product(product.getName(), id, product.getDescription(), product.getPrice(), product.getQuantity());
+
+                    if (isNew) {
+                        insert(stored);
+                    } else {
+                        int slot = slotsById.get(id);
+                        Product existing = readProduct(slot);
+
+                        writeRecord(slot, stored, existing);
+                        productIdsByName.remove(InventoryFileDAO.nameKey(existing.getName()), id);
+                        productIdsByName.put(InventoryFileDAO.nameKey(stored.getName()), id);
+                        searchIndex.update(stored);
+                    }
+
+                    results[i] = new ProductImportResult(i, isNew ? ProductImportResult.Status.CREATED : ProductImportResult.Status.UPDATED, stored, null);
+                }
+
+                records.putInt(HEADER_LAST_ID, lastId);
+                force();
+                version.incrementAndGet();
+                LOG.log(Level.INFO, PRODUCT_LOG + "{0,number,#} imported, {1,number,#} created, {2,number,#} rejected", new Object[] {products.length - rejected, created, rejected});
+            } finally {
+                productLocks.unlockAll();
+            }
+        } finally {
+            structureLock.unlock();
+        }
+
+        return results;
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product reserveStock(int id, int quantity) {
+        requirePositive(quantity);
+
+        return adjustStock(id, -quantity);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product releaseStock(int id, int quantity) {
+        requirePositive(quantity);
+
+        return adjustStock(id, quantity);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product adjustQuantity(int id, int delta) {
+        return adjustStock(id, delta);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] reserveProducts(Map<Integer, Integer> quantities) {
+        return adjustStock(quantities, -1);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] releaseProducts(Map<Integer, Integer> quantities) {
+        return adjustStock(quantities, 1);
+    }
+
+    /**
+     * Forces every write to disk and unmaps the store
+     *
+     * @throws IOException when the files could not be written
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        structureLock.lock();
+
+        try {
+            records.force();
+            strings.force();
+            recordChannel.close();
+            stringChannel.close();
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    /**
+     * Changes the quantity of one product in place under its striped lock
+     *
+     * @param id    ID of the product
+     * @param delta Amount to add to the quantity, negative to take stock away
+     * @return Updated product, null if no product has the ID
+     */
+    private Product adjustStock(int id, int delta) {
+        Lock productLock = productLocks.get(id);
+
+        productLock.lock();
+
+        try {
+            Integer slot = slotsById.get(id);
+
+            if (slot == null) {
+                return null;
+            }
+
+            int quantity = checkedQuantity(id, records.getInt(recordOffset(slot) + RECORD_QUANTITY), delta);
+
+            records.putInt(recordOffset(slot) + RECORD_QUANTITY, quantity);
+            force();
+            version.incrementAndGet();
+
+            return readProduct(slot);
+        } finally {
+            productLock.unlock();
+        }
+    }
+
+    /**
+     * Changes the quantity of several products at once under their striped locks
+     * <p>
+     * Every line is checked before anything is written.
+     *
+     * @param quantities Positive amount per product ID
+     * @param sign       -1 to take the amounts, 1 to return them
+     * @return Updated products, ordered by ID
+     */
+    private Product[] adjustStock(Map<Integer, Integer> quantities, int sign) {
+        int[] ids = quantities.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        Lock[] locks = productLocks.getAll(ids);
+        int[] slots = new int[ids.length];
+        int[] newQuantities = new int[ids.length];
+
+        for (int quantity : quantities.values()) {
+            requirePositive(quantity);
+        }
+
+        for (Lock lock : locks) {
+            lock.lock();
+        }
+
+        try {
+            for (int i = 0; i < ids.length; i++) {
+                Integer slot = slotsById.get(ids[i]);
+
+                if (slot == null) {
+                    throw new IllegalArgumentException("No product with ID " + ids[i]);
+                }
+
+                slots[i] = slot;
+                newQuantities[i] = checkedQuantity(ids[i], records.getInt(recordOffset(slot) + RECORD_QUANTITY),
+                        (long) sign * quantities.get(ids[i]));
+            }
+
+            Product[] updated = new Product[ids.length];
+
+            for (int i = 0; i < ids.length; i++) {
+                records.putInt(recordOffset(slots[i]) + RECORD_QUANTITY, newQuantities[i]);
+                updated[i] = readProduct(slots[i]);
+            }
+
+            force();
+            version.incrementAndGet();
+
+            return updated;
+        } finally {
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Forces the strings and then the records to disk if every change is synced
+     * <p>
+     * Strings go first so a record on disk never points at bytes that are not.
+     */
+    private void force() {
+        if (sync) {
+            strings.force();
+            records.force();
+        }
+    }
+
+    /**
+     * Applies a stock change to a quantity
+     *
+     * @param id       ID of the product, for error messages
+     * @param quantity Current quantity
+     * @param delta    Amount to add
+     * @return New quantity
+     */
+    private static int checkedQuantity(int id, int quantity, long delta) {
+        long result = quantity + delta;
+
+        if (result < 0) {
+            throw new IllegalStateException("Insufficient stock for product " + id);
+        }
+
+        if (result > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Quantity too large for product " + id);
+        }
+
+        return (int) result;
+    }
+
+    /**
+     * Rejects quantities that are not positive
+     *
+     * @param quantity Quantity to check
+     */
+    private static void requirePositive(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+    }
+
+    /**
+     * Stores a product in a free slot and indexes it, must hold the structure lock
+     *
+     * @param product Product with its final ID
+     * @throws IOException when the store could not grow
+     */
+    private void insert(Product product) throws IOException {
+        Lock productLock = productLocks.get(product.getId());
+
+        productLock.lock();
+
+        try {
+            int slot = allocateSlot();
+
+            writeRecord(slot, product, null);
+            records.putInt(recordOffset(slot) + RECORD_ID, product.getId());
+            records.putInt(recordOffset(slot) + RECORD_STATE, STATE_LIVE);
+            slotsById.put(product.getId(), slot);
+            productIdsByName.put(InventoryFileDAO.nameKey(product.getName()), product.getId());
+            searchIndex.add(product);
+        } finally {
+            productLock.unlock();
+        }
+    }
+
+    /**
+     * Takes a slot for a new record, reusing deleted ones first and growing the file
+     * when every slot is used, must hold the structure lock
+     *
+     * @return Slot number
+     * @throws IOException when the store could not grow
+     */
+    private int allocateSlot() throws IOException {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+
+        int used = records.getInt(HEADER_USED);
+        int capacity = records.getInt(HEADER_CAPACITY);
+
+        if (used == capacity) {
+            capacity = Math.multiplyExact(capacity, 2);
+            records = recordChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+            records.putInt(HEADER_CAPACITY, capacity);
+            LOG.info("Product store grown to " + capacity + " records");
+        }
+
+        records.putInt(HEADER_USED, used + 1);
+
+        return used;
+    }
+
+    /**
+     * Writes the fields of a product into its record, must hold the product's lock
+     * <p>
+     * Strings equal to the ones already stored are kept, others are appended to the
+     * string region first so the record never points at bytes not yet written.
+     *
+     * @param slot     Slot of the record
+     * @param product  Values to store
+     * @param existing Values currently stored, null for a new record
+     * @throws IOException when the string region could not grow
+     */
+    private void writeRecord(int slot, Product product, Product existing) throws IOException {
+        int offset = recordOffset(slot);
+
+        if (existing == null || !Objects.equals(existing.getName(), product.getName())) {
+            writeString(offset + RECORD_NAME_OFFSET, product.getName());
+        }
+
+        if (existing == null || !Objects.equals(existing.getDescription(), product.getDescription())) {
+            writeString(offset + RECORD_DESCRIPTION_OFFSET, product.getDescription());
+        }
+
+        records.putDouble(offset + RECORD_PRICE, product.getPrice());
+        records.putInt(offset + RECORD_QUANTITY, product.getQuantity());
+    }
+
+    /**
+     * Appends a string to the string region and points a record field at it
+     *
+     * @param field Position of the offset field, the length field follows it
+     * @param value String to store, may be null
+     * @throws IOException when the string region could not grow
+     */
+    private void writeString(int field, String value) throws IOException {
+        if (value == null) {
+            records.putInt(field, 0);
+            records.putInt(field + 4, NULL_LENGTH);
+
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int start = records.getInt(HEADER_STRINGS_END);
+        int end = Math.addExact(start, bytes.length);
+
+        if (end > strings.capacity()) {
+            strings = stringChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(end, 2L * strings.capacity()));
+        }
+
+        ByteBuffer target = strings.duplicate();
+        target.position(start);
+        target.put(bytes);
+        records.putInt(HEADER_STRINGS_END, end);
+        records.putInt(field, start);
+        records.putInt(field + 4, bytes.length);
+    }
+
+    /**
+     * Decodes the product in a slot
+     *
+     * @param slot Slot of the record
+     * @return Product with the stored values
+     */
+    private Product readProduct(int slot) {
+        ByteBuffer recordBuffer = records;
+        int offset = recordOffset(slot);
+
+        return new Product(readString(recordBuffer, offset + RECORD_NAME_OFFSET),
+                recordBuffer.getInt(offset + RECORD_ID),
+                readString(recordBuffer, offset + RECORD_DESCRIPTION_OFFSET),
+                recordBuffer.getDouble(offset + RECORD_PRICE),
+                recordBuffer.getInt(offset + RECORD_QUANTITY));
+    }
+
+    /**
+     * Decodes a string a record field points at
+     *
+     * @param recordBuffer Records the field is read from
+     * @param field        Position of the offset field, the length field follows it
+     * @return The string, null if none was stored
+     */
+    private String readString(ByteBuffer recordBuffer, int field) {
+        int length = recordBuffer.getInt(field + 4);
+
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        ByteBuffer source = strings.duplicate();
+        source.position(recordBuffer.getInt(field));
+        source.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * End of the string a record field points at
+     *
+     * @param field Position of the offset field, the length field follows it
+     * @return Offset just past the string, 0 if none was stored
+     */
+    private int stringEnd(int field) {
+        int length = records.getInt(field + 4);
+
+        return length == NULL_LENGTH ? 0 : records.getInt(field) + length;
+    }
+
+    /**
+     * Position of a record in the record file
+     *
+     * @param slot Slot of the record
+     * @return Byte offset of the record
+     */
+    private static int recordOffset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    /**
+     * Maps a new, empty store
+     *
+     * @param capacity Records the store has room for
+     * @throws IOException when the files could not be written
+     */
+    private void initializeStore(int capacity) throws IOException {
+        records = recordChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        strings = stringChannel.map(FileChannel.MapMode.READ_WRITE, 0, MIN_STRINGS_SIZE);
+        records.putInt(HEADER_MAGIC, MAGIC);
+        records.putInt(HEADER_VERSION, FORMAT_VERSION);
+        records.putInt(HEADER_CAPACITY, capacity);
+        records.putInt(HEADER_USED, 0);
+        records.putInt(HEADER_LAST_ID, -1);
+        records.putInt(HEADER_STRINGS_END, 0);
+    }
+
+    /**
+     * Copies the products of a JSON inventory file into a new store, keeping their IDs
+     * <p>
+     * Products are written to the store as they are parsed rather than read into an
+     * array first.
+     *
+     * @param objectMapper JSON object for deserialization
+     * @param jsonFile     JSON inventory file, skipped if missing or empty
+     * @throws IOException when the JSON file could not be read
+     */
+    private void seedFromJson(ObjectMapper objectMapper, File jsonFile) throws IOException {
+        if (!jsonFile.isFile() || jsonFile.length() == 0) {
+            return;
+        }
+
+        int[] lastId = {-1};
+        int seeded = new JsonArrayReader<>(objectMapper, Product.class, 1).read(jsonFile, product -> {
+            insert(product);
+            lastId[0] = Math.max(lastId[0], product.getId());
+        });
+
+        records.putInt(HEADER_LAST_ID, lastId[0]);
+        force();
+        version.incrementAndGet();
+        LOG.info("Seeded product store with " + seeded + " products from " + jsonFile);
+    }
+
+    /**
+     * Maps an existing store and rebuilds the in-memory indexes from its records
+     *
+     * @throws IOException when the files could not be read or are not a product store
+     */
+    private void loadStore() throws IOException {
+        records = recordChannel.map(FileChannel.MapMode.READ_WRITE, 0, recordChannel.size());
+
+        if (records.capacity() < HEADER_SIZE || records.getInt(HEADER_MAGIC) != MAGIC) {
+            throw new IOException("Not a product store");
+        }
+
+        if (records.getInt(HEADER_VERSION) != FORMAT_VERSION) {
+            throw new IOException("Unsupported product store version " + records.getInt(HEADER_VERSION));
+        }
+
+        int stringsEnd = records.getInt(HEADER_STRINGS_END);
+        strings = stringChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(Math.max(stringChannel.size(), stringsEnd), MIN_STRINGS_SIZE));
+
+        int used = records.getInt(HEADER_USED);
+        int lastId = records.getInt(HEADER_LAST_ID);
+        int usedStrings = stringsEnd;
+        List<Product> loaded = new ArrayList<>(used);
+
+        for (int slot = 0; slot < used; slot++) {
+            int offset = recordOffset(slot);
+
+            if (records.getInt(offset + RECORD_STATE) != STATE_LIVE) {
+                freeSlots.push(slot);
+                continue;
+            }
+
+            Product product = readProduct(slot);
+
+            slotsById.put(product.getId(), slot);
+            productIdsByName.put(InventoryFileDAO.nameKey(product.getName()), product.getId());
+            loaded.add(product);
+            lastId = Math.max(lastId, product.getId());
+            usedStrings = Math.max(usedStrings, stringEnd(offset + RECORD_NAME_OFFSET));
+            usedStrings = Math.max(usedStrings, stringEnd(offset + RECORD_DESCRIPTION_OFFSET));
+        }
+
+        if (lastId != records.getInt(HEADER_LAST_ID) || usedStrings != stringsEnd) {
+            LOG.warning("Product store header was behind its records, last ID " + lastId + ", strings end " + usedStrings);
+            records.putInt(HEADER_LAST_ID, lastId);
+            records.putInt(HEADER_STRINGS_END, usedStrings);
+            force();
+        }
+
+        searchIndex.addAll(loaded.toArray(new Product[0]));
+
+        LOG.info("Loaded " + slotsById.size() + " products from the product store");
+    }
+}
@@ -0,0 +1,15 @@
+package com.estore.api.estoreapi.persistence;
+
+/**
+ * Component that reports measurements to a {@link PersistenceMetrics}
+ *
+ * @author SWEN-261 Project Team One
+ */
+public interface MetricsSource {
+    /**
+     * Sets where measurements are reported, replacing {@link PersistenceMetrics#NONE}
+     *
+     * @param metrics Receiver of the measurements
+     */
+    void setMetrics(PersistenceMetrics metrics);
+}
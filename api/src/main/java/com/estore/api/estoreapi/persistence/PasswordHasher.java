@@ -0,0 +1,113 @@
+package com.estore.api.estoreapi.persistence;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Salted PBKDF2 password hashing
+ * <p>
+ * Hashes are stored as {@code pbkdf2-sha256$iterations$salt$hash} with Base64 salt and
+ * hash, so the iteration count can be raised later without breaking stored accounts.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class PasswordHasher {
+    public static final int DEFAULT_ITERATIONS = 210_000;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final String SEPARATOR = "$";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Creates a hasher
+     *
+     * @param iterations PBKDF2 iterations for new hashes
+     */
+    public PasswordHasher(int iterations) {
+        this.iterations = Math.max(1, iterations);
+    }
+
+    /**
+     * Hashes a password with a fresh salt
+     *
+     * @param password Plaintext password
+     * @return Encoded hash
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+
+        return PREFIX + SEPARATOR + iterations + SEPARATOR + encoder.encodeToString(salt)
+                + SEPARATOR + encoder.encodeToString(derive(password, salt, iterations));
+    }
+
+    /**
+     * Checks a password against an encoded hash in constant time
+     *
+     * @param password Plaintext password to check
+     * @param encoded  Hash produced by {@link #hash(String)}
+     * @return true if the password matches, false if it does not or the hash is malformed
+     */
+    public boolean matches(String password, String encoded) {
+        if (password == null || !isHash(encoded)) {
+            return false;
+        }
+
+        String[] parts = encoded.split("\\$");
+
+        if (parts.length != 4) {
+            return false;
+        }
+
+        try {
+            Base64.Decoder decoder = Base64.getDecoder();
+            byte[] salt = decoder.decode(parts[2]);
+            byte[] expected = decoder.decode(parts[3]);
+
+            return MessageDigest.isEqual(expected, derive(password, salt, Integer.parseInt(parts[1])));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether a stored credential is a hash rather than a legacy plaintext password
+     *
+     * @param credential Stored credential
+     * @return true if it was produced by {@link #hash(String)}
+     */
+    public static boolean isHash(String credential) {
+        return credential != null && credential.startsWith(PREFIX + SEPARATOR);
+    }
+
+    /**
+     * Runs PBKDF2 over a password
+     *
+     * @param password   Plaintext password
+     * @param salt       Salt bytes
+     * @param iterations Iteration count
+     * @return Derived key
+     */
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_BITS);
+
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
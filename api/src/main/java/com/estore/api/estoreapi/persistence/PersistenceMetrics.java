@@ -0,0 +1,78 @@
+package com.estore.api.estoreapi.persistence;
+
+/**
+ * Receives measurements from the persistence tier
+ * <p>
+ * Locks, journals, file writes and caches report here without depending on a metrics
+ * library. Every method does nothing by default, and {@link #NONE} is used until a
+ * {@link MetricsSource} is given a real implementation. Calls are made on the thread
+ * doing the work, often while it holds a lock, so implementations must be cheap and
+ * must not block.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public interface PersistenceMetrics {
+    /**
+     * Implementation that drops every measurement
+     */
+    PersistenceMetrics NONE = new PersistenceMetrics() {
+    };
+
+    /**
+     * A thread acquired a lock
+     *
+     * @param lock  Name of the lock
+     * @param nanos Time spent waiting for it
+     */
+    default void lockWaited(String lock, long nanos) {
+    }
+
+    /**
+     * A thread released a lock
+     *
+     * @param lock  Name of the lock
+     * @param nanos Time the lock was held
+     */
+    default void lockHeld(String lock, long nanos) {
+    }
+
+    /**
+     * A data file was rewritten
+     *
+     * @param file  Name of the file
+     * @param bytes Size of the file after the write
+     * @param nanos Time the write took
+     */
+    default void fileWritten(String file, long bytes, long nanos) {
+    }
+
+    /**
+     * A data file was loaded at startup
+     *
+     * @param file    Name of the file
+     * @param records Records loaded from it
+     * @param nanos   Time the load took
+     */
+    default void fileLoaded(String file, long records, long nanos) {
+    }
+
+    /**
+     * Records were appended to a journal and flushed
+     *
+     * @param journal Name of the journal
+     * @param records Records appended
+     * @param bytes   Bytes appended
+     * @param nanos   Time the append and flush took
+     */
+    default void journalAppended(String journal, int records, long bytes, long nanos) {
+    }
+
+    /**
+     * A cache was asked for a value
+     *
+     * @param cache Name of the cache
+     * @param hit   true if the value was cached
+     */
+    default void cacheAccessed(String cache, boolean hit) {
+    }
+}
@@ -0,0 +1,457 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.util.IntObjectHashMap;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory n-gram index over product names for case-insensitive substring search
+ * <p>
+ * Every product name is lowercased once and split into all of its one, two and three
+ * character grams. Each gram maps to a posting list, a sorted array of the IDs whose
+ * name contains it, kept as primitive ints. A keyword of one or two characters is
+ * answered by its posting list alone. A longer keyword intersects the posting lists
+ * of its trigrams, smallest first, and confirms the survivors against their names,
+ * since the trigrams may appear in a different order. Results come out in ID order
+ * without a sort.
+ * <p>
+ * Posting lists are immutable once published, apart from IDs appended past the end
+ * that older readers never look at. A product with a higher ID than any before it is
+ * appended in place, any other change copies the list. Loading a catalog goes through
+ * {@link #addAll(Product[])}, which builds every list in one pass.
+ * <p>
+ * Mutations are expected to be serialized by the owner, searches may run concurrently.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class ProductSearchIndex {
+    /**
+     * Published state of one posting list
+     */
+    private static final class Posting {
+        private final int[] ids;
+        private final int size;
+
+        private Posting(int[] ids, int size) {
+            this.ids = ids;
+            this.size = size;
+        }
+
+        private int last() {
+            return ids[size - 1];
+        }
+    }
+
+    /**
+     * Posting list under construction during a bulk add
+     */
+    private static final class PostingBuilder {
+        private int[] ids = new int[4];
+        private int size;
+
+        private void add(int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+
+            ids[size++] = id;
+        }
+    }
+
+    /**
+     * Open-addressing table from gram keys to posting builders, so a bulk add does
+     * not box a key per gram occurrence
+     */
+    private static final class BuilderTable {
+        private long[] keys = new long[1024];
+        private PostingBuilder[] builders = new PostingBuilder[1024];
+        private int size;
+
+        private PostingBuilder get(long key) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+
+            while (builders[slot] != null) {
+                if (keys[slot] == key) {
+                    return builders[slot];
+                }
+
+                slot = (slot + 1) & mask;
+            }
+
+            PostingBuilder builder = new PostingBuilder();
+
+            keys[slot] = key;
+            builders[slot] = builder;
+
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+
+            return builder;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            PostingBuilder[] oldBuilders = builders;
+            int mask = oldKeys.length * 2 - 1;
+
+            keys = new long[oldKeys.length * 2];
+            builders = new PostingBuilder[oldKeys.length * 2];
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldBuilders[i] != null) {
+                    int slot = slot(oldKeys[i], mask);
+
+                    while (builders[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+
+                    keys[slot] = oldKeys[i];
+                    builders[slot] = oldBuilders[i];
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+
+            return (int) (hash >>> 32) & mask;
+        }
+    }
+
+    private static final int GRAM = 3;
+    private static final int[] NO_IDS = new int[0];
+
+    private final Map<Long, Posting> postings = new ConcurrentHashMap<>();
+    private final IntObjectHashMap<String> names = new IntObjectHashMap<>();
+
+    /**
+     * Adds a product to the index
+     *
+     * @param product Product to index, not indexed yet
+     */
+    public void add(Product product) {
+        String name = normalize(product.getName());
+        int id = product.getId();
+
+        names.put(id, name);
+
+        for (int i = 0; i < name.length(); i++) {
+            for (int length = 1; length <= GRAM && i + length <= name.length(); length++) {
+                insert(gram(name, i, length), id);
+            }
+        }
+    }
+
+    /**
+     * Adds many products at once, building each posting list in a single pass
+     *
+     * @param products Products to index, none of them indexed yet
+     */
+    public void addAll(Product[] products) {
+        Product[] byId = products;
+        BuilderTable batch = new BuilderTable();
+
+        for (int i = 1; i < products.length; i++) {
+            if (products[i - 1].getId() >= products[i].getId()) {
+                byId = products.clone();
+                Arrays.sort(byId, Comparator.comparingInt(Product::getId));
+                break;
+            }
+        }
+
+        for (Product product : byId) {
+            String name = normalize(product.getName());
+            int id = product.getId();
+
+            names.put(id, name);
+
+            for (int i = 0; i < name.length(); i++) {
+                for (int length = 1; length <= GRAM && i + length <= name.length(); length++) {
+                    batch.get(gram(name, i, length)).add(id);
+                }
+            }
+        }
+
+        for (int slot = 0; slot < batch.keys.length; slot++) {
+            PostingBuilder added = batch.builders[slot];
+
+            if (added != null) {
+                Long key = batch.keys[slot];
+                Posting current = postings.get(key);
+
+                postings.put(key, current == null ? new Posting(added.ids, added.size) : union(current, added));
+            }
+        }
+    }
+
+    /**
+     * Removes a product from the index
+     *
+     * @param id ID of the product to remove
+     */
+    public void remove(int id) {
+        String name = names.remove(id);
+
+        if (name == null) {
+            return;
+        }
+
+        for (int i = 0; i < name.length(); i++) {
+            for (int length = 1; length <= GRAM && i + length <= name.length(); length++) {
+                delete(gram(name, i, length), id);
+            }
+        }
+    }
+
+    /**
+     * Replaces the indexed name of a product
+     *
+     * @param product New state of the product
+     */
+    public void update(Product product) {
+        String name = names.get(product.getId());
+
+        if (name != null && name.equals(normalize(product.getName()))) {
+            return;
+        }
+
+        remove(product.getId());
+        add(product);
+    }
+
+    /**
+     * Drops every indexed product
+     */
+    public void clear() {
+        postings.clear();
+        names.clear();
+    }
+
+    /**
+     * Finds the products whose name contains the keyword, ignoring case
+     *
+     * @param keyword Text to search for
+     * @return IDs of the matching products in ascending order
+     */
+    public int[] search(String keyword) {
+        String needle = normalize(keyword);
+
+        if (needle.isEmpty()) {
+            return names.sortedKeys();
+        }
+
+        if (needle.length() <= GRAM) {
+            Posting posting = postings.get(gram(needle, 0, needle.length()));
+
+            return posting == null ? NO_IDS : Arrays.copyOf(posting.ids, posting.size);
+        }
+
+        Posting[] lists = new Posting[needle.length() - GRAM + 1];
+
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(gram(needle, i, GRAM));
+
+            if (lists[i] == null) {
+                return NO_IDS;
+            }
+        }
+
+        Arrays.sort(lists, Comparator.comparingInt(posting -> posting.size));
+
+        int[] candidates = Arrays.copyOf(lists[0].ids, lists[0].size);
+        int count = candidates.length;
+
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            count = intersect(candidates, count, lists[i]);
+        }
+
+        int matches = 0;
+
+        for (int i = 0; i < count; i++) {
+            String name = names.get(candidates[i]);
+
+            if (name != null && name.contains(needle)) {
+                candidates[matches++] = candidates[i];
+            }
+        }
+
+        return matches == candidates.length ? candidates : Arrays.copyOf(candidates, matches);
+    }
+
+    /**
+     * Adds an ID to the posting list of a gram
+     *
+     * @param key Gram key
+     * @param id  ID of the product containing the gram
+     */
+    private void insert(long key, int id) {
+        Posting current = postings.get(key);
+
+        if (current == null) {
+            int[] ids = new int[4];
+            ids[0] = id;
+            postings.put(key, new Posting(ids, 1));
+
+            return;
+        }
+
+        if (current.last() < id) {
+            int[] ids = current.ids;
+
+            if (current.size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1) + 1);
+            }
+
+            ids[current.size] = id;
+            postings.put(key, new Posting(ids, current.size + 1));
+
+            return;
+        }
+
+        int index = Arrays.binarySearch(current.ids, 0, current.size, id);
+
+        if (index >= 0) {
+            return;
+        }
+
+        int at = -index - 1;
+        int[] ids = new int[current.size + 1];
+
+        System.arraycopy(current.ids, 0, ids, 0, at);
+        ids[at] = id;
+        System.arraycopy(current.ids, at, ids, at + 1, current.size - at);
+        postings.put(key, new Posting(ids, ids.length));
+    }
+
+    /**
+     * Removes an ID from the posting list of a gram
+     *
+     * @param key Gram key
+     * @param id  ID of the removed product
+     */
+    private void delete(long key, int id) {
+        Posting current = postings.get(key);
+
+        if (current == null) {
+            return;
+        }
+
+        int index = Arrays.binarySearch(current.ids, 0, current.size, id);
+
+        if (index < 0) {
+            return;
+        }
+
+        if (current.size == 1) {
+            postings.remove(key);
+
+            return;
+        }
+
+        int[] ids = new int[current.size - 1];
+
+        System.arraycopy(current.ids, 0, ids, 0, index);
+        System.arraycopy(current.ids, index + 1, ids, index, ids.length - index);
+        postings.put(key, new Posting(ids, ids.length));
+    }
+
+    /**
+     * Merges a published posting list with IDs added in bulk
+     *
+     * @param current Published posting list
+     * @param added   Sorted IDs to add
+     * @return New posting list holding the IDs of both
+     */
+    private static Posting union(Posting current, PostingBuilder added) {
+        int[] merged = new int[current.size + added.size];
+        int a = 0;
+        int b = 0;
+        int count = 0;
+
+        while (a < current.size || b < added.size) {
+            int next;
+
+            if (b == added.size || (a < current.size && current.ids[a] < added.ids[b])) {
+                next = current.ids[a++];
+            } else if (a == current.size || added.ids[b] < current.ids[a]) {
+                next = added.ids[b++];
+            } else {
+                next = current.ids[a++];
+                b++;
+            }
+
+            merged[count++] = next;
+        }
+
+        return new Posting(merged, count);
+    }
+
+    /**
+     * Keeps the candidates that are also in a posting list
+     *
+     * @param candidates Sorted candidate IDs, narrowed in place
+     * @param count      Number of candidates
+     * @param posting    Posting list to intersect with
+     * @return Number of candidates left
+     */
+    private static int intersect(int[] candidates, int count, Posting posting) {
+        int kept = 0;
+        int from = 0;
+
+        for (int i = 0; i < count && from < posting.size; i++) {
+            int index = Arrays.binarySearch(posting.ids, from, posting.size, candidates[i]);
+
+            if (index >= 0) {
+                candidates[kept++] = candidates[i];
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+        }
+
+        return kept;
+    }
+
+    /**
+     * Lowercases text the same way for names and keywords, and the same way
+     * {@link InventoryFileDAO#nameKey(String)} does whatever the default locale
+     *
+     * @param text Name or keyword
+     * @return Lowercased text
+     */
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Packs the gram starting at an index into a single key
+     * <p>
+     * The length sits above the three 16 bit characters so grams of different
+     * lengths never share a key.
+     *
+     * @param text   Lowercased text
+     * @param index  Start of the gram
+     * @param length Number of characters in the gram, at most three
+     * @return Gram key
+     */
+    private static long gram(String text, int index, int length) {
+        long key = length;
+
+        for (int i = 0; i < length; i++) {
+            key = (key << 16) | text.charAt(index + i);
+        }
+
+        return key;
+    }
+}
@@ -0,0 +1,196 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.SessionToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory store of login sessions
+ * <p>
+ * Tokens are 256 random bits, handed to the client once and kept only as a SHA-256
+ * digest. A lookup digests the presented token and finds the session by digest, so
+ * the time a lookup takes says nothing about how much of a real token was guessed.
+ * Sessions expire a fixed time after login; expired sessions are ignored on lookup
+ * and removed by a background sweep.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Component
+public class SessionStore {
+    private static final String BEARER_PREFIX = "Bearer ";
+    /**
+     * Owner and expiry of a live session
+     */
+    private static final class Session {
+        private final String userName;
+        private final long expiresAt;
+
+        private Session(String userName, long expiresAt) {
+            this.userName = userName;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final long ttlMillis;
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * Creates a session store
+     *
+     * @param ttlMillis           How long a session stays valid after login
+     * @param sweepIntervalMillis How often expired sessions are removed
+     */
+    @Autowired
+    public SessionStore(@Value("${users.session.ttl-ms:1800000}") long ttlMillis,
+                        @Value("${users.session.sweep-interval-ms:60000}") long sweepIntervalMillis) {
+        this.ttlMillis = ttlMillis;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts a session for a user whose credentials were verified
+     *
+     * @param userName Username the session belongs to
+     * @return Issued session, the only place the raw token appears
+     */
+    public SessionToken issue(String userName) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+
+        sessions.put(digest(token), new Session(userName, expiresAt));
+
+        return new SessionToken(token, userName, expiresAt);
+    }
+
+    /**
+     * Finds the user a token belongs to
+     *
+     * @param token Token presented by the client
+     * @return Username, null if the token is unknown or expired
+     */
+    public String resolve(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        Session session = sessions.get(digest(token));
+
+        if (session == null || session.expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+
+        return session.userName;
+    }
+
+    /**
+     * Extracts the token from an Authorization header
+     *
+     * @param authorization Header value, may be null
+     * @return Bearer token, null if the header does not carry one
+     */
+    public static String bearerToken(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+
+        return authorization.substring(BEARER_PREFIX.length()).trim();
+    }
+
+    /**
+     * Finds the user of a request from its Authorization header
+     *
+     * @param authorization Header value, may be null
+     * @return Username, null if the header carries no live bearer token
+     */
+    public String resolveBearer(String authorization) {
+        return resolve(bearerToken(authorization));
+    }
+
+    /**
+     * Ends a single session
+     *
+     * @param token Token presented by the client
+     * @return true if a live session was ended
+     */
+    public boolean revoke(String token) {
+        return token != null && sessions.remove(digest(token)) != null;
+    }
+
+    /**
+     * Ends every session of a user, after the account was deleted or its password changed
+     *
+     * @param userName Username the sessions belong to
+     */
+    public void revokeAll(String userName) {
+        sessions.values().removeIf(session -> session.userName.equals(userName));
+    }
+
+    /**
+     * Number of sessions held, including expired ones not yet swept
+     *
+     * @return Session count
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Removes every expired session
+     */
+    public void sweep() {
+        long now = System.currentTimeMillis();
+
+        sessions.values().removeIf(session -> session.expiresAt <= now);
+    }
+
+    /**
+     * Stops the background sweep
+     */
+    @PreDestroy
+    public void close() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Digests a token for use as the session key
+     *
+     * @param token Raw token
+     * @return Base64 SHA-256 digest
+     */
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,1382 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.ProductImportResult;
+import com.estore.api.estoreapi.util.IntObjectHashMap;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Implementation of product persistence split across several files
+ * <p>
+ * Products are partitioned into {@code inventory.shards.count} shards by
+ * {@link #shardOf(int) their ID}. Every shard has its own lock, product map, search
+ * index and {@link SnapshotFile} next to the inventory file, named after it with the
+ * shard number inserted before the extension ({@code inventory-3.json}). A change
+ * rewrites only the file of the shard it touches, so writers to different shards run in
+ * parallel and each write is a fraction of the catalog. In
+ * {@link PersistenceMode#WRITE_BEHIND} mode every shard has its own
+ * {@link WriteBehindFlusher} and flushes independently of the others.
+ * <p>
+ * Listings and searches fan out over the shards on a {@link ForkJoinPool} and merge the
+ * per-shard results in ID order. As in {@link InventoryFileDAO}, every change is
+ * bracketed by two counters so the merged catalog is only published if no writer ran
+ * while it was copied, and each shard caches its own listing until it changes.
+ * <p>
+ * Product names are unique across the whole catalog. The name index is shared and only
+ * changed under the lock of the shard holding the product, and imports hold every shard
+ * lock, so a name is never claimed twice. Changes spanning several shards lock them in
+ * shard order.
+ * <p>
+ * A store without shard files is seeded from the inventory file if there is one. The
+ * shard count may change between runs: products found in the wrong shard are moved and
+ * every shard is rewritten.
+ * <p>
+ * Each shard file is replaced atomically on its own, but there is no commit spanning
+ * several files. A change to products in several shards, such as
+ * {@link #reserveProducts(Map) reserving a checkout's stock} or an import, writes one
+ * file after the other: a crash between them, or a write that fails after others
+ * succeeded, can leave only part of the change on disk. A failed stock change is put
+ * back in memory and its shards are rewritten, which undoes it unless the disk keeps
+ * failing, yet a crash in the window is not recovered on restart. With more than one
+ * shard, {@link #importProducts(Product[], boolean) atomic imports} are rejected
+ * rather than stored without their guarantee.
+ * <p>
+ * {@code inventory.store=sharded} selects this store.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.store", havingValue = "sharded")
+public class ShardedInventoryDAO implements InventoryDAO, MetricsSource {
+    /**
+     * How mutations are made durable
+     */
+    public enum PersistenceMode {
+        SNAPSHOT,
+        WRITE_BEHIND
+    }
+
+    /**
+     * Catalog copy published for lock-free readers
+     */
+    private static final class CatalogSnapshot {
+        private final long version;
+        private final Product[] products;
+
+        private CatalogSnapshot(long version, Product[] products) {
+            this.version = version;
+            this.products = products;
+        }
+    }
+
+    /**
+     * Reads part of the catalog from one shard
+     */
+    @FunctionalInterface
+    private interface ShardQuery {
+        /**
+         * Runs the query on a shard
+         *
+         * @param shard Shard to query
+         * @return Matching products of the shard in ID order
+         */
+        Product[] apply(Shard shard);
+    }
+
+    /**
+     * One partition of the catalog with its own lock, indexes and file
+     */
+    private final class Shard {
+        private final File file;
+        private final SnapshotFile snapshotFile;
+        private final IntObjectHashMap<Product> products = new IntObjectHashMap<>();
+        private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+        private final TimedLock lock = new TimedLock("inventory.shard");
+        private final TimedLock saveLock = new TimedLock("inventory.shard.save");
+        private final AtomicLong version = new AtomicLong();
+        private volatile CatalogSnapshot listing = new CatalogSnapshot(-1, new Product[0]);
+        private WriteBehindFlusher flusher;
+        private long savedVersion = -1;
+
+        private Shard(File file) {
+            this.file = file;
+            this.snapshotFile = new SnapshotFile(file);
+        }
+
+        /**
+         * Returns the products of the shard in ID order
+         * <p>
+         * The copy is only consistent if no writer changed the shard meanwhile, which
+         * callers check with the catalog counters. A copy taken during a write is
+         * cached under the version before the write and never served once it ends.
+         *
+         * @return Products of the shard
+         */
+        private Product[] listing() {
+            long current = version.get();
+            CatalogSnapshot cached = listing;
+
+            if (cached.version == current) {
+                return cached.products;
+            }
+
+            int[] ids = products.sortedKeys();
+            Product[] copy = new Product[ids.length];
+            int count = 0;
+
+            for (int id : ids) {
+                Product product = products.get(id);
+
+                if (product != null) {
+                    copy[count++] = product;
+                }
+            }
+
+            copy = count == copy.length ? copy : Arrays.copyOf(copy, count);
+            listing = new CatalogSnapshot(current, copy);
+
+            return copy;
+        }
+
+        /**
+         * Finds the products of the shard whose name contains the keyword
+         *
+         * @param keyword Text to search for
+         * @return Matching products in ID order
+         */
+        private Product[] search(String keyword) {
+            int[] ids = searchIndex.search(keyword);
+            List<Product> matches = new ArrayList<>(ids.length);
+
+            for (int id : ids) {
+                Product product = products.get(id);
+
+                if (product != null) {
+                    matches.add(product);
+                }
+            }
+
+            return matches.toArray(new Product[0]);
+        }
+
+        /**
+         * Stores a product in the shard and its search index, caller holds the shard lock
+         *
+         * @param product Product to store
+         */
+        private void put(Product product) {
+            products.put(product.getId(), product);
+            searchIndex.update(product);
+        }
+
+        /**
+         * Makes the changes of the shard durable, caller holds the shard lock
+         *
+         * @throws IOException when the shard file could not be written
+         */
+        private void persist() throws IOException {
+            if (flusher == null) {
+                write(listing(), version.get());
+            } else {
+                flusher.markDirty();
+            }
+        }
+
+        /**
+         * Writes the products of the shard to its file
+         *
+         * @throws IOException when the shard file could not be written
+         */
+        private void save() throws IOException {
+            Product[] copy;
+            long copied;
+
+            lock.lock();
+
+            try {
+                copied = version.get();
+                copy = listing();
+            } finally {
+                lock.unlock();
+            }
+
+            write(copy, copied);
+        }
+
+        /**
+         * Writes a copy of the shard to its file unless a newer copy was written already
+         * <p>
+         * The copy is taken under the shard lock and written without it, so a multi-shard
+         * change can write its shards on the pool while the caller still holds their locks.
+         *
+         * @param copy   Products of the shard
+         * @param copied Shard version the copy was taken at
+         * @throws IOException when the shard file could not be written
+         */
+        private void write(Product[] copy, long copied) throws IOException {
+            saveLock.lock();
+
+            try {
+                if (copied <= savedVersion) {
+                    return;
+                }
+
+                long start = System.nanoTime();
+                long bytes = snapshotFile.write(out -> snapshotMapper.writeValue(out, copy));
+
+                savedVersion = copied;
+                metrics.fileWritten(file.getName(), bytes, System.nanoTime() - start);
+                LOG.log(Level.FINE, "{0,number,#} products saved to {1}", new Object[] {copy.length, file.getName()});
+            } finally {
+                saveLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Runs a query on a range of shards and merges the results by ID, splitting the
+     * range so every shard is queried on its own pool thread
+     */
+    private final class FanOut extends RecursiveTask<Product[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ShardQuery query;
+        private final int from;
+        private final int to;
+
+        private FanOut(ShardQuery query, int from, int to) {
+            this.query = query;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Product[] compute() {
+            if (to - from == 1) {
+                return query.apply(shards[from]);
+            }
+
+            int middle = (from + to) >>> 1;
+            FanOut left = new FanOut(query, from, middle);
+
+            left.fork();
+
+            Product[] right = new FanOut(query, middle, to).compute();
+
+            return merge(left.join(), right);
+        }
+    }
+
+    private static final Logger LOG = Logger.getLogger(ShardedInventoryDAO.class.getName());
+    private static final String PRODUCT_LOG = "PRODUCT: ";
+    private static final int DEFAULT_SHARDS = 8;
+    private static final int OPTIMISTIC_READ_ATTEMPTS = 8;
+
+    private final Shard[] shards;
+    private final ForkJoinPool pool;
+    private final ObjectMapper snapshotMapper;
+    private final JsonArrayReader<Product> productReader;
+    private final String storeName;
+    private final Map<String, Integer> productIdsByName = new ConcurrentHashMap<>();
+    private final AtomicInteger lastId = new AtomicInteger(-1);
+    private final AtomicLong writesStarted = new AtomicLong();
+    private final AtomicLong writesCompleted = new AtomicLong();
+    private volatile CatalogSnapshot snapshot = new CatalogSnapshot(-1, new Product[0]);
+    private volatile long pagedVersion = -1;
+    private volatile PersistenceMetrics metrics = PersistenceMetrics.NONE;
+    private final long loadNanos;
+
+    /**
+     * Opens a sharded store that rewrites a shard file on every change
+     *
+     * @param objectMapper JSON object for serialization and deserialization
+     * @param filename     Inventory file the shard files are named after and a new store is seeded from
+     * @param shardCount   Number of shards
+     * @throws IOException when a shard file could not be accessed
+     */
+    public ShardedInventoryDAO(ObjectMapper objectMapper, String filename, int shardCount) throws IOException {
+        this(objectMapper, filename, shardCount, PersistenceMode.SNAPSHOT.name(), 1000, 100, 0, SnapshotFormat.JSON.name());
+    }
+
+    /**
+     * Opens a sharded store
+     *
+     * @param objectMapper        JSON object for serialization and deserialization
+     * @param filename            Inventory file the shard files are named after and a new store is seeded from
+     * @param shardCount          Number of shards
+     * @param persistenceMode     Name of the {@link PersistenceMode} to use
+     * @param flushIntervalMillis Longest time a write-behind change stays only in memory
+     * @param flushBatchSize      Pending write-behind changes of a shard that trigger an early flush
+     * @param parallelism         Threads shard queries and loads fan out on, 0 for one per processor
+     * @param format              Name of the {@link SnapshotFormat} the shard files are written in
+     * @throws IOException when a shard file could not be accessed
+     */
+    @Autowired
+    public ShardedInventoryDAO(ObjectMapper objectMapper, @Value("${inventory.file}") String filename,
+                               @Value("${inventory.shards.count:" + DEFAULT_SHARDS + "}") int shardCount,
+                               @Value("${inventory.shards.persistence:snapshot}") String persistenceMode,
+                               @Value("${inventory.shards.flush.interval-ms:1000}") long flushIntervalMillis,
+                               @Value("${inventory.shards.flush.batch-size:100}") int flushBatchSize,
+                               @Value("${inventory.shards.parallelism:0}") int parallelism,
+                               @Value("${inventory.format:json}") String format) throws IOException {
+        long start = System.nanoTime();
+        File base = new File(filename);
+        PersistenceMode mode = PersistenceMode.valueOf(persistenceMode.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+
+        this.snapshotMapper = SnapshotFormat.of(format).mapper(objectMapper);
+        this.productReader = new JsonArrayReader<>(objectMapper, Product.class, 1);
+        this.storeName = base.getName();
+        this.shards = new Shard[Math.max(1, shardCount)];
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(), forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("inventory-shards-" + thread.getPoolIndex());
+
+            return thread;
+        }, null, false);
+
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(shardFile(base, i));
+        }
+
+        loadShards(base);
+
+        if (mode == PersistenceMode.WRITE_BEHIND) {
+            for (int i = 0; i < shards.length; i++) {
+                shards[i].flusher = new WriteBehindFlusher("inventory-shard-" + i + "-flusher", shards[i]::save,
+                        flushIntervalMillis, flushBatchSize);
+            }
+        }
+
+        this.loadNanos = System.nanoTime() - start;
+        LOG.info("Loaded " + productIdsByName.size() + " products into " + shards.length + " shards in "
+                + TimeUnit.NANOSECONDS.toMillis(loadNanos) + " ms");
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public void setMetrics(PersistenceMetrics metrics) {
+        this.metrics = metrics;
+
+        for (Shard shard : shards) {
+            shard.lock.setMetrics(metrics);
+            shard.saveLock.setMetrics(metrics);
+        }
+
+        metrics.fileLoaded(storeName, productIdsByName.size(), loadNanos);
+    }
+
+    /**
+     * Returns the number of shards
+     *
+     * @return Number of shards
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product createProduct(Product product) throws IOException {
+        String key = InventoryFileDAO.nameKey(product.getName());
+
+        if (productIdsByName.containsKey(key)) {
+            throw new IllegalArgumentException("Product already created");
+        }
+
+        int id = lastId.incrementAndGet();
+        Product newProduct = new Product(product.getName(), id, product.getDescription(), product.getPrice(), product.getQuantity());
+        Shard shard = shardOf(id);
+
+        shard.lock.lock();
+
+        try {
+            if (productIdsByName.putIfAbsent(key, id) != null) {
+                throw new IllegalArgumentException("Product already created");
+            }
+
+            beginWrite();
+
+            try {
+                shard.put(newProduct);
+            } finally {
+                endWrite(shard);
+            }
+
+            LOG.log(Level.INFO, PRODUCT_LOG + "{0} created with an ID of {1,number,#}", new Object[] {newProduct.getName(), id});
+            shard.persist();
+
+            return newProduct;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product getProduct(int id) {
+        return shardOf(id).products.get(id);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] getInventory() {
+        LOG.fine("Retrieving inventory list");
+
+        CatalogSnapshot current = snapshot;
+
+        if (current.version == writesCompleted.get() && writesStarted.get() == current.version) {
+            metrics.cacheAccessed("inventory.snapshot", true);
+
+            return current.products;
+        }
+
+        metrics.cacheAccessed("inventory.snapshot", false);
+
+        for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+            long completed = writesCompleted.get();
+            long started = writesStarted.get();
+
+            if (started != completed) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            Product[] products = fanOut(Shard::listing);
+
+            if (writesStarted.get() == started) {
+                snapshot = new CatalogSnapshot(completed, products);
+
+                return products;
+            }
+        }
+
+        // Writers kept the catalog busy, copy it while they are held off
+        lockAll();
+
+        try {
+            Product[] products = fanOut(Shard::listing);
+            snapshot = new CatalogSnapshot(writesCompleted.get(), products);
+
+            return products;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] getInventoryPage(int offset, int limit) {
+        Product[] products = getInventory();
+        int from = Math.min(Math.max(offset, 0), products.length);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), products.length);
+
+        return Arrays.copyOfRange(products, from, to);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] getInventoryAfter(int afterId, int limit) {
+        CatalogSnapshot current = snapshot;
+        long version = writesCompleted.get();
+        Product[] products;
+
+        if (current.version == version && writesStarted.get() == version) {
+            products = current.products;
+        } else if (pagedVersion != version) {
+            // Merging the whole catalog after every write costs more than paging each
+            // shard in order, the snapshot is built once a second page finds no write
+            pagedVersion = version;
+            products = fanOut(shard -> shard.products.valuesAfter(afterId, limit).toArray(new Product[0]));
+
+            return products.length <= limit ? products : Arrays.copyOf(products, Math.max(limit, 0));
+        } else {
+            products = getInventory();
+        }
+
+        int low = 0;
+        int high = products.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (products[middle].getId() <= afterId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return Arrays.copyOfRange(products, low, (int) Math.min((long) low + Math.max(limit, 0), products.length));
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public long getVersion() {
+        return writesCompleted.get();
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product updateProduct(Product product) throws IOException {
+        int id = product.getId();
+        Shard shard = shardOf(id);
+
+        shard.lock.lock();
+
+        try {
+            Product existing = shard.products.get(id);
+
+            if (existing == null) {
+                return null;
+            }
+
+            String oldKey = InventoryFileDAO.nameKey(existing.getName());
+            String newKey = InventoryFileDAO.nameKey(product.getName());
+            boolean renamed = !oldKey.equals(newKey);
+
+            if (renamed) {
+                Integer owner = productIdsByName.putIfAbsent(newKey, id);
+
+                if (owner != null && owner != id) {
+                    throw new IllegalArgumentException("Product name already in use");
+                }
+            }
+
+            beginWrite();
+
+            try {
+                shard.put(product);
+            } finally {
+                endWrite(shard);
+            }
+
+            if (renamed) {
+                productIdsByName.remove(oldKey, id);
+            }
+
+            LOG.log(Level.INFO, PRODUCT_LOG + "{0,number,#} has been updated", id);
+            shard.persist();
+
+            return product;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public boolean deleteProduct(int id) throws IOException {
+        Shard shard = shardOf(id);
+
+        shard.lock.lock();
+
+        try {
+            Product existing = shard.products.get(id);
+
+            if (existing == null) {
+                return false;
+            }
+
+            beginWrite();
+
+            try {
+                shard.products.remove(id);
+                shard.searchIndex.remove(id);
+            } finally {
+                endWrite(shard);
+            }
+
+            productIdsByName.remove(InventoryFileDAO.nameKey(existing.getName()), id);
+            LOG.log(Level.INFO, PRODUCT_LOG + "{0,number,#} has been deleted", id);
+            shard.persist();
+
+            return true;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] findProduct(String keyword) {
+        if (keyword == null) {
+            LOG.warning("keyword variable was null");
+
+            return new Product[0];
+        }
+
+        return fanOut(shard -> shard.search(keyword));
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public ProductImportResult[] importProducts(Product[] products, boolean atomic) throws IOException {
+        if (atomic && shards.length > 1) {
+            throw new UnsupportedOperationException("Atomic imports need a single shard, " + shards.length + " shard files are written one by one");
+        }
+
+        ProductImportResult[] results = new ProductImportResult[products.length];
+
+        lockAll();
+
+        try {
+            Set<String> batchNames = new HashSet<>();
+            Integer[] existingIds = new Integer[products.length];
+            int created = 0;
+            int rejected = 0;
+
+            for (int i = 0; i < products.length; i++) {
+                String problem = InventoryFileDAO.validate(products[i]);
+
+                if (problem != null) {
+                    results[i] = new ProductImportResult(i, ProductImportResult.Status.INVALID, null, problem);
+                    rejected++;
+                } else if (!batchNames.add(InventoryFileDAO.nameKey(products[i].getName()))) {
+                    results[i] = new ProductImportResult(i, ProductImportResult.Status.DUPLICATE, null, "Name repeats an earlier item");
+                    rejected++;
+                } else {
+                    existingIds[i] = productIdsByName.get(InventoryFileDAO.nameKey(products[i].getName()));
+
+                    if (existingIds[i] == null) {
+                        created++;
+                    }
+                }
+            }
+
+            if (atomic && rejected > 0) {
+                for (int i = 0; i < products.length; i++) {
+                    if (results[i] == null) {
+                        results[i] = new ProductImportResult(i, ProductImportResult.Status.NOT_APPLIED, null, null);
+                    }
+                }
+
+                LOG.warning("Import of " + products.length + " products rejected, " + rejected + " invalid items");
+
+                return results;
+            }
+
+            int nextNewId = lastId.getAndAdd(created) + 1;
+            boolean[] touched = new boolean[shards.length];
+            int imported = 0;
+
+            beginWrite();
+
+            try {
+                for (int i = 0; i < products.length; i++) {
+                    if (results[i] != null) {
+                        continue;
+                    }
+
+                    Product product = products[i];
+                    boolean isNew = existingIds[i] == null;
+                    int id = isNew ? nextNewId++ : existingIds[i];
+                    Product stored = new Product(product.getName(), id, product.getDescription(), product.getPrice(), product.getQuantity());
+                    int index = shardIndex(id);
+
+                    if (!isNew) {
+                        productIdsByName.remove(InventoryFileDAO.nameKey(shards[index].products.get(id).getName()), id);
+                    }
+
+                    shards[index].put(stored);
+                    productIdsByName.put(InventoryFileDAO.nameKey(stored.getName()), id);
+                    touched[index] = true;
+                    imported++;
+                    results[i] = new ProductImportResult(i, isNew ? ProductImportResult.Status.CREATED : ProductImportResult.Status.UPDATED, stored, null);
+                }
+            } finally {
+                endWrite(touched);
+            }
+
+            LOG.log(Level.INFO, PRODUCT_LOG + "{0,number,#} imported, {1,number,#} created, {2,number,#} rejected", new Object[] {imported, created, rejected});
+            persist(touched);
+        } finally {
+            unlockAll();
+        }
+
+        return results;
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product reserveStock(int id, int quantity) throws IOException {
+        requirePositive(quantity);
+
+        return adjustStock(id, -quantity);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product releaseStock(int id, int quantity) throws IOException {
+        requirePositive(quantity);
+
+        return adjustStock(id, quantity);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product adjustQuantity(int id, int delta) throws IOException {
+        return adjustStock(id, delta);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] reserveProducts(Map<Integer, Integer> quantities) throws IOException {
+        return adjustStock(quantities, -1);
+    }
+
+    /**
+     * * {@inheritDoc}
+     */
+    @Override
+    public Product[] releaseProducts(Map<Integer, Integer> quantities) throws IOException {
+        return adjustStock(quantities, 1);
+    }
+
+    /**
+     * Changes the quantity of one product under the lock of its shard
+     *
+     * @param id    ID of the product
+     * @param delta Amount to add to the quantity, negative to take stock away
+     * @return Updated product, null if no product has the ID
+     * @throws IOException when the shard file could not be written
+     */
+    private Product adjustStock(int id, int delta) throws IOException {
+        Shard shard = shardOf(id);
+
+        shard.lock.lock();
+
+        try {
+            Product current = shard.products.get(id);
+
+            if (current == null) {
+                return null;
+            }
+
+            Product updated = withQuantity(current, (long) current.getQuantity() + delta);
+
+            beginWrite();
+
+            try {
+                shard.products.put(id, updated);
+            } finally {
+                endWrite(shard);
+            }
+
+            try {
+                shard.persist();
+            } catch (IOException e) {
+                beginWrite();
+
+                try {
+                    shard.products.put(id, current);
+                } finally {
+                    endWrite(shard);
+                }
+
+                throw e;
+            }
+
+            return updated;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Changes the quantity of several products at once under the locks of their shards
+     * <p>
+     * Every line is checked before anything is changed, and every shard touched is
+     * made durable once. When a shard file cannot be written the previous products are
+     * put back and the touched shards are written again, so shards that were already
+     * written do not keep the change.
+     *
+     * @param quantities Positive amount per product ID
+     * @param sign       -1 to take the amounts, 1 to return them
+     * @return Updated products, ordered by ID
+     * @throws IOException when a shard file could not be written
+     */
+    private Product[] adjustStock(Map<Integer, Integer> quantities, int sign) throws IOException {
+        int[] ids = quantities.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        boolean[] touched = new boolean[shards.length];
+        Product[] updated = new Product[ids.length];
+
+        for (int quantity : quantities.values()) {
+            requirePositive(quantity);
+        }
+
+        for (int id : ids) {
+            touched[shardIndex(id)] = true;
+        }
+
+        lock(touched);
+
+        try {
+            Product[] previous = new Product[ids.length];
+
+            for (int i = 0; i < ids.length; i++) {
+                previous[i] = shardOf(ids[i]).products.get(ids[i]);
+
+                if (previous[i] == null) {
+                    throw new IllegalArgumentException("No product with ID " + ids[i]);
+                }
+
+                updated[i] = withQuantity(previous[i], (long) previous[i].getQuantity() + (long) sign * quantities.get(ids[i]));
+            }
+
+            putAll(updated, touched);
+
+            try {
+                persist(touched);
+            } catch (IOException e) {
+                putAll(previous, touched);
+
+                try {
+                    persist(touched);
+                } catch (IOException rewriteFailure) {
+                    e.addSuppressed(rewriteFailure);
+                }
+
+                throw e;
+            }
+
+            return updated;
+        } finally {
+            unlock(touched);
+        }
+    }
+
+    /**
+     * Stores products whose shards are locked by the caller as one change
+     *
+     * @param products Products to store
+     * @param touched  Flags of the shards holding the products, by shard index
+     */
+    private void putAll(Product[] products, boolean[] touched) {
+        beginWrite();
+
+        try {
+            for (Product product : products) {
+                shardOf(product.getId()).products.put(product.getId(), product);
+            }
+        } finally {
+            endWrite(touched);
+        }
+    }
+
+    /**
+     * Copies a product with a new quantity
+     *
+     * @param current  Stored product
+     * @param quantity New quantity
+     * @return Copy of the product, the stored one is left unchanged for snapshots already handed out
+     */
+    private static Product withQuantity(Product current, long quantity) {
+        if (quantity < 0) {
+            throw new IllegalStateException("Insufficient stock for product " + current.getId());
+        }
+
+        if (quantity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Quantity too large for product " + current.getId());
+        }
+
+        return new Product(current.getName(), current.getId(), current.getDescription(), current.getPrice(), (int) quantity);
+    }
+
+    /**
+     * Rejects quantities that are not positive
+     *
+     * @param quantity Quantity to check
+     */
+    private static void requirePositive(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+    }
+
+    /**
+     * Flushes every shard and stops the background threads
+     *
+     * @throws IOException when a shard file could not be written
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        try {
+            for (Shard shard : shards) {
+                if (shard.flusher != null) {
+                    shard.flusher.close();
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Picks the shard of a product
+     * <p>
+     * IDs are handed out in sequence, so taking the ID modulo the shard count spreads
+     * consecutive products, and the writes that create them, over every shard.
+     *
+     * @param id ID of the product
+     * @return Index of the shard holding the product
+     */
+    private int shardIndex(int id) {
+        return Math.floorMod(id, shards.length);
+    }
+
+    /**
+     * Returns the shard of a product
+     *
+     * @param id ID of the product
+     * @return Shard holding the product
+     */
+    private Shard shardOf(int id) {
+        return shards[shardIndex(id)];
+    }
+
+    /**
+     * Marks the start of a change, readers copying the catalog at the same time will retry
+     */
+    private void beginWrite() {
+        writesStarted.incrementAndGet();
+    }
+
+    /**
+     * Marks the end of a change to one shard and publishes a new version
+     *
+     * @param shard Shard that was changed
+     */
+    private void endWrite(Shard shard) {
+        shard.version.incrementAndGet();
+        writesCompleted.incrementAndGet();
+    }
+
+    /**
+     * Marks the end of a change to several shards and publishes a new version
+     *
+     * @param touched Flags of the shards that were changed, by shard index
+     */
+    private void endWrite(boolean[] touched) {
+        for (int i = 0; i < shards.length; i++) {
+            if (touched[i]) {
+                shards[i].version.incrementAndGet();
+            }
+        }
+
+        writesCompleted.incrementAndGet();
+    }
+
+    /**
+     * Makes several shards durable, writing their files in parallel
+     *
+     * @param touched Flags of the shards to persist, by shard index
+     * @throws IOException when a shard file could not be written
+     */
+    private void persist(boolean[] touched) throws IOException {
+        List<Callable<Void>> saves = new ArrayList<>();
+
+        for (int i = 0; i < shards.length; i++) {
+            if (!touched[i]) {
+                continue;
+            }
+
+            Shard shard = shards[i];
+
+            if (shard.flusher != null) {
+                shard.flusher.markDirty();
+            } else {
+                Product[] copy = shard.listing();
+                long copied = shard.version.get();
+
+                saves.add(() -> {
+                    shard.write(copy, copied);
+
+                    return null;
+                });
+            }
+        }
+
+        runAll(saves);
+    }
+
+    /**
+     * Runs tasks on the pool and waits for all of them
+     *
+     * @param tasks Tasks to run
+     * @throws IOException when a task failed with one
+     */
+    private void runAll(List<Callable<Void>> tasks) throws IOException {
+        if (tasks.size() == 1) {
+            try {
+                tasks.get(0).call();
+
+                return;
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        IOException failure = null;
+
+        for (Future<Void> result : pool.invokeAll(tasks)) {
+            try {
+                result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while writing shards", e);
+            } catch (ExecutionException e) {
+                IOException cause = ioCause(e);
+
+                if (cause == null) {
+                    throw new IllegalStateException(e.getCause());
+                }
+
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Finds the IOException a pool task failed with
+     * <p>
+     * The pool wraps checked exceptions of a task in RuntimeExceptions, so the
+     * exception is looked for along the chain of causes.
+     *
+     * @param failure Failure reported by the pool
+     * @return The IOException, null if the task failed with something else
+     */
+    private static IOException ioCause(ExecutionException failure) {
+        for (Throwable cause = failure.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return (IOException) cause;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Runs a query on every shard in parallel
+     *
+     * @param query Query to run
+     * @return Results of all shards merged in ID order
+     */
+    private Product[] fanOut(ShardQuery query) {
+        return shards.length == 1 ? query.apply(shards[0]) : pool.invoke(new FanOut(query, 0, shards.length));
+    }
+
+    /**
+     * Merges two product arrays sorted by ID
+     *
+     * @param left  Products in ID order
+     * @param right Products in ID order, no ID in both arrays
+     * @return Products of both arrays in ID order
+     */
+    private static Product[] merge(Product[] left, Product[] right) {
+        if (left.length == 0) {
+            return right;
+        }
+
+        if (right.length == 0) {
+            return left;
+        }
+
+        Product[] merged = new Product[left.length + right.length];
+        int l = 0;
+        int r = 0;
+        int m = 0;
+
+        while (l < left.length && r < right.length) {
+            merged[m++] = left[l].getId() < right[r].getId() ? left[l++] : right[r++];
+        }
+
+        System.arraycopy(left, l, merged, m, left.length - l);
+        System.arraycopy(right, r, merged, m + left.length - l, right.length - r);
+
+        return merged;
+    }
+
+    /**
+     * Locks every shard in shard order
+     */
+    private void lockAll() {
+        for (Shard shard : shards) {
+            shard.lock.lock();
+        }
+    }
+
+    /**
+     * Unlocks every shard in reverse shard order
+     */
+    private void unlockAll() {
+        for (int i = shards.length - 1; i >= 0; i--) {
+            shards[i].lock.unlock();
+        }
+    }
+
+    /**
+     * Locks some shards in shard order
+     *
+     * @param touched Flags of the shards to lock, by shard index
+     */
+    private void lock(boolean[] touched) {
+        for (int i = 0; i < shards.length; i++) {
+            if (touched[i]) {
+                shards[i].lock.lock();
+            }
+        }
+    }
+
+    /**
+     * Unlocks some shards in reverse shard order
+     *
+     * @param touched Flags of the shards to unlock, by shard index
+     */
+    private void unlock(boolean[] touched) {
+        for (int i = shards.length - 1; i >= 0; i--) {
+            if (touched[i]) {
+                shards[i].lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Loads every shard file in parallel, or seeds a new store from the inventory file
+     * <p>
+     * Files are read up to the first missing shard number, which may be past the
+     * current shard count if it was lowered. Products in the wrong file are moved to
+     * their shard once all files are read, and then every shard is rewritten and the
+     * surplus files removed.
+     *
+     * @param base Inventory file the shard files are named after
+     * @throws IOException when a shard file could not be read
+     */
+    private void loadShards(File base) throws IOException {
+        int files = 0;
+
+        while (generationExists(shardFile(base, files))) {
+            files++;
+        }
+
+        List<Product> misplaced = new ArrayList<>();
+        boolean rewrite;
+
+        if (files == 0) {
+            rewrite = true;
+
+            if (base.isFile()) {
+                int seeded = 0;
+
+                if (new SnapshotFile(base).load(generation -> {
+                    for (Shard shard : shards) {
+                        shard.products.clear();
+                    }
+
+                    productReader.read(generation, product -> shardOf(product.getId()).products.put(product.getId(), product));
+                })) {
+                    for (Shard shard : shards) {
+                        seeded += shard.products.size();
+                    }
+                }
+
+                LOG.info("Seeding " + shards.length + " shards with " + seeded + " products from " + base.getName());
+            }
+        } else {
+            List<Callable<Void>> loads = new ArrayList<>(files);
+            List<List<Product>> misplacedByFile = new ArrayList<>(files);
+
+            for (int i = 0; i < files; i++) {
+                int index = i;
+                List<Product> strays = new ArrayList<>();
+
+                misplacedByFile.add(strays);
+                loads.add(() -> {
+                    loadShardFile(shardFile(base, index), index, strays);
+
+                    return null;
+                });
+            }
+
+            runAll(loads);
+            misplacedByFile.forEach(misplaced::addAll);
+            rewrite = !misplaced.isEmpty() || files != shards.length;
+        }
+
+        for (Product product : misplaced) {
+            shardOf(product.getId()).products.put(product.getId(), product);
+        }
+
+        List<Callable<Void>> indexes = new ArrayList<>(shards.length);
+
+        for (Shard shard : shards) {
+            indexes.add(() -> {
+                int maxId = -1;
+
+                Product[] products = shard.listing();
+
+                shard.searchIndex.addAll(products);
+
+                for (Product product : products) {
+                    productIdsByName.put(InventoryFileDAO.nameKey(product.getName()), product.getId());
+                    maxId = Math.max(maxId, product.getId());
+                }
+
+                lastId.accumulateAndGet(maxId, Math::max);
+
+                return null;
+            });
+        }
+
+        runAll(indexes);
+
+        if (rewrite) {
+            List<Callable<Void>> saves = new ArrayList<>(shards.length);
+
+            for (Shard shard : shards) {
+                saves.add(() -> {
+                    shard.save();
+
+                    return null;
+                });
+            }
+
+            runAll(saves);
+
+            for (int i = shards.length; i < files; i++) {
+                deleteGenerations(shardFile(base, i));
+            }
+        }
+    }
+
+    /**
+     * Reads one shard file, keeping products of other shards aside
+     *
+     * @param file     Shard file to read
+     * @param index    Shard number of the file
+     * @param misplaced Receives the products that belong to another shard
+     * @throws IOException when no generation of the file could be read
+     */
+    private void loadShardFile(File file, int index, List<Product> misplaced) throws IOException {
+        Shard own = index < shards.length ? shards[index] : null;
+
+        new SnapshotFile(file).load(generation -> {
+            if (own != null) {
+                own.products.clear();
+            }
+
+            misplaced.clear();
+            productReader.read(generation, product -> {
+                if (own != null && shardIndex(product.getId()) == index) {
+                    own.products.put(product.getId(), product);
+                } else {
+                    misplaced.add(product);
+                }
+            });
+        });
+    }
+
+    /**
+     * Tells whether a shard file has a live or previous generation on disk
+     *
+     * @param file Shard file
+     * @return true if either generation exists
+     */
+    private static boolean generationExists(File file) {
+        return file.exists() || new File(file.getPath() + ".prev").exists();
+    }
+
+    /**
+     * Removes every generation of a surplus shard file
+     *
+     * @param file Shard file
+     * @throws IOException when a file could not be removed
+     */
+    private static void deleteGenerations(File file) throws IOException {
+        for (String suffix : new String[] {"", ".crc", ".prev", ".prev.crc"}) {
+            Files.deleteIfExists(new File(file.getPath() + suffix).toPath());
+        }
+    }
+
+    /**
+     * Names the file of a shard after the inventory file
+     *
+     * @param base  Inventory file
+     * @param index Shard number
+     * @return Shard file, {@code inventory-3.json} for shard 3 of {@code inventory.json}
+     */
+    static File shardFile(File base, int index) {
+        String name = base.getName();
+        int dot = name.lastIndexOf('.');
+        String shardName = dot > 0 ? name.substring(0, dot) + "-" + index + name.substring(dot) : name + "-" + index;
+
+        return new File(base.getAbsoluteFile().getParentFile(), shardName);
+    }
+}
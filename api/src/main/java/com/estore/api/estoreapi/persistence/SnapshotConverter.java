@@ -0,0 +1,103 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.IgnoreJacocoGenerated;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rewrites an inventory or users file in another {@link SnapshotFormat}
+ * <p>
+ * Tokens are copied from the source to the target one array element at a time
+ * without binding them to model classes, so any file the DAOs read can be converted
+ * and the file is never held in memory. The target is written as a new generation of
+ * a {@link SnapshotFile}, so source and target may be the same file, a failed
+ * conversion leaves the target untouched and the replaced target is kept as its
+ * previous generation. The DAOs read either format, so conversion is only needed to
+ * switch formats before the next save, or back to JSON to inspect a file.
+ * <p>
+ * Usage: {@code SnapshotConverter <source> <target> <json|smile>}
+ *
+ * @author SWEN-261 Project Team One
+ */
+public final class SnapshotConverter {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final SmileFactory SMILE_FACTORY = new SmileFactory();
+
+    private SnapshotConverter() {
+    }
+
+    /**
+     * Converts the file named on the command line and prints the size change
+     *
+     * @param args Source file, target file and target format
+     * @throws IOException when a file could not be read or written
+     */
+    @IgnoreJacocoGenerated
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: SnapshotConverter <source> <target> <json|smile>");
+            System.exit(2);
+        }
+
+        File source = new File(args[0]);
+        File target = new File(args[1]);
+        SnapshotFormat from = SnapshotFormat.detect(source);
+        SnapshotFormat to = SnapshotFormat.of(args[2]);
+        long sourceBytes = source.length();
+        long start = System.nanoTime();
+        int elements = convert(source, target, to);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.printf("Converted %d elements from %s (%d bytes) to %s (%d bytes) in %d ms%n",
+                elements, from, sourceBytes, to, target.length(), millis);
+    }
+
+    /**
+     * Rewrites a file holding an array in the given format
+     *
+     * @param source File to read, in either format
+     * @param target File to write, replaced once the conversion succeeded
+     * @param format Format to write
+     * @return Number of array elements copied
+     * @throws MismatchedInputException when the source does not hold an array
+     * @throws IOException when a file could not be read or written
+     */
+    public static int convert(File source, File target, SnapshotFormat format) throws IOException {
+        JsonFactory sourceFactory = SnapshotFormat.detect(source) == SnapshotFormat.SMILE ? SMILE_FACTORY : JSON_FACTORY;
+        JsonFactory targetFactory = format == SnapshotFormat.SMILE ? SMILE_FACTORY : JSON_FACTORY;
+        int[] elements = new int[1];
+
+        new SnapshotFile(target).write(out -> {
+            try (JsonParser parser = sourceFactory.createParser(source);
+                 JsonGenerator generator = targetFactory.createGenerator(out, JsonEncoding.UTF8)) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw MismatchedInputException.from(parser, Object[].class, "Expected a JSON array in " + source.getName());
+                }
+
+                generator.writeStartArray();
+
+                for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                    if (token == null) {
+                        throw MismatchedInputException.from(parser, Object[].class, "Unexpected end of the JSON array");
+                    }
+
+                    generator.copyCurrentStructure(parser);
+                    elements[0]++;
+                }
+
+                generator.writeEndArray();
+            }
+        });
+
+        return elements[0];
+    }
+}
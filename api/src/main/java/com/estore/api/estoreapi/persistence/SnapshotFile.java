@@ -0,0 +1,307 @@
+package com.estore.api.estoreapi.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
+
+/**
+ * A snapshot file that is replaced atomically and checked when it is read back
+ * <p>
+ * A new snapshot is written to {@code <file>.tmp} and synced to disk. The live file
+ * is then renamed to {@code <file>.prev} and the temporary file renamed over it, so
+ * a crash at any point leaves either the old or the new snapshot in place. Every
+ * generation has a checksum sidecar, {@code <file>.crc} and {@code <file>.prev.crc},
+ * holding the CRC32C and length of its bytes, written before the rename that puts
+ * the generation in place.
+ * <p>
+ * Loading tries the live generation and falls back to the previous one when the live
+ * file is missing, fails its checksum or cannot be parsed. A generation without a
+ * sidecar, such as a file written before checksums were kept, is accepted if it
+ * parses. When the previous generation is used it is moved back into place and the
+ * unreadable file is kept as {@code <file>.corrupt} for inspection. Loading fails
+ * rather than starting empty when every generation on disk is unreadable.
+ *
+ * @author SWEN-261 Project Team One
+ */
+class SnapshotFile {
+    /**
+     * Writes the content of a snapshot
+     */
+    @FunctionalInterface
+    interface Writer {
+        /**
+         * Writes the snapshot
+         *
+         * @param out Stream of the temporary file; closing it only flushes it
+         * @throws IOException when the snapshot could not be written
+         */
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Reads one generation of a snapshot
+     */
+    @FunctionalInterface
+    interface Loader {
+        /**
+         * Reads a generation, discarding anything read from an earlier attempt first
+         *
+         * @param generation File holding the generation
+         * @throws IOException when the generation could not be read or parsed
+         */
+        void load(File generation) throws IOException;
+    }
+
+    private static final Logger LOG = Logger.getLogger(SnapshotFile.class.getName());
+    private static final String CHECKSUM_SUFFIX = ".crc";
+
+    private final File file;
+    private final File previous;
+    private final File temp;
+
+    /**
+     * Creates a snapshot file
+     *
+     * @param file Live file of the snapshot
+     */
+    SnapshotFile(File file) {
+        this.file = file;
+        this.previous = new File(file.getPath() + ".prev");
+        this.temp = new File(file.getPath() + ".tmp");
+    }
+
+    /**
+     * Replaces the snapshot with a new generation
+     * <p>
+     * Calls must not overlap, the owner serializes its saves.
+     *
+     * @param writer Writes the new snapshot
+     * @return Number of bytes written
+     * @throws IOException when the snapshot could not be written, the live file is
+     *                     left as it was
+     */
+    long write(Writer writer) throws IOException {
+        Checksum checksum = new CRC32C();
+        long length;
+
+        try (FileOutputStream fileOut = new FileOutputStream(temp)) {
+            CheckedOutputStream out = new CheckedOutputStream(new BufferedOutputStream(fileOut), checksum) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+
+            writer.write(out);
+            out.flush();
+            fileOut.getFD().sync();
+            length = fileOut.getChannel().position();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+
+        if (file.exists()) {
+            move(checksumFile(file), checksumFile(previous));
+            move(file, previous);
+        }
+
+        writeChecksum(file, checksum.getValue(), length);
+        move(temp, file);
+        syncDirectory();
+
+        return length;
+    }
+
+    /**
+     * Loads the newest readable generation
+     *
+     * @param loader Reads a generation
+     * @return true if a generation was loaded, false if there is none on disk
+     * @throws IOException when generations exist but none of them could be read
+     */
+    boolean load(Loader loader) throws IOException {
+        Files.deleteIfExists(temp.toPath());
+
+        IOException liveFailure = tryLoad(file, loader);
+
+        if (liveFailure == null) {
+            return true;
+        }
+
+        IOException previousFailure = tryLoad(previous, loader);
+
+        if (previousFailure == null) {
+            LOG.log(Level.WARNING, "{0} is unreadable, restored the previous generation: {1}",
+                    new Object[] {file.getName(), liveFailure.getMessage()});
+            restorePrevious();
+
+            return true;
+        }
+
+        if (!file.exists() && !previous.exists()) {
+            return false;
+        }
+
+        IOException failure = new IOException("No readable generation of " + file.getName(), liveFailure);
+        failure.addSuppressed(previousFailure);
+
+        throw failure;
+    }
+
+    /**
+     * Tries to load one generation
+     *
+     * @param generation File holding the generation
+     * @param loader     Reads the generation
+     * @return null if the generation was loaded, otherwise why it was not
+     */
+    private IOException tryLoad(File generation, Loader loader) {
+        if (!generation.exists()) {
+            return new IOException(generation.getName() + " does not exist");
+        }
+
+        try {
+            verify(generation);
+            loader.load(generation);
+
+            return null;
+        } catch (IOException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Checks a generation against its checksum sidecar, if it has one
+     *
+     * @param generation File holding the generation
+     * @throws IOException when the length or checksum does not match
+     */
+    private void verify(File generation) throws IOException {
+        File sidecar = checksumFile(generation);
+
+        if (!sidecar.exists()) {
+            return;
+        }
+
+        String[] fields = new String(Files.readAllBytes(sidecar.toPath()), StandardCharsets.US_ASCII).trim().split(" ");
+        long expectedChecksum;
+        long expectedLength;
+
+        try {
+            expectedChecksum = Long.parseLong(fields[1], 16);
+            expectedLength = Long.parseLong(fields[2]);
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed checksum file " + sidecar.getName(), e);
+        }
+
+        if (generation.length() != expectedLength) {
+            throw new IOException(generation.getName() + " is " + generation.length() + " bytes, expected " + expectedLength);
+        }
+
+        Checksum checksum = new CRC32C();
+        byte[] buffer = new byte[64 * 1024];
+
+        try (InputStream in = Files.newInputStream(generation.toPath())) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                checksum.update(buffer, 0, read);
+            }
+        }
+
+        if (checksum.getValue() != expectedChecksum) {
+            throw new IOException(generation.getName() + " does not match its checksum");
+        }
+    }
+
+    /**
+     * Moves the previous generation back into place and keeps the unreadable one aside
+     *
+     * @throws IOException when the files could not be moved
+     */
+    private void restorePrevious() throws IOException {
+        File corrupt = new File(file.getPath() + ".corrupt");
+
+        if (file.exists()) {
+            move(file, corrupt);
+        }
+
+        move(checksumFile(file), checksumFile(corrupt));
+        move(checksumFile(previous), checksumFile(file));
+        move(previous, file);
+        syncDirectory();
+    }
+
+    /**
+     * Writes the checksum sidecar of a generation through a synced temporary file
+     *
+     * @param generation File the checksum belongs to
+     * @param checksum   CRC32C of the generation
+     * @param length     Length of the generation in bytes
+     * @throws IOException when the sidecar could not be written
+     */
+    private static void writeChecksum(File generation, long checksum, long length) throws IOException {
+        File sidecar = checksumFile(generation);
+        File sidecarTemp = new File(sidecar.getPath() + ".tmp");
+        byte[] content = String.format(Locale.ROOT, "crc32c %08x %d%n", checksum, length).getBytes(StandardCharsets.US_ASCII);
+
+        try (FileOutputStream out = new FileOutputStream(sidecarTemp)) {
+            out.write(content);
+            out.getFD().sync();
+        }
+
+        move(sidecarTemp, sidecar);
+    }
+
+    /**
+     * Renames a file atomically, replacing the target; does nothing if the source is missing
+     *
+     * @param from File to rename
+     * @param to   New name
+     * @throws IOException when the file could not be renamed
+     */
+    private static void move(File from, File to) throws IOException {
+        if (from.exists()) {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Syncs the directory so the renames survive a crash
+     * <p>
+     * Not every platform can open a directory for syncing; there the renames are left
+     * to the file system.
+     */
+    private void syncDirectory() {
+        File directory = file.getAbsoluteFile().getParentFile();
+
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Could not sync {0}", directory);
+        }
+    }
+
+    /**
+     * Returns the checksum sidecar of a generation
+     *
+     * @param generation File holding the generation
+     * @return Sidecar file
+     */
+    private static File checksumFile(File generation) {
+        return new File(generation.getPath() + CHECKSUM_SUFFIX);
+    }
+}
@@ -0,0 +1,92 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileConstants;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * Encoding of the inventory and users files
+ * <p>
+ * {@link #JSON} is the human-readable text format. {@link #SMILE} is Jackson's binary
+ * encoding of the same data model, which writes field names once and back-references
+ * them afterwards and stores numbers in binary, so files are smaller and faster to
+ * parse. Smile files start with the {@code :)\n} header, so the format of a file can
+ * always be told from its first bytes and files of either format can be loaded
+ * whichever format is configured for writing.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public enum SnapshotFormat {
+    JSON,
+    SMILE;
+
+    /**
+     * Parses a configured format name
+     *
+     * @param name Format name, case-insensitive
+     * @return Format with that name
+     * @throws IllegalArgumentException when there is no format with that name
+     */
+    public static SnapshotFormat of(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Tells the format of a file from its first bytes
+     *
+     * @param file File to inspect
+     * @return {@link #SMILE} if the file starts with the Smile header, otherwise {@link #JSON}
+     * @throws java.io.FileNotFoundException when the file does not exist
+     * @throws IOException when the file could not be read
+     */
+    public static SnapshotFormat detect(File file) throws IOException {
+        byte[] header = new byte[3];
+        int read = 0;
+
+        try (InputStream in = new FileInputStream(file)) {
+            while (read < header.length) {
+                int count = in.read(header, read, header.length - read);
+
+                if (count < 0) {
+                    break;
+                }
+
+                read += count;
+            }
+        }
+
+        boolean smile = read == header.length
+                && header[0] == SmileConstants.HEADER_BYTE_1
+                && header[1] == SmileConstants.HEADER_BYTE_2
+                && header[2] == SmileConstants.HEADER_BYTE_3;
+
+        return smile ? SMILE : JSON;
+    }
+
+    /**
+     * Returns a mapper that reads and writes this format
+     * <p>
+     * The Smile mapper takes over the serialization and deserialization settings of
+     * the given mapper, so both formats bind the model classes the same way.
+     *
+     * @param objectMapper JSON mapper of the application
+     * @return The given mapper for {@link #JSON}, a new Smile mapper otherwise
+     */
+    public ObjectMapper mapper(ObjectMapper objectMapper) {
+        if (this == JSON) {
+            return objectMapper;
+        }
+
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        smileMapper.setConfig(objectMapper.getDeserializationConfig());
+        smileMapper.setConfig(objectMapper.getSerializationConfig());
+
+        return smileMapper;
+    }
+}
@@ -0,0 +1,143 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.UserAccount;
+import com.estore.api.estoreapi.util.IntIntHashMap;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+
+/**
+ * Form of a user account in the users file
+ * <p>
+ * {@link UserAccount} never serializes its password hash, so the hash cannot reach an
+ * API response. This wrapper is what the users file is written from and read into, and
+ * the only place the hash is mapped. Wrapping an account copies nothing.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class StoredUserAccount {
+    private final UserAccount account;
+
+    /**
+     * Constructor for the stored form of an account
+     *
+     * @param account Account to write
+     */
+    public StoredUserAccount(UserAccount account) {
+        this.account = account;
+    }
+
+    /**
+     * Constructor for an account as read from the users file
+     *
+     * @param firstName    The first name of the user
+     * @param lastName     The last name of the user
+     * @param userName     The user name of the user
+     * @param password     Plaintext password of an account that was never upgraded, or null
+     * @param passwordHash Encoded salted hash of the password, or null
+     * @param cart         Quantity per product ID, or null for an empty cart
+     */
+    @JsonCreator
+    public StoredUserAccount(@JsonProperty("firstName") String firstName, @JsonProperty("lastName") String lastName,
+                             @JsonProperty("userName") String userName, @JsonProperty("password") String password,
+                             @JsonProperty("passwordHash") String passwordHash,
+                             @JsonProperty("cart") Map<Integer, Integer> cart) {
+        this.account = new UserAccount(firstName, lastName, userName, password);
+        this.account.setPasswordHash(passwordHash);
+
+        if (cart != null) {
+            this.account.setCartItems(IntIntHashMap.copyOf(cart));
+        }
+    }
+
+    /**
+     * Wraps every account for writing
+     *
+     * @param accounts Accounts to write
+     * @return Stored form of each account, in the same order
+     */
+    public static StoredUserAccount[] of(UserAccount[] accounts) {
+        StoredUserAccount[] stored = new StoredUserAccount[accounts.length];
+
+        for (int i = 0; i < accounts.length; i++) {
+            stored[i] = new StoredUserAccount(accounts[i]);
+        }
+
+        return stored;
+    }
+
+    /**
+     * Getter for the wrapped account
+     *
+     * @return The account
+     */
+    @JsonIgnore
+    public UserAccount getAccount() {
+        return account;
+    }
+
+    /**
+     * Getter for the first name of the user
+     *
+     * @return The first name of the user
+     */
+    @JsonProperty("firstName")
+    public String getFirstName() {
+        return account.getFirstName();
+    }
+
+    /**
+     * Getter for the last name of the user
+     *
+     * @return The last name of the user
+     */
+    @JsonProperty("lastName")
+    public String getLastName() {
+        return account.getLastName();
+    }
+
+    /**
+     * Getter for the username
+     *
+     * @return The username
+     */
+    @JsonProperty("userName")
+    public String getUserName() {
+        return account.getUserName();
+    }
+
+    /**
+     * Getter for the plaintext password of an account that was never upgraded
+     *
+     * @return The password, null once it is hashed
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("password")
+    public String getPassword() {
+        return account.getPassword();
+    }
+
+    /**
+     * Getter for the stored password hash
+     *
+     * @return Encoded salted hash of the password, null for a plaintext account
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("passwordHash")
+    public String getPasswordHash() {
+        return account.getPasswordHash();
+    }
+
+    /**
+     * Getter for the cart
+     *
+     * @return Quantity per product ID
+     */
+    @JsonProperty("cart")
+    public Map<Integer, Integer> getCart() {
+        return account.getCart();
+    }
+}
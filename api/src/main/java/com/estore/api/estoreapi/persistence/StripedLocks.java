@@ -0,0 +1,134 @@
+package com.estore.api.estoreapi.persistence;
+
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Fixed set of locks shared out by key hash
+ * <p>
+ * Operations on different keys usually get different locks and run in parallel,
+ * while operations on the same key are always serialized. Every stripe is a
+ * {@link TimedLock} reported under the name of the set.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class StripedLocks implements MetricsSource {
+    private final TimedLock[] locks;
+    private final int mask;
+
+    /**
+     * Creates a set of locks
+     *
+     * @param stripes Minimum number of locks, rounded up to a power of two
+     */
+    public StripedLocks(int stripes) {
+        this("striped", stripes);
+    }
+
+    /**
+     * Creates a set of named locks
+     *
+     * @param name    Name the locks are reported under
+     * @param stripes Minimum number of locks, rounded up to a power of two
+     */
+    public StripedLocks(String name, int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+
+        this.locks = new TimedLock[size];
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            locks[i] = new TimedLock(name);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setMetrics(PersistenceMetrics metrics) {
+        for (TimedLock lock : locks) {
+            lock.setMetrics(metrics);
+        }
+    }
+
+    /**
+     * Returns the lock guarding an integer key
+     *
+     * @param key Key being changed
+     * @return Lock for the key
+     */
+    public Lock get(int key) {
+        return locks[index(key)];
+    }
+
+    /**
+     * Returns the distinct locks guarding several keys, in the same fixed order
+     * {@link #lockAll()} uses, so callers taking them one by one cannot deadlock
+     *
+     * @param keys Keys being changed
+     * @return Locks to acquire in array order and release in reverse
+     */
+    public Lock[] getAll(int[] keys) {
+        boolean[] needed = new boolean[locks.length];
+        int count = 0;
+
+        for (int key : keys) {
+            int index = index(key);
+
+            if (!needed[index]) {
+                needed[index] = true;
+                count++;
+            }
+        }
+
+        Lock[] result = new Lock[count];
+
+        for (int i = 0, next = 0; i < locks.length; i++) {
+            if (needed[i]) {
+                result[next++] = locks[i];
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the lock guarding an object key
+     *
+     * @param key Key being changed
+     * @return Lock for the key
+     */
+    public Lock get(Object key) {
+        return get(key.hashCode());
+    }
+
+    /**
+     * Acquires every lock in a fixed order, used by operations that touch all keys
+     */
+    public void lockAll() {
+        for (TimedLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    /**
+     * Spreads a key over the stripes
+     *
+     * @param key Key being changed
+     * @return Stripe index
+     */
+    private int index(int key) {
+        int hash = key * 0x9E3779B9;
+
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Releases every lock taken by {@link #lockAll()}
+     */
+    public void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.estore.api.estoreapi.persistence;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link ReentrantLock} that reports how long threads wait for it and hold it
+ * <p>
+ * Only the outermost acquisition of a reentrant hold is timed. Until metrics are set
+ * the lock costs the same as a plain {@link ReentrantLock}.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class TimedLock implements Lock, MetricsSource {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final String name;
+    private volatile PersistenceMetrics metrics = PersistenceMetrics.NONE;
+    private long acquiredAt;
+
+    /**
+     * Creates a lock
+     *
+     * @param name Name the lock is reported under
+     */
+    public TimedLock(String name) {
+        this.name = name;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setMetrics(PersistenceMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void lock() {
+        long start = startTiming();
+
+        lock.lock();
+        acquired(start);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        long start = startTiming();
+
+        lock.lockInterruptibly();
+        acquired(start);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean tryLock() {
+        long start = startTiming();
+
+        if (!lock.tryLock()) {
+            return false;
+        }
+
+        acquired(start);
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        long start = startTiming();
+
+        if (!lock.tryLock(time, unit)) {
+            return false;
+        }
+
+        acquired(start);
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void unlock() {
+        if (lock.getHoldCount() == 1 && acquiredAt != 0) {
+            metrics.lockHeld(name, System.nanoTime() - acquiredAt);
+            acquiredAt = 0;
+        }
+
+        lock.unlock();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Condition newCondition() {
+        return lock.newCondition();
+    }
+
+    /**
+     * Reads the clock before waiting for the lock, unless nothing is measured
+     *
+     * @return Current time, 0 when metrics are not set
+     */
+    private long startTiming() {
+        return metrics == PersistenceMetrics.NONE ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Records the wait for an outermost acquisition, called while holding the lock
+     *
+     * @param start When the thread started waiting, 0 if it was not timed
+     */
+    private void acquired(long start) {
+        if (start == 0 || lock.getHoldCount() != 1) {
+            return;
+        }
+
+        long now = System.nanoTime();
+
+        metrics.lockWaited(name, now - start);
+        acquiredAt = now == 0 ? 1 : now;
+    }
+}
@@ -21,6 +21,8 @@ public interface UsersDAO {
      * @return User Account if successfully created
      * 
      * @throws IOException if file cannot be accessed
+     * @throws IllegalArgumentException if the username or password is missing, or the
+     *         username is taken ignoring case
      */
     UserAccount createUserAccount(UserAccount userAccount) throws IOException;
 
@@ -81,4 +83,59 @@ public interface UsersDAO {
      * @throws IOException if the file cannot be accessed
      */
     void clearCart(String username) throws IOException;
+
+    /***
+     * Clears the cart of a user account only if it still holds exactly the given items
+     * 
+     * @param username The username of the account
+     * @param expected The cart contents the caller checked out
+     * @return true if the cart was cleared, false if the account is missing or the cart changed
+     * 
+     * @throws IOException if the file cannot be accessed
+     */
+    boolean clearCartIfUnchanged(String username, Map<Integer, Integer> expected) throws IOException;
+
+    /***
+     * Adds to the quantity of one product in a user's cart
+     * 
+     * @param username The username of the account
+     * @param productId ID of the product to add
+     * @param quantity Positive amount to add
+     * @return Updated cart, null if the account does not exist
+     * 
+     * @throws IOException if the file cannot be accessed
+     * @throws IllegalArgumentException if the quantity is not positive
+     */
+    Map<Integer, Integer> addToCart(String username, int productId, int quantity) throws IOException;
+
+    /***
+     * Sets the quantity of one product in a user's cart, zero removes it
+     * 
+     * @param username The username of the account
+     * @param productId ID of the product to change
+     * @param quantity New quantity, not negative
+     * @return Updated cart, null if the account does not exist
+     * 
+     * @throws IOException if the file cannot be accessed
+     * @throws IllegalArgumentException if the quantity is negative
+     */
+    Map<Integer, Integer> setCartQuantity(String username, int productId, int quantity) throws IOException;
+
+    /***
+     * Removes one product from a user's cart
+     * 
+     * @param username The username of the account
+     * @param productId ID of the product to remove
+     * @return Updated cart, null if the account does not exist
+     * 
+     * @throws IOException if the file cannot be accessed
+     */
+    Map<Integer, Integer> removeFromCart(String username, int productId) throws IOException;
+
+    /***
+     * Blocks until every mutation made so far is written to durable storage
+     * 
+     * @throws IOException if the file cannot be accessed
+     */
+    void flush() throws IOException;
 }
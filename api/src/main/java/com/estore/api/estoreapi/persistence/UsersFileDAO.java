@@ -2,87 +2,221 @@ package com.estore.api.estoreapi.persistence;
 
 import com.estore.api.estoreapi.IgnoreJacocoGenerated;
 import com.estore.api.estoreapi.model.UserAccount;
+import com.estore.api.estoreapi.util.IntIntHashMap;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.function.IntUnaryOperator;
+import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.HashMap;
 
 
+/***
+ * Implementation of user account persistence through a JSON file
+ * <p>
+ * The users file is written in the configured {@link SnapshotFormat}, JSON text or
+ * binary Smile, and read in whichever format it was written in. The cart journal is
+ * always JSON text. The file is replaced atomically through a {@link SnapshotFile},
+ * and an unreadable file falls back to the previous generation instead of being
+ * discarded.
+ * <p>
+ * In {@link PersistenceMode#SYNC} mode every mutation rewrites the users file before
+ * returning. In {@link PersistenceMode#WRITE_BEHIND} mode mutations only mark the
+ * file dirty and a {@link WriteBehindFlusher} writes them in batches.
+ * <p>
+ * Accounts live in a concurrent map, so reads never lock. Changes to one account run
+ * under a striped lock for that username, and changes to different accounts run in
+ * parallel. Only the file write itself is serialized.
+ * <p>
+ * Passwords are stored as salted PBKDF2 hashes. Accounts read from an older file
+ * keep their plaintext password until the next successful login replaces it.
+ * <p>
+ * Single cart lines are changed under the lock of their owner and appended to a
+ * cart journal as {@link CartMutation} records instead of rewriting the users file.
+ * Replacing or emptying a whole cart journals a reset record before the users file
+ * is written, so no older line change is replayed over the newer cart. Every users
+ * file write folds the journal in, and a long journal triggers one.
+ *
+ * @author SWEN-261 Project Team One
+ */
 @Component
-public class UsersFileDAO implements UsersDAO {
+public class UsersFileDAO implements UsersDAO, MetricsSource {
+    /***
+     * How mutations are made durable
+     */
+    public enum PersistenceMode {
+        SYNC,
+        WRITE_BEHIND
+    }
+
     private static final Logger LOG = Logger.getLogger(UsersFileDAO.class.getName());
-    private HashMap<String, UserAccount> users;
+    private final Map<String, UserAccount> users = new ConcurrentHashMap<>();
+    private final Map<String, String> userNamesByKey = new ConcurrentHashMap<>();
+    private final TimedLock saveLock = new TimedLock("users.save");
+    private volatile PersistenceMetrics metrics = PersistenceMetrics.NONE;
     private ObjectMapper objectMapper;
+    private final ObjectMapper snapshotMapper;
+    private final SnapshotFormat format;
     private static int nextID;
     private String filename;
+    private final WriteBehindFlusher flusher;
+    private final Journal<CartMutation> cartJournal;
+    private final StripedLocks userLocks = new StripedLocks("users.account", 64);
+    private final AtomicBoolean compactingCarts = new AtomicBoolean();
+    private final int cartCompactionThreshold;
+    private final PasswordHasher passwordHasher;
+    private final JsonArrayReader<StoredUserAccount> userReader;
+    private final SnapshotFile snapshotFile;
+    private int loadedUsers;
+    private long loadNanos;
     
     private static final String ADMIN_USERNAME = "admin";
     private static final String USER_ACC_LOG = "UserAccount: ";
+    private static final String CART_JOURNAL_SUFFIX = ".carts";
+
+    /***
+     * Constructor for a UserAccount File DAO that writes the file on every mutation
+     * 
+     * @param objectMapper JSON object for serialization and deserialization
+     * @param filename Filename for serialization and deserialization
+     * 
+     * @throws IOException if the file cannot be accessed
+     */
+    public UsersFileDAO(ObjectMapper objectMapper, String filename) throws IOException {
+        this(objectMapper, filename, PersistenceMode.SYNC.name(), 1000, 100, 1000, PasswordHasher.DEFAULT_ITERATIONS);
+    }
 
     /***
      * Constructor for a UserAccount File DAO
      * 
      * @param objectMapper JSON object for serialization and deserialization
      * @param filename Filename for serialization and deserialization
+     * @param persistenceMode Name of the {@link PersistenceMode} to use
+     * @param flushIntervalMillis Longest time a write-behind mutation stays only in memory
+     * @param flushBatchSize Pending write-behind mutations that trigger an early flush
+     * @param cartCompactionThreshold Cart journal length in records that triggers a users file write
+     * @param passwordIterations PBKDF2 iterations for newly hashed passwords
      * 
      * @throws IOException if the file cannot be accessed
      */
-    public UsersFileDAO(ObjectMapper objectMapper, @Value("${users.file}") String filename) throws IOException {
-        this.objectMapper = objectMapper;
-        this.filename = filename;
-        this.users = new HashMap<>();
+    public UsersFileDAO(ObjectMapper objectMapper, String filename, String persistenceMode, long flushIntervalMillis,
+                        int flushBatchSize, int cartCompactionThreshold, int passwordIterations) throws IOException {
+        this(objectMapper, filename, persistenceMode, flushIntervalMillis, flushBatchSize, cartCompactionThreshold,
+                passwordIterations, 1);
+    }
 
-        loadUsers();
+    /***
+     * Constructor for a UserAccount File DAO
+     * 
+     * @param objectMapper JSON object for serialization and deserialization
+     * @param filename Filename for serialization and deserialization
+     * @param persistenceMode Name of the {@link PersistenceMode} to use
+     * @param flushIntervalMillis Longest time a write-behind mutation stays only in memory
+     * @param flushBatchSize Pending write-behind mutations that trigger an early flush
+     * @param cartCompactionThreshold Cart journal length in records that triggers a users file write
+     * @param passwordIterations PBKDF2 iterations for newly hashed passwords
+     * @param loadThreads Threads binding accounts while the file is loaded
+     * 
+     * @throws IOException if the file cannot be accessed
+     */
+    public UsersFileDAO(ObjectMapper objectMapper, String filename, String persistenceMode, long flushIntervalMillis,
+                        int flushBatchSize, int cartCompactionThreshold, int passwordIterations,
+                        int loadThreads) throws IOException {
+        this(objectMapper, filename, persistenceMode, flushIntervalMillis, flushBatchSize, cartCompactionThreshold,
+                passwordIterations, loadThreads, SnapshotFormat.JSON.name());
     }
 
     /***
-     * Instantiates a new users file and writes an empty array into it
+     * Constructor for a UserAccount File DAO
+     * 
+     * @param objectMapper JSON object for serialization and deserialization
+     * @param filename Filename for serialization and deserialization
+     * @param persistenceMode Name of the {@link PersistenceMode} to use
+     * @param flushIntervalMillis Longest time a write-behind mutation stays only in memory
+     * @param flushBatchSize Pending write-behind mutations that trigger an early flush
+     * @param cartCompactionThreshold Cart journal length in records that triggers a users file write
+     * @param passwordIterations PBKDF2 iterations for newly hashed passwords
+     * @param loadThreads Threads binding accounts while the file is loaded
+     * @param format Name of the {@link SnapshotFormat} the file is written in
      * 
-     * @param objectMapper
-     * @param file
-     * @throws IOException
+     * @throws IOException if the file cannot be accessed
      */
-    @IgnoreJacocoGenerated
-    private static void initializeFile(ObjectMapper objectMapper, File file) throws IOException {
-        file.createNewFile();
+    @Autowired
+    public UsersFileDAO(ObjectMapper objectMapper, @Value("${users.file}") String filename,
+                        @Value("${users.persistence:sync}") String persistenceMode,
+                        @Value("${users.flush.interval-ms:1000}") long flushIntervalMillis,
+                        @Value("${users.flush.batch-size:100}") int flushBatchSize,
+                        @Value("${users.cart.compaction-threshold:1000}") int cartCompactionThreshold,
+                        @Value("${users.password.iterations:" + PasswordHasher.DEFAULT_ITERATIONS + "}") int passwordIterations,
+                        @Value("${users.load.threads:1}") int loadThreads,
+                        @Value("${users.format:json}") String format) throws IOException {
+        this.objectMapper = objectMapper;
+        this.format = SnapshotFormat.of(format);
+        this.snapshotMapper = this.format.mapper(objectMapper);
+        this.userReader = new JsonArrayReader<>(objectMapper, StoredUserAccount.class, loadThreads);
+        this.filename = filename;
+        this.snapshotFile = new SnapshotFile(new File(filename));
+        this.cartJournal = new Journal<>(objectMapper, new File(filename + CART_JOURNAL_SUFFIX), CartMutation.class);
+        this.cartCompactionThreshold = Math.max(1, cartCompactionThreshold);
+        this.passwordHasher = new PasswordHasher(passwordIterations);
+
+        PersistenceMode mode = PersistenceMode.valueOf(persistenceMode.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        this.flusher = mode == PersistenceMode.WRITE_BEHIND
+                ? new WriteBehindFlusher("users-flusher", this::writeUsers, flushIntervalMillis, flushBatchSize)
+                : null;
 
-        objectMapper.writeValue(file, new UserAccount[0]);
+        loadUsers();
     }
 
     /***
-     * Loads all accounts from the JSON into memory and adjusts the user id accordingly
+     * Loads all accounts from the users file into memory and adjusts the user id accordingly
+     * <p>
+     * Accounts are inserted as they are parsed, so the file is never held as an
+     * array next to the accounts map. A missing file starts with only the admin
+     * account, an unreadable one falls back to the previous generation.
      * 
      * @return true if the file was successfully loaded
      * 
-     * @throws IOException if the file cannot be accessed
+     * @throws IOException if the file cannot be accessed or no generation of it is readable
      */
     @IgnoreJacocoGenerated
     private boolean loadUsers() throws IOException {
-        users = new HashMap<>();
+        users.clear();
 
-        UserAccount[] userAccounts = new UserAccount[0];
         File file = new File(filename);
+        long start = System.nanoTime();
 
-        try {
-            userAccounts = objectMapper.readValue(new File(filename), UserAccount[].class);
-        } catch (MismatchedInputException e) {
-            file.delete();
+        loadedUsers = 0;
 
-            initializeFile(objectMapper, file);
-        } catch (FileNotFoundException e) {
-            initializeFile(objectMapper, file);
+        boolean loaded = snapshotFile.load(generation -> {
+            users.clear();
+            userNamesByKey.clear();
+            loadedUsers = userReader.read(generation, this::loadUser);
+        });
+
+        if (loaded) {
+            logFormatChange(file);
+        } else {
+            snapshotFile.write(out -> snapshotMapper.writeValue(out, new StoredUserAccount[0]));
         }
 
-        for (UserAccount userAccount : userAccounts) {
-            users.put(userAccount.getUserName(), userAccount);
-            LOG.info("Loaded: " + userAccount);
+        if (cartJournal.exists()) {
+            int replayed = cartJournal.replay(this::applyCartMutation);
+            LOG.info("Replayed " + replayed + " cart journal records");
         }
 
         if (!users.containsKey(ADMIN_USERNAME)) {
@@ -90,23 +224,175 @@ public class UsersFileDAO implements UsersDAO {
             createUserAccount(admin);
         }
 
+        loadNanos = System.nanoTime() - start;
+        LOG.info("Loaded " + loadedUsers + " users in " + TimeUnit.NANOSECONDS.toMillis(loadNanos) + " ms");
+
         return true;
     } 
 
     /***
-     * Saves all users into a JSON 
+     * Notes that a file written in another format will be converted on the next save
+     * 
+     * @param file Users file that was loaded
+     * 
+     * @throws IOException if the file cannot be accessed
+     */
+    private void logFormatChange(File file) throws IOException {
+        SnapshotFormat stored = SnapshotFormat.detect(file);
+
+        if (stored != format) {
+            LOG.log(Level.INFO, "{0} is stored as {1} and will be written as {2} on the next save",
+                    new Object[] {file.getName(), stored, format});
+        }
+    }
+
+    /***
+     * Adds an account read from the file to the accounts map while loading
+     * 
+     * @param stored Account read from the file
+     */
+    @IgnoreJacocoGenerated
+    private void loadUser(StoredUserAccount stored) {
+        UserAccount userAccount = stored.getAccount();
+
+        users.put(userAccount.getUserName(), userAccount);
+        userNamesByKey.put(userNameKey(userAccount.getUserName()), userAccount.getUserName());
+        LOG.log(Level.FINE, "Loaded: {0}", userAccount.getUserName());
+    }
+
+    /***
+     * Saves all users into the users file
      * 
      * @return true if the file was saved successfully
      * 
      * @throws IOException if the file cannot be accessed
      */
     private boolean saveUsers() throws IOException {
-        UserAccount[] userArr = users.values().toArray(new UserAccount[0]);
+        saveLock.lock();
+
+        try {
+            cartJournal.rotate();
 
-        objectMapper.writeValue(new File(filename), userArr);
-        LOG.info(userArr.length + " users saved to file");
+            long start = System.nanoTime();
+            StoredUserAccount[] userArr = StoredUserAccount.of(users.values().toArray(new UserAccount[0]));
+            long bytes = snapshotFile.write(out -> snapshotMapper.writeValue(out, userArr));
 
-        return true;
+            metrics.fileWritten(new File(filename).getName(), bytes, System.nanoTime() - start);
+            cartJournal.discardRotated();
+            LOG.log(Level.FINE, "{0,number,#} users saved to file", userArr.length);
+
+            return true;
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    /***
+     * Normalizes a username for the uniqueness index
+     * 
+     * @param userName The username
+     * @return Case-insensitive key for the username
+     */
+    private static String userNameKey(String userName) {
+        return userName == null ? "" : userName.toLowerCase(Locale.ROOT);
+    }
+
+    /***
+     * Makes a mutation durable, called after the mutation is visible in memory
+     * 
+     * @throws IOException if the file cannot be accessed
+     */
+    private void persist() throws IOException {
+        if (flusher == null) {
+            saveUsers();
+        } else {
+            flusher.markDirty();
+        }
+    }
+
+    /***
+     * Write-behind flush: copies the accounts and serializes them, then syncs them
+     * to the file. No account lock is held, so reads and writes carry on meanwhile
+     * 
+     * @throws IOException if the file cannot be accessed
+     */
+    private void writeUsers() throws IOException {
+        saveLock.lock();
+
+        try {
+            cartJournal.rotate();
+
+            long start = System.nanoTime();
+            StoredUserAccount[] userArr = StoredUserAccount.of(users.values().toArray(new UserAccount[0]));
+            byte[] bytes = snapshotMapper.writeValueAsBytes(userArr);
+
+            snapshotFile.write(out -> out.write(bytes));
+            metrics.fileWritten(new File(filename).getName(), bytes.length, System.nanoTime() - start);
+
+            cartJournal.discardRotated();
+            LOG.log(Level.FINE, "{0,number,#} users saved to file", userArr.length);
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    /***
+     * Applies a cart journal record to the in-memory accounts while loading
+     * 
+     * @param mutation Journal record to apply
+     */
+    private void applyCartMutation(CartMutation mutation) {
+        UserAccount user = users.get(mutation.getUserName());
+
+        if (user != null && mutation.getCart() != null) {
+            user.setCartItems(IntIntHashMap.copyOf(mutation.getCart()));
+        } else if (user != null) {
+            IntIntHashMap cart = user.getCartItems().copy();
+
+            if (mutation.getQuantity() == 0) {
+                cart.remove(mutation.getProductId());
+            } else {
+                cart.put(mutation.getProductId(), mutation.getQuantity());
+            }
+
+            user.setCartItems(cart);
+        }
+    }
+
+    /***
+     * {@inheritDoc}
+     */
+    @Override
+    public void setMetrics(PersistenceMetrics metrics) {
+        this.metrics = metrics;
+        saveLock.setMetrics(metrics);
+        userLocks.setMetrics(metrics);
+        cartJournal.setMetrics(metrics);
+        metrics.fileLoaded(new File(filename).getName(), loadedUsers, loadNanos);
+    }
+
+    /***
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() throws IOException {
+        if (flusher != null) {
+            flusher.flush();
+        }
+    }
+
+    /***
+     * Writes any pending write-behind mutations and stops the flusher
+     * 
+     * @throws IOException if the file cannot be accessed
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.close();
+        }
+
+        cartJournal.close();
     }
 
     /***
@@ -114,20 +400,36 @@ public class UsersFileDAO implements UsersDAO {
      */
     @Override
     public UserAccount createUserAccount(UserAccount userAccount) throws IOException {
-        synchronized (users) {
-            if (users.containsValue(userAccount)) {
-                throw new IllegalArgumentException("user already exists");
-            }
+        String userName = userAccount.getUserName();
+
+        if (userName == null) {
+            throw new IllegalArgumentException("username is required");
+        }
 
-            UserAccount newUserAccount = new UserAccount(userAccount.getFirstName(), userAccount.getLastName(), userAccount.getUserName(),userAccount.getPassword());
+        if (userAccount.getPassword() == null || userAccount.getPassword().isBlank()) {
+            throw new IllegalArgumentException("password is required");
+        }
 
-            users.put(newUserAccount.getUserName(), newUserAccount);
-            LOG.info(USER_ACC_LOG + newUserAccount.getUserName() + " created ");
+        if (userNamesByKey.putIfAbsent(userNameKey(userName), userName) != null) {
+            throw new IllegalArgumentException("user already exists");
+        }
 
-            saveUsers();
+        UserAccount newUserAccount = new UserAccount(userAccount.getFirstName(), userAccount.getLastName(), userName, null);
+        newUserAccount.setPasswordHash(passwordHasher.hash(userAccount.getPassword()));
+        Lock userLock = userLocks.get(userName);
+        userLock.lock();
 
-            return newUserAccount;
+        try {
+            users.put(userName, newUserAccount);
+        } finally {
+            userLock.unlock();
         }
+
+        LOG.log(Level.INFO, USER_ACC_LOG + "{0} created", userName);
+
+        persist();
+
+        return newUserAccount;
     }
 
     /**
@@ -135,13 +437,7 @@ public class UsersFileDAO implements UsersDAO {
      */
     @Override
     public UserAccount getUserAccount(String username) throws IOException {
-        synchronized (users) {
-            if (users.containsKey(username)) {
-                return users.get(username);
-            }
-
-            return null;
-        }     
+        return username == null ? null : users.get(username);
     }
 
     /**
@@ -149,18 +445,42 @@ public class UsersFileDAO implements UsersDAO {
      */
     @Override
     public UserAccount updateUserAccount(UserAccount userAccount) throws IOException {
-        synchronized (users) {
-            if (!users.containsKey(userAccount.getUserName())) {
+        String userName = userAccount.getUserName();
+
+        if (userName == null || !users.containsKey(userName)) {
+            return null;
+        }
+
+        String newPasswordHash = userAccount.getPassword() == null ? null : passwordHasher.hash(userAccount.getPassword());
+        Lock userLock = userLocks.get(userName);
+        userLock.lock();
+
+        try {
+            UserAccount current = users.get(userName);
+
+            if (current == null) {
                 return null;
             }
 
-            users.put(userAccount.getUserName(), userAccount);
-            LOG.info(USER_ACC_LOG + userAccount.getUserName() + " has been updated");
-
-            saveUsers();
+            if (newPasswordHash != null) {
+                userAccount.setPasswordHash(newPasswordHash);
+                userAccount.setPassword(null);
+            } else {
+                userAccount.setPasswordHash(current.getPasswordHash());
+                userAccount.setPassword(current.getPassword());
+            }
 
-            return userAccount;
+            cartJournal.append(CartMutation.reset(userName, userAccount.getCartItems().toMap()));
+            users.put(userName, userAccount);
+        } finally {
+            userLock.unlock();
         }
+
+        LOG.log(Level.INFO, USER_ACC_LOG + "{0} has been updated", userName);
+
+        persist();
+
+        return userAccount;
     }
 
     /**
@@ -168,18 +488,28 @@ public class UsersFileDAO implements UsersDAO {
      */
     @Override
     public boolean deleteUserAccount(String username) throws IOException {
-        synchronized (users) {
-            if (!users.containsKey(username)) {
+        if (username == null) {
+            return false;
+        }
+
+        Lock userLock = userLocks.get(username);
+        userLock.lock();
+
+        try {
+            if (users.remove(username) == null) {
                 return false;
             }
 
-            users.remove(username);
-            LOG.info(USER_ACC_LOG + username + "has been deleted");
+            userNamesByKey.remove(userNameKey(username), username);
+        } finally {
+            userLock.unlock();
+        }
 
-            saveUsers();
+        LOG.log(Level.INFO, USER_ACC_LOG + "{0} has been deleted", username);
 
-            return true;
-        }
+        persist();
+
+        return true;
     }
 
      /**
@@ -187,15 +517,54 @@ public class UsersFileDAO implements UsersDAO {
      */
     @Override
     public boolean logInUserAccount(String username, String password) throws IOException{
-        synchronized (users) {
-            UserAccount user = getUserAccount(username);
+        UserAccount user = getUserAccount(username);
 
-            if (user == null) {
-                return false;
+        if (user == null || password == null) {
+            return false;
+        }
+
+        if (user.getPasswordHash() != null) {
+            return passwordHasher.matches(password, user.getPasswordHash());
+        }
+
+        if (user.getPassword() == null || !MessageDigest.isEqual(user.getPassword().getBytes(StandardCharsets.UTF_8), password.getBytes(StandardCharsets.UTF_8))) {
+            return false;
+        }
+
+        upgradePassword(user, password);
+
+        return true;
+    }
+
+    /***
+     * Replaces the plaintext password of an account loaded from an older file with
+     * a hash, once the user has proven they know it
+     * 
+     * @param user Account holding a plaintext password
+     * @param password The verified password
+     * @throws IOException if the file cannot be accessed
+     */
+    private void upgradePassword(UserAccount user, String password) throws IOException {
+        String passwordHash = passwordHasher.hash(password);
+        Lock userLock = userLocks.get(user.getUserName());
+        userLock.lock();
+
+        try {
+            if (users.get(user.getUserName()) != user || user.getPasswordHash() != null) {
+                return;
             }
 
-            return user.getUserName().equals(username) && user.getPassword().equals(password);
-        }  
+            UserAccount upgraded = new UserAccount(user.getFirstName(), user.getLastName(), user.getUserName(), null);
+            upgraded.setPasswordHash(passwordHash);
+            upgraded.setCartItems(user.getCartItems());
+            users.put(user.getUserName(), upgraded);
+        } finally {
+            userLock.unlock();
+        }
+
+        LOG.log(Level.FINE, USER_ACC_LOG + "{0} password hashed", user.getUserName());
+
+        persist();
     }
 
      /**
@@ -203,15 +572,13 @@ public class UsersFileDAO implements UsersDAO {
      */
     @Override
     public Map<Integer, Integer> getCart(String username) throws IOException{
-        synchronized (users) {
-            UserAccount user = getUserAccount(username);
+        UserAccount user = getUserAccount(username);
 
-            if (user == null) {
-                return null;
-            }
+        if (user == null) {
+            return null;
+        }
 
-            return user.getCart();
-        }  
+        return user.getCartItems().toMap();
     }
 
      /**
@@ -219,11 +586,187 @@ public class UsersFileDAO implements UsersDAO {
      */
     @Override
     public void clearCart(String username) throws IOException {
-        synchronized (users) {
+        Lock userLock = userLocks.get(username);
+        userLock.lock();
+
+        try {
             UserAccount user = getUserAccount(username);
 
+            if (user == null) {
+                return;
+            }
+
+            cartJournal.append(CartMutation.reset(username, new HashMap<>()));
             user.clearCart();
-            saveUsers();
-        }  
+        } finally {
+            userLock.unlock();
+        }
+
+        persist();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean clearCartIfUnchanged(String username, Map<Integer, Integer> expected) throws IOException {
+        if (username == null) {
+            return false;
+        }
+
+        UserAccount user;
+        IntIntHashMap previous;
+        IntIntHashMap emptied = new IntIntHashMap();
+        Lock userLock = userLocks.get(username);
+        userLock.lock();
+
+        try {
+            user = users.get(username);
+
+            if (user == null || !user.getCart().equals(expected)) {
+                return false;
+            }
+
+            previous = user.getCartItems();
+            cartJournal.append(CartMutation.reset(username, new HashMap<>()));
+            user.setCartItems(emptied);
+        } finally {
+            userLock.unlock();
+        }
+
+        try {
+            persist();
+        } catch (IOException | RuntimeException e) {
+            try {
+                restoreCart(user, emptied, previous);
+            } catch (IOException restoreFailure) {
+                e.addSuppressed(restoreFailure);
+            }
+
+            throw e;
+        }
+
+        return true;
+    }
+
+    /**
+     * Puts back a cart that was emptied by a checkout whose users write failed,
+     * unless the shopper has changed the cart since
+     * 
+     * @param user Account whose cart was emptied
+     * @param emptied Empty cart the checkout swapped in
+     * @param previous Cart before it was emptied
+     * @throws IOException if the cart journal cannot be written
+     */
+    private void restoreCart(UserAccount user, IntIntHashMap emptied, IntIntHashMap previous) throws IOException {
+        Lock userLock = userLocks.get(user.getUserName());
+        userLock.lock();
+
+        try {
+            if (user.getCartItems() == emptied && users.get(user.getUserName()) == user) {
+                cartJournal.append(CartMutation.reset(user.getUserName(), previous.toMap()));
+                user.setCartItems(previous);
+                LOG.log(Level.WARNING, USER_ACC_LOG + "{0} cart restored after a failed write", user.getUserName());
+            }
+        } finally {
+            userLock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, Integer> addToCart(String username, int productId, int quantity) throws IOException {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+
+        return changeCart(username, productId, current -> (int) Math.min(Integer.MAX_VALUE, (long) current + quantity));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, Integer> setCartQuantity(String username, int productId, int quantity) throws IOException {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative");
+        }
+
+        return changeCart(username, productId, current -> quantity);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, Integer> removeFromCart(String username, int productId) throws IOException {
+        return changeCart(username, productId, current -> 0);
+    }
+
+    /**
+     * Changes one line of a cart under the lock of its owner and journals the new quantity
+     * <p>
+     * The cart is copied, changed and swapped in, so a users file write running at the
+     * same time serializes either the old or the new cart and never a half-changed one.
+     * 
+     * @param username The username of the cart owner
+     * @param productId ID of the product in the cart
+     * @param change Computes the new quantity from the current one, zero removes the line
+     * @return Copy of the updated cart, null if the account does not exist
+     * @throws IOException if the journal cannot be written
+     */
+    private Map<Integer, Integer> changeCart(String username, int productId, IntUnaryOperator change) throws IOException {
+        if (username == null) {
+            return null;
+        }
+
+        IntIntHashMap cart;
+        Lock userLock = userLocks.get(username);
+        userLock.lock();
+
+        try {
+            UserAccount user = users.get(username);
+
+            if (user == null) {
+                return null;
+            }
+
+            cart = user.getCartItems().copy();
+            int quantity = change.applyAsInt(cart.getOrDefault(productId, 0));
+
+            if (quantity == 0) {
+                cart.remove(productId);
+            } else {
+                cart.put(productId, quantity);
+            }
+
+            user.setCartItems(cart);
+            cartJournal.append(new CartMutation(username, productId, quantity));
+        } finally {
+            userLock.unlock();
+        }
+
+        compactCartsIfNeeded();
+
+        return cart.toMap();
+    }
+
+    /**
+     * Folds a long cart journal into the users file, called without holding any cart lock
+     * 
+     * @throws IOException if the users file cannot be written
+     */
+    private void compactCartsIfNeeded() throws IOException {
+        if (cartJournal.size() < cartCompactionThreshold || !compactingCarts.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            persist();
+        } finally {
+            compactingCarts.set(false);
+        }
     }
 }
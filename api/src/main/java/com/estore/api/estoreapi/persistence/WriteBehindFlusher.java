@@ -0,0 +1,140 @@
+package com.estore.api.estoreapi.persistence;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Coalesces many mutations into a single durable write
+ * <p>
+ * Owners call {@link #markDirty()} after every in-memory change. A background thread
+ * writes once per flush interval, or as soon as the number of pending mutations
+ * reaches the batch size. {@link #flush()} is a barrier: when it returns, every
+ * mutation marked before the call is on disk.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class WriteBehindFlusher {
+    /**
+     * Writes the current state of the owner to disk
+     */
+    @FunctionalInterface
+    public interface FlushAction {
+        /**
+         * Writes and syncs a snapshot that includes every mutation applied so far
+         *
+         * @throws IOException when the snapshot could not be written
+         */
+        void write() throws IOException;
+    }
+
+    private static final Logger LOG = Logger.getLogger(WriteBehindFlusher.class.getName());
+
+    private final FlushAction action;
+    private final int batchSize;
+    private final ScheduledExecutorService executor;
+    private final AtomicLong marked = new AtomicLong();
+    private final AtomicBoolean batchQueued = new AtomicBoolean();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile long durable;
+
+    /**
+     * Creates a flusher and starts its background thread
+     *
+     * @param name           Name of the background thread
+     * @param action         Writes the owner's snapshot
+     * @param intervalMillis Longest time a mutation stays only in memory
+     * @param batchSize      Pending mutations that trigger an early flush
+     */
+    public WriteBehindFlusher(String name, FlushAction action, long intervalMillis, int batchSize) {
+        this.action = action;
+        this.batchSize = Math.max(1, batchSize);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        executor.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records that the owner's state has changed and must eventually be written
+     */
+    public void markDirty() {
+        long pending = marked.incrementAndGet() - durable;
+
+        if (pending >= batchSize && batchQueued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                batchQueued.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    /**
+     * Number of mutations marked but not yet written
+     *
+     * @return Pending mutation count
+     */
+    public long pending() {
+        return marked.get() - durable;
+    }
+
+    /**
+     * Writes every mutation marked so far, waiting for a flush already in progress
+     *
+     * @throws IOException when the snapshot could not be written
+     */
+    public void flush() throws IOException {
+        flushLock.lock();
+
+        try {
+            long target = marked.get();
+
+            if (target == durable) {
+                return;
+            }
+
+            action.write();
+            durable = target;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the background thread and writes anything still pending
+     *
+     * @throws IOException when the final snapshot could not be written
+     */
+    public void close() throws IOException {
+        executor.shutdown();
+
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+    }
+
+    /**
+     * Background flush, failures are logged and retried on the next interval
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            LOG.log(Level.SEVERE, "Write-behind flush failed, " + pending() + " mutations pending", e);
+        }
+    }
+}
@@ -0,0 +1,546 @@
+package com.estore.api.estoreapi.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Open-addressing hash map from primitive int keys to primitive int values
+ * <p>
+ * Keys and values live in two parallel arrays probed linearly, so a map of a few
+ * entries is three small objects instead of a table of nodes and boxed integers.
+ * Removal shifts the following entries back rather than leaving markers. Key zero
+ * marks a free slot and is kept in a field of its own. The map is not thread safe,
+ * callers that share one copy it before changing it.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class IntIntHashMap {
+    private static final int FREE = 0;
+    private static final int MIN_CAPACITY = 4;
+
+    /**
+     * Receives the entries of a map
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * Handles one entry
+         *
+         * @param key   Key of the entry
+         * @param value Value of the entry
+         */
+        void accept(int key, int value);
+    }
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private boolean hasFreeKey;
+    private int freeKeyValue;
+
+    /**
+     * Creates an empty map
+     */
+    public IntIntHashMap() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty map sized for a number of entries
+     *
+     * @param expectedSize Entries the map holds before it first grows
+     */
+    public IntIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Copies a boxed map
+     *
+     * @param map Entries to copy, null for an empty map
+     * @return New map with the same entries
+     */
+    public static IntIntHashMap copyOf(Map<Integer, Integer> map) {
+        if (map == null) {
+            return new IntIntHashMap();
+        }
+
+        IntIntHashMap copy = new IntIntHashMap(map.size());
+
+        for (Map.Entry<Integer, Integer> entry : map.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue());
+        }
+
+        return copy;
+    }
+
+    /**
+     * Copies this map
+     *
+     * @return New map with the same entries
+     */
+    public IntIntHashMap copy() {
+        IntIntHashMap copy = new IntIntHashMap(0);
+
+        copy.keys = keys.clone();
+        copy.values = values.clone();
+        copy.mask = mask;
+        copy.size = size;
+        copy.hasFreeKey = hasFreeKey;
+        copy.freeKeyValue = freeKeyValue;
+
+        return copy;
+    }
+
+    /**
+     * Looks up a key
+     *
+     * @param key          Key to look up
+     * @param defaultValue Value returned when the key is not present
+     * @return The value of the key, or the default
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == FREE) {
+            return hasFreeKey ? freeKeyValue : defaultValue;
+        }
+
+        int slot = find(key);
+
+        return slot < 0 ? defaultValue : values[slot];
+    }
+
+    /**
+     * Checks if a key is present
+     *
+     * @param key Key to check
+     * @return true if the key has a value
+     */
+    public boolean containsKey(int key) {
+        return key == FREE ? hasFreeKey : find(key) >= 0;
+    }
+
+    /**
+     * Stores a value for a key
+     *
+     * @param key   Key to store
+     * @param value Value to store
+     */
+    public void put(int key, int value) {
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+
+            freeKeyValue = value;
+
+            return;
+        }
+
+        int slot = mix(key) & mask;
+
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+
+                return;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+
+        if (size > (mask + 1) / 4 * 3) {
+            rehash((mask + 1) * 2);
+        }
+    }
+
+    /**
+     * Removes a key
+     *
+     * @param key Key to remove
+     * @return true if the key was present
+     */
+    public boolean remove(int key) {
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                return false;
+            }
+
+            hasFreeKey = false;
+            size--;
+
+            return true;
+        }
+
+        int slot = find(key);
+
+        if (slot < 0) {
+            return false;
+        }
+
+        shiftBack(slot);
+        size--;
+
+        return true;
+    }
+
+    /**
+     * Number of entries
+     *
+     * @return Size of the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the map is empty
+     *
+     * @return true if the map has no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Visits every entry, in no particular order
+     *
+     * @param action Receives each key and value
+     */
+    public void forEach(EntryConsumer action) {
+        if (hasFreeKey) {
+            action.accept(FREE, freeKeyValue);
+        }
+
+        for (int slot = 0; slot <= mask; slot++) {
+            if (keys[slot] != FREE) {
+                action.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Copies the entries into a boxed map
+     *
+     * @return New map with the same entries
+     */
+    public Map<Integer, Integer> toMap() {
+        Map<Integer, Integer> map = new HashMap<>(Math.max(4, size * 2));
+
+        forEach(map::put);
+
+        return map;
+    }
+
+    /**
+     * Boxed view of this map, changes made through the view change the map
+     *
+     * @return Map view backed by this map
+     */
+    public Map<Integer, Integer> asMap() {
+        return new MapView();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (!(obj instanceof IntIntHashMap)) {
+            return false;
+        }
+
+        IntIntHashMap other = (IntIntHashMap) obj;
+
+        if (size != other.size || hasFreeKey != other.hasFreeKey || (hasFreeKey && freeKeyValue != other.freeKeyValue)) {
+            return false;
+        }
+
+        for (int slot = 0; slot <= mask; slot++) {
+            if (keys[slot] != FREE) {
+                int otherSlot = other.find(keys[slot]);
+
+                if (otherSlot < 0 || other.values[otherSlot] != values[slot]) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int hash = hasFreeKey ? freeKeyValue : 0;
+
+        for (int slot = 0; slot <= mask; slot++) {
+            if (keys[slot] != FREE) {
+                hash += keys[slot] ^ values[slot];
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+    /**
+     * Finds the slot holding a key other than zero
+     *
+     * @param key Key to find
+     * @return Slot of the key, -1 if it is not present
+     */
+    private int find(int key) {
+        int slot = mix(key) & mask;
+
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Empties a slot and moves later entries of the same probe run back into the gap
+     *
+     * @param slot Slot to empty
+     */
+    private void shiftBack(int slot) {
+        int gap = slot;
+        int next = (slot + 1) & mask;
+
+        while (keys[next] != FREE) {
+            int home = mix(keys[next]) & mask;
+
+            // Move the entry unless its home lies cyclically between the gap and itself
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+
+            next = (next + 1) & mask;
+        }
+
+        keys[gap] = FREE;
+        values[gap] = 0;
+    }
+
+    /**
+     * Moves every entry into arrays of a new size
+     *
+     * @param capacity Slots in the new arrays
+     */
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+
+        allocate(capacity);
+
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != FREE) {
+                int target = mix(oldKeys[slot]) & mask;
+
+                while (keys[target] != FREE) {
+                    target = (target + 1) & mask;
+                }
+
+                keys[target] = oldKeys[slot];
+                values[target] = oldValues[slot];
+            }
+        }
+    }
+
+    /**
+     * Replaces the arrays with empty ones
+     *
+     * @param capacity Slots in the new arrays
+     */
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Smallest table keeping a number of entries under three quarters load
+     *
+     * @param entries Entries to make room for
+     * @return Power of two capacity
+     */
+    private static int capacityFor(int entries) {
+        int capacity = MIN_CAPACITY;
+
+        while (capacity / 4 * 3 < entries) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+
+    /**
+     * Spreads consecutive keys over the table
+     *
+     * @param key Key to hash
+     * @return Mixed hash of the key
+     */
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Boxed map backed by the primitive arrays
+     */
+    private final class MapView extends AbstractMap<Integer, Integer> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && IntIntHashMap.this.containsKey((Integer) key);
+        }
+
+        @Override
+        public Integer get(Object key) {
+            if (!(key instanceof Integer) || !IntIntHashMap.this.containsKey((Integer) key)) {
+                return null;
+            }
+
+            return IntIntHashMap.this.getOrDefault((Integer) key, 0);
+        }
+
+        @Override
+        public Integer put(Integer key, Integer value) {
+            Integer previous = get(key);
+
+            IntIntHashMap.this.put(key, value);
+
+            return previous;
+        }
+
+        @Override
+        public Integer remove(Object key) {
+            Integer previous = get(key);
+
+            if (previous != null) {
+                IntIntHashMap.this.remove((Integer) key);
+            }
+
+            return previous;
+        }
+
+        @Override
+        public void clear() {
+            allocate(MIN_CAPACITY);
+            size = 0;
+            hasFreeKey = false;
+        }
+
+        @Override
+        public Set<Map.Entry<Integer, Integer>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public Iterator<Map.Entry<Integer, Integer>> iterator() {
+                    return new EntryIterator();
+                }
+            };
+        }
+    }
+
+    /**
+     * Iterates over a copy of the keys so removing entries while iterating is safe
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<Integer, Integer>> {
+        private final int[] snapshot;
+        private int next;
+        private boolean removable;
+
+        private EntryIterator() {
+            int[] copy = new int[size];
+            int count = 0;
+
+            if (hasFreeKey) {
+                copy[count++] = FREE;
+            }
+
+            for (int slot = 0; slot <= mask; slot++) {
+                if (keys[slot] != FREE) {
+                    copy[count++] = keys[slot];
+                }
+            }
+
+            this.snapshot = Arrays.copyOf(copy, count);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < snapshot.length;
+        }
+
+        @Override
+        public Map.Entry<Integer, Integer> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            int key = snapshot[next++];
+            removable = true;
+
+            return new AbstractMap.SimpleEntry<>(key, getOrDefault(key, 0)) {
+                @Override
+                public Integer setValue(Integer value) {
+                    IntIntHashMap.this.put(key, value);
+
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (!removable) {
+                throw new IllegalStateException();
+            }
+
+            IntIntHashMap.this.remove(snapshot[next - 1]);
+            removable = false;
+        }
+    }
+}
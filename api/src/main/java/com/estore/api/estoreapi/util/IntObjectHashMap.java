@@ -0,0 +1,648 @@
+package com.estore.api.estoreapi.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Open-addressing hash map from primitive int keys to objects
+ * <p>
+ * Keys are stored unboxed in one array and values in a parallel array, probed
+ * linearly, so a lookup touches two arrays instead of walking tree nodes and boxed
+ * keys. Reads never lock and may run at any time. Replacing the value of a key that
+ * is present may run concurrently with every other write, while inserting and
+ * removing keys must be serialized by the caller. Growing the table publishes a new
+ * one, readers still on the old table see a complete, slightly older map.
+ * <p>
+ * Removed keys leave a marker behind until the next rehash, so readers never see a
+ * key move.
+ * <p>
+ * The keys are also kept in order next to the table, for callers that page through the
+ * map in key order. The order is split into sorted blocks of at most
+ * {@value #MAX_BLOCK} keys, and an insert or remove copies only the block it touches
+ * and the small block directory, so a write costs a few microseconds however large
+ * the map is. Orders are never changed once published, readers keep the one they
+ * started with. Once {@value #UNREAD_WRITES} writes have gone by without a reader
+ * asking for the order it is dropped and sorted again on the next read, so bulk loads
+ * in any key order stay linear.
+ *
+ * @param <V> Type of the values
+ * @author SWEN-261 Project Team One
+ */
+public class IntObjectHashMap<V> {
+    private static final Object REMOVED = new Object();
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_BLOCK = 1024;
+    private static final int UNREAD_WRITES = 64;
+
+    /**
+     * One generation of the hash table
+     */
+    private static final class Table {
+        private final AtomicIntegerArray keys;
+        private final AtomicReferenceArray<Object> values;
+        private final int mask;
+        private final int threshold;
+        private volatile boolean moved;
+
+        private Table(int capacity) {
+            this.keys = new AtomicIntegerArray(capacity);
+            this.values = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+            this.threshold = capacity / 4 * 3;
+        }
+    }
+
+    /**
+     * Keys in ascending order, valid while the number of structural changes is unchanged
+     */
+    private static final class KeyOrder {
+        private final long changes;
+        private final int[][] blocks;
+        private final int[] firsts;
+        private final int size;
+        private final int unread;
+        private volatile boolean read;
+        private volatile int[] exact;
+
+        private KeyOrder(long changes, int[][] blocks, int size, int unread) {
+            this.changes = changes;
+            this.blocks = blocks;
+            this.firsts = new int[blocks.length];
+            this.size = size;
+            this.unread = unread;
+
+            for (int i = 0; i < blocks.length; i++) {
+                firsts[i] = blocks[i][0];
+            }
+        }
+
+        /**
+         * Splits sorted keys into half full blocks
+         *
+         * @param changes Structural changes the keys reflect
+         * @param keys    Sorted keys, kept as the flat copy of the order
+         * @return New order
+         */
+        private static KeyOrder of(long changes, int[] keys) {
+            int[][] blocks = new int[(keys.length + MAX_BLOCK / 2 - 1) / (MAX_BLOCK / 2)][];
+
+            for (int i = 0; i < blocks.length; i++) {
+                int from = i * (MAX_BLOCK / 2);
+
+                blocks[i] = Arrays.copyOfRange(keys, from, Math.min(keys.length, from + MAX_BLOCK / 2));
+            }
+
+            KeyOrder order = new KeyOrder(changes, blocks, keys.length, 0);
+            order.exact = keys;
+
+            return order;
+        }
+
+        /**
+         * Order after adding a key
+         *
+         * @param key     Key added
+         * @param changes Structural changes counted after the add
+         * @return New order, null if it is cheaper to sort again when next read
+         */
+        private KeyOrder plus(int key, long changes) {
+            int unreadWrites = (read ? 0 : unread) + 1;
+
+            if (unreadWrites > UNREAD_WRITES) {
+                return null;
+            }
+
+            if (blocks.length == 0) {
+                return new KeyOrder(changes, new int[][] {{key}}, 1, unreadWrites);
+            }
+
+            int b = blockOf(key);
+            int[] block = blocks[b];
+            int index = Arrays.binarySearch(block, key);
+
+            if (index >= 0) {
+                return new KeyOrder(changes, blocks, size, unreadWrites);
+            }
+
+            int at = -index - 1;
+            int[] grown = new int[block.length + 1];
+
+            System.arraycopy(block, 0, grown, 0, at);
+            grown[at] = key;
+            System.arraycopy(block, at, grown, at + 1, block.length - at);
+
+            if (grown.length <= MAX_BLOCK) {
+                int[][] replaced = blocks.clone();
+
+                replaced[b] = grown;
+
+                return new KeyOrder(changes, replaced, size + 1, unreadWrites);
+            }
+
+            int[][] split = new int[blocks.length + 1][];
+
+            System.arraycopy(blocks, 0, split, 0, b);
+            split[b] = Arrays.copyOfRange(grown, 0, grown.length / 2);
+            split[b + 1] = Arrays.copyOfRange(grown, grown.length / 2, grown.length);
+            System.arraycopy(blocks, b + 1, split, b + 2, blocks.length - b - 1);
+
+            return new KeyOrder(changes, split, size + 1, unreadWrites);
+        }
+
+        /**
+         * Order after removing a key
+         *
+         * @param key     Key removed
+         * @param changes Structural changes counted after the remove
+         * @return New order, null if it is cheaper to sort again when next read
+         */
+        private KeyOrder minus(int key, long changes) {
+            int unreadWrites = (read ? 0 : unread) + 1;
+
+            if (unreadWrites > UNREAD_WRITES || blocks.length == 0) {
+                return null;
+            }
+
+            int b = blockOf(key);
+            int[] block = blocks[b];
+            int index = Arrays.binarySearch(block, key);
+
+            if (index < 0) {
+                return new KeyOrder(changes, blocks, size, unreadWrites);
+            }
+
+            if (block.length == 1) {
+                // Removes leave small blocks behind, sort again once they dominate
+                if (blocks.length > size / (MAX_BLOCK / 16) + 16) {
+                    return null;
+                }
+
+                int[][] shrunk = new int[blocks.length - 1][];
+
+                System.arraycopy(blocks, 0, shrunk, 0, b);
+                System.arraycopy(blocks, b + 1, shrunk, b, blocks.length - b - 1);
+
+                return new KeyOrder(changes, shrunk, size - 1, unreadWrites);
+            }
+
+            int[] smaller = new int[block.length - 1];
+            int[][] replaced = blocks.clone();
+
+            System.arraycopy(block, 0, smaller, 0, index);
+            System.arraycopy(block, index + 1, smaller, index, smaller.length - index);
+            replaced[b] = smaller;
+
+            return new KeyOrder(changes, replaced, size - 1, unreadWrites);
+        }
+
+        /**
+         * Finds the block a key belongs in
+         *
+         * @param key Key to place
+         * @return Index of the last block starting at or below the key, 0 if none does
+         */
+        private int blockOf(int key) {
+            int index = Arrays.binarySearch(firsts, key);
+
+            return index >= 0 ? index : Math.max(0, -index - 2);
+        }
+
+        /**
+         * Keys of this order in one array, copied at most once
+         *
+         * @return Sorted keys
+         */
+        private int[] exact() {
+            int[] flat = exact;
+
+            if (flat == null) {
+                flat = new int[size];
+                int count = 0;
+
+                for (int[] block : blocks) {
+                    System.arraycopy(block, 0, flat, count, block.length);
+                    count += block.length;
+                }
+
+                exact = flat;
+            }
+
+            return flat;
+        }
+    }
+
+    private volatile Table table;
+    private volatile int size;
+    private volatile long structuralChanges;
+    private volatile KeyOrder keyOrder = KeyOrder.of(0, new int[0]);
+    private int usedSlots;
+
+    /**
+     * Creates an empty map
+     */
+    public IntObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map sized for a number of keys
+     *
+     * @param expectedSize Keys the map holds before it first grows
+     */
+    public IntObjectHashMap(int expectedSize) {
+        this.table = new Table(capacityFor(expectedSize));
+    }
+
+    /**
+     * Looks up a key
+     *
+     * @param key Key to look up
+     * @return The value, null if the key is not present
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        Table current = table;
+        int slot = find(current, key);
+
+        if (slot < 0) {
+            return null;
+        }
+
+        Object value = current.values.get(slot);
+
+        return value == REMOVED ? null : (V) value;
+    }
+
+    /**
+     * Checks if a key is present
+     *
+     * @param key Key to check
+     * @return true if the key has a value
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Stores a value for a key
+     *
+     * @param key   Key to store
+     * @param value Value to store, must not be null
+     * @return The previous value, null if the key was not present
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+
+        Object previous = null;
+        boolean first = true;
+
+        while (true) {
+            Table current = table;
+            int slot = find(current, key);
+
+            if (slot < 0) {
+                insert(key, value);
+
+                return null;
+            }
+
+            Object replaced = current.values.getAndSet(slot, value);
+
+            if (first) {
+                previous = replaced;
+                first = false;
+
+                if (replaced == REMOVED) {
+                    size++;
+                    keyAdded(key);
+                }
+            }
+
+            if (!current.moved) {
+                return previous == REMOVED ? null : (V) previous;
+            }
+
+            // The table is being copied, repeat the write on the new one
+            while (table == current) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Removes a key
+     *
+     * @param key Key to remove
+     * @return The removed value, null if the key was not present
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        Table current = table;
+        int slot = find(current, key);
+
+        if (slot < 0) {
+            return null;
+        }
+
+        Object previous = current.values.getAndSet(slot, REMOVED);
+
+        if (previous == REMOVED) {
+            return null;
+        }
+
+        size--;
+        keyRemoved(key);
+
+        return (V) previous;
+    }
+
+    /**
+     * Removes every key
+     */
+    public void clear() {
+        long changes = structuralChanges + 1;
+
+        table = new Table(MIN_CAPACITY);
+        usedSlots = 0;
+        size = 0;
+        keyOrder = KeyOrder.of(changes, new int[0]);
+        structuralChanges = changes;
+    }
+
+    /**
+     * Number of keys present
+     *
+     * @return Size of the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the map is empty
+     *
+     * @return true if no key is present
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Copies the keys present, in no particular order
+     *
+     * @return New array of keys
+     */
+    public int[] keys() {
+        Table current = table;
+        int[] keys = new int[size];
+        int count = 0;
+
+        for (int slot = 0; slot <= current.mask; slot++) {
+            Object value = current.values.get(slot);
+
+            if (value != null && value != REMOVED) {
+                if (count == keys.length) {
+                    keys = Arrays.copyOf(keys, Math.max(8, count * 2));
+                }
+
+                keys[count++] = current.keys.get(slot);
+            }
+        }
+
+        return count == keys.length ? keys : Arrays.copyOf(keys, count);
+    }
+
+    /**
+     * Keys present in ascending order
+     * <p>
+     * The array is shared between callers until the next insert or remove and must
+     * not be changed. A key removed while it is being read is still listed, so callers
+     * skip keys whose value has become null.
+     *
+     * @return Sorted keys
+     */
+    public int[] sortedKeys() {
+        return keyOrder().exact();
+    }
+
+    /**
+     * Values of the keys above a key, in key order
+     * <p>
+     * Costs two binary searches and the page, whatever the size of the map.
+     *
+     * @param after Values are taken from the keys above this one
+     * @param limit Largest number of values to return
+     * @return Up to limit values
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> valuesAfter(int after, int limit) {
+        KeyOrder order = keyOrder();
+        List<V> page = new ArrayList<>(Math.min(Math.max(limit, 0), 1024));
+
+        if (order.size == 0) {
+            return page;
+        }
+
+        int b = order.blockOf(after);
+        int from = Arrays.binarySearch(order.blocks[b], after);
+
+        for (int i = from >= 0 ? from + 1 : -from - 1; b < order.blocks.length && page.size() < limit; i = 0, b++) {
+            int[] block = order.blocks[b];
+
+            for (; i < block.length && page.size() < limit; i++) {
+                V value = get(block[i]);
+
+                if (value != null) {
+                    page.add(value);
+                }
+            }
+        }
+
+        return page;
+    }
+
+    /**
+     * Current key order, sorted again if writes dropped it
+     *
+     * @return Key order of the keys present
+     */
+    private KeyOrder keyOrder() {
+        KeyOrder order = keyOrder;
+        long changes = structuralChanges;
+
+        // A writer publishes its order just before counting its change
+        if (order.changes < changes) {
+            int[] keys = keys();
+
+            Arrays.sort(keys);
+            order = KeyOrder.of(changes, keys);
+            keyOrder = order;
+        }
+
+        if (!order.read) {
+            order.read = true;
+        }
+
+        return order;
+    }
+
+    /**
+     * Finds the slot holding a key
+     *
+     * @param current Table to search
+     * @param key     Key to find
+     * @return Slot of the key, -1 if the key was never stored in the table
+     */
+    private static int find(Table current, int key) {
+        int slot = mix(key) & current.mask;
+
+        while (true) {
+            // The value is written after the key, so a slot with a value has its key
+            if (current.values.get(slot) == null) {
+                return -1;
+            }
+
+            if (current.keys.get(slot) == key) {
+                return slot;
+            }
+
+            slot = (slot + 1) & current.mask;
+        }
+    }
+
+    /**
+     * Stores a key that is not in the table, growing it first when needed
+     *
+     * @param key   Key to store
+     * @param value Value to store
+     */
+    private void insert(int key, V value) {
+        if (usedSlots + 1 > table.threshold) {
+            rehash(capacityFor(size + 1));
+        }
+
+        Table current = table;
+        int slot = mix(key) & current.mask;
+
+        while (current.values.get(slot) != null) {
+            slot = (slot + 1) & current.mask;
+        }
+
+        current.keys.set(slot, key);
+        current.values.set(slot, value);
+        usedSlots++;
+        size++;
+        keyAdded(key);
+    }
+
+    /**
+     * Counts an inserted key and adds it to the key order if the order is current
+     *
+     * @param key Key inserted
+     */
+    private void keyAdded(int key) {
+        long changes = structuralChanges;
+        KeyOrder order = keyOrder;
+
+        if (order.changes == changes) {
+            KeyOrder next = order.plus(key, changes + 1);
+
+            if (next != null) {
+                keyOrder = next;
+            }
+        }
+
+        structuralChanges = changes + 1;
+    }
+
+    /**
+     * Counts a removed key and drops it from the key order if the order is current
+     *
+     * @param key Key removed
+     */
+    private void keyRemoved(int key) {
+        long changes = structuralChanges;
+        KeyOrder order = keyOrder;
+
+        if (order.changes == changes) {
+            KeyOrder next = order.minus(key, changes + 1);
+
+            if (next != null) {
+                keyOrder = next;
+            }
+        }
+
+        structuralChanges = changes + 1;
+    }
+
+    /**
+     * Copies the keys present into a new table and publishes it, dropping removed keys
+     * <p>
+     * The old table is marked as moved before the copy starts, so a concurrent
+     * replacement either lands before its slot is copied or is repeated on the new table.
+     *
+     * @param capacity Slots in the new table
+     */
+    private void rehash(int capacity) {
+        Table old = table;
+        Table resized = new Table(capacity);
+        int used = 0;
+
+        old.moved = true;
+
+        for (int slot = 0; slot <= old.mask; slot++) {
+            Object value = old.values.get(slot);
+
+            if (value == null || value == REMOVED) {
+                continue;
+            }
+
+            int target = mix(old.keys.get(slot)) & resized.mask;
+
+            while (resized.values.get(target) != null) {
+                target = (target + 1) & resized.mask;
+            }
+
+            resized.keys.set(target, old.keys.get(slot));
+            resized.values.set(target, value);
+            used++;
+        }
+
+        usedSlots = used;
+        table = resized;
+    }
+
+    /**
+     * Table size keeping the load under three quarters after doubling the keys
+     *
+     * @param keys Keys to make room for
+     * @return Power of two capacity
+     */
+    private static int capacityFor(int keys) {
+        long wanted = Math.max(MIN_CAPACITY, (long) keys * 2);
+
+        if (wanted > 1 << 30) {
+            return 1 << 30;
+        }
+
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+
+    /**
+     * Spreads consecutive keys over the table
+     *
+     * @param key Key to hash
+     * @return Mixed hash of the key
+     */
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,219 @@
+package com.estore.api.estoreapi.reactive;
+
+import com.estore.api.estoreapi.controller.InventoryResponseCache;
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.ProductImportResult;
+import com.estore.api.estoreapi.persistence.InventoryDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the reactive Inventory Controller
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Controller-Tier")
+class ReactiveInventoryControllerTest {
+    private ReactiveInventoryController inventoryController;
+    private InventoryDAO mockInventoryDAO;
+
+    @BeforeEach
+    void setupInventoryController() {
+        mockInventoryDAO = mock(InventoryDAO.class);
+        inventoryController = new ReactiveInventoryController(
+                new ReactiveInventoryDAO(mockInventoryDAO, Schedulers.immediate()),
+                new InventoryResponseCache(mockInventoryDAO, new ObjectMapper(), false), Schedulers.immediate());
+    }
+
+    @Test
+    void testGetInventory() throws IOException {
+        Product[] inventory = {new Product("Hat", 1, "A hat", 5, 8)};
+
+        when(mockInventoryDAO.getInventory()).thenReturn(inventory);
+
+        ResponseEntity<byte[]> response = inventoryController.getInventory(null, null).block();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(inventory, new ObjectMapper().readValue(response.getBody(), Product[].class));
+
+        String etag = response.getHeaders().getETag();
+        assertEquals(HttpStatus.NOT_MODIFIED, inventoryController.getInventory(etag, null).block().getStatusCode());
+    }
+
+    @Test
+    void testStreamInventoryPullsPagesOnDemand() {
+        Product[] first = new Product[256];
+        Product[] second = {new Product("Last", 300, "The last one", 1, 1)};
+
+        for (int i = 0; i < first.length; i++) {
+            first[i] = new Product("Product" + i, i + 1, "Product " + i, 1, 1);
+        }
+
+        when(mockInventoryDAO.getInventoryAfter(Integer.MIN_VALUE, 256)).thenReturn(first);
+        when(mockInventoryDAO.getInventoryAfter(256, 256)).thenReturn(second);
+
+        Flux<Product> stream = inventoryController.streamInventory();
+
+        StepVerifier.create(stream, 10)
+                .expectNextCount(10)
+                .then(() -> verify(mockInventoryDAO, never()).getInventoryAfter(256, 256))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(247)
+                .verifyComplete();
+        verify(mockInventoryDAO, times(2)).getInventoryAfter(anyInt(), anyInt());
+    }
+
+    @Test
+    void testPagesReadOnScheduler() {
+        Scheduler io = Schedulers.newSingle("inventory-io");
+        ReactiveInventoryDAO inventory = new ReactiveInventoryDAO(mockInventoryDAO, io);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        Product[] page = {new Product("Hat", 1, "A hat", 5, 8)};
+
+        when(mockInventoryDAO.getInventoryAfter(anyInt(), anyInt())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+
+            return page;
+        });
+
+        try {
+            assertEquals(1, inventory.streamInventory(256).collectList().block().size());
+            assertArrayEquals(page, inventory.getInventoryPage(0, 0, 2).block());
+        } finally {
+            io.dispose();
+        }
+
+        assertEquals(2, threads.size());
+        assertTrue(threads.stream().allMatch(thread -> thread.startsWith("inventory-io")));
+    }
+
+    @Test
+    void testGetInventoryPage() {
+        Product[] page = {new Product("Hat", 1, "A hat", 5, 8), new Product("Coat", 4, "A coat", 40, 2)};
+
+        when(mockInventoryDAO.getInventoryAfter(0, 2)).thenReturn(page);
+
+        ResponseEntity<Product[]> response = inventoryController.getInventoryPage(2, 0, 0).block();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("4", response.getHeaders().getFirst("X-Next-Cursor"));
+        assertEquals(HttpStatus.BAD_REQUEST, inventoryController.getInventoryPage(0, 0, null).block().getStatusCode());
+    }
+
+    @Test
+    void testCreateProduct() throws IOException {
+        Product product = new Product("Product", 0, "A cool, new product", 5, 10);
+
+        when(mockInventoryDAO.createProduct(product)).thenReturn(product);
+
+        ResponseEntity<Product> response = inventoryController.createProduct(product).block();
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(product, response.getBody());
+    }
+
+    @Test
+    void testCreateProductConflict() throws IOException {
+        Product product = new Product("Product", 1, "A lame, copy product", 5, 10);
+
+        doThrow(new IllegalArgumentException()).when(mockInventoryDAO).createProduct(product);
+
+        assertEquals(HttpStatus.CONFLICT, inventoryController.createProduct(product).block().getStatusCode());
+    }
+
+    @Test
+    void testGetProduct() throws IOException {
+        Product product = new Product("Hat", 1, "A hat", 5, 8);
+
+        when(mockInventoryDAO.getProduct(1)).thenReturn(product);
+
+        assertEquals(product, inventoryController.getProduct(1).block().getBody());
+        assertEquals(HttpStatus.NOT_FOUND, inventoryController.getProduct(2).block().getStatusCode());
+    }
+
+    @Test
+    void testGetProductIOException() throws IOException {
+        doThrow(new IOException()).when(mockInventoryDAO).getProduct(1);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, inventoryController.getProduct(1).block().getStatusCode());
+    }
+
+    @Test
+    void testUpdateProductNotFound() throws IOException {
+        Product product = new Product("Hat", 1, "A hat", 5, 8);
+
+        when(mockInventoryDAO.updateProduct(product)).thenReturn(null);
+
+        assertEquals(HttpStatus.NOT_FOUND, inventoryController.updateProduct(product).block().getStatusCode());
+    }
+
+    @Test
+    void testDeleteProduct() throws IOException {
+        when(mockInventoryDAO.deleteProduct(1)).thenReturn(true);
+
+        assertEquals(HttpStatus.OK, inventoryController.deleteProduct(1).block().getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, inventoryController.deleteProduct(2).block().getStatusCode());
+    }
+
+    @Test
+    void testImportProductsAtomicRejected() throws IOException {
+        Product product = new Product("", 0, "No name", 5, 8);
+        ProductImportResult[] results = {new ProductImportResult(0, ProductImportResult.Status.INVALID, null, "name")};
+
+        when(mockInventoryDAO.importProducts(any(), eq(true))).thenReturn(results);
+
+        ResponseEntity<ProductImportResult[]> response = inventoryController.importProducts(Flux.just(product), true).block();
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals(1, response.getBody().length);
+    }
+
+    @Test
+    void testImportProductsAtomicUnsupported() throws IOException {
+        Product product = new Product("Hat", 0, "A hat", 5, 8);
+
+        when(mockInventoryDAO.importProducts(any(), eq(true))).thenThrow(new UnsupportedOperationException("Atomic imports need a single shard"));
+
+        assertEquals(HttpStatus.NOT_IMPLEMENTED, inventoryController.importProducts(Flux.just(product), true).block().getStatusCode());
+    }
+
+    @Test
+    void testStockChanges() throws IOException {
+        Product product = new Product("Hat", 1, "A hat", 5, 8);
+
+        when(mockInventoryDAO.reserveStock(1, 2)).thenReturn(product);
+        when(mockInventoryDAO.reserveStock(1, 100)).thenThrow(new IllegalStateException());
+        when(mockInventoryDAO.releaseStock(1, 0)).thenThrow(new IllegalArgumentException());
+        when(mockInventoryDAO.adjustQuantity(1, 1)).thenThrow(new IOException());
+
+        assertEquals(HttpStatus.OK, inventoryController.reserveStock(1, 2).block().getStatusCode());
+        assertEquals(HttpStatus.CONFLICT, inventoryController.reserveStock(1, 100).block().getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, inventoryController.releaseStock(1, 0).block().getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, inventoryController.releaseStock(2, 1).block().getStatusCode());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, inventoryController.adjustQuantity(1, 1).block().getStatusCode());
+    }
+
+    @Test
+    void testFindProductPage() throws IOException {
+        Product[] products = {new Product("Hat", 1, "A hat", 5, 8), new Product("Top hat", 2, "A tall hat", 9, 1)};
+
+        when(mockInventoryDAO.findProduct("hat")).thenReturn(products);
+
+        assertEquals(2, inventoryController.findProduct("hat").block().getBody().length);
+        assertEquals(List.of(products[1]), List.of(inventoryController.findProductPage("hat", 5, 1).block().getBody()));
+    }
+}
@@ -0,0 +1,137 @@
+package com.estore.api.estoreapi.reactive;
+
+import com.estore.api.estoreapi.model.SessionToken;
+import com.estore.api.estoreapi.model.UserAccount;
+import com.estore.api.estoreapi.persistence.CredentialVerifier;
+import com.estore.api.estoreapi.persistence.SessionStore;
+import com.estore.api.estoreapi.persistence.UsersDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the reactive User Account Controller
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Controller-Tier")
+class ReactiveUserAccountControllerTest {
+    private ReactiveUserAccountController userController;
+    private UsersDAO mockUsersDAO;
+    private CredentialVerifier mockVerifier;
+    private SessionStore sessionStore;
+
+    @BeforeEach
+    void setupUserController() {
+        mockUsersDAO = mock(UsersDAO.class);
+        mockVerifier = mock(CredentialVerifier.class);
+        sessionStore = new SessionStore(60_000, 60_000);
+        userController = new ReactiveUserAccountController(new ReactiveUsersDAO(mockUsersDAO, Schedulers.immediate()),
+                mockVerifier, sessionStore);
+    }
+
+    @AfterEach
+    void closeSessionStore() {
+        sessionStore.close();
+    }
+
+    @Test
+    void testCreateUser() throws IOException {
+        UserAccount user = new UserAccount("John", "Doe", "JD1", "secret");
+
+        when(mockUsersDAO.createUserAccount(user)).thenReturn(user);
+
+        assertEquals(HttpStatus.CREATED, userController.createUserAccount(user).block().getStatusCode());
+
+        doThrow(new IllegalArgumentException()).when(mockUsersDAO).createUserAccount(user);
+        assertEquals(HttpStatus.CONFLICT, userController.createUserAccount(user).block().getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userController.createUserAccount(new UserAccount("John", "Doe", "JD2", null)).block().getStatusCode());
+    }
+
+    @Test
+    void testGetUser() throws IOException {
+        UserAccount user = new UserAccount("John", "Doe", "JD1", "secret");
+
+        when(mockUsersDAO.getUserAccount("JD1")).thenReturn(user);
+        when(mockUsersDAO.getUserAccount("broken")).thenThrow(new IOException());
+
+        assertEquals(user, userController.getUserAccount("JD1").block().getBody());
+        assertEquals(HttpStatus.NOT_FOUND, userController.getUserAccount("nobody").block().getStatusCode());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, userController.getUserAccount("broken").block().getStatusCode());
+    }
+
+    @Test
+    void testLogIn() {
+        when(mockVerifier.verify("JD1", "secret")).thenReturn(CompletableFuture.completedFuture(true));
+        when(mockVerifier.verify("JD1", "wrong")).thenReturn(CompletableFuture.completedFuture(false));
+        when(mockVerifier.verify("JD1", "busy")).thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException()));
+
+        assertEquals(HttpStatus.OK, userController.logInUserAccount("JD1", "secret").block().getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, userController.logInUserAccount("JD1", "wrong").block().getStatusCode());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, userController.logInUserAccount("JD1", "busy").block().getStatusCode());
+    }
+
+    @Test
+    void testSessionCart() throws IOException {
+        Map<Integer, Integer> cart = Map.of(4, 2);
+
+        when(mockVerifier.verify("JD1", "secret")).thenReturn(CompletableFuture.completedFuture(true));
+        when(mockUsersDAO.getCart("JD1")).thenReturn(cart);
+
+        SessionToken session = userController.startSession(new UserAccount("John", "Doe", "JD1", "secret")).block().getBody();
+        String authorization = "Bearer " + session.getToken();
+
+        assertEquals("JD1", userController.getSessionUser(authorization).block().getBody());
+        assertEquals(cart, userController.getSessionCart(authorization).block().getBody());
+        assertEquals(HttpStatus.OK, userController.endSession(authorization).block().getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, userController.getSessionCart(authorization).block().getStatusCode());
+    }
+
+    @Test
+    void testDeleteUserRevokesSessions() throws IOException {
+        when(mockUsersDAO.deleteUserAccount("JD1")).thenReturn(true);
+
+        String token = sessionStore.issue("JD1").getToken();
+
+        assertEquals(HttpStatus.OK, userController.deleteUserAccount("JD1").block().getStatusCode());
+        assertNull(sessionStore.resolve(token));
+        assertEquals(HttpStatus.NOT_FOUND, userController.deleteUserAccount("nobody").block().getStatusCode());
+    }
+
+    @Test
+    void testCartChanges() throws IOException {
+        when(mockUsersDAO.addToCart("JD1", 4, 2)).thenReturn(Map.of(4, 2));
+        when(mockUsersDAO.setCartQuantity("JD1", 4, -1)).thenThrow(new IllegalArgumentException());
+        when(mockUsersDAO.removeFromCart("JD1", 4)).thenThrow(new IOException());
+        when(mockUsersDAO.addToCart("nobody", 4, 1)).thenReturn(null);
+
+        ResponseEntity<Map<Integer, Integer>> response = userController.addToCart("JD1", 4, 2).block();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Map.of(4, 2), response.getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, userController.setCartQuantity("JD1", 4, -1).block().getStatusCode());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, userController.removeFromCart("JD1", 4).block().getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, userController.addToCart("nobody", 4, 1).block().getStatusCode());
+    }
+
+    @Test
+    void testClearCart() throws IOException {
+        assertEquals(HttpStatus.OK, userController.clearCart("JD1").block().getStatusCode());
+        verify(mockUsersDAO).clearCart("JD1");
+
+        doThrow(new IOException()).when(mockUsersDAO).clearCart("JD2");
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, userController.clearCart("JD2").block().getStatusCode());
+    }
+}
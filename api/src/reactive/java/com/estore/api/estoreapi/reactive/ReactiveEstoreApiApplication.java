@@ -0,0 +1,102 @@
+package com.estore.api.estoreapi.reactive;
+
+import com.estore.api.estoreapi.IgnoreJacocoGenerated;
+import com.estore.api.estoreapi.controller.InventoryResponseCache;
+import com.estore.api.estoreapi.persistence.InventoryDAO;
+import com.estore.api.estoreapi.persistence.UsersDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Runs the API on WebFlux and Netty instead of the servlet stack
+ * <p>
+ * Only the persistence and reactive packages are scanned, so the servlet controllers
+ * are not registered. The DAOs are the same beans the servlet application uses; their
+ * blocking calls run on a bounded scheduler and never on an event loop thread.
+ * Built and started with {@code mvn -P reactive spring-boot:run}.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@SpringBootApplication(scanBasePackages = {"com.estore.api.estoreapi.persistence", "com.estore.api.estoreapi.reactive"})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveEstoreApiApplication {
+
+    @IgnoreJacocoGenerated
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(ReactiveEstoreApiApplication.class);
+
+        application.setWebApplicationType(WebApplicationType.REACTIVE);
+        application.run(args);
+    }
+
+    /**
+     * Serves requests with Netty even though Tomcat is on the classpath for the servlet build
+     *
+     * @return Netty server factory, configured from the server.* properties
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Scheduler for DAO calls that may wait on a lock or write a file
+     *
+     * @param threads Largest number of threads, 0 for ten per core
+     * @param queue   Calls that may wait for a thread before new ones are rejected
+     * @return Bounded elastic scheduler, disposed with the context
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler daoScheduler(@Value("${reactive.dao.threads:0}") int threads,
+                                  @Value("${reactive.dao.queue:100000}") int queue) {
+        int cap = threads > 0 ? threads : Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE;
+
+        return Schedulers.newBoundedElastic(cap, queue, "dao-io");
+    }
+
+    /**
+     * Non-blocking view of the inventory
+     *
+     * @param inventoryDAO Inventory shared with the rest of the application
+     * @param daoScheduler Scheduler the blocking DAO calls run on
+     * @return The adapter
+     */
+    @Bean
+    public ReactiveInventoryDAO reactiveInventoryDAO(InventoryDAO inventoryDAO, Scheduler daoScheduler) {
+        return new ReactiveInventoryDAO(inventoryDAO, daoScheduler);
+    }
+
+    /**
+     * Non-blocking view of the user accounts
+     *
+     * @param usersDAO     Accounts shared with the rest of the application
+     * @param daoScheduler Scheduler the blocking DAO calls run on
+     * @return The adapter
+     */
+    @Bean
+    public ReactiveUsersDAO reactiveUsersDAO(UsersDAO usersDAO, Scheduler daoScheduler) {
+        return new ReactiveUsersDAO(usersDAO, daoScheduler);
+    }
+
+    /**
+     * Serialized GET /inventory body, rebuilt once per inventory version
+     *
+     * @param inventoryDAO Inventory the body is built from
+     * @param objectMapper JSON object for serialization
+     * @param gzipEnabled  Whether to keep a gzipped copy of the body as well
+     * @return The cache
+     */
+    @Bean
+    public InventoryResponseCache inventoryResponseCache(InventoryDAO inventoryDAO, ObjectMapper objectMapper,
+                                                         @Value("${inventory.cache.gzip:true}") boolean gzipEnabled) {
+        return new InventoryResponseCache(inventoryDAO, objectMapper, gzipEnabled);
+    }
+}
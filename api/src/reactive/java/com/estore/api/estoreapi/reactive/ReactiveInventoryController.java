@@ -0,0 +1,393 @@
+package com.estore.api.estoreapi.reactive;
+
+import com.estore.api.estoreapi.controller.InventoryResponseCache;
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.ProductImportResult;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Handles REST API requests for Product without blocking the event loop
+ * <p>
+ * Serves the same routes and statuses as the servlet
+ * {@link com.estore.api.estoreapi.controller.InventoryController}, with Mono and Flux
+ * return types. GET /inventory/stream emits products as the client reads them, so large
+ * catalogs are served with bounded memory and backpressure.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@RestController
+@RequestMapping("inventory")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveInventoryController {
+    private static final Logger LOG = Logger.getLogger(ReactiveInventoryController.class.getName());
+    private final ReactiveInventoryDAO inventoryDAO;
+    private final InventoryResponseCache inventoryCache;
+    private final Scheduler scheduler;
+
+    private static final String NOT_FOUND_MSG = "PRODUCT NOT FOUND";
+    private static final String GZIP = "gzip";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_CHUNK_SIZE = 256;
+
+    /**
+     * Creates a reactive Inventory Controller for handling requests
+     *
+     * @param inventoryDAO   Non-blocking DAO for the products
+     * @param inventoryCache Serialized inventory, rebuilt once per inventory version
+     * @param scheduler      Scheduler the inventory is serialized on
+     */
+    public ReactiveInventoryController(ReactiveInventoryDAO inventoryDAO, InventoryResponseCache inventoryCache,
+                                       Scheduler scheduler) {
+        this.inventoryDAO = inventoryDAO;
+        this.inventoryCache = inventoryCache;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Handles GET request for retrieving the entire inventory
+     *
+     * @param ifNoneMatch    ETag the client already holds, if any
+     * @param acceptEncoding Encodings the client accepts, if any
+     * @return ResponseEntity with the JSON array of all products stored and HTTP Status: OK
+     * ResponseEntity with HTTP Status: NOT_MODIFIED (client copy is current)
+     * ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @GetMapping("")
+    public Mono<ResponseEntity<byte[]>> getInventory(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                     @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        LOG.info("GET /inventory");
+
+        return Mono.fromCallable(inventoryCache::get).subscribeOn(scheduler).map(cached -> {
+            if (ifNoneMatch != null && (ifNoneMatch.equals("*") || ifNoneMatch.contains(cached.getEtag()))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.getEtag()).<byte[]>build();
+            }
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(cached.getEtag())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+            if (cached.getGzip() != null && acceptEncoding != null && acceptEncoding.contains(GZIP)) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(cached.getGzip());
+            }
+
+            return response.body(cached.getJson());
+        }).onErrorResume(IOException.class, e -> {
+            LOG.severe("IOException: Could not serialize inventory");
+
+            return Mono.just(new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR));
+        });
+    }
+
+    /**
+     * Handles GET requests for one page of the inventory
+     *
+     * @param limit  Largest number of products to return, at most 1000
+     * @param offset Number of products to skip, ignored when after is given
+     * @param after  ID of the last product of the previous page
+     * @return ResponseEntity with an array of products and HTTP Status: OK
+     * ResponseEntity with HTTP Status: BAD_REQUEST (limit or offset out of range)
+     */
+    @GetMapping(value = "", params = "limit")
+    public Mono<ResponseEntity<Product[]>> getInventoryPage(@RequestParam int limit,
+                                                            @RequestParam(defaultValue = "0") int offset,
+                                                            @RequestParam(required = false) Integer after) {
+        LOG.info("GET /inventory?limit=" + limit);
+
+        if (limit <= 0 || limit > MAX_PAGE_SIZE || offset < 0) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        return inventoryDAO.getInventoryPage(offset, after, limit).map(page -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+
+            if (page.length == limit) {
+                response.header(NEXT_CURSOR_HEADER, String.valueOf(page[page.length - 1].getId()));
+            }
+
+            return response.body(page);
+        });
+    }
+
+    /**
+     * Handles GET requests for streaming the inventory as newline-delimited JSON
+     *
+     * @return Stream of products in ID order
+     */
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public Flux<Product> streamInventory() {
+        LOG.info("GET /inventory/stream");
+
+        return inventoryDAO.streamInventory(STREAM_CHUNK_SIZE);
+    }
+
+    /**
+     * Handles POST requests for creating a new product
+     *
+     * @param product New product to be created and stored
+     * @return ResponseEntity with Product and HTTP Status: CREATED
+     * ResponseEntity with HTTP Status: CONFLICT (Product already created)
+     * ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @PostMapping("")
+    public Mono<ResponseEntity<Product>> createProduct(@RequestBody Product product) {
+        LOG.info("POST /inventory " + product);
+
+        return inventoryDAO.createProduct(product)
+                .map(created -> new ResponseEntity<>(created, HttpStatus.CREATED))
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    LOG.warning("IllegalArgumentException: Product has been already created");
+
+                    return Mono.just(new ResponseEntity<>(HttpStatus.CONFLICT));
+                })
+                .onErrorResume(IOException.class, e -> serverError("IOException: Could not create product"));
+    }
+
+    /**
+     * Handles POST requests for importing many products at once
+     *
+     * @param products Products to import, as a JSON array or newline-delimited JSON
+     * @param atomic   When true, nothing is stored if any item is rejected
+     * @return ResponseEntity with one result per item and HTTP Status: OK
+     * ResponseEntity with the results and HTTP Status: UNPROCESSABLE_ENTITY (atomic batch rejected)
+     * ResponseEntity with HTTP Status: NOT_IMPLEMENTED (store cannot import atomically)
+     * ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public Mono<ResponseEntity<ProductImportResult[]>> importProducts(@RequestBody Flux<Product> products,
+                                                                      @RequestParam(defaultValue = "false") boolean atomic) {
+        return products.collectList()
+                .flatMap(list -> {
+                    LOG.info("POST /inventory/batch " + list.size() + " products");
+
+                    return inventoryDAO.importProducts(list.toArray(new Product[0]), atomic);
+                })
+                .map(results -> {
+                    if (atomic && Arrays.stream(results).anyMatch(ProductImportResult::isRejected)) {
+                        return new ResponseEntity<>(results, HttpStatus.UNPROCESSABLE_ENTITY);
+                    }
+
+                    return new ResponseEntity<>(results, HttpStatus.OK);
+                })
+                .onErrorResume(UnsupportedOperationException.class, e -> {
+                    LOG.warning(e.getMessage());
+
+                    return Mono.just(new ResponseEntity<>(HttpStatus.NOT_IMPLEMENTED));
+                })
+                .onErrorResume(IOException.class, e -> serverError("IOException: Could not import products"));
+    }
+
+    /**
+     * Put requests to update a product
+     *
+     * @param product The product to be updated
+     * @return ResponseEntity with the product and HTTP Status of OK
+     * ResponseEntity with Http Status of NOT FOUND
+     * ResponseEntity with HTTP Status of CONFLICT (name used by another product)
+     * ResponseEntity with HTTP Status of INTERNAL SERVER ERROR
+     */
+    @PutMapping("")
+    public Mono<ResponseEntity<Product>> updateProduct(@RequestBody Product product) {
+        LOG.info("PUT /inventory " + product);
+
+        return inventoryDAO.updateProduct(product)
+                .map(updated -> new ResponseEntity<>(updated, HttpStatus.OK))
+                .switchIfEmpty(notFound())
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    LOG.warning("IllegalArgumentException: Product name already in use");
+
+                    return Mono.just(new ResponseEntity<>(HttpStatus.CONFLICT));
+                })
+                .onErrorResume(IOException.class, e -> serverError("INTERNAL_SERVER_ERROR"));
+    }
+
+    /**
+     * Handles GET requests for getting a product
+     *
+     * @param id id will locate a product
+     * @return ResponseEntity with Product and HTTP Status: OK
+     * ResponseEntity with HTTP Status: NOT_FOUND
+     * ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Product>> getProduct(@PathVariable int id) {
+        LOG.info("GET /inventory/" + id);
+
+        return inventoryDAO.getProduct(id)
+                .map(product -> new ResponseEntity<>(product, HttpStatus.OK))
+                .switchIfEmpty(notFound())
+                .onErrorResume(IOException.class, e -> serverError("IOException: Could not find product"));
+    }
+
+    /**
+     * Handles DELETE requests for deleting a product
+     *
+     * @param id The id of the product to be deleted
+     * @return ResponseEntity with HTTP Status: OK
+     * ResponseEntity with HTTP Status: NOT_FOUND
+     * ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Product>> deleteProduct(@PathVariable int id) {
+        LOG.info("DELETE /inventory/" + id);
+
+        return inventoryDAO.deleteProduct(id)
+                .flatMap(deleted -> deleted ? Mono.just(new ResponseEntity<Product>(HttpStatus.OK)) : ReactiveInventoryController.<Product>notFound())
+                .onErrorResume(IOException.class, e -> serverError("IOException"));
+    }
+
+    /**
+     * Handles POST requests for reserving stock of a product
+     *
+     * @param id       ID of the product
+     * @param quantity Positive amount to take
+     * @return ResponseEntity with the updated product and HTTP Status: OK
+     * ResponseEntity with HTTP Status: NOT_FOUND, BAD_REQUEST, CONFLICT or INTERNAL_SERVER_ERROR
+     */
+    @PostMapping("/{id}/reserve")
+    public Mono<ResponseEntity<Product>> reserveStock(@PathVariable int id, @RequestParam int quantity) {
+        LOG.info("POST /inventory/" + id + "/reserve " + quantity);
+
+        return stockResponse(inventoryDAO.reserveStock(id, quantity));
+    }
+
+    /**
+     * Handles POST requests for returning stock of a product
+     *
+     * @param id       ID of the product
+     * @param quantity Positive amount to return
+     * @return ResponseEntity with the updated product and HTTP Status: OK
+     * ResponseEntity with HTTP Status: NOT_FOUND, BAD_REQUEST or INTERNAL_SERVER_ERROR
+     */
+    @PostMapping("/{id}/release")
+    public Mono<ResponseEntity<Product>> releaseStock(@PathVariable int id, @RequestParam int quantity) {
+        LOG.info("POST /inventory/" + id + "/release " + quantity);
+
+        return stockResponse(inventoryDAO.releaseStock(id, quantity));
+    }
+
+    /**
+     * Handles PATCH requests for adjusting the quantity of a product
+     *
+     * @param id    ID of the product
+     * @param delta Amount to add, negative to remove stock
+     * @return ResponseEntity with the updated product and HTTP Status: OK
+     * ResponseEntity with HTTP Status: NOT_FOUND, CONFLICT or INTERNAL_SERVER_ERROR
+     */
+    @PatchMapping("/{id}/quantity")
+    public Mono<ResponseEntity<Product>> adjustQuantity(@PathVariable int id, @RequestParam int delta) {
+        LOG.info("PATCH /inventory/" + id + "/quantity " + delta);
+
+        return stockResponse(inventoryDAO.adjustQuantity(id, delta));
+    }
+
+    /**
+     * Handles GET requests for searching a product
+     *
+     * @param keyword will find products that contain the text
+     * @return ResponseEntity with an array of products and HTTP Status: OK
+     * ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @GetMapping("/")
+    public Mono<ResponseEntity<Product[]>> findProduct(@RequestParam String keyword) {
+        LOG.info("GET /inventory/?keyword=" + keyword);
+
+        return inventoryDAO.findProduct(keyword)
+                .map(products -> new ResponseEntity<>(products, HttpStatus.OK))
+                .onErrorResume(IOException.class, e -> serverError("INTERNAL_SERVER_ERROR"));
+    }
+
+    /**
+     * Handles GET requests for one page of search results
+     *
+     * @param keyword will find products that contain the text
+     * @param limit   Largest number of products to return, at most 1000
+     * @param offset  Number of matching products to skip
+     * @return ResponseEntity with an array of products and HTTP Status: OK
+     * ResponseEntity with HTTP Status: BAD_REQUEST (limit or offset out of range)
+     * ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @GetMapping(value = "/", params = "limit")
+    public Mono<ResponseEntity<Product[]>> findProductPage(@RequestParam String keyword, @RequestParam int limit,
+                                                           @RequestParam(defaultValue = "0") int offset) {
+        LOG.info("GET /inventory/?keyword=" + keyword);
+
+        if (limit <= 0 || limit > MAX_PAGE_SIZE || offset < 0) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        return inventoryDAO.findProduct(keyword)
+                .map(products -> {
+                    int from = Math.min(offset, products.length);
+                    Product[] page = Arrays.copyOfRange(products, from, (int) Math.min((long) from + limit, products.length));
+
+                    return new ResponseEntity<>(page, HttpStatus.OK);
+                })
+                .onErrorResume(IOException.class, e -> serverError("INTERNAL_SERVER_ERROR"));
+    }
+
+    /**
+     * Maps the outcome of a stock change to a response
+     *
+     * @param change Pending stock change
+     * @return ResponseEntity with the updated product and HTTP Status: OK
+     * ResponseEntity with HTTP Status: NOT_FOUND, BAD_REQUEST, CONFLICT or INTERNAL_SERVER_ERROR
+     */
+    private Mono<ResponseEntity<Product>> stockResponse(Mono<Product> change) {
+        return change
+                .map(product -> new ResponseEntity<>(product, HttpStatus.OK))
+                .switchIfEmpty(notFound())
+                .onErrorResume(IllegalStateException.class, e -> {
+                    LOG.info("Insufficient stock");
+
+                    return Mono.just(new ResponseEntity<>(HttpStatus.CONFLICT));
+                })
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    LOG.warning("IllegalArgumentException: " + e.getMessage());
+
+                    return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+                })
+                .onErrorResume(IOException.class, e -> serverError("IOException: Could not change stock"));
+    }
+
+    /**
+     * Builds a NOT_FOUND response, evaluated only when subscribed
+     *
+     * @param <T> Type of the response body
+     * @return ResponseEntity with HTTP Status: NOT_FOUND
+     */
+    private static <T> Mono<ResponseEntity<T>> notFound() {
+        return Mono.fromSupplier(() -> {
+            LOG.info(NOT_FOUND_MSG);
+
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        });
+    }
+
+    /**
+     * Logs a failure and builds an INTERNAL_SERVER_ERROR response
+     *
+     * @param message Message to log
+     * @param <T>     Type of the response body
+     * @return ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR
+     */
+    private static <T> Mono<ResponseEntity<T>> serverError(String message) {
+        LOG.severe(message);
+
+        return Mono.just(new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR));
+    }
+}
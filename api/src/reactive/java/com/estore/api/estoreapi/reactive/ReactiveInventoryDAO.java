@@ -0,0 +1,184 @@
+package com.estore.api.estoreapi.reactive;
+
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.ProductImportResult;
+import com.estore.api.estoreapi.persistence.InventoryDAO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+/**
+ * Non-blocking view of an {@link InventoryDAO}
+ * <p>
+ * Every DAO call runs on a bounded I/O scheduler, so event loop threads never block
+ * on a lock, a file write or a page copy. A DAO result of null becomes an empty
+ * {@link Mono}, and DAO exceptions become error signals.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class ReactiveInventoryDAO {
+    private final InventoryDAO inventoryDAO;
+    private final Scheduler scheduler;
+
+    /**
+     * Creates an adapter over an inventory
+     *
+     * @param inventoryDAO DAO that stores the products
+     * @param scheduler    Scheduler the blocking DAO calls run on
+     */
+    public ReactiveInventoryDAO(InventoryDAO inventoryDAO, Scheduler scheduler) {
+        this.inventoryDAO = inventoryDAO;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Streams every product in ID order
+     * <p>
+     * Products are read one keyset page at a time and only when the subscriber asks
+     * for more, so memory stays bounded by the page size whatever the catalog size.
+     * Each page is read on the I/O scheduler.
+     *
+     * @param chunkSize Number of products read from the DAO per page
+     * @return All products, in ID order
+     */
+    public Flux<Product> streamInventory(int chunkSize) {
+        return Flux.<Product[], Integer>generate(() -> Integer.MIN_VALUE, (after, sink) -> {
+            Product[] page = inventoryDAO.getInventoryAfter(after, chunkSize);
+
+            if (page.length == 0) {
+                sink.complete();
+
+                return after;
+            }
+
+            sink.next(page);
+
+            if (page.length < chunkSize) {
+                sink.complete();
+            }
+
+            return page[page.length - 1].getId();
+        }).concatMapIterable(Arrays::asList).subscribeOn(scheduler);
+    }
+
+    /**
+     * Reads one page of the catalog
+     *
+     * @param offset Number of products to skip, ignored when after is given
+     * @param after  ID of the last product of the previous page, may be null
+     * @param limit  Largest number of products to return
+     * @return The page
+     */
+    public Mono<Product[]> getInventoryPage(int offset, Integer after, int limit) {
+        return blocking(() -> after != null ? inventoryDAO.getInventoryAfter(after, limit)
+                : inventoryDAO.getInventoryPage(offset, limit));
+    }
+
+    /**
+     * Looks up a product
+     *
+     * @param id ID of the product
+     * @return The product, empty if it does not exist
+     */
+    public Mono<Product> getProduct(int id) {
+        return blocking(() -> inventoryDAO.getProduct(id));
+    }
+
+    /**
+     * Searches the catalog
+     *
+     * @param keyword Text the product names must contain
+     * @return Matching products
+     */
+    public Mono<Product[]> findProduct(String keyword) {
+        return blocking(() -> inventoryDAO.findProduct(keyword));
+    }
+
+    /**
+     * Stores a new product
+     *
+     * @param product Product to create
+     * @return The stored product
+     */
+    public Mono<Product> createProduct(Product product) {
+        return blocking(() -> inventoryDAO.createProduct(product));
+    }
+
+    /**
+     * Replaces a product
+     *
+     * @param product Product to store
+     * @return The updated product, empty if it does not exist
+     */
+    public Mono<Product> updateProduct(Product product) {
+        return blocking(() -> inventoryDAO.updateProduct(product));
+    }
+
+    /**
+     * Removes a product
+     *
+     * @param id ID of the product
+     * @return true if the product was deleted, false if it did not exist
+     */
+    public Mono<Boolean> deleteProduct(int id) {
+        return blocking(() -> inventoryDAO.deleteProduct(id));
+    }
+
+    /**
+     * Imports a batch of products
+     *
+     * @param products Products to import
+     * @param atomic   When true, nothing is stored if any item is rejected
+     * @return One result per item
+     */
+    public Mono<ProductImportResult[]> importProducts(Product[] products, boolean atomic) {
+        return blocking(() -> inventoryDAO.importProducts(products, atomic));
+    }
+
+    /**
+     * Takes stock of a product
+     *
+     * @param id       ID of the product
+     * @param quantity Positive amount to take
+     * @return The updated product, empty if it does not exist
+     */
+    public Mono<Product> reserveStock(int id, int quantity) {
+        return blocking(() -> inventoryDAO.reserveStock(id, quantity));
+    }
+
+    /**
+     * Returns stock of a product
+     *
+     * @param id       ID of the product
+     * @param quantity Positive amount to return
+     * @return The updated product, empty if it does not exist
+     */
+    public Mono<Product> releaseStock(int id, int quantity) {
+        return blocking(() -> inventoryDAO.releaseStock(id, quantity));
+    }
+
+    /**
+     * Changes the stock of a product
+     *
+     * @param id    ID of the product
+     * @param delta Amount to add, negative to remove stock
+     * @return The updated product, empty if it does not exist
+     */
+    public Mono<Product> adjustQuantity(int id, int delta) {
+        return blocking(() -> inventoryDAO.adjustQuantity(id, delta));
+    }
+
+    /**
+     * Runs a DAO call that may block on the I/O scheduler
+     *
+     * @param call DAO call
+     * @param <T>  Type of the result
+     * @return The result, empty if the call returned null
+     */
+    private <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+}
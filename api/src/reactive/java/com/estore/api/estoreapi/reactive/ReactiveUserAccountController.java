@@ -0,0 +1,410 @@
+package com.estore.api.estoreapi.reactive;
+
+import com.estore.api.estoreapi.model.SessionToken;
+import com.estore.api.estoreapi.model.UserAccount;
+import com.estore.api.estoreapi.persistence.CredentialVerifier;
+import com.estore.api.estoreapi.persistence.SessionStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Logger;
+
+/**
+ * Handles REST API requests for UserAccount without blocking the event loop
+ * <p>
+ * Serves the same routes and statuses as the servlet
+ * {@link com.estore.api.estoreapi.controller.UserAccountController}, with Mono return
+ * types. Passwords are still checked by the {@link CredentialVerifier} pool.
+ *
+ * @author SWEN-261 Project Team One
+ */
+@RestController
+@RequestMapping("user")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserAccountController {
+    private static final Logger LOG = Logger.getLogger(ReactiveUserAccountController.class.getName());
+    private final ReactiveUsersDAO usersDAO;
+    private final CredentialVerifier credentialVerifier;
+    private final SessionStore sessionStore;
+    private static final String USER_NOT_FOUND_MSG = "USER NOT FOUND";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    /**
+     * Creates a reactive user account controller for handling requests
+     *
+     * @param usersDAO           Non-blocking DAO for the accounts
+     * @param credentialVerifier Checks passwords off the request threads
+     * @param sessionStore       Sessions issued by the login endpoint
+     */
+    public ReactiveUserAccountController(ReactiveUsersDAO usersDAO, CredentialVerifier credentialVerifier,
+                                         SessionStore sessionStore) {
+        this.usersDAO = usersDAO;
+        this.credentialVerifier = credentialVerifier;
+        this.sessionStore = sessionStore;
+    }
+
+    /**
+     * Handles POST requests for creating a new user Account
+     *
+     * @param userAccount New user account to be created and stored
+     * @return ResponseEntity with user account and HTTP Status: CREATED
+     *         ResponseEntity with HTTP Status: BAD_REQUEST (no password)
+     *         ResponseEntity with HTTP Status: CONFLICT (user account already created)
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @PostMapping("")
+    public Mono<ResponseEntity<UserAccount>> createUserAccount(@RequestBody UserAccount userAccount) {
+        LOG.info("POST /user" + userAccount);
+
+        if (userAccount.getPassword() == null || userAccount.getPassword().isBlank()) {
+            LOG.warning("Account has no password");
+
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+
+        return usersDAO.createUserAccount(userAccount)
+                .map(created -> new ResponseEntity<>(userAccount, HttpStatus.CREATED))
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    LOG.warning("IllegalArgumentException: Account has been already created");
+
+                    return Mono.just(new ResponseEntity<>(HttpStatus.CONFLICT));
+                })
+                .onErrorResume(IOException.class, e -> serverError("IOException: Could not create account"));
+    }
+
+    /**
+     * Handles GET requests for getting a user Account
+     *
+     * @param username the username of the user account is to be retrieved
+     * @return ResponseEntity with the user account and HTTP Status: OK
+     *         ResponseEntity with HTTP Status: NOT_FOUND
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @GetMapping("/{username}")
+    public Mono<ResponseEntity<UserAccount>> getUserAccount(@PathVariable String username) {
+        LOG.info("GET /user/ " + username);
+
+        return usersDAO.getUserAccount(username)
+                .map(account -> new ResponseEntity<>(account, HttpStatus.OK))
+                .switchIfEmpty(notFound())
+                .onErrorResume(IOException.class, e -> serverError("IOException: Could not find User Account"));
+    }
+
+    /**
+     * Handles GET requests for verifying user account
+     *
+     * @param username used to verify user login
+     * @param password used to verify user login
+     * @return ResponseEntity with a boolean and HTTP Status: OK
+     *         ResponseEntity with false and HTTP Status: NOT_FOUND
+     *         ResponseEntity with HTTP Status: SERVICE_UNAVAILABLE (too many logins waiting)
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @GetMapping("/{username}/{password}")
+    public Mono<ResponseEntity<Boolean>> logInUserAccount(@PathVariable String username, @PathVariable String password) {
+        LOG.info("GET /user/ " + username + "/****");
+
+        return Mono.fromFuture(() -> credentialVerifier.verify(username, password))
+                .map(verified -> verified ? new ResponseEntity<>(true, HttpStatus.OK) : new ResponseEntity<>(false, HttpStatus.NOT_FOUND))
+                .onErrorResume(e -> Mono.just(new ResponseEntity<>(loginErrorStatus(e))));
+    }
+
+    /**
+     * Handles POST requests for logging in and starting a session
+     *
+     * @param credentials Username and password of the account
+     * @return ResponseEntity with the session and HTTP Status: OK
+     *         ResponseEntity with HTTP Status: UNAUTHORIZED (wrong username or password)
+     *         ResponseEntity with HTTP Status: SERVICE_UNAVAILABLE (too many logins waiting)
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR (IOException)
+     */
+    @PostMapping("/session")
+    public Mono<ResponseEntity<SessionToken>> startSession(@RequestBody UserAccount credentials) {
+        String username = credentials.getUserName();
+        LOG.info("POST /user/session " + username);
+
+        return Mono.fromFuture(() -> credentialVerifier.verify(username, credentials.getPassword()))
+                .map(verified -> verified ? new ResponseEntity<>(sessionStore.issue(username), HttpStatus.OK)
+                        : new ResponseEntity<SessionToken>(HttpStatus.UNAUTHORIZED))
+                .onErrorResume(e -> Mono.just(new ResponseEntity<>(loginErrorStatus(e))));
+    }
+
+    /**
+     * Handles GET requests for the user of the current session
+     *
+     * @param authorization Authorization header carrying the bearer token
+     * @return ResponseEntity with the username and HTTP Status: OK
+     *         ResponseEntity with HTTP Status: UNAUTHORIZED (missing, unknown or expired token)
+     */
+    @GetMapping("/session")
+    public Mono<ResponseEntity<String>> getSessionUser(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        String username = sessionUser(authorization);
+
+        return Mono.just(username == null ? new ResponseEntity<>(HttpStatus.UNAUTHORIZED) : new ResponseEntity<>(username, HttpStatus.OK));
+    }
+
+    /**
+     * Handles DELETE requests for logging out
+     *
+     * @param authorization Authorization header carrying the bearer token
+     * @return ResponseEntity with HTTP Status: OK
+     *         ResponseEntity with HTTP Status: UNAUTHORIZED (missing, unknown or expired token)
+     */
+    @DeleteMapping("/session")
+    public Mono<ResponseEntity<Void>> endSession(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        LOG.info("DELETE /user/session");
+
+        return Mono.just(new ResponseEntity<>(sessionStore.revoke(bearerToken(authorization)) ? HttpStatus.OK : HttpStatus.UNAUTHORIZED));
+    }
+
+    /**
+     * Handles GET requests for the cart of the current session's user
+     *
+     * @param authorization Authorization header carrying the bearer token
+     * @return ResponseEntity with HTTP Status: OK and cart
+     *         ResponseEntity with HTTP Status: UNAUTHORIZED (missing, unknown or expired token)
+     *         ResponseEntity with HTTP Status: NOT_FOUND
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR
+     */
+    @GetMapping("/cart")
+    public Mono<ResponseEntity<Map<Integer, Integer>>> getSessionCart(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        String username = sessionUser(authorization);
+
+        if (username == null) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+        }
+
+        return getCart(username);
+    }
+
+    /**
+     * Put requests to update a user account
+     *
+     * @param userAccount The user account to be updated
+     * @return ResponseEntity with the user account and HTTP Status of OK
+     *         ResponseEntity with Http Status of NOT FOUND
+     *         ResponseEntity with HTTP Status of INTERNAL SERVER ERROR
+     */
+    @PutMapping("")
+    public Mono<ResponseEntity<UserAccount>> updateUserAccount(@RequestBody UserAccount userAccount) {
+        LOG.info("PUT /user ");
+
+        boolean passwordChanged = userAccount.getPassword() != null;
+
+        return usersDAO.updateUserAccount(userAccount)
+                .map(updated -> {
+                    if (passwordChanged) {
+                        sessionStore.revokeAll(updated.getUserName());
+                    }
+
+                    return new ResponseEntity<>(updated, HttpStatus.OK);
+                })
+                .switchIfEmpty(notFound())
+                .onErrorResume(IOException.class, e -> serverError("INTERNAL_SERVER_ERROR"));
+    }
+
+    /**
+     * Handles DELETE requests for deleting a user account
+     *
+     * @param username The username of the user account to be deleted
+     * @return ResponseEntity with HTTP Status: OK
+     *         ResponseEntity with HTTP Status: NOT_FOUND
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR
+     */
+    @DeleteMapping("/{username}")
+    public Mono<ResponseEntity<UserAccount>> deleteUserAccount(@PathVariable String username) {
+        LOG.info("DELETE /user/" + username);
+
+        return usersDAO.deleteUserAccount(username)
+                .flatMap(deleted -> {
+                    if (!deleted) {
+                        return ReactiveUserAccountController.<UserAccount>notFound();
+                    }
+
+                    sessionStore.revokeAll(username);
+
+                    return Mono.just(new ResponseEntity<UserAccount>(HttpStatus.OK));
+                })
+                .onErrorResume(IOException.class, e -> serverError("IOException"));
+    }
+
+    /**
+     * Handles GET requests for retrieving a user's cart
+     *
+     * @param username The username of the user account to retrieve the cart of
+     * @return ResponseEntity with HTTP Status: OK and cart
+     *         ResponseEntity with HTTP Status: NOT_FOUND
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR
+     */
+    @GetMapping("/cart/{username}")
+    public Mono<ResponseEntity<Map<Integer, Integer>>> getCart(@PathVariable String username) {
+        LOG.info("GET/cart/" + username);
+
+        return usersDAO.getCart(username)
+                .map(cart -> new ResponseEntity<>(cart, HttpStatus.OK))
+                .switchIfEmpty(notFound())
+                .onErrorResume(IOException.class, e -> serverError("IOException"));
+    }
+
+    /**
+     * Handles POST requests for adding a product to a user's cart
+     *
+     * @param username  The username of the cart owner
+     * @param productId ID of the product to add
+     * @param quantity  Positive amount to add, 1 by default
+     * @return ResponseEntity with HTTP Status: OK and the updated cart
+     *         ResponseEntity with HTTP Status: NOT_FOUND, BAD_REQUEST or INTERNAL_SERVER_ERROR
+     */
+    @PostMapping("/cart/{username}/{productId}")
+    public Mono<ResponseEntity<Map<Integer, Integer>>> addToCart(@PathVariable String username, @PathVariable int productId,
+                                                                 @RequestParam(defaultValue = "1") int quantity) {
+        LOG.info("POST /user/cart/" + username + "/" + productId + "?quantity=" + quantity);
+
+        return cartResponse(usersDAO.addToCart(username, productId, quantity));
+    }
+
+    /**
+     * Handles PUT requests for setting the quantity of a product in a user's cart
+     *
+     * @param username  The username of the cart owner
+     * @param productId ID of the product to change
+     * @param quantity  New quantity, zero removes the product
+     * @return ResponseEntity with HTTP Status: OK and the updated cart
+     *         ResponseEntity with HTTP Status: NOT_FOUND, BAD_REQUEST or INTERNAL_SERVER_ERROR
+     */
+    @PutMapping("/cart/{username}/{productId}")
+    public Mono<ResponseEntity<Map<Integer, Integer>>> setCartQuantity(@PathVariable String username, @PathVariable int productId,
+                                                                       @RequestParam int quantity) {
+        LOG.info("PUT /user/cart/" + username + "/" + productId + "?quantity=" + quantity);
+
+        return cartResponse(usersDAO.setCartQuantity(username, productId, quantity));
+    }
+
+    /**
+     * Handles DELETE requests for removing a product from a user's cart
+     *
+     * @param username  The username of the cart owner
+     * @param productId ID of the product to remove
+     * @return ResponseEntity with HTTP Status: OK and the updated cart
+     *         ResponseEntity with HTTP Status: NOT_FOUND or INTERNAL_SERVER_ERROR
+     */
+    @DeleteMapping("/cart/{username}/{productId}")
+    public Mono<ResponseEntity<Map<Integer, Integer>>> removeFromCart(@PathVariable String username, @PathVariable int productId) {
+        LOG.info("DELETE /user/cart/" + username + "/" + productId);
+
+        return cartResponse(usersDAO.removeFromCart(username, productId));
+    }
+
+    /**
+     * Handles GET requests for clearing a user's cart
+     *
+     * @param username The username of the cart owner
+     * @return ResponseEntity with HTTP Status: OK
+     *         ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR
+     */
+    @GetMapping("/clear/{username}")
+    public Mono<ResponseEntity<HttpStatus>> clearCart(@PathVariable String username) {
+        LOG.info("Get /user/clear ");
+
+        return usersDAO.clearCart(username)
+                .then(Mono.just(new ResponseEntity<HttpStatus>(HttpStatus.OK)))
+                .onErrorResume(IOException.class, e -> serverError("INTERNAL_SERVER_ERROR"));
+    }
+
+    /**
+     * Maps the outcome of a cart line change to a response
+     *
+     * @param change Pending cart change
+     * @return ResponseEntity with the updated cart, or the error status
+     */
+    private Mono<ResponseEntity<Map<Integer, Integer>>> cartResponse(Mono<Map<Integer, Integer>> change) {
+        return change
+                .map(cart -> new ResponseEntity<>(cart, HttpStatus.OK))
+                .switchIfEmpty(notFound())
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    LOG.warning("IllegalArgumentException: " + e.getMessage());
+
+                    return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+                })
+                .onErrorResume(IOException.class, e -> serverError("IOException: Could not change cart"));
+    }
+
+    /**
+     * Maps a failed login verification to a response status
+     *
+     * @param error Failure of the verification future
+     * @return SERVICE_UNAVAILABLE when too many logins are waiting, INTERNAL_SERVER_ERROR otherwise
+     */
+    private static HttpStatus loginErrorStatus(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+
+        if (cause instanceof RejectedExecutionException) {
+            LOG.warning("Too many logins waiting for verification");
+
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+
+        LOG.severe("IOException: Could not find User Account");
+
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    /**
+     * Extracts the token from an Authorization header
+     *
+     * @param authorization Header value, may be null
+     * @return Bearer token, null if the header does not carry one
+     */
+    private static String bearerToken(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+
+        return authorization.substring(BEARER_PREFIX.length()).trim();
+    }
+
+    /**
+     * Resolves the user of a request from its session token, without reading any account
+     *
+     * @param authorization Authorization header value, may be null
+     * @return Username, null if there is no live session
+     */
+    private String sessionUser(String authorization) {
+        return sessionStore.resolve(bearerToken(authorization));
+    }
+
+    /**
+     * Builds a NOT_FOUND response, evaluated only when subscribed
+     *
+     * @param <T> Type of the response body
+     * @return ResponseEntity with HTTP Status: NOT_FOUND
+     */
+    private static <T> Mono<ResponseEntity<T>> notFound() {
+        return Mono.fromSupplier(() -> {
+            LOG.info(USER_NOT_FOUND_MSG);
+
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        });
+    }
+
+    /**
+     * Logs a failure and builds an INTERNAL_SERVER_ERROR response
+     *
+     * @param message Message to log
+     * @param <T>     Type of the response body
+     * @return ResponseEntity with HTTP Status: INTERNAL_SERVER_ERROR
+     */
+    private static <T> Mono<ResponseEntity<T>> serverError(String message) {
+        LOG.severe(message);
+
+        return Mono.just(new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR));
+    }
+}
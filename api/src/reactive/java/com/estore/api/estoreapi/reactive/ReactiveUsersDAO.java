@@ -0,0 +1,144 @@
+package com.estore.api.estoreapi.reactive;
+
+import com.estore.api.estoreapi.model.UserAccount;
+import com.estore.api.estoreapi.persistence.UsersDAO;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Non-blocking view of a {@link UsersDAO}
+ * <p>
+ * Every call may take a user lock or write the users file, so all of them run on a
+ * bounded I/O scheduler. A DAO result of null becomes an empty {@link Mono}, and DAO
+ * exceptions become error signals.
+ *
+ * @author SWEN-261 Project Team One
+ */
+public class ReactiveUsersDAO {
+    private final UsersDAO usersDAO;
+    private final Scheduler scheduler;
+
+    /**
+     * Creates an adapter over the user accounts
+     *
+     * @param usersDAO  DAO that stores the accounts
+     * @param scheduler Scheduler the blocking DAO calls run on
+     */
+    public ReactiveUsersDAO(UsersDAO usersDAO, Scheduler scheduler) {
+        this.usersDAO = usersDAO;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Stores a new account
+     *
+     * @param userAccount Account to create
+     * @return The stored account
+     */
+    public Mono<UserAccount> createUserAccount(UserAccount userAccount) {
+        return blocking(() -> usersDAO.createUserAccount(userAccount));
+    }
+
+    /**
+     * Looks up an account
+     *
+     * @param username Username of the account
+     * @return The account, empty if it does not exist
+     */
+    public Mono<UserAccount> getUserAccount(String username) {
+        return blocking(() -> usersDAO.getUserAccount(username));
+    }
+
+    /**
+     * Replaces an account
+     *
+     * @param userAccount Account to store
+     * @return The updated account, empty if it does not exist
+     */
+    public Mono<UserAccount> updateUserAccount(UserAccount userAccount) {
+        return blocking(() -> usersDAO.updateUserAccount(userAccount));
+    }
+
+    /**
+     * Removes an account
+     *
+     * @param username Username of the account
+     * @return true if the account was deleted, false if it did not exist
+     */
+    public Mono<Boolean> deleteUserAccount(String username) {
+        return blocking(() -> usersDAO.deleteUserAccount(username));
+    }
+
+    /**
+     * Reads the cart of an account
+     *
+     * @param username Username of the account
+     * @return Copy of the cart, empty if the account does not exist
+     */
+    public Mono<Map<Integer, Integer>> getCart(String username) {
+        return blocking(() -> usersDAO.getCart(username));
+    }
+
+    /**
+     * Adds to a cart line
+     *
+     * @param username  Username of the account
+     * @param productId ID of the product
+     * @param quantity  Positive amount to add
+     * @return Copy of the updated cart, empty if the account does not exist
+     */
+    public Mono<Map<Integer, Integer>> addToCart(String username, int productId, int quantity) {
+        return blocking(() -> usersDAO.addToCart(username, productId, quantity));
+    }
+
+    /**
+     * Sets the quantity of a cart line
+     *
+     * @param username  Username of the account
+     * @param productId ID of the product
+     * @param quantity  New quantity, zero removes the line
+     * @return Copy of the updated cart, empty if the account does not exist
+     */
+    public Mono<Map<Integer, Integer>> setCartQuantity(String username, int productId, int quantity) {
+        return blocking(() -> usersDAO.setCartQuantity(username, productId, quantity));
+    }
+
+    /**
+     * Removes a cart line
+     *
+     * @param username  Username of the account
+     * @param productId ID of the product
+     * @return Copy of the updated cart, empty if the account does not exist
+     */
+    public Mono<Map<Integer, Integer>> removeFromCart(String username, int productId) {
+        return blocking(() -> usersDAO.removeFromCart(username, productId));
+    }
+
+    /**
+     * Empties the cart of an account
+     *
+     * @param username Username of the account
+     * @return Completes once the cart is cleared
+     */
+    public Mono<Void> clearCart(String username) {
+        return blocking(() -> {
+            usersDAO.clearCart(username);
+
+            return null;
+        }).then();
+    }
+
+    /**
+     * Runs a DAO call that may block on the I/O scheduler
+     *
+     * @param call DAO call
+     * @param <T>  Type of the result
+     * @return The result, empty if the call returned null
+     */
+    private <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(scheduler);
+    }
+}
@@ -0,0 +1,196 @@
+package com.estore.api.estoreapi.controller;
+
+import com.estore.api.estoreapi.model.Order;
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.persistence.InventoryDAO;
+import com.estore.api.estoreapi.persistence.InventoryFileDAO;
+import com.estore.api.estoreapi.persistence.SessionStore;
+import com.estore.api.estoreapi.persistence.UsersDAO;
+import com.estore.api.estoreapi.persistence.UsersFileDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@Tag("Controller-Tier")
+class CheckoutControllerTest {
+    private CheckoutController checkoutController;
+    private InventoryDAO mockInventoryDAO;
+    private UsersDAO mockUsersDAO;
+    private SessionStore sessionStore;
+    private Map<Integer, Integer> cart;
+
+    @BeforeEach
+    void setup() throws IOException {
+        mockInventoryDAO = mock(InventoryDAO.class);
+        mockUsersDAO = mock(UsersDAO.class);
+        sessionStore = new SessionStore(60_000, 60_000);
+        checkoutController = new CheckoutController(mockInventoryDAO, mockUsersDAO, sessionStore);
+        cart = new HashMap<>();
+        cart.put(1, 2);
+        cart.put(4, 1);
+
+        when(mockUsersDAO.getCart("JD1")).thenReturn(cart);
+    }
+
+    @Test
+    void testCheckout() throws IOException {
+        Product[] reserved = new Product[2];
+        reserved[0] = new Product("Hat", 1, "A hat", 5, 8);
+        reserved[1] = new Product("Coat", 4, "A coat", 40, 2);
+
+        when(mockInventoryDAO.reserveProducts(cart)).thenReturn(reserved);
+        when(mockUsersDAO.clearCartIfUnchanged("JD1", cart)).thenReturn(true);
+
+        ResponseEntity<Order> response = checkoutController.checkout("JD1");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().getLines().length);
+        assertEquals(2, response.getBody().getLines()[0].getQuantity());
+        assertEquals(50, response.getBody().getTotal());
+        verify(mockInventoryDAO, never()).releaseProducts(any());
+    }
+
+    @Test
+    void testCheckoutSession() throws IOException {
+        String authorization = "Bearer " + sessionStore.issue("JD1").getToken();
+
+        when(mockInventoryDAO.reserveProducts(cart)).thenReturn(new Product[0]);
+        when(mockUsersDAO.clearCartIfUnchanged("JD1", cart)).thenReturn(true);
+
+        ResponseEntity<Order> response = checkoutController.checkoutSession(authorization);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(mockUsersDAO).clearCartIfUnchanged("JD1", cart);
+    }
+
+    @Test
+    void testCheckoutSessionWithoutToken() throws IOException {
+        assertEquals(HttpStatus.UNAUTHORIZED, checkoutController.checkoutSession(null).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, checkoutController.checkoutSession("Bearer nope").getStatusCode());
+        verify(mockUsersDAO, never()).getCart(any());
+    }
+
+    @Test
+    void testCheckoutUnknownUser() throws IOException {
+        when(mockUsersDAO.getCart("nobody")).thenReturn(null);
+
+        ResponseEntity<Order> response = checkoutController.checkout("nobody");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testCheckoutEmptyCart() throws IOException {
+        when(mockUsersDAO.getCart("JD1")).thenReturn(new HashMap<>());
+
+        ResponseEntity<Order> response = checkoutController.checkout("JD1");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(mockInventoryDAO, never()).reserveProducts(any());
+    }
+
+    @Test
+    void testCheckoutOutOfStock() throws IOException {
+        when(mockInventoryDAO.reserveProducts(cart)).thenThrow(new IllegalStateException());
+
+        ResponseEntity<Order> response = checkoutController.checkout("JD1");
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        verify(mockUsersDAO, never()).clearCartIfUnchanged(any(), any());
+    }
+
+    @Test
+    void testCheckoutCartChanged() throws IOException {
+        when(mockInventoryDAO.reserveProducts(cart)).thenReturn(new Product[0]);
+        when(mockUsersDAO.clearCartIfUnchanged("JD1", cart)).thenReturn(false);
+
+        ResponseEntity<Order> response = checkoutController.checkout("JD1");
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        verify(mockInventoryDAO).releaseProducts(cart);
+    }
+
+    @Test
+    void testCheckoutIOException() throws IOException {
+        when(mockInventoryDAO.reserveProducts(cart)).thenReturn(new Product[0]);
+        doThrow(new IOException()).when(mockUsersDAO).clearCartIfUnchanged("JD1", cart);
+
+        ResponseEntity<Order> response = checkoutController.checkout("JD1");
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        verify(mockInventoryDAO).releaseProducts(cart);
+    }
+
+    @Test
+    void testCheckoutKeepsCartWhenUsersWriteFails(@TempDir Path tempDir) throws IOException {
+        ObjectMapper objectMapper = spy(new ObjectMapper());
+        UsersFileDAO usersFileDAO = new UsersFileDAO(objectMapper, tempDir.resolve("users.json").toString(),
+                "sync", 1000, 100, 1000, 1000);
+        CheckoutController controller = new CheckoutController(mockInventoryDAO, usersFileDAO);
+
+        usersFileDAO.addToCart("admin", 1, 2);
+        usersFileDAO.addToCart("admin", 4, 1);
+        when(mockInventoryDAO.reserveProducts(cart)).thenReturn(new Product[0]);
+        doThrow(new IOException("disk full")).when(objectMapper).writeValue(any(OutputStream.class), any());
+
+        ResponseEntity<Order> response = controller.checkout("admin");
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals(cart, usersFileDAO.getCart("admin"));
+        verify(mockInventoryDAO).releaseProducts(cart);
+    }
+
+    @Test
+    void testCheckoutKeepsStockWhenInventoryWriteFails(@TempDir Path tempDir) throws IOException {
+        ObjectMapper objectMapper = spy(new ObjectMapper());
+        File file = tempDir.resolve("inventory.json").toFile();
+        new ObjectMapper().writeValue(file, new Product[] {new Product("Hat", 1, "A hat", 5, 10),
+                new Product("Coat", 4, "A coat", 40, 3)});
+        InventoryFileDAO inventoryFileDAO = new InventoryFileDAO(objectMapper, file.getPath());
+        CheckoutController controller = new CheckoutController(inventoryFileDAO, mockUsersDAO);
+
+        doThrow(new IOException("disk full")).when(objectMapper).writeValue(any(OutputStream.class), any());
+
+        ResponseEntity<Order> response = controller.checkout("JD1");
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals(10, inventoryFileDAO.getProduct(1).getQuantity());
+        assertEquals(3, inventoryFileDAO.getProduct(4).getQuantity());
+        verify(mockUsersDAO, never()).clearCartIfUnchanged(any(), any());
+
+        // The next successful write must not carry the failed reservation to disk
+        reset(objectMapper);
+        inventoryFileDAO.reserveStock(4, 1);
+
+        InventoryFileDAO reloaded = new InventoryFileDAO(new ObjectMapper(), file.getPath());
+
+        assertEquals(10, reloaded.getProduct(1).getQuantity());
+        assertEquals(2, reloaded.getProduct(4).getQuantity());
+    }
+
+    @Test
+    void testCheckoutReleaseFailureKeepsCause() throws IOException {
+        when(mockInventoryDAO.reserveProducts(cart)).thenReturn(new Product[0]);
+        doThrow(new IOException("users file")).when(mockUsersDAO).clearCartIfUnchanged("JD1", cart);
+        doThrow(new IOException("inventory file")).when(mockInventoryDAO).releaseProducts(cart);
+
+        ResponseEntity<Order> response = checkoutController.checkout("JD1");
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        verify(mockInventoryDAO).releaseProducts(cart);
+    }
+}
@@ -4,15 +4,22 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
 
 import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.ProductImportResult;
 import com.estore.api.estoreapi.persistence.InventoryDAO;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Tests the Inventory Controller
@@ -62,29 +69,29 @@ class InventoryControllerTest {
     }
 
     @Test
-    void testGetProductEmpty() {
+    void testGetProductEmpty() throws IOException {
         Product[] inventory = {};
 
         when(mockInventoryDAO.getInventory()).thenReturn(inventory);
 
-        ResponseEntity<Product[]> response = inventoryController.getInventory();
+        ResponseEntity<byte[]> response = inventoryController.getInventory(null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(inventory, response.getBody());
+        Assertions.assertArrayEquals(inventory, new ObjectMapper().readValue(response.getBody(), Product[].class));
     }
 
     @Test
-    void testGetProductOne() {
+    void testGetProductOne() throws IOException {
         Product[] inventory = {new Product("Product", 0, "A product.", 0, 10)};
 
         when(mockInventoryDAO.getInventory()).thenReturn(inventory);
 
-        ResponseEntity<Product[]> response = inventoryController.getInventory();
+        ResponseEntity<byte[]> response = inventoryController.getInventory(null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(inventory, response.getBody());
+        Assertions.assertArrayEquals(inventory, new ObjectMapper().readValue(response.getBody(), Product[].class));
     }
 
     @Test
-    void testGetProductMulti() {
+    void testGetProductMulti() throws IOException {
         Product[] inventory = {
                 new Product("Product", 0, "A product.", 0, 10),
                 new Product("Another Product", 1, "Electric Boogaloo", 2, 10),
@@ -93,10 +100,68 @@ class InventoryControllerTest {
 
         when(mockInventoryDAO.getInventory()).thenReturn(inventory);
 
-        ResponseEntity<Product[]> response = inventoryController.getInventory();
+        ResponseEntity<byte[]> response = inventoryController.getInventory(null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        Assertions.assertEquals(inventory, response.getBody());
+        Assertions.assertArrayEquals(inventory, new ObjectMapper().readValue(response.getBody(), Product[].class));
+    }
+
+    @Test
+    void testGetInventoryCachedPerVersion() {
+        Product[] inventory = {new Product("Product", 0, "A product.", 0, 10)};
+
+        when(mockInventoryDAO.getInventory()).thenReturn(inventory);
+        when(mockInventoryDAO.getVersion()).thenReturn(1L);
+
+        ResponseEntity<byte[]> first = inventoryController.getInventory(null, null);
+        ResponseEntity<byte[]> second = inventoryController.getInventory(null, null);
+
+        Assertions.assertSame(first.getBody(), second.getBody());
+        verify(mockInventoryDAO, times(1)).getInventory();
+
+        when(mockInventoryDAO.getVersion()).thenReturn(2L);
+        inventoryController.getInventory(null, null);
+
+        verify(mockInventoryDAO, times(2)).getInventory();
+    }
+
+    @Test
+    void testGetInventoryNotModified() {
+        Product[] inventory = {new Product("Product", 0, "A product.", 0, 10)};
+
+        when(mockInventoryDAO.getInventory()).thenReturn(inventory);
+
+        String etag = inventoryController.getInventory(null, null).getHeaders().getETag();
+        ResponseEntity<byte[]> response = inventoryController.getInventory(etag, null);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(etag, response.getHeaders().getETag());
+        Assertions.assertNull(response.getBody());
+    }
+
+    @Test
+    void testGetInventoryGzip() throws IOException {
+        Product[] inventory = {new Product("Product", 0, "A product.", 0, 10)};
+
+        when(mockInventoryDAO.getInventory()).thenReturn(inventory);
+
+        ResponseEntity<byte[]> response = inventoryController.getInventory(null, "gzip, deflate");
+
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            Assertions.assertArrayEquals(inventory, new ObjectMapper().readValue(in, Product[].class));
+        }
+    }
+
+    @Test
+    void testUpdateProductConflict() throws IOException {
+        Product updatedProduct = new Product("Taken", 1, "product new", 10, 10);
+
+        doThrow(new IllegalArgumentException()).when(mockInventoryDAO).updateProduct(updatedProduct);
+
+        ResponseEntity<Product> response = inventoryController.updateProduct(updatedProduct);
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
     }
 
     @Test
@@ -226,4 +291,164 @@ class InventoryControllerTest {
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
+
+    @Test
+    void testGetInventoryPageByCursor() {
+        Product[] page = {new Product("Product", 4, "A product.", 0, 10), new Product("Another Product", 7, "Electric Boogaloo", 2, 10)};
+
+        when(mockInventoryDAO.getInventoryAfter(3, 2)).thenReturn(page);
+
+        ResponseEntity<Product[]> response = inventoryController.getInventoryPage(2, 0, 3);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(page, response.getBody());
+        assertEquals("7", response.getHeaders().getFirst("X-Next-Cursor"));
+    }
+
+    @Test
+    void testGetInventoryPageByOffset() {
+        Product[] page = {new Product("Product", 4, "A product.", 0, 10)};
+
+        when(mockInventoryDAO.getInventoryPage(10, 5)).thenReturn(page);
+
+        ResponseEntity<Product[]> response = inventoryController.getInventoryPage(5, 10, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(page, response.getBody());
+        Assertions.assertNull(response.getHeaders().getFirst("X-Next-Cursor"));
+    }
+
+    @Test
+    void testGetInventoryPageBadLimit() {
+        assertEquals(HttpStatus.BAD_REQUEST, inventoryController.getInventoryPage(0, 0, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, inventoryController.getInventoryPage(5000, 0, null).getStatusCode());
+    }
+
+    @Test
+    void testFindProductPage() throws IOException {
+        Product[] products = {
+                new Product("Product", 0, "A product.", 0, 10),
+                new Product("Another Product", 1, "Electric Boogaloo", 2, 10),
+                new Product("A Third Product?!?!", 2, "It's getting out of hand", 1, 10),
+        };
+
+        when(mockInventoryDAO.findProduct("Product")).thenReturn(products);
+
+        ResponseEntity<Product[]> response = inventoryController.findProductPage("Product", 2, 1);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertArrayEquals(new Product[]{products[1], products[2]}, response.getBody());
+    }
+
+    @Test
+    void testStreamInventory() throws IOException {
+        Product[] first = new Product[256];
+
+        for (int i = 0; i < first.length; i++) {
+            first[i] = new Product("Product " + i, i, "", 0, 1);
+        }
+
+        when(mockInventoryDAO.getInventoryAfter(Integer.MIN_VALUE, 256)).thenReturn(first);
+        when(mockInventoryDAO.getInventoryAfter(255, 256)).thenReturn(new Product[]{new Product("Last", 300, "", 0, 1)});
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        inventoryController.streamInventory().getBody().writeTo(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(257, lines.length);
+        assertEquals("Last", new ObjectMapper().readValue(lines[256], Product.class).getName());
+    }
+
+    @Test
+    void testImportProducts() throws IOException {
+        Product[] products = {new Product("Product", 0, "A product.", 0, 10)};
+        ProductImportResult[] results = {new ProductImportResult(0, ProductImportResult.Status.CREATED, products[0], null)};
+
+        when(mockInventoryDAO.importProducts(products, false)).thenReturn(results);
+
+        ResponseEntity<ProductImportResult[]> response = inventoryController.importProducts(products, false);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(results, response.getBody());
+    }
+
+    @Test
+    void testImportProductsAtomicRejected() throws IOException {
+        Product[] products = {new Product("", 0, "A product.", 0, 10)};
+        ProductImportResult[] results = {new ProductImportResult(0, ProductImportResult.Status.INVALID, null, "Name is required")};
+
+        when(mockInventoryDAO.importProducts(products, true)).thenReturn(results);
+
+        ResponseEntity<ProductImportResult[]> response = inventoryController.importProducts(products, true);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+    }
+
+    @Test
+    void testImportProductsHandleIOException() throws IOException {
+        Product[] products = {new Product("Product", 0, "A product.", 0, 10)};
+
+        doThrow(new IOException()).when(mockInventoryDAO).importProducts(products, false);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, inventoryController.importProducts(products, false).getStatusCode());
+    }
+
+    @Test
+    void testImportProductsAtomicUnsupported() throws IOException {
+        Product[] products = {new Product("Product", 0, "A product.", 0, 10)};
+
+        doThrow(new UnsupportedOperationException("Atomic imports need a single shard")).when(mockInventoryDAO).importProducts(products, true);
+
+        assertEquals(HttpStatus.NOT_IMPLEMENTED, inventoryController.importProducts(products, true).getStatusCode());
+    }
+
+    @Test
+    void testImportProductStream() throws IOException {
+        String body = "{\"name\":\"One\",\"id\":0,\"description\":\"\",\"price\":1,\"quantity\":1}\n"
+                + "{\"name\":\"Two\",\"id\":0,\"description\":\"\",\"price\":1,\"quantity\":1}\n";
+
+        when(mockInventoryDAO.importProducts(any(Product[].class), eq(false))).thenReturn(new ProductImportResult[2]);
+
+        ResponseEntity<ProductImportResult[]> response = inventoryController.importProductStream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), false);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(mockInventoryDAO).importProducts(argThat(products -> products.length == 2 && products[1].getName().equals("Two")), eq(false));
+        assertEquals(HttpStatus.BAD_REQUEST, inventoryController.importProductStream(new ByteArrayInputStream("{oops".getBytes(StandardCharsets.UTF_8)), false).getStatusCode());
+    }
+
+    @Test
+    void testReserveStock() throws IOException {
+        Product reserved = new Product("Product", 1, "A product.", 0, 7);
+
+        when(mockInventoryDAO.reserveStock(1, 3)).thenReturn(reserved);
+
+        ResponseEntity<Product> response = inventoryController.reserveStock(1, 3);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(reserved, response.getBody());
+    }
+
+    @Test
+    void testReserveStockOutcomes() throws IOException {
+        when(mockInventoryDAO.reserveStock(1, 99)).thenThrow(new IllegalStateException());
+        when(mockInventoryDAO.reserveStock(1, 0)).thenThrow(new IllegalArgumentException());
+        when(mockInventoryDAO.reserveStock(2, 1)).thenReturn(null);
+        when(mockInventoryDAO.reserveStock(3, 1)).thenThrow(new IOException());
+
+        assertEquals(HttpStatus.CONFLICT, inventoryController.reserveStock(1, 99).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, inventoryController.reserveStock(1, 0).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, inventoryController.reserveStock(2, 1).getStatusCode());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, inventoryController.reserveStock(3, 1).getStatusCode());
+    }
+
+    @Test
+    void testReleaseAndAdjustStock() throws IOException {
+        Product product = new Product("Product", 1, "A product.", 0, 12);
+
+        when(mockInventoryDAO.releaseStock(1, 2)).thenReturn(product);
+        when(mockInventoryDAO.adjustQuantity(1, -5)).thenReturn(product);
+
+        assertEquals(HttpStatus.OK, inventoryController.releaseStock(1, 2).getStatusCode());
+        assertEquals(HttpStatus.OK, inventoryController.adjustQuantity(1, -5).getStatusCode());
+    }
 }
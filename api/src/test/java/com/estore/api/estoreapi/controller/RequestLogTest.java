@@ -0,0 +1,117 @@
+package com.estore.api.estoreapi.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the RequestLog
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Controller-Tier")
+class RequestLogTest {
+    Logger logger;
+    List<LogRecord> records;
+    Handler handler;
+
+    @BeforeEach
+    void setupLogger() {
+        logger = Logger.getLogger(RequestLogTest.class.getName());
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.INFO);
+        records = new ArrayList<>();
+        handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        handler.setLevel(Level.ALL);
+        logger.addHandler(handler);
+    }
+
+    @AfterEach
+    void removeHandler() {
+        logger.removeHandler(handler);
+    }
+
+    @Test
+    void testLogsEveryRequestAtRateOne() {
+        RequestLog requestLog = new RequestLog(logger, 1);
+
+        requestLog.log("GET /inventory/{0,number,#}", 12345);
+        requestLog.log("POST /user/cart/{0}/{1,number,#}?quantity={2,number,#}", "admin", 3, 2);
+
+        assertEquals(2, records.size());
+        assertEquals(Level.INFO, records.get(0).getLevel());
+        assertEquals("GET /inventory/{0,number,#}", records.get(0).getMessage());
+        assertArrayEquals(new Object[] {12345}, records.get(0).getParameters());
+        assertArrayEquals(new Object[] {"admin", 3, 2}, records.get(1).getParameters());
+    }
+
+    @Test
+    void testLogsParameters() {
+        RequestLog requestLog = new RequestLog(logger, 1);
+
+        requestLog.log("POST /inventory {0}", "product");
+        requestLog.log("POST /inventory/{0,number,#}/reserve {1,number,#}", 1000, 2);
+        requestLog.log("DELETE /user/cart/{0}/{1,number,#}", "admin", 3);
+
+        assertArrayEquals(new Object[] {"product"}, records.get(0).getParameters());
+        assertArrayEquals(new Object[] {1000, 2}, records.get(1).getParameters());
+        assertArrayEquals(new Object[] {"admin", 3}, records.get(2).getParameters());
+    }
+
+    @Test
+    void testSamplesAtInfo() {
+        RequestLog requestLog = new RequestLog(logger, 10);
+
+        for (int i = 0; i < 10_000; i++) {
+            requestLog.log("GET /inventory");
+        }
+
+        assertTrue(records.size() > 700 && records.size() < 1300, records.size() + " lines logged");
+    }
+
+    @Test
+    void testLogsNothingAtRateZero() {
+        RequestLog requestLog = new RequestLog(logger, 0);
+
+        requestLog.log("GET /inventory");
+        logger.setLevel(Level.WARNING);
+        requestLog.setSampleRate(1);
+        requestLog.log("GET /inventory");
+
+        assertTrue(records.isEmpty());
+    }
+
+    @Test
+    void testLogsEveryRequestAtFine() {
+        RequestLog requestLog = new RequestLog(logger, 0);
+        logger.setLevel(Level.FINE);
+
+        requestLog.log("GET /inventory");
+
+        assertEquals(1, records.size());
+        assertEquals(Level.FINE, records.get(0).getLevel());
+    }
+}
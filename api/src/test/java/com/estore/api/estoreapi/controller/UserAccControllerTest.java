@@ -1,8 +1,12 @@
 package com.estore.api.estoreapi.controller;
 
 import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.SessionToken;
 import com.estore.api.estoreapi.model.UserAccount;
+import com.estore.api.estoreapi.persistence.CredentialVerifier;
+import com.estore.api.estoreapi.persistence.SessionStore;
 import com.estore.api.estoreapi.persistence.UsersFileDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -13,19 +17,34 @@ import org.junit.jupiter.api.Assertions;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.Mockito.*;
 
 @Tag("Controller-Tier")
 class UserAccControllerTest {
     private UserAccountController userAccountController;
     private UsersFileDAO mockUsersDAO;
+    private CredentialVerifier mockVerifier;
+    private SessionStore sessionStore;
 
     @BeforeEach
     void setup() {
         mockUsersDAO = mock(UsersFileDAO.class);
-        userAccountController = new UserAccountController(mockUsersDAO);
+        mockVerifier = mock(CredentialVerifier.class);
+        sessionStore = new SessionStore(60_000, 60_000);
+        userAccountController = new UserAccountController(mockUsersDAO, mockVerifier, sessionStore);
+
+        when(mockVerifier.submit(any())).thenAnswer(invocation -> {
+            try {
+                return CompletableFuture.completedFuture(invocation.<CredentialVerifier.AccountWrite<?>>getArgument(0).write());
+            } catch (IOException | RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
     }
 
     @Test
@@ -34,7 +53,7 @@ class UserAccControllerTest {
 
         when(mockUsersDAO.createUserAccount(user)).thenReturn(user);
 
-        ResponseEntity<UserAccount> response = userAccountController.createUserAccount(user);
+        ResponseEntity<UserAccount> response = userAccountController.createUserAccount(user).join();
 
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertEquals(user, response.getBody());
@@ -46,22 +65,42 @@ class UserAccControllerTest {
 
         doThrow(new IllegalArgumentException()).when(mockUsersDAO).createUserAccount(user);
 
-        ResponseEntity<UserAccount> response = userAccountController.createUserAccount(user);
+        ResponseEntity<UserAccount> response = userAccountController.createUserAccount(user).join();
 
         assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
     }
 
+    @Test
+    void testCreateUserWithoutPassword() throws IOException {
+        ResponseEntity<UserAccount> response = userAccountController.createUserAccount(new UserAccount("John", "Doe", "JD1", null)).join();
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(mockUsersDAO, never()).createUserAccount(any());
+    }
+
     @Test
     void testCreateUserIOException() throws IOException {
         UserAccount user = new UserAccount("John", "Doe", "JD1", "password");
 
         doThrow(new IOException()).when(mockUsersDAO).createUserAccount(user);
 
-        ResponseEntity<UserAccount> response = userAccountController.createUserAccount(user);
+        ResponseEntity<UserAccount> response = userAccountController.createUserAccount(user).join();
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
+    @Test
+    void testCreateUserHashingBusy() throws IOException {
+        UserAccount user = new UserAccount("John", "Doe", "JD1", "password");
+
+        when(mockVerifier.submit(any())).thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException()));
+
+        ResponseEntity<UserAccount> response = userAccountController.createUserAccount(user).join();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        verify(mockUsersDAO, never()).createUserAccount(any());
+    }
+
     @Test
     void testGetUser() throws IOException {
         UserAccount user = new UserAccount("John", "Doe", "JD1", "password");
@@ -74,6 +113,19 @@ class UserAccControllerTest {
         assertEquals(user, response.getBody());
     }
 
+    @Test
+    void testGetUserHidesPasswordHash() throws IOException {
+        UserAccount user = new UserAccount("John", "Doe", "JD1", null);
+        user.setPasswordHash("pbkdf2-sha256$1000$c2FsdA$aGFzaA");
+
+        when(mockUsersDAO.getUserAccount("JD1")).thenReturn(user);
+
+        String body = new ObjectMapper().writeValueAsString(userAccountController.getUserAccount("JD1").getBody());
+
+        assertFalse(body.contains("passwordHash"));
+        assertFalse(body.contains("pbkdf2"));
+    }
+
     @Test
     void testGetUserUnavailable() throws IOException {
         ResponseEntity<UserAccount> response = userAccountController.getUserAccount("JD1");
@@ -96,19 +148,44 @@ class UserAccControllerTest {
 
         when(mockUsersDAO.updateUserAccount(user)).thenReturn(user);
 
-        ResponseEntity<UserAccount> response = userAccountController.updateUserAccount(user);
+        ResponseEntity<UserAccount> response = userAccountController.updateUserAccount(user).join();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(user, response.getBody());
     }
 
+    @Test
+    void testUpdateUserWithoutPasswordSkipsHashing() throws IOException {
+        UserAccount user = new UserAccount("John", "Doe", "JD1", null);
+
+        when(mockUsersDAO.updateUserAccount(user)).thenReturn(user);
+
+        ResponseEntity<UserAccount> response = userAccountController.updateUserAccount(user).join();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(mockVerifier, never()).submit(any());
+
+        doThrow(new IOException()).when(mockUsersDAO).updateUserAccount(user);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, userAccountController.updateUserAccount(user).join().getStatusCode());
+    }
+
+    @Test
+    void testUpdateUserHashingBusy() {
+        UserAccount user = new UserAccount("John", "Doe", "JD1", "password");
+
+        when(mockVerifier.submit(any())).thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException()));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, userAccountController.updateUserAccount(user).join().getStatusCode());
+    }
+
     @Test
     void testUpdateUserUnavailable() throws IOException {
         UserAccount user = new UserAccount("John", "Doe", "JD1", "password");
 
         when(mockUsersDAO.updateUserAccount(user)).thenReturn(null);
 
-        ResponseEntity<UserAccount> response = userAccountController.updateUserAccount(user);
+        ResponseEntity<UserAccount> response = userAccountController.updateUserAccount(user).join();
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
@@ -119,7 +196,7 @@ class UserAccControllerTest {
 
         doThrow(new IOException()).when(mockUsersDAO).updateUserAccount(user);
 
-        ResponseEntity<UserAccount> response = userAccountController.updateUserAccount(user);
+        ResponseEntity<UserAccount> response = userAccountController.updateUserAccount(user).join();
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
@@ -157,18 +234,18 @@ class UserAccControllerTest {
 
     @Test
     void testLogInUserAccount() throws IOException {
-        when(mockUsersDAO.logInUserAccount("JD1", "password")).thenReturn(true);
+        when(mockVerifier.verify("JD1", "password")).thenReturn(CompletableFuture.completedFuture(true));
 
-        ResponseEntity<Boolean> response = userAccountController.logInUserAccount("JD1", "password");
+        ResponseEntity<Boolean> response = userAccountController.logInUserAccount("JD1", "password").join();
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
     void testLogInUserAccountInvalid() throws IOException {
-        when(mockUsersDAO.logInUserAccount("JD1", "passwords")).thenReturn(false);
+        when(mockVerifier.verify("JD1", "passwords")).thenReturn(CompletableFuture.completedFuture(false));
 
-        ResponseEntity<Boolean> response = userAccountController.logInUserAccount("JD1", "passwords");
+        ResponseEntity<Boolean> response = userAccountController.logInUserAccount("JD1", "passwords").join();
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
@@ -177,13 +254,22 @@ class UserAccControllerTest {
     void testLogInUserAccountIOExcept() throws IOException {
         UserAccount user = new UserAccount("John", "Doe", "JD1", "password");
 
-        doThrow(new IOException()).when(mockUsersDAO).logInUserAccount("JD1", "passwords");
+        when(mockVerifier.verify("JD1", "passwords")).thenReturn(CompletableFuture.failedFuture(new IOException()));
 
-        ResponseEntity<Boolean> response = userAccountController.logInUserAccount("JD1", "passwords");
+        ResponseEntity<Boolean> response = userAccountController.logInUserAccount("JD1", "passwords").join();
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
+    @Test
+    void testLogInUserAccountOverloaded() {
+        when(mockVerifier.verify("JD1", "password")).thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException()));
+
+        ResponseEntity<Boolean> response = userAccountController.logInUserAccount("JD1", "password").join();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+
     @Test
     void testGetCart() throws IOException {
         when(mockUsersDAO.getCart("JD1")).thenReturn(new HashMap<Integer, Integer>());
@@ -242,4 +328,121 @@ class UserAccControllerTest {
 
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
+
+    @Test
+    void testAddToCart() throws IOException {
+        Map<Integer, Integer> cart = new HashMap<>();
+        cart.put(4, 2);
+
+        when(mockUsersDAO.addToCart("JD1", 4, 2)).thenReturn(cart);
+
+        ResponseEntity<Map<Integer, Integer>> response = userAccountController.addToCart("JD1", 4, 2);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(cart, response.getBody());
+    }
+
+    @Test
+    void testAddToCartBadQuantity() throws IOException {
+        when(mockUsersDAO.addToCart("JD1", 4, 0)).thenThrow(new IllegalArgumentException());
+
+        ResponseEntity<Map<Integer, Integer>> response = userAccountController.addToCart("JD1", 4, 0);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void testSetCartQuantityNotFound() throws IOException {
+        when(mockUsersDAO.setCartQuantity("JD1", 4, 3)).thenReturn(null);
+
+        ResponseEntity<Map<Integer, Integer>> response = userAccountController.setCartQuantity("JD1", 4, 3);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testRemoveFromCartIOException() throws IOException {
+        doThrow(new IOException()).when(mockUsersDAO).removeFromCart("JD1", 4);
+
+        ResponseEntity<Map<Integer, Integer>> response = userAccountController.removeFromCart("JD1", 4);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
+
+    @Test
+    void testStartSession() throws IOException {
+        Map<Integer, Integer> cart = new HashMap<>();
+        cart.put(1, 2);
+
+        when(mockVerifier.verify("JD1", "password")).thenReturn(CompletableFuture.completedFuture(true));
+        when(mockUsersDAO.getCart("JD1")).thenReturn(cart);
+
+        ResponseEntity<SessionToken> response = userAccountController.startSession(new UserAccount("John", "Doe", "JD1", "password")).join();
+        String authorization = "Bearer " + response.getBody().getToken();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("JD1", userAccountController.getSessionUser(authorization).getBody());
+        assertEquals(cart, userAccountController.getSessionCart(authorization).getBody());
+        verify(mockUsersDAO, never()).getUserAccount(any());
+
+        assertEquals(HttpStatus.OK, userAccountController.endSession(authorization).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, userAccountController.getSessionUser(authorization).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, userAccountController.endSession(authorization).getStatusCode());
+    }
+
+    @Test
+    void testStartSessionInvalid() {
+        when(mockVerifier.verify("JD1", "wrong")).thenReturn(CompletableFuture.completedFuture(false));
+
+        ResponseEntity<SessionToken> response = userAccountController.startSession(new UserAccount("John", "Doe", "JD1", "wrong")).join();
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        assertEquals(0, sessionStore.size());
+    }
+
+    @Test
+    void testSessionWithoutToken() {
+        assertEquals(HttpStatus.UNAUTHORIZED, userAccountController.getSessionUser(null).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, userAccountController.getSessionUser("Basic abc").getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, userAccountController.getSessionCart("Bearer nope").getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, userAccountController.addToSessionCart(null, 1, 1).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, userAccountController.setSessionCartQuantity("Bearer nope", 1, 1).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, userAccountController.removeFromSessionCart("Bearer nope", 1).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, userAccountController.clearSessionCart("Bearer nope").getStatusCode());
+        verifyNoInteractions(mockUsersDAO);
+    }
+
+    @Test
+    void testSessionCartChanges() throws IOException {
+        String authorization = "Bearer " + sessionStore.issue("JD1").getToken();
+        Map<Integer, Integer> cart = Map.of(1, 3);
+
+        when(mockUsersDAO.addToCart("JD1", 1, 2)).thenReturn(cart);
+        when(mockUsersDAO.setCartQuantity("JD1", 1, 3)).thenReturn(cart);
+        when(mockUsersDAO.removeFromCart("JD1", 1)).thenReturn(Map.of());
+
+        assertEquals(cart, userAccountController.addToSessionCart(authorization, 1, 2).getBody());
+        assertEquals(cart, userAccountController.setSessionCartQuantity(authorization, 1, 3).getBody());
+        assertEquals(Map.of(), userAccountController.removeFromSessionCart(authorization, 1).getBody());
+        assertEquals(HttpStatus.OK, userAccountController.clearSessionCart(authorization).getStatusCode());
+        verify(mockUsersDAO).clearCart("JD1");
+    }
+
+    @Test
+    void testSessionsRevokedOnDeleteAndPasswordChange() throws IOException {
+        String first = "Bearer " + sessionStore.issue("JD1").getToken();
+        UserAccount changed = new UserAccount("John", "Doe", "JD1", "new password");
+
+        when(mockUsersDAO.updateUserAccount(changed)).thenReturn(changed);
+        userAccountController.updateUserAccount(changed).join();
+
+        assertEquals(HttpStatus.UNAUTHORIZED, userAccountController.getSessionUser(first).getStatusCode());
+
+        String second = "Bearer " + sessionStore.issue("JD1").getToken();
+
+        when(mockUsersDAO.deleteUserAccount("JD1")).thenReturn(true);
+        userAccountController.deleteUserAccount("JD1");
+
+        assertEquals(HttpStatus.UNAUTHORIZED, userAccountController.getSessionUser(second).getStatusCode());
+    }
 }
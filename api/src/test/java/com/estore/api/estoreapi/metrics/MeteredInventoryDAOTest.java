@@ -0,0 +1,79 @@
+package com.estore.api.estoreapi.metrics;
+
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.persistence.InventoryDAO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the MeteredInventoryDAO
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Persistence-Tier")
+class MeteredInventoryDAOTest {
+    InventoryDAO mockInventoryDAO;
+    SimpleMeterRegistry registry;
+    MeteredInventoryDAO inventoryDAO;
+
+    @BeforeEach
+    void setupDAO() {
+        mockInventoryDAO = mock(InventoryDAO.class);
+        registry = new SimpleMeterRegistry();
+        inventoryDAO = new MeteredInventoryDAO(mockInventoryDAO, registry);
+    }
+
+    @Test
+    void testTimesSuccessfulOperations() throws IOException {
+        Product product = new Product("Cool Product", 0, "It's cool", 1, 10);
+        when(mockInventoryDAO.getProduct(0)).thenReturn(product);
+
+        assertSame(product, inventoryDAO.getProduct(0));
+        assertSame(product, inventoryDAO.getProduct(0));
+
+        assertEquals(2, registry.get("estore.dao.operation")
+                .tags("dao", "inventory", "operation", "getProduct", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void testTimesFailedOperations() throws IOException {
+        Product product = new Product("Cool Product", 0, "It's cool", 1, 10);
+        when(mockInventoryDAO.createProduct(product)).thenThrow(new IOException());
+
+        assertThrows(IOException.class, () -> inventoryDAO.createProduct(product));
+
+        assertEquals(1, registry.get("estore.dao.operation")
+                .tags("operation", "createProduct", "outcome", "error").timer().count());
+        assertEquals(0, registry.get("estore.dao.operation")
+                .tags("operation", "createProduct", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void testRecordsSearchResultSizes() throws IOException {
+        Product[] found = {new Product("Cool Product", 0, "It's cool", 1, 10), new Product("Cool Hat", 1, "Also cool", 1, 10)};
+        when(mockInventoryDAO.findProduct("cool")).thenReturn(found);
+
+        assertSame(found, inventoryDAO.findProduct("cool"));
+
+        assertEquals(1, registry.get("estore.dao.search.results").summary().count());
+        assertEquals(2, registry.get("estore.dao.search.results").summary().totalAmount());
+    }
+
+    @Test
+    void testVersionIsNotTimed() {
+        when(mockInventoryDAO.getVersion()).thenReturn(7L);
+
+        assertEquals(7, inventoryDAO.getVersion());
+        verify(mockInventoryDAO).getVersion();
+        assertTrue(registry.find("estore.dao.operation").tag("operation", "getVersion").timers().isEmpty());
+    }
+}
@@ -0,0 +1,67 @@
+package com.estore.api.estoreapi.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the MicrometerPersistenceMetrics
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Persistence-Tier")
+class MicrometerPersistenceMetricsTest {
+    SimpleMeterRegistry registry;
+    MicrometerPersistenceMetrics metrics;
+
+    @BeforeEach
+    void setupMetrics() {
+        registry = new SimpleMeterRegistry();
+        metrics = new MicrometerPersistenceMetrics(registry);
+    }
+
+    @Test
+    void testLocks() {
+        metrics.lockWaited("inventory.save", 1_000);
+        metrics.lockWaited("inventory.save", 3_000);
+        metrics.lockHeld("inventory.save", 5_000);
+
+        assertEquals(2, registry.get("estore.lock.wait").tag("lock", "inventory.save").timer().count());
+        assertEquals(4_000, registry.get("estore.lock.wait").timer().totalTime(TimeUnit.NANOSECONDS));
+        assertEquals(1, registry.get("estore.lock.hold").tag("lock", "inventory.save").timer().count());
+    }
+
+    @Test
+    void testFileWrites() {
+        metrics.fileWritten("inventory.json", 100, 2_000);
+        metrics.fileWritten("inventory.json", 250, 2_000);
+
+        assertEquals(2, registry.get("estore.file.write").tag("file", "inventory.json").timer().count());
+        assertEquals(350, registry.get("estore.file.bytes").summary().totalAmount());
+        assertEquals(250, registry.get("estore.file.size").tag("file", "inventory.json").gauge().value());
+    }
+
+    @Test
+    void testJournalAppends() {
+        metrics.journalAppended("users.json.carts", 3, 120, 1_000);
+
+        assertEquals(1, registry.get("estore.journal.append").tag("journal", "users.json.carts").timer().count());
+        assertEquals(120, registry.get("estore.journal.bytes").summary().totalAmount());
+        assertEquals(3, registry.get("estore.journal.records").summary().totalAmount());
+    }
+
+    @Test
+    void testCacheAccesses() {
+        metrics.cacheAccessed("login", true);
+        metrics.cacheAccessed("login", true);
+        metrics.cacheAccessed("login", false);
+
+        assertEquals(2, registry.get("estore.cache.requests").tags("cache", "login", "result", "hit").counter().count());
+        assertEquals(1, registry.get("estore.cache.requests").tags("cache", "login", "result", "miss").counter().count());
+    }
+}
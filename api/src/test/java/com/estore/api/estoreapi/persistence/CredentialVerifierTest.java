@@ -0,0 +1,144 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.UserAccount;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Tag("Persistence-Tier")
+class CredentialVerifierTest {
+    UsersDAO mockUsersDAO;
+    CredentialVerifier verifier;
+    UserAccount account;
+
+    @BeforeEach
+    void setup() throws IOException {
+        mockUsersDAO = mock(UsersDAO.class);
+        account = new UserAccount("Jane", "Doe", "JD0", null);
+        account.setPasswordHash(new PasswordHasher(10).hash("password"));
+
+        when(mockUsersDAO.getUserAccount("JD0")).thenReturn(account);
+        verifier = new CredentialVerifier(mockUsersDAO, 1, 1, 16, 60_000);
+    }
+
+    @AfterEach
+    void close() {
+        verifier.close();
+    }
+
+    @Test
+    void testVerifyRunsOffCallerThread() throws IOException {
+        String caller = Thread.currentThread().getName();
+        String[] verifiedOn = new String[1];
+
+        when(mockUsersDAO.logInUserAccount("JD0", "password")).thenAnswer(invocation -> {
+            verifiedOn[0] = Thread.currentThread().getName();
+            return true;
+        });
+
+        assertTrue(verifier.verify("JD0", "password").join());
+        assertNotEquals(caller, verifiedOn[0]);
+        assertTrue(verifiedOn[0].startsWith("login-verifier-"));
+    }
+
+    @Test
+    void testRecentLoginIsCached() throws IOException {
+        when(mockUsersDAO.logInUserAccount("JD0", "password")).thenReturn(true);
+        when(mockUsersDAO.logInUserAccount("JD0", "wrong")).thenReturn(false);
+
+        assertTrue(verifier.verify("JD0", "password").join());
+        assertTrue(verifier.verify("JD0", "password").join());
+        assertFalse(verifier.verify("JD0", "wrong").join());
+        assertFalse(verifier.verify("JD0", "wrong").join());
+
+        verify(mockUsersDAO, times(1)).logInUserAccount("JD0", "password");
+        verify(mockUsersDAO, times(2)).logInUserAccount("JD0", "wrong");
+    }
+
+    @Test
+    void testPasswordChangeMissesCache() throws IOException {
+        when(mockUsersDAO.logInUserAccount("JD0", "password")).thenReturn(true, false);
+
+        assertTrue(verifier.verify("JD0", "password").join());
+
+        account.setPasswordHash(new PasswordHasher(10).hash("changed"));
+
+        assertFalse(verifier.verify("JD0", "password").join());
+    }
+
+    @Test
+    void testUnknownUser() {
+        assertFalse(verifier.verify("nobody", "password").join());
+        assertFalse(verifier.verify("JD0", null).join());
+    }
+
+    @Test
+    void testIOExceptionFailsFuture() throws IOException {
+        when(mockUsersDAO.logInUserAccount("JD0", "password")).thenThrow(new IOException());
+
+        CompletionException e = assertThrows(CompletionException.class, () -> verifier.verify("JD0", "password").join());
+
+        assertTrue(e.getCause() instanceof IOException);
+    }
+
+    @Test
+    void testOverloadRejected() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(mockUsersDAO.logInUserAccount("JD0", "slow")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return false;
+        });
+
+        CompletableFuture<Boolean> running = verifier.verify("JD0", "slow");
+        started.await();
+        CompletableFuture<Boolean> queued = verifier.verify("JD0", "slow");
+        CompletableFuture<Boolean> rejected = verifier.verify("JD0", "slow");
+
+        CompletionException e = assertThrows(CompletionException.class, rejected::join);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+
+        release.countDown();
+        assertFalse(running.join());
+        assertFalse(queued.join());
+    }
+
+    @Test
+    void testSubmitRunsWriteOffCallerThread() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        String caller = Thread.currentThread().getName();
+        String[] writtenOn = new String[1];
+
+        when(mockUsersDAO.createUserAccount(account)).thenAnswer(invocation -> {
+            writtenOn[0] = Thread.currentThread().getName();
+            release.await();
+            return account;
+        });
+        when(mockUsersDAO.updateUserAccount(account)).thenThrow(new IOException("disk full"));
+
+        CompletableFuture<UserAccount> created = verifier.submit(() -> mockUsersDAO.createUserAccount(account));
+        CompletableFuture<UserAccount> updated = verifier.submit(() -> mockUsersDAO.updateUserAccount(account));
+        CompletableFuture<UserAccount> rejected = verifier.submit(() -> mockUsersDAO.createUserAccount(account));
+
+        assertTrue(assertThrows(CompletionException.class, rejected::join).getCause() instanceof RejectedExecutionException);
+
+        release.countDown();
+
+        assertEquals(account, created.join());
+        assertNotEquals(caller, writtenOn[0]);
+        assertTrue(writtenOn[0].startsWith("login-verifier-"));
+        assertTrue(assertThrows(CompletionException.class, updated::join).getCause() instanceof IOException);
+    }
+}
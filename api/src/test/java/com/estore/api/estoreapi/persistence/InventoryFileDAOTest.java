@@ -2,17 +2,32 @@ package com.estore.api.estoreapi.persistence;
 
 
 import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.ProductImportResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * Tests the InventoryFileDAO
@@ -21,20 +36,24 @@ import static org.mockito.Mockito.when;
  */
 @Tag("Persistence-Tier")
 class InventoryFileDAOTest {
+    @TempDir
+    Path fileDir;
+
     InventoryFileDAO inventoryFileDAO;
     Product[] products;
-    ObjectMapper mockObjMapper;
+    ObjectMapper spyObjMapper;
 
     @BeforeEach
     void setupInvFileDAO() throws IOException {
-        mockObjMapper = mock(ObjectMapper.class);
+        spyObjMapper = spy(new ObjectMapper());
         products = new Product[3];
         products[0] = new Product("Cool Product", 0, "It's cool", 0, 10);
         products[1] = new Product("Lame Product", 1, "It's lame", 0, 10);
         products[2] = new Product("Average Product", 2, "It's average", 0, 10);
 
-        when(mockObjMapper.readValue(new File("InvFileTest.txt"), Product[].class)).thenReturn(products);
-        inventoryFileDAO = new InventoryFileDAO(mockObjMapper, "InvFileTest.txt");
+        File file = fileDir.resolve("InvFileTest.txt").toFile();
+        new ObjectMapper().writeValue(file, products);
+        inventoryFileDAO = new InventoryFileDAO(spyObjMapper, file.getPath());
     }
 
     @Test
@@ -64,6 +83,25 @@ class InventoryFileDAOTest {
         }
     }
 
+    @Test
+    void testCreateNewProductIllegalIgnoresCase() {
+        Product product = new Product("cool PRODUCT", 0, "It's redundant!", 0, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> inventoryFileDAO.createProduct(product));
+    }
+
+    @Test
+    void testNameIndexFollowsRenameAndDelete() throws IOException {
+        inventoryFileDAO.updateProduct(new Product("Cooler Product", 0, "Renamed", 0, 10));
+
+        assertNotNull(inventoryFileDAO.createProduct(new Product("Cool Product", 0, "Name is free again", 0, 10)));
+        assertThrows(IllegalArgumentException.class, () -> inventoryFileDAO.updateProduct(new Product("LAME product", 2, "Taken", 0, 10)));
+
+        inventoryFileDAO.deleteProduct(1);
+
+        assertNotNull(inventoryFileDAO.updateProduct(new Product("Lame Product", 2, "Name is free again", 0, 10)));
+    }
+
     @Test
     void testGetInventory() throws IOException {
         Product[] expected = products;
@@ -74,6 +112,56 @@ class InventoryFileDAOTest {
         assertEquals(expected[2], actual[2]);
     }
 
+    @Test
+    void testGetInventoryVersioned() throws IOException {
+        long version = inventoryFileDAO.getVersion();
+        Product[] first = inventoryFileDAO.getInventory();
+
+        assertSame(first, inventoryFileDAO.getInventory());
+
+        inventoryFileDAO.updateProduct(new Product("Cooler Product", 0, "Updated description", 5, 10));
+        Product[] second = inventoryFileDAO.getInventory();
+
+        assertTrue(inventoryFileDAO.getVersion() > version);
+        assertNotSame(first, second);
+        assertEquals("Cooler Product", second[0].getName());
+        assertEquals("Cool Product", first[0].getName());
+    }
+
+    @Test
+    void testGetInventoryConsistentDuringWrites() throws InterruptedException {
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 500; i++) {
+                assertDoesNotThrow(() -> inventoryFileDAO.createProduct(new Product("Product " + Math.random(), 0, "", 0, 1)));
+            }
+        });
+        writer.start();
+
+        while (writer.isAlive()) {
+            Product[] catalog = inventoryFileDAO.getInventory();
+
+            for (int i = 1; i < catalog.length; i++) {
+                assertTrue(catalog[i - 1].getId() < catalog[i].getId());
+            }
+        }
+
+        writer.join();
+        assertEquals(503, inventoryFileDAO.getInventory().length);
+    }
+
+    @Test
+    void testGetInventoryPage() {
+        assertArrayEquals(new Product[]{products[1], products[2]}, inventoryFileDAO.getInventoryPage(1, 5));
+        assertEquals(0, inventoryFileDAO.getInventoryPage(7, 5).length);
+    }
+
+    @Test
+    void testGetInventoryAfter() {
+        assertArrayEquals(new Product[]{products[0], products[1]}, inventoryFileDAO.getInventoryAfter(Integer.MIN_VALUE, 2));
+        assertArrayEquals(new Product[]{products[2]}, inventoryFileDAO.getInventoryAfter(1, 2));
+        assertEquals(0, inventoryFileDAO.getInventoryAfter(2, 2).length);
+    }
+
     @Test
     void testUpdateProduct() {
         Product updatedProduct = new Product("Cooler Product", 0, "Updated description", 5, 10);
@@ -158,4 +246,232 @@ class InventoryFileDAOTest {
 
         assertArrayEquals(expected, actual);
     }
+
+    @Test
+    void testImportProducts() throws IOException {
+        Product[] batch = {
+                new Product("cool product", 0, "Upserted", 3, 7),
+                new Product("Brand New", 0, "Created", 1, 1),
+                new Product("", 0, "No name", 1, 1),
+                new Product("BRAND NEW", 0, "Repeated", 1, 1),
+        };
+
+        ProductImportResult[] results = inventoryFileDAO.importProducts(batch, false);
+
+        assertEquals(ProductImportResult.Status.UPDATED, results[0].getStatus());
+        assertEquals(0, results[0].getProduct().getId());
+        assertEquals(ProductImportResult.Status.CREATED, results[1].getStatus());
+        assertEquals(3, results[1].getProduct().getId());
+        assertEquals(ProductImportResult.Status.INVALID, results[2].getStatus());
+        assertEquals(ProductImportResult.Status.DUPLICATE, results[3].getStatus());
+        assertEquals(7, inventoryFileDAO.getProduct(0).getQuantity());
+        assertArrayEquals(new Product[]{results[1].getProduct()}, inventoryFileDAO.findProduct("brand"));
+        verify(spyObjMapper, times(1)).writeValue(any(OutputStream.class), any(Product[].class));
+    }
+
+    @Test
+    void testImportProductsAtomic() throws IOException {
+        Product[] batch = {new Product("Brand New", 0, "Created", 1, 1), new Product("Broken", 0, "Negative", -1, 1)};
+
+        ProductImportResult[] results = inventoryFileDAO.importProducts(batch, true);
+
+        assertEquals(ProductImportResult.Status.NOT_APPLIED, results[0].getStatus());
+        assertEquals(ProductImportResult.Status.INVALID, results[1].getStatus());
+        assertEquals(3, inventoryFileDAO.getInventory().length);
+        verify(spyObjMapper, never()).writeValue(any(OutputStream.class), any(Product[].class));
+    }
+
+    @Test
+    void testReserveAndReleaseStock() throws IOException {
+        Product before = inventoryFileDAO.getProduct(0);
+        Product reserved = inventoryFileDAO.reserveStock(0, 4);
+
+        assertEquals(6, reserved.getQuantity());
+        assertEquals(10, before.getQuantity());
+        assertEquals(8, inventoryFileDAO.releaseStock(0, 2).getQuantity());
+        assertEquals(3, inventoryFileDAO.adjustQuantity(0, -5).getQuantity());
+        assertThrows(IllegalStateException.class, () -> inventoryFileDAO.reserveStock(0, 4));
+        assertThrows(IllegalArgumentException.class, () -> inventoryFileDAO.reserveStock(0, 0));
+        assertNull(inventoryFileDAO.reserveStock(-99, 1));
+        assertEquals(3, inventoryFileDAO.getProduct(0).getQuantity());
+    }
+
+    @Test
+    void testReserveProductsAllOrNothing() throws IOException {
+        Map<Integer, Integer> cart = new HashMap<>();
+        cart.put(2, 3);
+        cart.put(0, 4);
+
+        Product[] reserved = inventoryFileDAO.reserveProducts(cart);
+
+        assertEquals(2, reserved.length);
+        assertEquals(0, reserved[0].getId());
+        assertEquals(6, reserved[0].getQuantity());
+        assertEquals(7, reserved[1].getQuantity());
+
+        cart.put(1, 11);
+        assertThrows(IllegalStateException.class, () -> inventoryFileDAO.reserveProducts(cart));
+        cart.put(1, 0);
+        assertThrows(IllegalArgumentException.class, () -> inventoryFileDAO.reserveProducts(cart));
+        cart.remove(1);
+        cart.put(-99, 1);
+        assertThrows(IllegalArgumentException.class, () -> inventoryFileDAO.reserveProducts(cart));
+
+        assertEquals(6, inventoryFileDAO.getProduct(0).getQuantity());
+        assertEquals(10, inventoryFileDAO.getProduct(1).getQuantity());
+
+        cart.remove(-99);
+        inventoryFileDAO.releaseProducts(cart);
+
+        assertEquals(10, inventoryFileDAO.getProduct(0).getQuantity());
+        assertEquals(10, inventoryFileDAO.getProduct(2).getQuantity());
+        verify(spyObjMapper, times(2)).writeValue(any(OutputStream.class), any(Product[].class));
+    }
+
+    @Test
+    void testFailedStockWriteRestoresStock() throws IOException {
+        Map<Integer, Integer> cart = new HashMap<>();
+        cart.put(0, 4);
+        cart.put(2, 3);
+
+        doThrow(new IOException("disk full")).when(spyObjMapper).writeValue(any(OutputStream.class), any());
+
+        assertThrows(IOException.class, () -> inventoryFileDAO.reserveProducts(cart));
+        assertThrows(IOException.class, () -> inventoryFileDAO.reserveStock(1, 5));
+        assertEquals(10, inventoryFileDAO.getProduct(0).getQuantity());
+        assertEquals(10, inventoryFileDAO.getProduct(1).getQuantity());
+        assertEquals(10, inventoryFileDAO.getProduct(2).getQuantity());
+        assertEquals(10, inventoryFileDAO.getInventory()[0].getQuantity());
+    }
+
+    @Test
+    void testConcurrentReservationsNeverOversell() throws InterruptedException {
+        AtomicInteger sold = new AtomicInteger();
+        Thread[] shoppers = new Thread[8];
+
+        for (int i = 0; i < shoppers.length; i++) {
+            shoppers[i] = new Thread(() -> {
+                for (int attempt = 0; attempt < 5; attempt++) {
+                    try {
+                        inventoryFileDAO.reserveStock(1, 1);
+                        sold.incrementAndGet();
+                    } catch (IllegalStateException | IOException e) {
+                        // sold out
+                    }
+                }
+            });
+            shoppers[i].start();
+        }
+
+        for (Thread shopper : shoppers) {
+            shopper.join();
+        }
+
+        assertEquals(10, sold.get());
+        assertEquals(0, assertDoesNotThrow(() -> inventoryFileDAO.getProduct(1)).getQuantity());
+    }
+
+    @Test
+    void testJournalReplayedOnLoad(@TempDir Path tempDir) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String filename = tempDir.resolve("inventory.json").toString();
+        objectMapper.writeValue(new File(filename), products);
+
+        InventoryFileDAO journaled = new InventoryFileDAO(objectMapper, filename, "journal", 1000);
+        Product created = journaled.createProduct(new Product("New Product", 0, "It's new", 1, 5));
+        journaled.updateProduct(new Product("Cooler Product", 0, "Updated", 2, 3));
+        journaled.deleteProduct(1);
+
+        assertTrue(new File(filename + ".journal").exists());
+        assertEquals(3, objectMapper.readValue(new File(filename), Product[].class).length);
+
+        InventoryFileDAO reloaded = new InventoryFileDAO(objectMapper, filename, "journal", 1000);
+
+        assertEquals("Cooler Product", reloaded.getProduct(0).getName());
+        assertNull(reloaded.getProduct(1));
+        assertEquals(created.getName(), reloaded.getProduct(created.getId()).getName());
+        assertEquals(3, reloaded.getInventory().length);
+    }
+
+    @Test
+    void testUnreadableJournalKept(@TempDir Path tempDir) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String filename = tempDir.resolve("inventory.json").toString();
+        File journalFile = new File(filename + ".journal");
+        objectMapper.writeValue(new File(filename), products);
+
+        InventoryFileDAO journaled = new InventoryFileDAO(objectMapper, filename, "journal", 1000);
+        journaled.deleteProduct(0);
+        Files.write(journalFile.toPath(), "not a record\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        journaled.deleteProduct(1);
+
+        byte[] journal = Files.readAllBytes(journalFile.toPath());
+
+        assertThrows(IOException.class, () -> new InventoryFileDAO(objectMapper, filename, "snapshot", 1000));
+        assertArrayEquals(journal, Files.readAllBytes(journalFile.toPath()));
+        assertEquals(3, objectMapper.readValue(new File(filename), Product[].class).length);
+    }
+
+    @Test
+    void testJournalCompactedOnClose(@TempDir Path tempDir) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String filename = tempDir.resolve("inventory.json").toString();
+        objectMapper.writeValue(new File(filename), products);
+
+        InventoryFileDAO journaled = new InventoryFileDAO(objectMapper, filename, "journal", 2);
+        journaled.deleteProduct(0);
+        journaled.deleteProduct(1);
+        journaled.close();
+
+        assertFalse(new File(filename + ".journal").exists());
+        assertEquals(1, objectMapper.readValue(new File(filename), Product[].class).length);
+    }
+
+    @Test
+    void testSmileFormatWrittenAndReloaded(@TempDir Path tempDir) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        File file = tempDir.resolve("inventory.json").toFile();
+        objectMapper.writeValue(file, products);
+
+        InventoryFileDAO smile = new InventoryFileDAO(objectMapper, file.getPath(), "snapshot", 1000, 1, "smile");
+
+        assertEquals(SnapshotFormat.JSON, SnapshotFormat.detect(file));
+        assertEquals(3, smile.getInventory().length);
+
+        smile.updateProduct(new Product("Cooler Product", 0, "Updated", 2, 3));
+
+        assertEquals(SnapshotFormat.SMILE, SnapshotFormat.detect(file));
+
+        InventoryFileDAO reloaded = new InventoryFileDAO(objectMapper, file.getPath());
+
+        assertEquals("Cooler Product", reloaded.getProduct(0).getName());
+        assertEquals(3, reloaded.getInventory().length);
+    }
+
+    @Test
+    void testTornWriteFallsBackToPreviousGeneration(@TempDir Path tempDir) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        File file = tempDir.resolve("inventory.json").toFile();
+        objectMapper.writeValue(file, products);
+
+        InventoryFileDAO dao = new InventoryFileDAO(objectMapper, file.getPath());
+        dao.deleteProduct(2);
+
+        byte[] saved = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(saved, saved.length / 2));
+
+        InventoryFileDAO reloaded = new InventoryFileDAO(objectMapper, file.getPath());
+
+        assertEquals(3, reloaded.getInventory().length);
+        assertTrue(new File(file.getPath() + ".corrupt").exists());
+    }
+
+    @Test
+    void testUnreadableFileIsNotDiscarded(@TempDir Path tempDir) throws IOException {
+        File file = tempDir.resolve("inventory.json").toFile();
+        Files.write(file.toPath(), "[{\"id\":".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> new InventoryFileDAO(new ObjectMapper(), file.getPath()));
+        assertEquals(7, file.length());
+    }
 }
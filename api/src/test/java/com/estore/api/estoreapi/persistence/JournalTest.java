@@ -0,0 +1,192 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.Product;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the Journal
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Persistence-Tier")
+class JournalTest {
+    @TempDir
+    Path tempDir;
+
+    File file;
+    Journal<InventoryMutation> journal;
+
+    /**
+     * Record that fails to serialize when it has no text
+     */
+    static class Line {
+        private final String text;
+
+        @JsonCreator
+        Line(@JsonProperty("text") String text) {
+            this.text = text;
+        }
+
+        public String getText() {
+            if (text == null) {
+                throw new IllegalStateException("No text");
+            }
+
+            return text;
+        }
+    }
+
+    @BeforeEach
+    void setupJournal() {
+        file = tempDir.resolve("inventory.json.journal").toFile();
+        journal = new Journal<>(new ObjectMapper(), file, InventoryMutation.class);
+    }
+
+    @Test
+    void testAppendAndReplay() throws IOException {
+        journal.append(InventoryMutation.put(new Product("Cool Product", 0, "It's cool", 1, 10)));
+        journal.appendAll(Arrays.asList(InventoryMutation.put(new Product("Lame Product", 1, "It's lame", 1, 10)), InventoryMutation.delete(0)));
+        journal.close();
+
+        List<InventoryMutation> replayed = new ArrayList<>();
+        int count = new Journal<>(new ObjectMapper(), file, InventoryMutation.class).replay(replayed::add);
+
+        assertEquals(3, count);
+        assertEquals(InventoryMutation.Operation.PUT, replayed.get(0).getOperation());
+        assertEquals("Cool Product", replayed.get(0).getProduct().getName());
+        assertEquals(1, replayed.get(1).getId());
+        assertEquals(InventoryMutation.Operation.DELETE, replayed.get(2).getOperation());
+        assertNull(replayed.get(2).getProduct());
+    }
+
+    @Test
+    void testReplayStopsAtTornRecord() throws IOException {
+        journal.append(InventoryMutation.put(new Product("Cool Product", 0, "It's cool", 1, 10)));
+        journal.close();
+        Files.write(file.toPath(), "{\"op\":\"PUT\",\"id\":1,\"prod".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        List<InventoryMutation> replayed = new ArrayList<>();
+        journal.replay(replayed::add);
+
+        assertEquals(1, replayed.size());
+
+        journal.append(InventoryMutation.delete(0));
+        journal.close();
+        replayed.clear();
+        journal.replay(replayed::add);
+
+        assertEquals(2, replayed.size());
+        assertEquals(InventoryMutation.Operation.DELETE, replayed.get(1).getOperation());
+    }
+
+    @Test
+    void testUnreadableRecordFailsReplay() throws IOException {
+        journal.append(InventoryMutation.put(new Product("Cool Product", 0, "It's cool", 1, 10)));
+        journal.close();
+        Files.write(file.toPath(), "{\"op\":\"PUT\",\"id\":1,\"prod\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        journal.append(InventoryMutation.delete(0));
+        journal.close();
+        long length = file.length();
+
+        List<InventoryMutation> replayed = new ArrayList<>();
+        IOException failure = assertThrows(IOException.class, () -> journal.replay(replayed::add));
+
+        assertTrue(failure.getMessage().contains("line 2"));
+        assertEquals(length, file.length());
+    }
+
+    @Test
+    void testFailedRecordFailsReplay() throws IOException {
+        journal.append(InventoryMutation.delete(0));
+        journal.append(InventoryMutation.delete(1));
+        journal.close();
+
+        List<InventoryMutation> replayed = new ArrayList<>();
+        IOException failure = assertThrows(IOException.class, () -> journal.replay(mutation -> {
+            if (mutation.getId() == 0) {
+                throw new IllegalStateException("bad record");
+            }
+
+            replayed.add(mutation);
+        }));
+
+        assertEquals("bad record", failure.getCause().getMessage());
+        assertTrue(replayed.isEmpty());
+        assertTrue(file.exists());
+    }
+
+    @Test
+    void testFailedAppendIsCutBack() throws IOException {
+        Journal<Line> lines = new Journal<>(new ObjectMapper(), file, Line.class);
+
+        lines.append(new Line("first"));
+        long length = file.length();
+
+        // The long record overflows the write buffer, so part of the batch reaches the file
+        List<Line> batch = Arrays.asList(new Line("x".repeat(20_000)), new Line(null));
+
+        assertThrows(IOException.class, () -> lines.appendAll(batch));
+        assertEquals(length, file.length());
+        assertEquals(1, lines.size());
+
+        lines.append(new Line("second"));
+        lines.close();
+
+        List<String> replayed = new ArrayList<>();
+        int count = new Journal<>(new ObjectMapper(), file, Line.class).replay(line -> replayed.add(line.getText()));
+
+        assertEquals(2, count);
+        assertEquals(Arrays.asList("first", "second"), replayed);
+    }
+
+    @Test
+    void testRotateKeepsOrder() throws IOException {
+        journal.append(InventoryMutation.put(new Product("Cool Product", 0, "It's cool", 1, 10)));
+        journal.rotate();
+        journal.append(InventoryMutation.delete(0));
+
+        assertEquals(1, journal.size());
+
+        List<InventoryMutation> replayed = new ArrayList<>();
+        journal.replay(replayed::add);
+
+        assertEquals(2, replayed.size());
+        assertEquals(InventoryMutation.Operation.PUT, replayed.get(0).getOperation());
+        assertEquals(InventoryMutation.Operation.DELETE, replayed.get(1).getOperation());
+
+        journal.discardRotated();
+        replayed.clear();
+        journal.replay(replayed::add);
+
+        assertEquals(1, replayed.size());
+    }
+
+    @Test
+    void testClear() throws IOException {
+        journal.append(InventoryMutation.delete(0));
+        journal.rotate();
+        journal.append(InventoryMutation.delete(1));
+        journal.clear();
+
+        assertFalse(journal.exists());
+        assertEquals(0, journal.size());
+    }
+}
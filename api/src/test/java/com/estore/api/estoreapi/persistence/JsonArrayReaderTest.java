@@ -0,0 +1,142 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.Product;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the JsonArrayReader
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Persistence-Tier")
+class JsonArrayReaderTest {
+    @TempDir
+    Path tempDir;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testReadsElementsInOrder() throws IOException {
+        File file = writeProducts(3);
+        List<Product> read = new ArrayList<>();
+
+        assertEquals(3, new JsonArrayReader<>(objectMapper, Product.class, 1).read(file, read::add));
+
+        assertEquals(3, read.size());
+        assertEquals("Product 0", read.get(0).getName());
+        assertEquals(2, read.get(2).getId());
+    }
+
+    @Test
+    void testParallelReadKeepsFileOrder() throws IOException {
+        int count = JsonArrayReader.BATCH_SIZE * 5 + 17;
+        File file = writeProducts(count);
+        List<Product> read = new ArrayList<>();
+
+        assertEquals(count, new JsonArrayReader<>(objectMapper, Product.class, 4).read(file, read::add));
+
+        assertEquals(count, read.size());
+
+        for (int id = 0; id < count; id++) {
+            assertEquals(id, read.get(id).getId());
+            assertEquals("Product " + id, read.get(id).getName());
+        }
+    }
+
+    @Test
+    void testReadsSmileFiles() throws IOException {
+        int count = JsonArrayReader.BATCH_SIZE + 3;
+        Product[] products = new Product[count];
+
+        for (int id = 0; id < count; id++) {
+            products[id] = new Product("Product " + id, id, "Description " + id, 1, 10);
+        }
+
+        File file = tempDir.resolve("products.smile").toFile();
+        SnapshotFormat.SMILE.mapper(objectMapper).writeValue(file, products);
+        List<Product> read = new ArrayList<>();
+
+        assertEquals(SnapshotFormat.SMILE, SnapshotFormat.detect(file));
+        assertEquals(count, new JsonArrayReader<>(objectMapper, Product.class, 4).read(file, read::add));
+
+        assertEquals(count, read.size());
+        assertEquals("Product " + (count - 1), read.get(count - 1).getName());
+    }
+
+    @Test
+    void testEmptyArray() throws IOException {
+        File file = writeProducts(0);
+
+        assertEquals(0, new JsonArrayReader<>(objectMapper, Product.class, 1).read(file, product -> fail()));
+        assertEquals(0, new JsonArrayReader<>(objectMapper, Product.class, 4).read(file, product -> fail()));
+    }
+
+    @Test
+    void testRejectsBadFiles() throws IOException {
+        File empty = tempDir.resolve("empty.json").toFile();
+        File object = tempDir.resolve("object.json").toFile();
+        File truncated = tempDir.resolve("truncated.json").toFile();
+        JsonArrayReader<Product> reader = new JsonArrayReader<>(objectMapper, Product.class, 1);
+
+        Files.write(empty.toPath(), new byte[0]);
+        Files.write(object.toPath(), "{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        Files.write(truncated.toPath(), "[{\"id\":1,\"name\":\"Product 1\"}".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(MismatchedInputException.class, () -> reader.read(empty, product -> { }));
+        assertThrows(MismatchedInputException.class, () -> reader.read(object, product -> { }));
+        assertThrows(JsonEOFException.class, () -> reader.read(truncated, product -> { }));
+        assertThrows(FileNotFoundException.class, () -> reader.read(tempDir.resolve("missing.json").toFile(), product -> { }));
+    }
+
+    @Test
+    void testParallelReadReportsBadElements() throws IOException {
+        File file = tempDir.resolve("bad.json").toFile();
+        StringBuilder json = new StringBuilder("[");
+
+        for (int id = 0; id < JsonArrayReader.BATCH_SIZE + 10; id++) {
+            json.append(id == JsonArrayReader.BATCH_SIZE + 5 ? "{\"id\":\"not a number\"}," : "{\"id\":" + id + "},");
+        }
+
+        json.setLength(json.length() - 1);
+        Files.write(file.toPath(), json.append(']').toString().getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(MismatchedInputException.class,
+                () -> new JsonArrayReader<>(objectMapper, Product.class, 2).read(file, product -> { }));
+    }
+
+    /**
+     * Writes a products file
+     *
+     * @param count Number of products
+     * @return File holding the products
+     * @throws IOException when the file could not be written
+     */
+    private File writeProducts(int count) throws IOException {
+        Product[] products = new Product[count];
+
+        for (int id = 0; id < count; id++) {
+            products[id] = new Product("Product " + id, id, "Description " + id, 1, 10);
+        }
+
+        File file = tempDir.resolve("products-" + count + ".json").toFile();
+        objectMapper.writeValue(file, products);
+
+        return file;
+    }
+}
@@ -0,0 +1,245 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.ProductImportResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the MappedInventoryDAO
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Persistence-Tier")
+class MappedInventoryDAOTest {
+    @TempDir
+    Path tempDir;
+
+    ObjectMapper objectMapper;
+    String jsonFile;
+    String mappedFile;
+    MappedInventoryDAO mappedInventoryDAO;
+
+    @BeforeEach
+    void setupMappedInventoryDAO() throws IOException {
+        objectMapper = new ObjectMapper();
+        jsonFile = tempDir.resolve("inventory.json").toString();
+        mappedFile = tempDir.resolve("inventory.bin").toString();
+
+        Product[] products = new Product[3];
+        products[0] = new Product("Cool Product", 0, "It's cool", 1.5, 10);
+        products[1] = new Product("Lame Product", 1, "It's lame", 2.5, 10);
+        products[2] = new Product("Average Product", 4, null, 3.5, 10);
+        objectMapper.writeValue(new File(jsonFile), products);
+
+        mappedInventoryDAO = new MappedInventoryDAO(objectMapper, jsonFile, mappedFile, 2);
+    }
+
+    @AfterEach
+    void closeMappedInventoryDAO() throws IOException {
+        mappedInventoryDAO.close();
+    }
+
+    @Test
+    void testSeededFromJson() {
+        Product[] inventory = mappedInventoryDAO.getInventory();
+
+        assertEquals(3, inventory.length);
+        assertEquals("Average Product", mappedInventoryDAO.getProduct(4).getName());
+        assertNull(mappedInventoryDAO.getProduct(4).getDescription());
+        assertEquals(2.5, mappedInventoryDAO.getProduct(1).getPrice());
+    }
+
+    @Test
+    void testCreateProductGrowsStore() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            Product created = mappedInventoryDAO.createProduct(new Product("New " + i, 0, "Number " + i, i, i));
+
+            assertEquals(5 + i, created.getId());
+        }
+
+        assertEquals(13, mappedInventoryDAO.getInventory().length);
+        assertEquals("Number 9", mappedInventoryDAO.getProduct(14).getDescription());
+    }
+
+    @Test
+    void testCreateProductDuplicateName() {
+        Product product = new Product("cool PRODUCT", 0, "It's redundant!", 0, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> mappedInventoryDAO.createProduct(product));
+    }
+
+    @Test
+    void testUpdateProduct() throws IOException {
+        Product updated = mappedInventoryDAO.updateProduct(new Product("Renamed Product", 1, "Still lame", 9.0, 3));
+
+        assertNotNull(updated);
+        assertEquals("Renamed Product", mappedInventoryDAO.getProduct(1).getName());
+        assertEquals(9.0, mappedInventoryDAO.getProduct(1).getPrice());
+        assertEquals(1, mappedInventoryDAO.findProduct("renamed").length);
+        assertEquals(0, mappedInventoryDAO.findProduct("lame product").length);
+        assertNotNull(mappedInventoryDAO.createProduct(new Product("Lame Product", 0, "Name is free again", 0, 1)));
+    }
+
+    @Test
+    void testUpdateProductMissingOrTaken() throws IOException {
+        assertNull(mappedInventoryDAO.updateProduct(new Product("Ghost", 99, "", 0, 0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> mappedInventoryDAO.updateProduct(new Product("Cool Product", 1, "", 0, 0)));
+    }
+
+    @Test
+    void testDeleteProductReusesSlot() throws IOException {
+        assertTrue(mappedInventoryDAO.deleteProduct(0));
+        assertFalse(mappedInventoryDAO.deleteProduct(0));
+        assertNull(mappedInventoryDAO.getProduct(0));
+
+        Product created = mappedInventoryDAO.createProduct(new Product("Replacement", 0, "", 0, 1));
+
+        assertEquals(5, created.getId());
+        assertEquals(3, mappedInventoryDAO.getInventory().length);
+        assertEquals(2, mappedInventoryDAO.findProduct("product").length);
+    }
+
+    @Test
+    void testStockChanges() {
+        assertEquals(7, mappedInventoryDAO.reserveStock(0, 3).getQuantity());
+        assertEquals(9, mappedInventoryDAO.releaseStock(0, 2).getQuantity());
+        assertEquals(4, mappedInventoryDAO.adjustQuantity(0, -5).getQuantity());
+        assertThrows(IllegalStateException.class, () -> mappedInventoryDAO.reserveStock(0, 5));
+        assertThrows(IllegalArgumentException.class, () -> mappedInventoryDAO.reserveStock(0, 0));
+        assertNull(mappedInventoryDAO.reserveStock(99, 1));
+        assertEquals(4, mappedInventoryDAO.getProduct(0).getQuantity());
+    }
+
+    @Test
+    void testReserveProductsIsAtomic() {
+        Map<Integer, Integer> quantities = new HashMap<>();
+        quantities.put(0, 5);
+        quantities.put(1, 11);
+
+        assertThrows(IllegalStateException.class, () -> mappedInventoryDAO.reserveProducts(quantities));
+        assertEquals(10, mappedInventoryDAO.getProduct(0).getQuantity());
+
+        quantities.put(1, 10);
+        Product[] updated = mappedInventoryDAO.reserveProducts(quantities);
+
+        assertEquals(5, updated[0].getQuantity());
+        assertEquals(0, updated[1].getQuantity());
+        assertEquals(10, mappedInventoryDAO.releaseProducts(quantities)[1].getQuantity());
+    }
+
+    @Test
+    void testVersionAndInventorySnapshot() {
+        long version = mappedInventoryDAO.getVersion();
+        Product[] first = mappedInventoryDAO.getInventory();
+
+        assertSame(first, mappedInventoryDAO.getInventory());
+
+        mappedInventoryDAO.adjustQuantity(1, 1);
+
+        assertTrue(mappedInventoryDAO.getVersion() > version);
+        assertEquals(11, mappedInventoryDAO.getInventory()[1].getQuantity());
+    }
+
+    @Test
+    void testPaging() {
+        assertEquals(2, mappedInventoryDAO.getInventoryPage(1, 5).length);
+        Product[] after = mappedInventoryDAO.getInventoryAfter(0, 5);
+
+        assertEquals(2, after.length);
+        assertEquals(1, after[0].getId());
+        assertEquals(4, after[1].getId());
+        assertEquals(1, mappedInventoryDAO.getInventoryAfter(0, 1).length);
+    }
+
+    @Test
+    void testImportProducts() throws IOException {
+        Product[] batch = {
+                new Product("Cool Product", 0, "Updated", 4.0, 1),
+                new Product("Imported Product", 0, "New", 5.0, 2),
+                new Product(null, 0, "Invalid", 0, 0)
+        };
+
+        ProductImportResult[] rejected = mappedInventoryDAO.importProducts(batch, true);
+
+        assertEquals(ProductImportResult.Status.NOT_APPLIED, rejected[0].getStatus());
+        assertEquals(ProductImportResult.Status.INVALID, rejected[2].getStatus());
+        assertEquals(3, mappedInventoryDAO.getInventory().length);
+
+        ProductImportResult[] results = mappedInventoryDAO.importProducts(batch, false);
+
+        assertEquals(ProductImportResult.Status.UPDATED, results[0].getStatus());
+        assertEquals(ProductImportResult.Status.CREATED, results[1].getStatus());
+        assertEquals("Updated", mappedInventoryDAO.getProduct(0).getDescription());
+        assertEquals(5, results[1].getProduct().getId());
+    }
+
+    @Test
+    void testReopenKeepsProducts() throws IOException {
+        mappedInventoryDAO.createProduct(new Product("Persistent Product", 0, "Survives", 6.0, 6));
+        mappedInventoryDAO.adjustQuantity(0, -4);
+        mappedInventoryDAO.deleteProduct(1);
+        mappedInventoryDAO.close();
+
+        new File(jsonFile).delete();
+        mappedInventoryDAO = new MappedInventoryDAO(objectMapper, jsonFile, mappedFile);
+
+        assertEquals(3, mappedInventoryDAO.getInventory().length);
+        assertEquals(6, mappedInventoryDAO.getProduct(0).getQuantity());
+        assertEquals("Survives", mappedInventoryDAO.getProduct(5).getDescription());
+        assertNull(mappedInventoryDAO.getProduct(1));
+        assertEquals(6, mappedInventoryDAO.createProduct(new Product("After Reopen", 0, "", 0, 0)).getId());
+    }
+
+    @Test
+    void testReopenRepairsHeaderBehindRecords() throws IOException {
+        mappedInventoryDAO.createProduct(new Product("Latest Product", 0, "Written last", 6.0, 6));
+        mappedInventoryDAO.close();
+
+        // Put back the header of before the create, as if only the record page reached the disk
+        try (RandomAccessFile file = new RandomAccessFile(mappedFile, "rw")) {
+            file.seek(16);
+            file.writeInt(4);
+            file.writeInt(0);
+        }
+
+        mappedInventoryDAO = new MappedInventoryDAO(objectMapper, jsonFile, mappedFile);
+
+        assertEquals(6, mappedInventoryDAO.createProduct(new Product("Next Product", 0, "New strings", 1.0, 1)).getId());
+        assertEquals("Latest Product", mappedInventoryDAO.getProduct(5).getName());
+        assertEquals("Written last", mappedInventoryDAO.getProduct(5).getDescription());
+        assertEquals("Cool Product", mappedInventoryDAO.getProduct(0).getName());
+    }
+
+    @Test
+    void testUnsyncedChangesKeptOnClose() throws IOException {
+        mappedInventoryDAO.close();
+        mappedInventoryDAO = new MappedInventoryDAO(objectMapper, jsonFile, mappedFile, 2, false);
+
+        mappedInventoryDAO.reserveProducts(Map.of(0, 4, 1, 1));
+        mappedInventoryDAO.close();
+        mappedInventoryDAO = new MappedInventoryDAO(objectMapper, jsonFile, mappedFile);
+
+        assertEquals(6, mappedInventoryDAO.getProduct(0).getQuantity());
+        assertEquals(9, mappedInventoryDAO.getProduct(1).getQuantity());
+    }
+
+    @Test
+    void testFindProductNull() {
+        assertEquals(0, mappedInventoryDAO.findProduct(null).length);
+    }
+}
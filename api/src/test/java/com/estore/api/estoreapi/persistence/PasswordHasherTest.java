@@ -0,0 +1,42 @@
+package com.estore.api.estoreapi.persistence;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Persistence-Tier")
+class PasswordHasherTest {
+    private final PasswordHasher hasher = new PasswordHasher(1000);
+
+    @Test
+    void testHashMatches() {
+        String hash = hasher.hash("secret");
+
+        assertTrue(PasswordHasher.isHash(hash));
+        assertTrue(hasher.matches("secret", hash));
+        assertFalse(hasher.matches("Secret", hash));
+        assertFalse(hasher.matches(null, hash));
+    }
+
+    @Test
+    void testHashesAreSalted() {
+        assertNotEquals(hasher.hash("secret"), hasher.hash("secret"));
+    }
+
+    @Test
+    void testOtherIterationCountsStillMatch() {
+        String hash = new PasswordHasher(10).hash("secret");
+
+        assertTrue(hasher.matches("secret", hash));
+    }
+
+    @Test
+    void testMalformedHashesNeverMatch() {
+        assertFalse(PasswordHasher.isHash("secret"));
+        assertFalse(hasher.matches("secret", "secret"));
+        assertFalse(hasher.matches("secret", "pbkdf2-sha256$x$AAAA$AAAA"));
+        assertFalse(hasher.matches("secret", "pbkdf2-sha256$0$AAAA$AAAA"));
+        assertFalse(hasher.matches("secret", "pbkdf2-sha256$10$AAAA"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the ProductSearchIndex
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Persistence-Tier")
+class ProductSearchIndexTest {
+    ProductSearchIndex searchIndex;
+
+    @BeforeEach
+    void setupIndex() {
+        searchIndex = new ProductSearchIndex();
+        searchIndex.add(new Product("Cool Product", 0, "It's cool", 0, 10));
+        searchIndex.add(new Product("Lame Product", 1, "It's lame", 0, 10));
+        searchIndex.add(new Product("Average Product", 2, "It's average", 0, 10));
+    }
+
+    @Test
+    void testSearchIgnoresCase() {
+        assertArrayEquals(new int[]{0}, searchIndex.search("cOOL"));
+        assertArrayEquals(new int[]{0, 1, 2}, searchIndex.search("PRODUCT"));
+    }
+
+    @Test
+    void testSearchRequiresContiguousMatch() {
+        assertArrayEquals(new int[0], searchIndex.search("Product Cool"));
+        assertArrayEquals(new int[0], searchIndex.search("Zebra"));
+    }
+
+    @Test
+    void testSearchShortKeyword() {
+        assertArrayEquals(new int[]{2}, searchIndex.search("ag"));
+        assertArrayEquals(new int[]{1}, searchIndex.search("AM"));
+        assertArrayEquals(new int[]{0, 1}, searchIndex.search("l"));
+        assertArrayEquals(new int[]{0, 1, 2}, searchIndex.search(""));
+    }
+
+    @Test
+    void testSearchConfirmsTrigramOrder() {
+        searchIndex.add(new Product("abcd bcde", 3, null, 0, 10));
+
+        assertArrayEquals(new int[0], searchIndex.search("abcde"));
+        assertArrayEquals(new int[]{3}, searchIndex.search("bcd"));
+    }
+
+    @Test
+    void testAddAllMergesWithIndexedProducts() {
+        searchIndex.addAll(new Product[]{
+            new Product("Cooler Product", 7, null, 0, 10),
+            new Product("Lamp", 5, null, 0, 10)
+        });
+        searchIndex.add(new Product("Coolest", 9, null, 0, 10));
+        searchIndex.add(new Product("Cool Cat", 6, null, 0, 10));
+
+        assertArrayEquals(new int[]{0, 6, 7, 9}, searchIndex.search("cool"));
+        assertArrayEquals(new int[]{1, 5}, searchIndex.search("lam"));
+        assertArrayEquals(new int[]{0, 1, 2, 7}, searchIndex.search("product"));
+        assertArrayEquals(new int[]{0, 1, 2, 5, 6, 7, 9}, searchIndex.search(""));
+    }
+
+    @Test
+    void testSearchIgnoresDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+
+        try {
+            Locale.setDefault(new Locale("tr", "TR"));
+            searchIndex.add(new Product("INDIGO", 3, null, 0, 10));
+
+            assertArrayEquals(new int[]{3}, searchIndex.search("indigo"));
+            assertArrayEquals(new int[]{3}, searchIndex.search("Indigo"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void testUpdateAndRemove() {
+        searchIndex.update(new Product("Zebra Print", 1, "It's lame", 0, 10));
+
+        assertArrayEquals(new int[]{1}, searchIndex.search("zebra"));
+        assertArrayEquals(new int[]{0, 2}, searchIndex.search("product"));
+
+        searchIndex.remove(1);
+        searchIndex.remove(42);
+
+        assertArrayEquals(new int[0], searchIndex.search("zebra"));
+        assertArrayEquals(new int[0], searchIndex.search("z"));
+        assertArrayEquals(new int[]{0, 2}, searchIndex.search("o"));
+    }
+}
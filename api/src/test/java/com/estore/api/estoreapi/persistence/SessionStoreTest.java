@@ -0,0 +1,58 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.SessionToken;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("Persistence-Tier")
+class SessionStoreTest {
+    @Test
+    void testIssueAndResolve() {
+        SessionStore store = new SessionStore(60_000, 60_000);
+        SessionToken session = store.issue("JD0");
+
+        assertEquals("JD0", session.getUserName());
+        assertTrue(session.getExpiresAt() > System.currentTimeMillis());
+        assertEquals("JD0", store.resolve(session.getToken()));
+        assertNotEquals(session.getToken(), store.issue("JD0").getToken());
+        assertNull(store.resolve(session.getToken() + "x"));
+        assertNull(store.resolve(null));
+        store.close();
+    }
+
+    @Test
+    void testRevoke() {
+        SessionStore store = new SessionStore(60_000, 60_000);
+        SessionToken first = store.issue("JD0");
+        SessionToken second = store.issue("JD0");
+        SessionToken other = store.issue("JD1");
+
+        assertTrue(store.revoke(first.getToken()));
+        assertFalse(store.revoke(first.getToken()));
+        assertNull(store.resolve(first.getToken()));
+
+        store.revokeAll("JD0");
+
+        assertNull(store.resolve(second.getToken()));
+        assertEquals("JD1", store.resolve(other.getToken()));
+        store.close();
+    }
+
+    @Test
+    void testExpiredSessionsIgnoredAndSwept() throws InterruptedException {
+        SessionStore store = new SessionStore(1, 60_000);
+        SessionToken session = store.issue("JD0");
+
+        Thread.sleep(5);
+
+        assertNull(store.resolve(session.getToken()));
+        assertEquals(1, store.size());
+
+        store.sweep();
+
+        assertEquals(0, store.size());
+        store.close();
+    }
+}
@@ -0,0 +1,347 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.Product;
+import com.estore.api.estoreapi.model.ProductImportResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the ShardedInventoryDAO
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Persistence-Tier")
+class ShardedInventoryDAOTest {
+    @TempDir
+    Path tempDir;
+
+    ObjectMapper objectMapper;
+    String jsonFile;
+    ShardedInventoryDAO shardedInventoryDAO;
+
+    @BeforeEach
+    void setupShardedInventoryDAO() throws IOException {
+        objectMapper = new ObjectMapper();
+        jsonFile = tempDir.resolve("inventory.json").toString();
+
+        Product[] products = new Product[3];
+        products[0] = new Product("Cool Product", 0, "It's cool", 1.5, 10);
+        products[1] = new Product("Lame Product", 1, "It's lame", 2.5, 10);
+        products[2] = new Product("Average Product", 4, null, 3.5, 10);
+        objectMapper.writeValue(new File(jsonFile), products);
+
+        shardedInventoryDAO = new ShardedInventoryDAO(objectMapper, jsonFile, 3);
+    }
+
+    @AfterEach
+    void closeShardedInventoryDAO() throws IOException {
+        shardedInventoryDAO.close();
+    }
+
+    @Test
+    void testSeededFromJson() throws IOException {
+        Product[] inventory = shardedInventoryDAO.getInventory();
+
+        assertEquals(3, inventory.length);
+        assertArrayEquals(new int[] {0, 1, 4}, ids(inventory));
+        assertEquals("Average Product", shardedInventoryDAO.getProduct(4).getName());
+        assertEquals(1, read(0).length);
+        assertEquals(2, read(1).length);
+        assertEquals(0, read(2).length);
+    }
+
+    @Test
+    void testCreateProductSpreadsOverShards() throws IOException {
+        for (int i = 0; i < 6; i++) {
+            Product created = shardedInventoryDAO.createProduct(new Product("New " + i, 0, "Number " + i, i, i));
+
+            assertEquals(5 + i, created.getId());
+        }
+
+        assertEquals(9, shardedInventoryDAO.getInventory().length);
+        assertArrayEquals(new int[] {0, 1, 4, 5, 6, 7, 8, 9, 10}, ids(shardedInventoryDAO.getInventory()));
+        assertEquals(3, read(0).length);
+        assertEquals(4, read(1).length);
+        assertEquals(2, read(2).length);
+    }
+
+    @Test
+    void testCreateProductDuplicateNameAcrossShards() {
+        Product product = new Product("lame PRODUCT", 0, "It's redundant!", 0, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> shardedInventoryDAO.createProduct(product));
+        assertEquals(3, shardedInventoryDAO.getInventory().length);
+    }
+
+    @Test
+    void testUpdateProduct() throws IOException {
+        Product updated = shardedInventoryDAO.updateProduct(new Product("Renamed Product", 4, "Renamed", 9.5, 3));
+
+        assertEquals("Renamed Product", updated.getName());
+        assertEquals("Renamed", shardedInventoryDAO.getProduct(4).getDescription());
+        assertEquals("Renamed Product", read(1)[1].getName());
+        assertEquals(1, shardedInventoryDAO.findProduct("renamed").length);
+        assertEquals(0, shardedInventoryDAO.findProduct("average").length);
+        assertNotNull(shardedInventoryDAO.createProduct(new Product("Average Product", 0, null, 1, 1)));
+    }
+
+    @Test
+    void testUpdateProductNameTaken() {
+        Product product = new Product("Cool Product", 4, null, 3.5, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> shardedInventoryDAO.updateProduct(product));
+        assertEquals("Average Product", shardedInventoryDAO.getProduct(4).getName());
+    }
+
+    @Test
+    void testUpdateProductNotFound() throws IOException {
+        assertNull(shardedInventoryDAO.updateProduct(new Product("Ghost", 98, null, 1, 1)));
+    }
+
+    @Test
+    void testDeleteProduct() throws IOException {
+        assertTrue(shardedInventoryDAO.deleteProduct(1));
+        assertFalse(shardedInventoryDAO.deleteProduct(1));
+
+        assertNull(shardedInventoryDAO.getProduct(1));
+        assertArrayEquals(new int[] {0, 4}, ids(shardedInventoryDAO.getInventory()));
+        assertEquals(1, read(1).length);
+        assertNotNull(shardedInventoryDAO.createProduct(new Product("Lame Product", 0, null, 1, 1)));
+    }
+
+    @Test
+    void testFindProduct() {
+        assertArrayEquals(new int[] {0, 1, 4}, ids(shardedInventoryDAO.findProduct("product")));
+        assertArrayEquals(new int[] {0}, ids(shardedInventoryDAO.findProduct("cool")));
+        assertEquals(0, shardedInventoryDAO.findProduct("nothing").length);
+        assertEquals(0, shardedInventoryDAO.findProduct(null).length);
+    }
+
+    @Test
+    void testInventoryPages() {
+        assertArrayEquals(new int[] {1, 4}, ids(shardedInventoryDAO.getInventoryPage(1, 5)));
+        assertEquals(0, shardedInventoryDAO.getInventoryPage(7, 5).length);
+        assertArrayEquals(new int[] {4}, ids(shardedInventoryDAO.getInventoryAfter(1, 5)));
+        assertArrayEquals(new int[] {1}, ids(shardedInventoryDAO.getInventoryAfter(0, 1)));
+        assertEquals(0, shardedInventoryDAO.getInventoryAfter(4, 5).length);
+    }
+
+    @Test
+    void testInventoryPagesAfterWrite() throws IOException {
+        shardedInventoryDAO.getInventory();
+        shardedInventoryDAO.deleteProduct(1);
+
+        // First page after the write reads the shards, the next one rebuilds the snapshot
+        assertArrayEquals(new int[] {0, 4}, ids(shardedInventoryDAO.getInventoryAfter(-1, 5)));
+        assertArrayEquals(new int[] {0}, ids(shardedInventoryDAO.getInventoryAfter(-1, 1)));
+        assertArrayEquals(new int[] {4}, ids(shardedInventoryDAO.getInventoryAfter(0, 5)));
+        assertArrayEquals(new int[] {0, 4}, ids(shardedInventoryDAO.getInventory()));
+    }
+
+    @Test
+    void testVersionAndSnapshot() throws IOException {
+        long version = shardedInventoryDAO.getVersion();
+        Product[] before = shardedInventoryDAO.getInventory();
+
+        assertSame(before, shardedInventoryDAO.getInventory());
+
+        shardedInventoryDAO.adjustQuantity(4, 1);
+
+        assertEquals(version + 1, shardedInventoryDAO.getVersion());
+        assertEquals(10, before[2].getQuantity());
+        assertEquals(11, shardedInventoryDAO.getInventory()[2].getQuantity());
+    }
+
+    @Test
+    void testReserveProductsAcrossShards() throws IOException {
+        Map<Integer, Integer> quantities = new HashMap<>();
+        quantities.put(0, 4);
+        quantities.put(4, 10);
+
+        Product[] reserved = shardedInventoryDAO.reserveProducts(quantities);
+
+        assertEquals(6, reserved[0].getQuantity());
+        assertEquals(0, reserved[1].getQuantity());
+        assertEquals(0, read(1)[1].getQuantity());
+
+        quantities.put(1, 11);
+
+        assertThrows(IllegalStateException.class, () -> shardedInventoryDAO.reserveProducts(quantities));
+        assertEquals(6, shardedInventoryDAO.getProduct(0).getQuantity());
+
+        assertThrows(IllegalArgumentException.class, () -> shardedInventoryDAO.reserveProducts(Map.of(0, 1, 7, 1)));
+        assertEquals(10, shardedInventoryDAO.releaseProducts(Map.of(4, 10))[0].getQuantity());
+    }
+
+    @Test
+    void testFailedShardWriteRestoresStock() throws IOException {
+        File blocked = new File(ShardedInventoryDAO.shardFile(new File(jsonFile), 1).getPath() + ".tmp");
+
+        // A directory in the way of the temp file fails every write of shard 1
+        assertTrue(new File(blocked, "in-the-way").mkdirs());
+
+        assertThrows(IOException.class, () -> shardedInventoryDAO.reserveProducts(Map.of(0, 4, 4, 10)));
+        assertEquals(10, shardedInventoryDAO.getProduct(0).getQuantity());
+        assertEquals(10, shardedInventoryDAO.getProduct(4).getQuantity());
+        assertEquals(10, read(0)[0].getQuantity());
+
+        assertThrows(IOException.class, () -> shardedInventoryDAO.reserveStock(1, 3));
+        assertEquals(10, shardedInventoryDAO.getProduct(1).getQuantity());
+
+        new File(blocked, "in-the-way").delete();
+        blocked.delete();
+
+        assertEquals(6, shardedInventoryDAO.reserveProducts(Map.of(0, 4, 4, 10))[0].getQuantity());
+        assertEquals(0, read(1)[1].getQuantity());
+    }
+
+    @Test
+    void testReserveAndReleaseStock() throws IOException {
+        assertEquals(7, shardedInventoryDAO.reserveStock(1, 3).getQuantity());
+        assertEquals(9, shardedInventoryDAO.releaseStock(1, 2).getQuantity());
+        assertNull(shardedInventoryDAO.reserveStock(2, 1));
+        assertThrows(IllegalStateException.class, () -> shardedInventoryDAO.reserveStock(1, 10));
+        assertThrows(IllegalArgumentException.class, () -> shardedInventoryDAO.releaseStock(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> shardedInventoryDAO.adjustQuantity(1, Integer.MAX_VALUE));
+        assertEquals(9, read(1)[0].getQuantity());
+    }
+
+    @Test
+    void testImportProducts() throws IOException {
+        Product[] batch = {
+            new Product("Cool Product", 0, "Updated", 2, 5),
+            new Product("First New", 0, null, 1, 1),
+            new Product("Second New", 0, null, 1, 1)
+        };
+
+        ProductImportResult[] results = shardedInventoryDAO.importProducts(batch, false);
+
+        assertEquals(ProductImportResult.Status.UPDATED, results[0].getStatus());
+        assertEquals(ProductImportResult.Status.CREATED, results[1].getStatus());
+        assertEquals(5, results[1].getProduct().getId());
+        assertEquals(6, results[2].getProduct().getId());
+        assertEquals("Updated", shardedInventoryDAO.getProduct(0).getDescription());
+        assertArrayEquals(new int[] {0, 1, 4, 5, 6}, ids(shardedInventoryDAO.getInventory()));
+        assertEquals(2, read(0).length);
+    }
+
+    @Test
+    void testAtomicImportNeedsSingleShard() {
+        Product[] batch = {
+            new Product("First New", 0, null, 1, 1),
+            new Product("Second New", 0, null, 1, 1)
+        };
+
+        assertThrows(UnsupportedOperationException.class, () -> shardedInventoryDAO.importProducts(batch, true));
+        assertEquals(3, shardedInventoryDAO.getInventory().length);
+    }
+
+    @Test
+    void testAtomicImportRejected() throws IOException {
+        shardedInventoryDAO.close();
+        shardedInventoryDAO = new ShardedInventoryDAO(objectMapper, tempDir.resolve("single.json").toString(), 1);
+
+        Product[] batch = {
+            new Product("Valid", 0, null, 1, 1),
+            new Product("valid", 0, null, 1, 1),
+            new Product("", 0, null, 1, 1)
+        };
+
+        ProductImportResult[] results = shardedInventoryDAO.importProducts(batch, true);
+
+        assertEquals(ProductImportResult.Status.NOT_APPLIED, results[0].getStatus());
+        assertEquals(ProductImportResult.Status.DUPLICATE, results[1].getStatus());
+        assertEquals(ProductImportResult.Status.INVALID, results[2].getStatus());
+        assertEquals(0, shardedInventoryDAO.getInventory().length);
+        assertEquals(ProductImportResult.Status.CREATED, shardedInventoryDAO.importProducts(new Product[] {batch[0]}, true)[0].getStatus());
+    }
+
+    @Test
+    void testReopenLoadsShards() throws IOException {
+        shardedInventoryDAO.createProduct(new Product("Kept Product", 0, null, 1, 1));
+        shardedInventoryDAO.close();
+        new File(jsonFile).delete();
+
+        shardedInventoryDAO = new ShardedInventoryDAO(objectMapper, jsonFile, 3);
+
+        assertArrayEquals(new int[] {0, 1, 4, 5}, ids(shardedInventoryDAO.getInventory()));
+        assertEquals(6, shardedInventoryDAO.createProduct(new Product("Another", 0, null, 1, 1)).getId());
+        assertThrows(IllegalArgumentException.class,
+                () -> shardedInventoryDAO.createProduct(new Product("kept product", 0, null, 1, 1)));
+    }
+
+    @Test
+    void testShardCountChangeMovesProducts() throws IOException {
+        shardedInventoryDAO.createProduct(new Product("Kept Product", 0, null, 1, 1));
+        shardedInventoryDAO.close();
+
+        shardedInventoryDAO = new ShardedInventoryDAO(objectMapper, jsonFile, 2);
+
+        assertEquals(2, shardedInventoryDAO.getShardCount());
+        assertArrayEquals(new int[] {0, 1, 4, 5}, ids(shardedInventoryDAO.getInventory()));
+        assertArrayEquals(new int[] {0, 4}, ids(read(0)));
+        assertArrayEquals(new int[] {1, 5}, ids(read(1)));
+        assertFalse(ShardedInventoryDAO.shardFile(new File(jsonFile), 2).exists());
+        shardedInventoryDAO.close();
+
+        shardedInventoryDAO = new ShardedInventoryDAO(objectMapper, jsonFile, 4);
+
+        assertArrayEquals(new int[] {0, 1, 4, 5}, ids(shardedInventoryDAO.getInventory()));
+        assertArrayEquals(new int[] {0, 4}, ids(read(0)));
+        assertArrayEquals(new int[] {1, 5}, ids(read(1)));
+        assertEquals(0, read(3).length);
+    }
+
+    @Test
+    void testWriteBehindFlushesOnClose() throws IOException {
+        shardedInventoryDAO.close();
+        shardedInventoryDAO = new ShardedInventoryDAO(objectMapper, jsonFile, 3, "write-behind", 60000, 1000, 2, "json");
+
+        shardedInventoryDAO.createProduct(new Product("Deferred", 0, null, 1, 1));
+
+        assertEquals(0, read(2).length);
+
+        shardedInventoryDAO.close();
+
+        assertArrayEquals(new int[] {5}, ids(read(2)));
+    }
+
+    @Test
+    void testShardFileNames() {
+        assertEquals("inventory-3.json", ShardedInventoryDAO.shardFile(new File("inventory.json"), 3).getName());
+        assertEquals("inventory-0", ShardedInventoryDAO.shardFile(new File("inventory"), 0).getName());
+    }
+
+    /**
+     * Reads a shard file from disk
+     *
+     * @param shard Shard number
+     * @return Products in the file
+     * @throws IOException when the file could not be read
+     */
+    private Product[] read(int shard) throws IOException {
+        return objectMapper.readValue(ShardedInventoryDAO.shardFile(new File(jsonFile), shard), Product[].class);
+    }
+
+    private static int[] ids(Product[] products) {
+        int[] ids = new int[products.length];
+
+        for (int i = 0; i < products.length; i++) {
+            ids[i] = products[i].getId();
+        }
+
+        return ids;
+    }
+}
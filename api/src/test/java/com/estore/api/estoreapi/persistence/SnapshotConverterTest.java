@@ -0,0 +1,86 @@
+package com.estore.api.estoreapi.persistence;
+
+import com.estore.api.estoreapi.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the SnapshotConverter and SnapshotFormat
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Persistence-Tier")
+class SnapshotConverterTest {
+    @TempDir
+    Path tempDir;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testConvertsInPlaceAndBack() throws IOException {
+        Product[] products = new Product[100];
+
+        for (int id = 0; id < products.length; id++) {
+            products[id] = new Product("Product " + id, id, "Description " + id, 1 + id, 10);
+        }
+
+        File file = tempDir.resolve("inventory.json").toFile();
+        objectMapper.writeValue(file, products);
+        long jsonBytes = file.length();
+
+        assertEquals(100, SnapshotConverter.convert(file, file, SnapshotFormat.SMILE));
+
+        assertEquals(SnapshotFormat.SMILE, SnapshotFormat.detect(file));
+        assertTrue(file.length() < jsonBytes);
+        assertEquals(jsonBytes, new File(file.getPath() + ".prev").length());
+
+        Product[] smile = SnapshotFormat.SMILE.mapper(objectMapper).readValue(file, Product[].class);
+
+        assertEquals(100, smile.length);
+        assertEquals("Product 99", smile[99].getName());
+        assertEquals(100.0, smile[99].getPrice());
+
+        File back = tempDir.resolve("inventory-back.json").toFile();
+
+        assertEquals(100, SnapshotConverter.convert(file, back, SnapshotFormat.JSON));
+
+        assertEquals(SnapshotFormat.JSON, SnapshotFormat.detect(back));
+        assertEquals(jsonBytes, back.length());
+    }
+
+    @Test
+    void testFailedConversionLeavesTarget() throws IOException {
+        File source = tempDir.resolve("object.json").toFile();
+        File target = tempDir.resolve("target.json").toFile();
+
+        Files.write(source.toPath(), "{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        Files.write(target.toPath(), "[]".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(MismatchedInputException.class, () -> SnapshotConverter.convert(source, target, SnapshotFormat.SMILE));
+
+        assertEquals("[]", new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8));
+        assertEquals(2, tempDir.toFile().list().length);
+    }
+
+    @Test
+    void testFormatNames() throws IOException {
+        File empty = tempDir.resolve("empty.json").toFile();
+        Files.write(empty.toPath(), new byte[0]);
+
+        assertEquals(SnapshotFormat.SMILE, SnapshotFormat.of(" Smile "));
+        assertThrows(IllegalArgumentException.class, () -> SnapshotFormat.of("xml"));
+        assertEquals(SnapshotFormat.JSON, SnapshotFormat.detect(empty));
+        assertSame(objectMapper, SnapshotFormat.JSON.mapper(objectMapper));
+    }
+}
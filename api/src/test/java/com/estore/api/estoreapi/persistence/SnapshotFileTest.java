@@ -0,0 +1,154 @@
+package com.estore.api.estoreapi.persistence;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the SnapshotFile
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Persistence-Tier")
+class SnapshotFileTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWriteKeepsPreviousGeneration() throws IOException {
+        File file = tempDir.resolve("snapshot.json").toFile();
+        SnapshotFile snapshot = new SnapshotFile(file);
+
+        assertEquals(5, snapshot.write(out -> out.write(bytes("first"))));
+        assertEquals(6, snapshot.write(out -> out.write(bytes("second"))));
+
+        assertEquals("second", read(file));
+        assertEquals("first", read(new File(file.getPath() + ".prev")));
+        assertTrue(new File(file.getPath() + ".crc").exists());
+        assertTrue(new File(file.getPath() + ".prev.crc").exists());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+        assertEquals(List.of("second"), load(snapshot));
+    }
+
+    @Test
+    void testFailedWriteLeavesLiveFile() throws IOException {
+        File file = tempDir.resolve("snapshot.json").toFile();
+        SnapshotFile snapshot = new SnapshotFile(file);
+        snapshot.write(out -> out.write(bytes("first")));
+
+        assertThrows(IOException.class, () -> snapshot.write(out -> {
+            out.write(bytes("sec"));
+            throw new IOException("disk full");
+        }));
+
+        assertEquals("first", read(file));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+        assertEquals(List.of("first"), load(snapshot));
+    }
+
+    @Test
+    void testCorruptLiveFileFallsBackToPrevious() throws IOException {
+        File file = tempDir.resolve("snapshot.json").toFile();
+        SnapshotFile snapshot = new SnapshotFile(file);
+        snapshot.write(out -> out.write(bytes("first")));
+        snapshot.write(out -> out.write(bytes("second")));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.write('X');
+        }
+
+        assertEquals(List.of("first"), load(snapshot));
+        assertEquals("first", read(file));
+        assertEquals("Xecond", read(new File(file.getPath() + ".corrupt")));
+        assertFalse(new File(file.getPath() + ".prev").exists());
+        assertEquals(List.of("first"), load(snapshot));
+    }
+
+    @Test
+    void testTruncatedLiveFileFallsBackToPrevious() throws IOException {
+        File file = tempDir.resolve("snapshot.json").toFile();
+        SnapshotFile snapshot = new SnapshotFile(file);
+        snapshot.write(out -> out.write(bytes("first")));
+        snapshot.write(out -> out.write(bytes("second")));
+
+        Files.write(file.toPath(), bytes("sec"));
+
+        assertEquals(List.of("first"), load(snapshot));
+    }
+
+    @Test
+    void testCrashBeforeRenameLoadsPrevious() throws IOException {
+        File file = tempDir.resolve("snapshot.json").toFile();
+        SnapshotFile snapshot = new SnapshotFile(file);
+        snapshot.write(out -> out.write(bytes("first")));
+        snapshot.write(out -> out.write(bytes("second")));
+
+        Files.move(file.toPath(), tempDir.resolve("snapshot.json.tmp"));
+
+        assertEquals(List.of("first"), load(snapshot));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    void testUnparseableGenerationsFail() throws IOException {
+        File file = tempDir.resolve("snapshot.json").toFile();
+        SnapshotFile snapshot = new SnapshotFile(file);
+        Files.write(file.toPath(), bytes("legacy"));
+
+        IOException failure = assertThrows(IOException.class, () -> snapshot.load(generation -> {
+            throw new IOException("not an array");
+        }));
+
+        assertEquals("not an array", failure.getCause().getMessage());
+        assertEquals("legacy", read(file));
+    }
+
+    @Test
+    void testLegacyFileWithoutChecksum() throws IOException {
+        File file = tempDir.resolve("snapshot.json").toFile();
+        SnapshotFile snapshot = new SnapshotFile(file);
+
+        assertFalse(snapshot.load(generation -> fail()));
+
+        Files.write(file.toPath(), bytes("legacy"));
+
+        assertEquals(List.of("legacy"), load(snapshot));
+    }
+
+    /**
+     * Loads a snapshot, collecting the content of each generation read
+     *
+     * @param snapshot Snapshot to load
+     * @return Content of the generation that was loaded
+     * @throws IOException when no generation could be loaded
+     */
+    private static List<String> load(SnapshotFile snapshot) throws IOException {
+        List<String> loaded = new ArrayList<>();
+
+        assertTrue(snapshot.load(generation -> {
+            loaded.clear();
+            loaded.add(read(generation));
+        }));
+
+        return loaded;
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
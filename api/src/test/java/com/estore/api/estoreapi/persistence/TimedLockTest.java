@@ -0,0 +1,87 @@
+package com.estore.api.estoreapi.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the TimedLock
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Persistence-Tier")
+class TimedLockTest {
+    List<String> reports;
+    TimedLock lock;
+
+    @BeforeEach
+    void setupLock() {
+        reports = new ArrayList<>();
+        lock = new TimedLock("test");
+        lock.setMetrics(new PersistenceMetrics() {
+            @Override
+            public void lockWaited(String name, long nanos) {
+                assertTrue(nanos >= 0);
+                reports.add("wait " + name);
+            }
+
+            @Override
+            public void lockHeld(String name, long nanos) {
+                assertTrue(nanos >= 0);
+                reports.add("hold " + name);
+            }
+        });
+    }
+
+    @Test
+    void testReportsWaitAndHold() {
+        lock.lock();
+        lock.unlock();
+
+        assertEquals(List.of("wait test", "hold test"), reports);
+    }
+
+    @Test
+    void testOnlyOutermostHoldIsTimed() {
+        lock.lock();
+        lock.lock();
+        assertTrue(lock.tryLock());
+        lock.unlock();
+        lock.unlock();
+
+        assertEquals(List.of("wait test"), reports);
+
+        lock.unlock();
+
+        assertEquals(List.of("wait test", "hold test"), reports);
+    }
+
+    @Test
+    void testFailedTryLockIsNotTimed() throws InterruptedException {
+        Thread holder = new Thread(lock::lock);
+        holder.start();
+        holder.join();
+        reports.clear();
+
+        assertFalse(lock.tryLock());
+        assertTrue(reports.isEmpty());
+    }
+
+    @Test
+    void testNoMetricsByDefault() {
+        TimedLock plain = new TimedLock("plain");
+
+        plain.lock();
+        plain.unlock();
+        plain.setMetrics(PersistenceMetrics.NONE);
+        plain.lock();
+        plain.unlock();
+
+        assertTrue(reports.isEmpty());
+    }
+}
@@ -6,31 +6,38 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.spy;
 
 @Tag("Persistence-Tier")
 class UserAccFileDAOTest {
+    @TempDir
+    Path fileDir;
+
     UsersFileDAO usersFileDAO;
-    ObjectMapper mockObjMapper;
+    ObjectMapper spyObjMapper;
     UserAccount[] users;
 
     @BeforeEach
     void setupDAO() throws IOException {
-        mockObjMapper = mock(ObjectMapper.class);
+        spyObjMapper = spy(new ObjectMapper());
         users = new UserAccount[1];
         users[0] = new UserAccount("Jane", "Doe", "JD0", "password");
 
-
-        when(mockObjMapper.readValue(new File("UserFileTest.txt"), UserAccount[].class)).thenReturn(users);
-        usersFileDAO = new UsersFileDAO(mockObjMapper, "UserFileTest.txt");
+        File file = fileDir.resolve("UserFileTest.txt").toFile();
+        new ObjectMapper().writeValue(file, users);
+        usersFileDAO = new UsersFileDAO(spyObjMapper, file.getPath());
+        users[0] = usersFileDAO.getUserAccount(users[0].getUserName());
     }
 
     @Test
@@ -42,8 +49,10 @@ class UserAccFileDAOTest {
         assertEquals(user.getUserName(), actual.getUserName());
         assertEquals(user.getFirstName(), actual.getFirstName());
         assertEquals(user.getLastName(), actual.getLastName());
-        assertEquals(user.getPassword(), actual.getPassword());
+        assertNull(actual.getPassword());
+        assertTrue(PasswordHasher.isHash(actual.getPasswordHash()));
         assertEquals(user.getCart(), actual.getCart());
+        assertTrue(assertDoesNotThrow(() -> usersFileDAO.logInUserAccount("JD1", "password")));
     }
 
     @Test
@@ -60,6 +69,29 @@ class UserAccFileDAOTest {
         }
     }
 
+    @Test
+    void testCreateUserIllegalIgnoresCase() {
+        UserAccount user = new UserAccount("John", "Doe", "jd0", "password");
+
+        assertThrows(IllegalArgumentException.class, () -> usersFileDAO.createUserAccount(user));
+    }
+
+    @Test
+    void testCreateUserWithoutPassword() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> usersFileDAO.createUserAccount(new UserAccount("John", "Doe", "JD1", null)));
+        assertThrows(IllegalArgumentException.class, () -> usersFileDAO.createUserAccount(new UserAccount("John", "Doe", "JD1", " ")));
+
+        assertNull(usersFileDAO.getUserAccount("JD1"));
+        assertFalse(usersFileDAO.logInUserAccount("JD1", "null"));
+    }
+
+    @Test
+    void testCreateUserAfterDelete() throws IOException {
+        usersFileDAO.deleteUserAccount("JD0");
+
+        assertNotNull(usersFileDAO.createUserAccount(new UserAccount("John", "Doe", "jd0", "password")));
+    }
+
     @Test
     void testGetUser() throws IOException {
         UserAccount expected = users[0];
@@ -159,8 +191,217 @@ class UserAccFileDAOTest {
         assertEquals(actual, result);
     }
 
+    @Test
+    void testAccountCartReadOnly() throws IOException {
+        Map<Integer, Integer> cart = usersFileDAO.getUserAccount("JD0").getCart();
+
+        assertThrows(UnsupportedOperationException.class, () -> cart.put(1, 2));
+        assertThrows(UnsupportedOperationException.class, cart::clear);
+        assertEquals(Map.of(), usersFileDAO.getCart("JD0"));
+    }
+
+    @Test
+    void testClearCartIfUnchanged() throws IOException {
+        usersFileDAO.addToCart(users[0].getUserName(), 1, 2);
+        Map<Integer, Integer> snapshot = usersFileDAO.getCart(users[0].getUserName());
+
+        usersFileDAO.addToCart(users[0].getUserName(), 2, 1);
+        assertFalse(usersFileDAO.clearCartIfUnchanged(users[0].getUserName(), snapshot));
+        assertEquals(2, users[0].getCart().size());
+
+        snapshot.put(2, 1);
+        assertTrue(usersFileDAO.clearCartIfUnchanged(users[0].getUserName(), snapshot));
+        assertTrue(users[0].getCart().isEmpty());
+        assertFalse(usersFileDAO.clearCartIfUnchanged("nobody", snapshot));
+    }
+
     @Test
     void testGetCartUserNull() throws IOException {
         assertNull(usersFileDAO.getCart(null));
     }
+
+    @Test
+    void testWriteBehindFlush(@TempDir Path tempDir) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        File file = tempDir.resolve("users.json").toFile();
+        objectMapper.writeValue(file, users);
+
+        UsersFileDAO writeBehind = new UsersFileDAO(objectMapper, file.getPath(), "write-behind", 60_000, 1000, 1000, 1000);
+        writeBehind.createUserAccount(new UserAccount("John", "Doe", "JD1", "password"));
+        writeBehind.deleteUserAccount("JD0");
+
+        assertEquals(1, objectMapper.readValue(file, StoredUserAccount[].class).length);
+
+        writeBehind.flush();
+        StoredUserAccount[] saved = objectMapper.readValue(file, StoredUserAccount[].class);
+
+        assertEquals(2, saved.length);
+        assertTrue(objectMapper.readTree(file).findValue("passwordHash").asText().startsWith("pbkdf2"));
+        assertTrue(new UsersFileDAO(objectMapper, file.getPath()).logInUserAccount("JD1", "password"));
+        assertNull(new UsersFileDAO(objectMapper, file.getPath()).getUserAccount("JD0"));
+    }
+
+    @Test
+    void testWriteBehindDrainsOnClose(@TempDir Path tempDir) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        File file = tempDir.resolve("users.json").toFile();
+        objectMapper.writeValue(file, users);
+
+        UsersFileDAO writeBehind = new UsersFileDAO(objectMapper, file.getPath(), "write-behind", 60_000, 1000, 1000, 1000);
+        writeBehind.clearCart("JD0");
+        writeBehind.createUserAccount(new UserAccount("John", "Doe", "JD1", "password"));
+        writeBehind.close();
+
+        assertEquals(3, objectMapper.readValue(file, StoredUserAccount[].class).length);
+    }
+
+    @Test
+    void testCartLineChanges(@TempDir Path tempDir) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        File file = tempDir.resolve("users.json").toFile();
+        objectMapper.writeValue(file, users);
+
+        UsersFileDAO dao = new UsersFileDAO(objectMapper, file.getPath(), "sync", 1000, 100, 1000, 1000);
+        long sizeBefore = file.length();
+
+        assertEquals(2, dao.addToCart("JD0", 4, 2).get(4));
+        assertEquals(5, dao.addToCart("JD0", 4, 3).get(4));
+        assertEquals(1, dao.setCartQuantity("JD0", 7, 1).get(7));
+        assertFalse(dao.removeFromCart("JD0", 4).containsKey(4));
+        assertFalse(dao.setCartQuantity("JD0", 7, 0).containsKey(7));
+        assertEquals(3, dao.addToCart("JD0", 9, 3).get(9));
+        assertNull(dao.addToCart("nobody", 9, 1));
+        assertThrows(IllegalArgumentException.class, () -> dao.addToCart("JD0", 9, 0));
+        assertThrows(IllegalArgumentException.class, () -> dao.setCartQuantity("JD0", 9, -1));
+
+        assertEquals(sizeBefore, file.length());
+        assertTrue(tempDir.resolve("users.json.carts").toFile().exists());
+
+        UsersFileDAO reloaded = new UsersFileDAO(objectMapper, file.getPath());
+        Map<Integer, Integer> expected = new HashMap<>();
+        expected.put(9, 3);
+
+        assertEquals(expected, reloaded.getCart("JD0"));
+    }
+
+    @Test
+    void testCartResetsJournaled(@TempDir Path tempDir) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        File file = tempDir.resolve("users.json").toFile();
+        objectMapper.writeValue(file, users);
+
+        UsersFileDAO writeBehind = new UsersFileDAO(objectMapper, file.getPath(), "write-behind", 60_000, 1000, 1000, 1000);
+        writeBehind.addToCart("JD0", 4, 2);
+        writeBehind.clearCart("JD0");
+        writeBehind.addToCart("JD0", 7, 1);
+        assertTrue(writeBehind.clearCartIfUnchanged("JD0", Map.of(7, 1)));
+
+        UserAccount replaced = new UserAccount("John", "Doe", "JD0", null);
+        replaced.setCart(Map.of(9, 3));
+        writeBehind.updateUserAccount(replaced);
+        writeBehind.addToCart("JD0", 5, 1);
+
+        assertEquals(Map.of(9, 3, 5, 1), new UsersFileDAO(objectMapper, file.getPath()).getCart("JD0"));
+    }
+
+    @Test
+    void testCartJournalCompacted(@TempDir Path tempDir) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        File file = tempDir.resolve("users.json").toFile();
+        objectMapper.writeValue(file, users);
+
+        UsersFileDAO dao = new UsersFileDAO(objectMapper, file.getPath(), "sync", 1000, 100, 3, 1000);
+
+        for (int i = 0; i < 3; i++) {
+            dao.addToCart("JD0", i, 1);
+        }
+
+        assertFalse(tempDir.resolve("users.json.carts").toFile().exists());
+        assertEquals(3, new UsersFileDAO(objectMapper, file.getPath()).getCart("JD0").size());
+    }
+
+    @Test
+    void testConcurrentCreatesKeepNamesUnique() throws InterruptedException {
+        AtomicInteger created = new AtomicInteger();
+        Thread[] writers = new Thread[8];
+
+        for (int i = 0; i < writers.length; i++) {
+            String name = i % 2 == 0 ? "shopper" : "SHOPPER";
+            String own = "writer" + i;
+
+            writers[i] = new Thread(() -> {
+                try {
+                    usersFileDAO.createUserAccount(new UserAccount("A", "B", name, "pw"));
+                    created.incrementAndGet();
+                } catch (IllegalArgumentException | IOException e) {
+                    // name taken
+                }
+
+                assertDoesNotThrow(() -> usersFileDAO.createUserAccount(new UserAccount("A", "B", own, "pw")));
+            });
+            writers[i].start();
+        }
+
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertEquals(1, created.get());
+        assertEquals(8, IntStream.range(0, 8)
+                .filter(i -> assertDoesNotThrow(() -> usersFileDAO.logInUserAccount("writer" + i, "pw")))
+                .count());
+    }
+
+    @Test
+    void testLegacyPasswordUpgradedOnLogin() throws IOException {
+        assertFalse(usersFileDAO.logInUserAccount("JD0", "wrong"));
+        assertNull(usersFileDAO.getUserAccount("JD0").getPasswordHash());
+
+        usersFileDAO.addToCart("JD0", 3, 1);
+        assertTrue(usersFileDAO.logInUserAccount("JD0", "password"));
+
+        UserAccount upgraded = usersFileDAO.getUserAccount("JD0");
+
+        assertNull(upgraded.getPassword());
+        assertTrue(PasswordHasher.isHash(upgraded.getPasswordHash()));
+        assertEquals(1, upgraded.getCart().get(3));
+        assertTrue(usersFileDAO.logInUserAccount("JD0", "password"));
+        assertFalse(usersFileDAO.logInUserAccount("JD0", "wrong"));
+    }
+
+    @Test
+    void testUpdateKeepsOrReplacesPasswordHash() throws IOException {
+        usersFileDAO.createUserAccount(new UserAccount("John", "Doe", "JD1", "first"));
+        String firstHash = usersFileDAO.getUserAccount("JD1").getPasswordHash();
+
+        UserAccount renamed = new UserAccount("Johnny", "Doe", "JD1", null);
+        renamed.setPasswordHash("pbkdf2-sha256$1$forged$forged");
+        usersFileDAO.updateUserAccount(renamed);
+
+        assertEquals(firstHash, usersFileDAO.getUserAccount("JD1").getPasswordHash());
+        assertTrue(usersFileDAO.logInUserAccount("JD1", "first"));
+
+        usersFileDAO.updateUserAccount(new UserAccount("Johnny", "Doe", "JD1", "second"));
+
+        assertFalse(usersFileDAO.logInUserAccount("JD1", "first"));
+        assertTrue(usersFileDAO.logInUserAccount("JD1", "second"));
+    }
+
+    @Test
+    void testSmileFormatWrittenAndReloaded(@TempDir Path tempDir) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        File file = tempDir.resolve("users.json").toFile();
+        objectMapper.writeValue(file, new UserAccount[] {new UserAccount("Jane", "Doe", "JD0", "password")});
+
+        UsersFileDAO smile = new UsersFileDAO(objectMapper, file.getPath(), "sync", 1000, 100, 1000, 1000, 1, "smile");
+        smile.createUserAccount(new UserAccount("John", "Doe", "JD1", "secret"));
+        smile.close();
+
+        assertEquals(SnapshotFormat.SMILE, SnapshotFormat.detect(file));
+
+        UsersFileDAO reloaded = new UsersFileDAO(objectMapper, file.getPath());
+
+        assertNotNull(reloaded.getUserAccount("JD0"));
+        assertTrue(reloaded.logInUserAccount("JD1", "secret"));
+    }
 }
@@ -0,0 +1,76 @@
+package com.estore.api.estoreapi.persistence;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the WriteBehindFlusher
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Persistence-Tier")
+class WriteBehindFlusherTest {
+    @Test
+    void testFlushCoalescesMutations() throws IOException {
+        AtomicInteger writes = new AtomicInteger();
+        WriteBehindFlusher flusher = new WriteBehindFlusher("test-flusher", writes::incrementAndGet, 60_000, 1000);
+
+        for (int i = 0; i < 10; i++) {
+            flusher.markDirty();
+        }
+
+        assertEquals(10, flusher.pending());
+
+        flusher.flush();
+        flusher.flush();
+
+        assertEquals(1, writes.get());
+        assertEquals(0, flusher.pending());
+
+        flusher.close();
+    }
+
+    @Test
+    void testBatchSizeTriggersFlush() throws InterruptedException, IOException {
+        CountDownLatch written = new CountDownLatch(1);
+        WriteBehindFlusher flusher = new WriteBehindFlusher("test-flusher", written::countDown, 60_000, 3);
+
+        flusher.markDirty();
+        flusher.markDirty();
+        flusher.markDirty();
+
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+
+        flusher.close();
+    }
+
+    @Test
+    void testCloseDrainsPendingMutations() throws IOException {
+        AtomicInteger writes = new AtomicInteger();
+        WriteBehindFlusher flusher = new WriteBehindFlusher("test-flusher", writes::incrementAndGet, 60_000, 1000);
+
+        flusher.markDirty();
+        flusher.close();
+
+        assertEquals(1, writes.get());
+    }
+
+    @Test
+    void testFailedFlushStaysPending() {
+        WriteBehindFlusher flusher = new WriteBehindFlusher("test-flusher", () -> {
+            throw new IOException("disk full");
+        }, 60_000, 1000);
+
+        flusher.markDirty();
+
+        assertThrows(IOException.class, flusher::flush);
+        assertEquals(1, flusher.pending());
+    }
+}
@@ -0,0 +1,118 @@
+package com.estore.api.estoreapi.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the IntIntHashMap
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Persistence-Tier")
+class IntIntHashMapTest {
+    IntIntHashMap map;
+
+    @BeforeEach
+    void setupMap() {
+        map = new IntIntHashMap();
+        map.put(0, 5);
+        map.put(1, 2);
+        map.put(-3, 7);
+    }
+
+    @Test
+    void testGetAndPut() {
+        assertEquals(5, map.getOrDefault(0, -1));
+        assertEquals(7, map.getOrDefault(-3, -1));
+        assertEquals(-1, map.getOrDefault(9, -1));
+
+        map.put(1, 4);
+
+        assertEquals(4, map.getOrDefault(1, 0));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    void testRemove() {
+        assertTrue(map.remove(0));
+        assertFalse(map.remove(0));
+        assertTrue(map.remove(1));
+        assertFalse(map.containsKey(1));
+        assertTrue(map.containsKey(-3));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testRemoveKeepsProbeRuns() {
+        IntIntHashMap large = new IntIntHashMap();
+
+        for (int i = 1; i <= 5_000; i++) {
+            large.put(i, i * 2);
+        }
+
+        for (int i = 1; i <= 5_000; i += 2) {
+            large.remove(i);
+        }
+
+        assertEquals(2_500, large.size());
+
+        for (int i = 1; i <= 5_000; i++) {
+            assertEquals(i % 2 == 0 ? i * 2 : -1, large.getOrDefault(i, -1));
+        }
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        IntIntHashMap copy = map.copy();
+        copy.put(1, 9);
+        copy.remove(0);
+
+        assertEquals(2, map.getOrDefault(1, 0));
+        assertTrue(map.containsKey(0));
+        assertNotEquals(map, copy);
+        assertEquals(map, IntIntHashMap.copyOf(map.toMap()));
+        assertEquals(map.hashCode(), IntIntHashMap.copyOf(map.toMap()).hashCode());
+    }
+
+    @Test
+    void testMapView() {
+        Map<Integer, Integer> expected = new HashMap<>();
+        expected.put(0, 5);
+        expected.put(1, 2);
+        expected.put(-3, 7);
+        Map<Integer, Integer> view = map.asMap();
+
+        assertEquals(expected, view);
+        assertEquals(view, expected);
+        assertNull(view.get(4));
+        assertNull(view.get("4"));
+
+        view.put(4, 1);
+        view.remove(-3);
+
+        assertEquals(1, map.getOrDefault(4, 0));
+        assertFalse(map.containsKey(-3));
+
+        Iterator<Map.Entry<Integer, Integer>> iterator = view.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next().getKey() == 0) {
+                iterator.remove();
+            }
+        }
+
+        assertFalse(map.containsKey(0));
+
+        view.clear();
+
+        assertTrue(map.isEmpty());
+        assertEquals(IntIntHashMap.copyOf(null), map);
+    }
+}
@@ -0,0 +1,192 @@
+package com.estore.api.estoreapi.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the IntObjectHashMap
+ *
+ * @author SWEN-261 Project Team One
+ */
+@Tag("Persistence-Tier")
+class IntObjectHashMapTest {
+    IntObjectHashMap<String> map;
+
+    @BeforeEach
+    void setupMap() {
+        map = new IntObjectHashMap<>();
+        map.put(3, "three");
+        map.put(0, "zero");
+        map.put(-7, "minus seven");
+    }
+
+    @Test
+    void testGetAndReplace() {
+        assertEquals("zero", map.get(0));
+        assertEquals("minus seven", map.get(-7));
+        assertNull(map.get(4));
+        assertEquals("three", map.put(3, "THREE"));
+        assertEquals("THREE", map.get(3));
+        assertEquals(3, map.size());
+        assertThrows(NullPointerException.class, () -> map.put(5, null));
+    }
+
+    @Test
+    void testRemoveAndPutAgain() {
+        assertEquals("zero", map.remove(0));
+        assertNull(map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertEquals(2, map.size());
+        assertNull(map.put(0, "again"));
+        assertEquals("again", map.get(0));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    void testGrowKeepsEntries() {
+        for (int i = 10; i < 10_000; i++) {
+            map.put(i, "value " + i);
+        }
+
+        for (int i = 10; i < 5_000; i++) {
+            map.remove(i);
+        }
+
+        for (int i = 20_000; i < 30_000; i++) {
+            map.put(i, "value " + i);
+        }
+
+        assertEquals(3 + 5_000 + 10_000, map.size());
+        assertEquals("value 9999", map.get(9999));
+        assertNull(map.get(4999));
+        assertEquals("value 29999", map.get(29999));
+    }
+
+    @Test
+    void testSortedKeys() {
+        int[] first = map.sortedKeys();
+
+        assertArrayEquals(new int[]{-7, 0, 3}, first);
+        assertSame(first, map.sortedKeys());
+
+        map.put(3, "replaced");
+
+        assertSame(first, map.sortedKeys());
+
+        map.put(1, "one");
+        map.remove(-7);
+
+        assertArrayEquals(new int[]{0, 1, 3}, map.sortedKeys());
+    }
+
+    @Test
+    void testValuesAfter() {
+        map.put(10, "ten");
+        map.put(5, "five");
+
+        assertEquals(List.of("three", "five"), map.valuesAfter(0, 2));
+        assertEquals(List.of("ten"), map.valuesAfter(5, 10));
+        assertEquals(List.of(), map.valuesAfter(10, 10));
+        assertEquals(List.of(), map.valuesAfter(-100, 0));
+
+        map.remove(3);
+
+        assertEquals(List.of("zero", "five", "ten"), map.valuesAfter(-7, 10));
+    }
+
+    @Test
+    void testKeyOrderFollowsWrites() {
+        Random random = new Random(42);
+        TreeMap<Integer, String> expected = new TreeMap<>(Map.of(-7, "minus seven", 0, "zero", 3, "three"));
+
+        // Descending inserts all land in the first block and keep splitting it
+        for (int key = -1_000; key > -4_000; key--) {
+            map.put(key, "value " + key);
+            expected.put(key, "value " + key);
+            assertEquals(List.of("value " + key), map.valuesAfter(key - 1, 1));
+        }
+
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(8_000) - 4_000;
+
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                map.put(key, "value " + key);
+                expected.put(key, "value " + key);
+            }
+
+            if (random.nextInt(20) == 0) {
+                int tail = (expected.isEmpty() ? 0 : expected.lastKey()) + 1 + random.nextInt(3);
+
+                map.put(tail, "tail");
+                expected.put(tail, "tail");
+            }
+
+            if (i % 7 == 0) {
+                assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), map.sortedKeys());
+
+                int after = random.nextInt(8_000) - 4_000;
+                List<String> page = new ArrayList<>(expected.tailMap(after, false).values());
+
+                assertEquals(page.subList(0, Math.min(1_500, page.size())), map.valuesAfter(after, 1_500));
+            }
+        }
+
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextInt(8_000) - 4_000;
+
+            map.remove(key);
+            expected.remove(key);
+        }
+
+        assertArrayEquals(expected.keySet().stream().mapToInt(Integer::intValue).toArray(), map.sortedKeys());
+    }
+
+    @Test
+    void testKeysAndClear() {
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+
+        assertArrayEquals(new int[]{-7, 0, 3}, keys);
+
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.sortedKeys().length);
+        assertNull(map.get(3));
+    }
+
+    @Test
+    void testReplaceDuringGrowthIsKept() throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        int[] written = new int[1];
+        Thread replacer = new Thread(() -> {
+            while (running.get()) {
+                map.put(3, "write " + ++written[0]);
+            }
+        });
+
+        replacer.start();
+
+        for (int i = 100; i < 200_000; i++) {
+            map.put(i, "value");
+        }
+
+        running.set(false);
+        replacer.join();
+
+        assertEquals("write " + written[0], map.get(3));
+    }
+}